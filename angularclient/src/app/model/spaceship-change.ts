@@ -0,0 +1,13 @@
+import { Spaceship } from './spaceship';
+
+/**
+ * A message from the server's change stream (GET /api/spaceships/changes).
+ * 'connected' and 'disconnected' report the stream itself; 'resync' means changes were missed
+ * (the client fell behind, or reconnected) and the list has to be reloaded.
+ */
+export type SpaceshipChange =
+  | { type: 'connected' }
+  | { type: 'disconnected' }
+  | { type: 'upsert', spaceship: Spaceship }
+  | { type: 'removed', id: number }
+  | { type: 'resync' };
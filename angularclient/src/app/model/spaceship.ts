@@ -2,4 +2,5 @@ export interface Spaceship {
   id?: number;
   name: string;
   model: string;
+  version?: number;
 }
\ No newline at end of file
@@ -1,8 +1,10 @@
-import { Injectable } from '@angular/core';
+import { Inject, Injectable, PLATFORM_ID } from '@angular/core';
+import { isPlatformBrowser } from '@angular/common';
 import { HttpClient, HttpParams } from '@angular/common/http';
-import { Observable, throwError } from 'rxjs';
+import { EMPTY, Observable, throwError } from 'rxjs';
 import { catchError, map } from 'rxjs/operators';
 import { Spaceship } from '../model/spaceship';
+import { SpaceshipChange } from '../model/spaceship-change';
 
 @Injectable({
   providedIn: 'root'
@@ -10,7 +12,7 @@ import { Spaceship } from '../model/spaceship';
 export class SpaceshipService {
   private apiUrl = 'http://localhost:8080/api/spaceships';
 
-  constructor(private http: HttpClient) { }
+  constructor(private http: HttpClient, @Inject(PLATFORM_ID) private platformId: Object) { }
 
   getAllSpaceships(page: number, size: number, name?: string, sort: string = 'id', direction: string = 'asc'): Observable<{ content: Spaceship[], totalPages: number, currentPage: number, totalItems: number, size: number }> {
     const adjustedPage = Math.max(0, page); // Ensure page is never negative
@@ -24,18 +26,14 @@ export class SpaceshipService {
     }
     console.log(`Sending request to ${this.apiUrl} with params:`, params.toString());
     return this.http.get<any>(this.apiUrl, { params }).pipe(
-      map((data: { content: any[], totalPages: number, currentPage: number, totalItems: number, size: number, number: number }) => {
+      map((data: { content: any[], totalPages: number, currentPage: number, totalElements: number, size: number, number: number }) => {
         //console.log('Raw API Response:', JSON.stringify(data, null, 2));
         if (data && Array.isArray(data.content)) {
           const result = {
-            content: data.content.map((item: any) => ({
-              id: item.id,
-              name: item.name,
-              model: item.model
-            })),
+            content: data.content as Spaceship[],
             totalPages: data.totalPages || 1,
             currentPage: data.currentPage !== undefined ? data.currentPage : data.number,
-            totalItems: data.totalItems,
+            totalItems: data.totalElements,
             size: data.size
           };
           //console.log('Processed API Response:', JSON.stringify(result, null, 2));
@@ -72,4 +70,38 @@ export class SpaceshipService {
   deleteSpaceship(id: number): Observable<void> {
     return this.http.delete<void>(`${this.apiUrl}/${id}`);
   }
+
+  /**
+   * Server-sent spaceship changes, optionally only for names containing `name`. The browser reconnects
+   * on its own after an error; every reconnect is reported as a 'resync', since changes may have been
+   * missed meanwhile. Nothing is emitted during server-side rendering.
+   */
+  watchSpaceships(name?: string): Observable<SpaceshipChange> {
+    if (!isPlatformBrowser(this.platformId) || typeof EventSource === 'undefined') {
+      return EMPTY;
+    }
+    return new Observable<SpaceshipChange>(subscriber => {
+      const url = name ? `${this.apiUrl}/changes?name=${encodeURIComponent(name)}` : `${this.apiUrl}/changes`;
+      const source = new EventSource(url);
+      let connectedBefore = false;
+      source.onopen = () => {
+        subscriber.next({ type: 'connected' });
+        if (connectedBefore) {
+          subscriber.next({ type: 'resync' });
+        }
+        connectedBefore = true;
+      };
+      source.onerror = () => subscriber.next({ type: 'disconnected' });
+      source.addEventListener('spaceship', event => {
+        // The whole spaceship: rows keep the version that updates are checked against
+        const spaceship: Spaceship = JSON.parse((event as MessageEvent).data);
+        subscriber.next({ type: 'upsert', spaceship });
+      });
+      source.addEventListener('spaceship-removed', event => {
+        subscriber.next({ type: 'removed', id: Number((event as MessageEvent).data) });
+      });
+      source.addEventListener('resync', () => subscriber.next({ type: 'resync' }));
+      return () => source.close();
+    });
+  }
 }
@@ -16,6 +16,8 @@ export class SpaceshipFormComponent implements OnInit {
   spaceshipForm: FormGroup;
   @Input() isEditMode = false;
   @Input() spaceshipId: number | null = null;
+  // Version the form was loaded at; the update is rejected if someone else saved in the meantime
+  private loadedVersion?: number;
 
   constructor(
     private formBuilder: FormBuilder,
@@ -38,6 +40,7 @@ export class SpaceshipFormComponent implements OnInit {
     this.spaceshipService.getSpaceshipById(id).subscribe(
       (spaceship: Spaceship) => {
         this.spaceshipForm.patchValue(spaceship);
+        this.loadedVersion = spaceship.version;
       },
       error => {
         console.error('Error loading spaceship', error);
@@ -49,12 +52,17 @@ export class SpaceshipFormComponent implements OnInit {
     if (this.spaceshipForm.valid) {
       const spaceship: Spaceship = this.spaceshipForm.value;
       if (this.isEditMode && this.spaceshipId) {
-        this.spaceshipService.updateSpaceship(this.spaceshipId, spaceship).subscribe(
+        this.spaceshipService.updateSpaceship(this.spaceshipId, { ...spaceship, version: this.loadedVersion }).subscribe(
           () => {
             this.activeModal.close('Submit click');
           },
           error => {
-            console.error('Error updating spaceship', error);
+            if (error.status === 409) {
+              console.error('Spaceship was changed by someone else, reloading it', error);
+              this.loadSpaceship(this.spaceshipId!);
+            } else {
+              console.error('Error updating spaceship', error);
+            }
           }
         );
       } else {
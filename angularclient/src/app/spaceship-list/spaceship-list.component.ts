@@ -1,6 +1,8 @@
-import { Component, OnInit, ChangeDetectorRef } from '@angular/core';
+import { Component, OnInit, OnDestroy, ChangeDetectorRef } from '@angular/core';
+import { Subscription } from 'rxjs';
 import { SpaceshipService } from '../service/spaceship.service';
 import { Spaceship } from '../model/spaceship';
+import { SpaceshipChange } from '../model/spaceship-change';
 import { CommonModule } from '@angular/common';
 import { RouterModule } from '@angular/router';
 import { NgbModal } from '@ng-bootstrap/ng-bootstrap';
@@ -15,7 +17,7 @@ import { SpaceshipFormComponent } from '../spaceship-form/spaceship-form.compone
   standalone: true,
   imports: [CommonModule, RouterModule, SpaceshipFormComponent, FormsModule],
 })
-export class SpaceshipListComponent implements OnInit {
+export class SpaceshipListComponent implements OnInit, OnDestroy {
   spaceships: Spaceship[] = [];
   loading = true;
   error: string | null = null;
@@ -26,6 +28,9 @@ export class SpaceshipListComponent implements OnInit {
   searchName: string = '';
   sortColumn: string = 'id';
   sortDirection: 'asc' | 'desc' = 'asc';
+  // True while the change stream is connected; the list is then patched by pushed changes instead of reloaded
+  live = false;
+  private changes?: Subscription;
 
   constructor(
     private spaceshipService: SpaceshipService,
@@ -35,6 +40,76 @@ export class SpaceshipListComponent implements OnInit {
 
   ngOnInit() {
     this.loadSpaceships();
+    this.watchChanges();
+  }
+
+  ngOnDestroy() {
+    this.changes?.unsubscribe();
+  }
+
+  /**
+   * (Re)subscribes to the change stream with the current name filter.
+   */
+  watchChanges() {
+    this.changes?.unsubscribe();
+    this.live = false;
+    this.changes = this.spaceshipService.watchSpaceships(this.searchName || undefined).subscribe({
+      next: (change) => this.applyChange(change),
+      error: (error) => {
+        console.error('Spaceship change stream failed:', error);
+        this.live = false;
+      }
+    });
+  }
+
+  applyChange(change: SpaceshipChange) {
+    switch (change.type) {
+      case 'connected':
+        this.live = true;
+        return;
+      case 'disconnected':
+        this.live = false;
+        return;
+      case 'resync':
+        this.loadSpaceships();
+        return;
+      case 'upsert': {
+        const index = this.spaceships.findIndex(spaceship => spaceship.id === change.spaceship.id);
+        if (index >= 0) {
+          if ((this.spaceships[index].version ?? -1) > (change.spaceship.version ?? -1)) {
+            // Loaded after this change was made
+            return;
+          }
+          this.spaceships[index] = change.spaceship;
+        } else if (this.showsNewSpaceships()) {
+          this.spaceships.push(change.spaceship);
+        }
+        break;
+      }
+      case 'removed': {
+        const remaining = this.spaceships.filter(spaceship => spaceship.id !== change.id);
+        if (remaining.length === this.spaceships.length) {
+          return;
+        }
+        this.spaceships = remaining;
+        if (remaining.length === 0 && this.currentPage > 0) {
+          // The page emptied out; let loadSpaceships settle on the new last page
+          this.loadSpaceships();
+          return;
+        }
+        break;
+      }
+    }
+    this.changeDetectorRef.detectChanges();
+  }
+
+  /**
+   * New spaceships get the highest id, so only the last page of an ascending id sort that still has room
+   * can show them without a reload.
+   */
+  private showsNewSpaceships(): boolean {
+    return this.sortColumn === 'id' && this.sortDirection === 'asc'
+      && this.currentPage >= this.totalPages - 1 && this.spaceships.length < this.pageSize;
   }
 
   sort(column: string) {
@@ -78,6 +153,7 @@ export class SpaceshipListComponent implements OnInit {
     } else {
       this.loadSpaceships();
     }
+    this.watchChanges();
   }
 
   clearSearch() {
@@ -85,6 +161,7 @@ export class SpaceshipListComponent implements OnInit {
     this.searchName = '';
     this.error = null;
     this.loadSpaceships();
+    this.watchChanges();
   }
 
   loadSpaceships() {
@@ -161,16 +238,21 @@ export class SpaceshipListComponent implements OnInit {
       this.spaceshipService.deleteSpaceship(spaceship.id).subscribe({
         next: () => {
           const isLastItemOnPage = this.spaceships.length === 1;
+          let pageChanged = false;
 
           if (isLastItemOnPage && this.currentPage > 0) {
             console.log('Last item on page deleted, moving to previous page');
             this.currentPage--;
+            pageChanged = true;
           } else {
             console.log('Item deleted, staying on current page');
           }
 
           console.log(`Current page after deletion logic: ${this.currentPage}`);
-          this.loadSpaceships();
+          // With the change stream connected, the removal arrives as a pushed change
+          if (pageChanged || !this.live) {
+            this.loadSpaceships();
+          }
         },
         error: (error) => {
           console.error('Error deleting spaceship:', error);
@@ -193,7 +275,9 @@ export class SpaceshipListComponent implements OnInit {
         console.log('Modal dismissed with reason:', reason);
       }
     ).finally(() => {
-      this.loadSpaceships(); // Refresh the list in all cases
+      if (!this.live) {
+        this.loadSpaceships(); // Without the change stream, refresh the list in all cases
+      }
     });
   }
 
@@ -208,7 +292,9 @@ export class SpaceshipListComponent implements OnInit {
         console.log('Modal dismissed with reason:', reason);
       }
     ).finally(() => {
-      this.loadSpaceships(); // Refresh the list in all cases
+      if (!this.live) {
+        this.loadSpaceships(); // Without the change stream, refresh the list in all cases
+      }
     });
   }
 }
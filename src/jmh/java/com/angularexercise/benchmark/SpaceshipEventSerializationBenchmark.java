@@ -0,0 +1,67 @@
+package com.angularexercise.benchmark;
+
+import com.angularexercise.kafka.SpaceshipEvent;
+import com.angularexercise.kafka.SpaceshipEventPublisher;
+import com.angularexercise.kafka.SpaceshipEventSerializer;
+import com.angularexercise.model.Spaceship;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding one spaceship event for {@code spaceship-topic}: the Avro {@link SpaceshipEventSerializer} the
+ * producer uses, against spring-kafka's {@link JsonSerializer} as a baseline. Both record sizes are printed
+ * at setup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpaceshipEventSerializationBenchmark {
+
+    private SpaceshipEvent event;
+    private SpaceshipEventSerializer avroSerializer;
+    private JsonSerializer<SpaceshipEvent> jsonSerializer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Spaceship spaceship = new Spaceship(1701L, "Enterprise", "Constitution Class");
+        spaceship.setVersion(3L);
+        event = SpaceshipEvent.updated(spaceship, "Enterprise", "Starship Class");
+        avroSerializer = new SpaceshipEventSerializer();
+        jsonSerializer = new JsonSerializer<>();
+        System.out.printf("%nAvro: %d bytes/record, JSON: %d bytes/record%n",
+                avroSerializer.serialize(SpaceshipEventPublisher.TOPIC, event).length,
+                jsonSerializer.serialize(SpaceshipEventPublisher.TOPIC, event).length);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        avroSerializer.close();
+        jsonSerializer.close();
+    }
+
+    @Benchmark
+    public byte[] avroSerializer() {
+        return avroSerializer.serialize(SpaceshipEventPublisher.TOPIC, event);
+    }
+
+    @Benchmark
+    public byte[] jsonSerializer() {
+        return jsonSerializer.serialize(SpaceshipEventPublisher.TOPIC, event);
+    }
+}
@@ -0,0 +1,66 @@
+package com.angularexercise.benchmark;
+
+import com.angularexercise.cache.SpaceshipPageKey;
+import com.angularexercise.model.Spaceship;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request work around the caches: building and hashing the page cache key (evaluated by the
+ * {@code @Cacheable} key expression on every call, hit or miss), and {@link Spaceship#equals}/{@link Spaceship#hashCode}
+ * as used when spaceships are compared or kept in hash-based collections.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpaceshipKeyBenchmark {
+
+    // Not final, so that the JIT cannot constant-fold the inputs
+    private String name = "Enterprise";
+    private String sort = "name";
+    private String direction = "ASC";
+    private Pageable pageable = PageRequest.of(3, 20);
+    private SpaceshipPageKey key = SpaceshipPageKey.of(name, sort, direction, pageable);
+    private SpaceshipPageKey equalKey = SpaceshipPageKey.of(name, sort, direction, pageable);
+    private Spaceship spaceship = new Spaceship(1701L, "Enterprise", "Constitution Class");
+    private Spaceship equalSpaceship = new Spaceship(1701L, "Enterprise", "Constitution Class");
+
+    @Benchmark
+    public SpaceshipPageKey pageKeyOf() {
+        return SpaceshipPageKey.of(name, sort, direction, pageable);
+    }
+
+    @Benchmark
+    public int pageKeyHashCode() {
+        return key.hashCode();
+    }
+
+    @Benchmark
+    public boolean pageKeyEquals() {
+        return key.equals(equalKey);
+    }
+
+    @Benchmark
+    public int spaceshipHashCode() {
+        return spaceship.hashCode();
+    }
+
+    @Benchmark
+    public boolean spaceshipEquals() {
+        return spaceship.equals(equalSpaceship);
+    }
+}
@@ -0,0 +1,112 @@
+package com.angularexercise.benchmark;
+
+import com.angularexercise.aspect.SpaceshipMetricsAspect;
+import com.angularexercise.model.Spaceship;
+import com.angularexercise.service.SpaceshipService;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What the metrics add to a call, on a Prometheus registry configured as in {@code application.properties}
+ * (percentile histograms for {@code spaceship.*}). The service is a stub answering {@code getSpaceshipById}
+ * from a field, so the difference between {@code proxied} and {@code timed} is the {@link SpaceshipMetricsAspect}
+ * alone: the join point, the timer lookup, two {@code nanoTime} reads and the recording. {@code timerRecord} is
+ * the recording by itself, as done per Kafka send and consumed batch, and {@code nanoTime} the clock read the
+ * timings are made of, whose cost depends on the machine's clock source. Run with {@code -t 4} to see contention
+ * on a shared timer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpaceshipMetricsBenchmark {
+
+    private SpaceshipService proxiedService;
+    private SpaceshipService timedService;
+    private Timer timer;
+    // Not final, so that the JIT cannot constant-fold the input
+    private Long id = 1701L;
+
+    @Setup
+    public void setUp() {
+        PrometheusMeterRegistry meterRegistry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        meterRegistry.config().meterFilter(new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id meterId, DistributionStatisticConfig config) {
+                return meterId.getName().startsWith("spaceship")
+                        ? DistributionStatisticConfig.builder()
+                        .percentilesHistogram(true)
+                        .minimumExpectedValue((double) Duration.ofNanos(100_000).toNanos())
+                        .maximumExpectedValue((double) Duration.ofSeconds(30).toNanos())
+                        .build().merge(config)
+                        : config;
+            }
+        });
+        proxiedService = proxy(null);
+        timedService = proxy(new SpaceshipMetricsAspect(meterRegistry));
+        timer = Timer.builder("spaceship.benchmark").register(meterRegistry);
+    }
+
+    @Benchmark
+    public Spaceship proxied() {
+        return proxiedService.getSpaceshipById(id);
+    }
+
+    @Benchmark
+    public Spaceship timed() {
+        return timedService.getSpaceshipById(id);
+    }
+
+    @Benchmark
+    public void timerRecord() {
+        timer.record(id, TimeUnit.NANOSECONDS);
+    }
+
+    @Benchmark
+    public long nanoTime() {
+        return System.nanoTime();
+    }
+
+    private static SpaceshipService proxy(SpaceshipMetricsAspect aspect) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(new StubSpaceshipService());
+        factory.setProxyTargetClass(true);
+        if (aspect != null) {
+            factory.addAspect(aspect);
+        }
+        return factory.getProxy();
+    }
+
+    public static class StubSpaceshipService extends SpaceshipService {
+
+        private final Spaceship spaceship = new Spaceship(1701L, "Enterprise", "Constitution Class");
+
+        public StubSpaceshipService() {
+            super(null, null, null, null, null);
+        }
+
+        @Override
+        public Spaceship getSpaceshipById(Long id) {
+            return spaceship;
+        }
+    }
+}
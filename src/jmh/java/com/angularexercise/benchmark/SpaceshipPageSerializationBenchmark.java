@@ -0,0 +1,99 @@
+package com.angularexercise.benchmark;
+
+import com.angularexercise.config.JacksonConfig;
+import com.angularexercise.model.Spaceship;
+import com.angularexercise.model.SpaceshipPage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializing one 100-spaceship page, the body of {@code GET /api/spaceships?size=100}:
+ * <ul>
+ *     <li>{@code indented-page}: a {@code PageImpl} with the former indenting mapper;</li>
+ *     <li>{@code compact-page}: the same {@code PageImpl} without indentation;</li>
+ *     <li>{@code compact-dto}: a {@link SpaceshipPage} with a plain compact mapper;</li>
+ *     <li>{@code blackbird-dto}: a {@link SpaceshipPage} with the application's mapper, as served now.</li>
+ * </ul>
+ * The body size of each variant is printed at setup. Add {@code -prof gc} to {@code jmh.args} for allocated
+ * bytes per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpaceshipPageSerializationBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"indented-page", "compact-page", "compact-dto", "blackbird-dto"})
+    public String variant;
+
+    private ObjectWriter writer;
+    private Object body;
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        List<Spaceship> spaceships = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            Spaceship spaceship = new Spaceship(300L + i, "Spaceship " + (300 + i), i % 5 == 0 ? null : "Model " + (i % 7));
+            spaceship.setVersion((long) (i % 3));
+            spaceships.add(spaceship);
+        }
+        Page<Spaceship> page = new PageImpl<>(spaceships, PageRequest.of(3, PAGE_SIZE, Sort.by("name")), 10_000);
+
+        ObjectMapper compact = new ObjectMapper().disable(SerializationFeature.FAIL_ON_EMPTY_BEANS);
+        switch (variant) {
+            case "indented-page" -> {
+                writer = compact.writer().with(SerializationFeature.INDENT_OUTPUT);
+                body = page;
+            }
+            case "compact-page" -> {
+                writer = compact.writer();
+                body = page;
+            }
+            case "compact-dto" -> {
+                writer = compact.writerFor(SpaceshipPage.class);
+                body = SpaceshipPage.of(page);
+            }
+            case "blackbird-dto" -> {
+                writer = new JacksonConfig().objectMapper().writerFor(SpaceshipPage.class);
+                body = SpaceshipPage.of(page);
+            }
+            default -> throw new IllegalArgumentException("Unknown variant: " + variant);
+        }
+        System.out.printf("%n%s: %d bytes/op%n", variant, serialize());
+    }
+
+    @Benchmark
+    public int serialize() throws IOException {
+        out.reset();
+        writer.writeValue(out, body);
+        return out.size();
+    }
+}
@@ -0,0 +1,100 @@
+package com.angularexercise.benchmark;
+
+import com.angularexercise.AngularExerciseApplication;
+import com.angularexercise.model.Spaceship;
+import com.angularexercise.service.SpaceshipService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * {@link SpaceshipService#getAllSpaceships} through the Spring proxy, on the application's H2 database and
+ * Caffeine caches. The miss benchmarks clear the page cache before every call, so they measure the key,
+ * the query (count included) and the cache put. Kafka is configured but never contacted: listeners do not
+ * start and the outbox relay does not run during the benchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpaceshipServiceBenchmark {
+
+    @Param({"10000"})
+    public int rows;
+
+    @Param({"20"})
+    public int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private SpaceshipService spaceshipService;
+    private Cache pageCache;
+    private Pageable pageable;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(AngularExerciseApplication.class).run(
+                "--spring.main.web-application-type=none",
+                "--spring.datasource.url=jdbc:h2:mem:benchmark",
+                "--spring.kafka.bootstrap-servers=localhost:1",
+                "--spring.kafka.listener.auto-startup=false",
+                "--spring.kafka.admin.auto-create=false",
+                "--app.cache.invalidation.enabled=false",
+                // The creation events stay in the outbox
+                "--app.outbox.poll-interval-ms=86400000",
+                "--logging.level.root=WARN");
+        spaceshipService = context.getBean(SpaceshipService.class);
+        context.getBean(JdbcTemplate.class).update("DELETE FROM spaceships");
+        for (int from = 0; from < rows; from += 5000) {
+            spaceshipService.createSpaceships(IntStream.range(from, Math.min(rows, from + 5000))
+                    .mapToObj(i -> new Spaceship("Spaceship " + i, "Model " + (i % 97)))
+                    .toList());
+        }
+        pageCache = context.getBean(CacheManager.class).getCache("spaceships");
+        pageable = PageRequest.of(rows / pageSize / 2, pageSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<Spaceship> cacheHit() {
+        return spaceshipService.getAllSpaceships(null, "name", "asc", pageable);
+    }
+
+    @Benchmark
+    public Page<Spaceship> cacheMiss() {
+        pageCache.clear();
+        return spaceshipService.getAllSpaceships(null, "name", "asc", pageable);
+    }
+
+    @Benchmark
+    public Page<Spaceship> cacheMissFiltered() {
+        pageCache.clear();
+        return spaceshipService.getAllSpaceships("ship 12", "name", "asc", PageRequest.of(0, pageSize));
+    }
+}
@@ -0,0 +1,114 @@
+package com.angularexercise.benchmark;
+
+import com.angularexercise.AngularExerciseApplication;
+import com.angularexercise.model.Spaceship;
+import com.angularexercise.service.SpaceshipService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Single-spaceship writes through {@link SpaceshipService}, on the application's H2 database. Every iteration
+ * gets {@value #BATCH} fresh spaceships and writes each of them once, so the score is the time of
+ * {@value #BATCH} writes; writes per second are {@value #BATCH} divided by it. At the end of every iteration
+ * the SQL statements per write, outbox insert included, are printed from Hibernate's statistics.
+ * <ul>
+ *     <li>{@code rename}: an update that changes the name, and with it the trigram rows;</li>
+ *     <li>{@code updateModel}: an update that keeps the name;</li>
+ *     <li>{@code delete}.</li>
+ * </ul>
+ * Kafka is configured but never contacted, as in {@link SpaceshipServiceBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, batchSize = SpaceshipWriteBenchmark.BATCH)
+@Measurement(iterations = 10, batchSize = SpaceshipWriteBenchmark.BATCH)
+@Fork(1)
+public class SpaceshipWriteBenchmark {
+
+    static final int BATCH = 2000;
+
+    private ConfigurableApplicationContext context;
+    private SpaceshipService spaceshipService;
+    private Statistics statistics;
+    private List<Spaceship> spaceships;
+    private int next;
+    private long statementsBefore;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(AngularExerciseApplication.class).run(
+                "--spring.main.web-application-type=none",
+                "--spring.datasource.url=jdbc:h2:mem:write-benchmark",
+                "--spring.kafka.bootstrap-servers=localhost:1",
+                "--spring.kafka.listener.auto-startup=false",
+                "--spring.kafka.admin.auto-create=false",
+                "--app.cache.invalidation.enabled=false",
+                "--app.outbox.poll-interval-ms=86400000",
+                "--spring.jpa.properties.hibernate.generate_statistics=true",
+                "--logging.level.root=WARN");
+        spaceshipService = context.getBean(SpaceshipService.class);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Setup(Level.Iteration)
+    public void createSpaceships() {
+        spaceships = spaceshipService.createSpaceships(IntStream.range(0, BATCH)
+                .mapToObj(i -> new Spaceship("Spaceship " + i, "Model " + (i % 97)))
+                .toList());
+        next = 0;
+        statementsBefore = statistics.getPrepareStatementCount();
+    }
+
+    @TearDown(Level.Iteration)
+    public void printStatements(BenchmarkParams params) {
+        System.out.printf("  %s: %.2f statements per write%n", params.getBenchmark().replaceAll(".*\\.", ""),
+                (double) (statistics.getPrepareStatementCount() - statementsBefore) / next);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Spaceship rename() {
+        Spaceship spaceship = spaceships.get(next++);
+        return spaceshipService.updateSpaceship(spaceship.getId(),
+                new Spaceship(spaceship.getName() + " refit", spaceship.getModel()), spaceship.getVersion());
+    }
+
+    @Benchmark
+    public Spaceship updateModel() {
+        Spaceship spaceship = spaceships.get(next++);
+        return spaceshipService.updateSpaceship(spaceship.getId(),
+                new Spaceship(spaceship.getName(), spaceship.getModel() + " refit"), spaceship.getVersion());
+    }
+
+    @Benchmark
+    public long delete() {
+        Spaceship spaceship = spaceships.get(next++);
+        spaceshipService.deleteSpaceship(spaceship.getId());
+        return spaceship.getId();
+    }
+}
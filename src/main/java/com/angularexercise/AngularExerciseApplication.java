@@ -9,6 +9,7 @@ import com.angularexercise.repository.SpaceshipRepository;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.EnableAspectJAutoProxy;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -16,6 +17,7 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 @EnableCaching
 @EnableJpaRepositories
 @EnableAspectJAutoProxy
+@EnableScheduling
 public class AngularExerciseApplication {
 
 	public static void main(String[] args) {
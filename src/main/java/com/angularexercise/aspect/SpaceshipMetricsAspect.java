@@ -0,0 +1,74 @@
+package com.angularexercise.aspect;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every public {@code SpaceshipService} method in {@code spaceship.service}, tagged by {@code method} and
+ * by {@code outcome} ({@code success}, or {@code failure} when it throws). The aspect wraps the caching and
+ * transaction interceptors, so the times are what callers see, cache hits included; methods returning a
+ * {@code Stream} are timed until the stream is returned, not consumed.
+ * <p>
+ * The timers of a method are looked up once and kept, so a call costs two {@code nanoTime} reads and one
+ * {@link Timer#record} on top of the proxy it already goes through.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SpaceshipMetricsAspect {
+
+    public static final String SERVICE_TIMER = "spaceship.service";
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<Method, Timers> timers = new ConcurrentHashMap<>();
+
+    @Autowired
+    public SpaceshipMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(public * com.angularexercise.service.SpaceshipService.*(..))")
+    public Object timeServiceCall(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timers methodTimers = timers(((MethodSignature) joinPoint.getSignature()).getMethod());
+        long start = System.nanoTime();
+        try {
+            Object result = joinPoint.proceed();
+            methodTimers.success().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (Throwable e) {
+            methodTimers.failure().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    private Timers timers(Method method) {
+        Timers methodTimers = timers.get(method);
+        if (methodTimers == null) {
+            methodTimers = timers.computeIfAbsent(method, m -> new Timers(timer(m, "success"), timer(m, "failure")));
+        }
+        return methodTimers;
+    }
+
+    private Timer timer(Method method, String outcome) {
+        return Timer.builder(SERVICE_TIMER)
+                .description("SpaceshipService calls")
+                .tag("method", method.getName())
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private record Timers(Timer success, Timer failure) {
+    }
+}
@@ -0,0 +1,266 @@
+package com.angularexercise.cache;
+
+import com.angularexercise.model.Spaceship;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * {@link SharedCacheTier} in a {@code spaceship_shared_cache} table, enabled by {@code app.cache.shared.enabled}.
+ * Values are stored as JSON with the application's {@link ObjectMapper}, under the JSON of their key, and live for
+ * {@code app.cache.shared.time-to-live} after they were written. Only spaceships, pages, slices and totals are
+ * stored; anything else stays in the near tier.
+ * <p>
+ * The tier is given a connection pool of its own, on {@code app.cache.shared.url} or else on the application's
+ * database, and its statements run there in auto-commit: a cached read does not roll back with the transaction it
+ * ran in, and the evictions run after a write has committed never wait for a second connection of the pool the
+ * committing one belongs to.
+ * <p>
+ * Pages and totals are stored with the columns {@link #evictAffected} selects on, so that it is one DELETE
+ * through the {@code (cache_name, filter_key)} index rather than a scan of the cache: the name filter, its
+ * first three characters as {@code filter_key} (a filter contained in a name has its first three characters
+ * there too), whether a page is sorted by id, and the lowest and highest id it holds.
+ */
+public class JdbcSharedCacheTier implements SharedCacheTier, AutoCloseable {
+
+    /**
+     * Beyond this many candidate filter keys the DELETE reads all of the cache's rows instead of the index.
+     */
+    static final int MAX_FILTER_KEYS = 1000;
+    private static final Logger logger = LoggerFactory.getLogger(JdbcSharedCacheTier.class);
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration timeToLive;
+    private final ObjectMapper objectMapper;
+    private final AtomicLong nextPurge = new AtomicLong();
+
+    /**
+     * @param dataSource The tier's own pool: its statements must not join the callers' transactions.
+     */
+    public JdbcSharedCacheTier(DataSource dataSource, Duration timeToLive, ObjectMapper objectMapper) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.timeToLive = timeToLive;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public Object get(String cacheName, Object key) {
+        List<String> values = jdbcTemplate.query(
+                "SELECT cache_value FROM spaceship_shared_cache WHERE cache_name = ? AND cache_key = ? AND expires_at > ?",
+                (rs, row) -> rs.getString(1), cacheName, toJson(key), Timestamp.from(Instant.now()));
+        return values.isEmpty() ? null : decode(key, values.get(0));
+    }
+
+    @Override
+    public void put(String cacheName, Object key, Object value) {
+        Entry entry = Entry.of(value);
+        if (entry == null) {
+            logger.debug("{} values are not stored in the shared tier, key {} of cache {} is kept in the near tier only",
+                    value.getClass().getSimpleName(), key, cacheName);
+            return;
+        }
+        String cacheKey = toJson(key);
+        String cacheValue = toJson(entry);
+        String nameFilter = null;
+        Boolean sortedById = null;
+        Long minId = null;
+        Long maxId = null;
+        if (key instanceof SpaceshipPageKey pageKey) {
+            nameFilter = pageKey.nameFilter() == null ? "" : pageKey.nameFilter();
+            sortedById = pageKey.isSortedById();
+            minId = entry.content().stream().map(Spaceship::getId).min(Long::compare).orElse(null);
+            maxId = entry.content().stream().map(Spaceship::getId).max(Long::compare).orElse(null);
+        } else if (key instanceof String filter) {
+            nameFilter = filter;
+        }
+        String filterKey = nameFilter == null ? null : SpaceshipPageKey.filterKey(nameFilter);
+        Instant now = Instant.now();
+        Timestamp expiresAt = Timestamp.from(now.plus(timeToLive));
+        purgeExpired(now);
+        int updated = jdbcTemplate.update("UPDATE spaceship_shared_cache SET cache_value = ?, name_filter = ?, filter_key = ?,"
+                        + " sorted_by_id = ?, min_id = ?, max_id = ?, expires_at = ? WHERE cache_name = ? AND cache_key = ?",
+                cacheValue, nameFilter, filterKey, sortedById, minId, maxId, expiresAt, cacheName, cacheKey);
+        if (updated == 0) {
+            try {
+                jdbcTemplate.update("INSERT INTO spaceship_shared_cache (cache_name, cache_key, cache_value, name_filter, filter_key,"
+                                + " sorted_by_id, min_id, max_id, expires_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                        cacheName, cacheKey, cacheValue, nameFilter, filterKey, sortedById, minId, maxId, expiresAt);
+            } catch (DuplicateKeyException e) {
+                // Another node stored the same entry in between; either value is current
+            }
+        }
+    }
+
+    @Override
+    public void evict(String cacheName, Object key) {
+        jdbcTemplate.update("DELETE FROM spaceship_shared_cache WHERE cache_name = ? AND cache_key = ?", cacheName, toJson(key));
+    }
+
+    @Override
+    public void clear(String cacheName) {
+        jdbcTemplate.update("DELETE FROM spaceship_shared_cache WHERE cache_name = ?", cacheName);
+    }
+
+    /**
+     * One DELETE of the pages and totals whose filter a change matched before or matches after it, restricted
+     * to the filter keys found in the changed names. A page whose filter a spaceship stayed in goes only when its
+     * order can change, that is unless it is sorted by id and the id is outside the ones it holds; a total goes
+     * only when the spaceship entered or left its filter. Entries under other keys are left alone.
+     */
+    @Override
+    public void evictAffected(String cacheName, Collection<SpaceshipChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        List<Object> args = new ArrayList<>();
+        args.add(cacheName);
+        StringBuilder sql = new StringBuilder("DELETE FROM spaceship_shared_cache WHERE cache_name = ?");
+        Set<String> filterKeys = new LinkedHashSet<>();
+        filterKeys.add("");
+        for (SpaceshipChange change : changes) {
+            filterKeys.addAll(SpaceshipPageKey.filterKeysIn(change.oldName()));
+            filterKeys.addAll(SpaceshipPageKey.filterKeysIn(change.newName()));
+        }
+        if (filterKeys.size() <= MAX_FILTER_KEYS) {
+            sql.append(filterKeys.stream().map(filterKey -> "?").collect(Collectors.joining(", ", " AND filter_key IN (", ")")));
+            args.addAll(filterKeys);
+        } else {
+            sql.append(" AND filter_key IS NOT NULL");
+        }
+        List<String> clauses = new ArrayList<>(changes.size());
+        for (SpaceshipChange change : changes) {
+            List<Object> before = new ArrayList<>(1);
+            String matchedBefore = change.type() == SpaceshipChange.Type.CREATED ? "FALSE" : matches(change.oldName(), before);
+            List<Object> after = new ArrayList<>(1);
+            String matchesAfter = change.type() == SpaceshipChange.Type.DELETED ? "FALSE" : matches(change.newName(), after);
+            clauses.add("(" + matchedBefore + ") <> (" + matchesAfter + ") OR (" + matchedBefore + ") AND (" + matchesAfter + ")"
+                    + " AND (sorted_by_id = FALSE OR sorted_by_id AND ? BETWEEN min_id AND max_id)");
+            args.addAll(before);
+            args.addAll(after);
+            args.addAll(before);
+            args.addAll(after);
+            args.add(change.id());
+        }
+        sql.append(clauses.stream().collect(Collectors.joining(" OR ", " AND (", ")")));
+        int evicted = jdbcTemplate.update(sql.toString(), args.toArray());
+        logger.debug("Evicted {} shared entries of cache {} for {} change(s)", evicted, cacheName, changes.size());
+    }
+
+    /**
+     * Closes the tier's pool when it is one that can be closed.
+     */
+    @Override
+    public void close() throws Exception {
+        if (dataSource instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    /**
+     * The condition that a row's name filter matches {@code name}, as {@link SpaceshipPageKey#matches(String, String)}
+     * has it, adding its argument to {@code args}.
+     */
+    private static String matches(String name, List<Object> args) {
+        if (name == null) {
+            return "name_filter = ''";
+        }
+        args.add(name.toLowerCase(Locale.ROOT));
+        return "name_filter = '' OR LOCATE(name_filter, ?) > 0";
+    }
+
+    /**
+     * Deletes the expired rows, which are otherwise only ignored, at most once per time to live.
+     */
+    private void purgeExpired(Instant now) {
+        long next = nextPurge.get();
+        if (now.toEpochMilli() >= next && nextPurge.compareAndSet(next, now.plus(timeToLive).toEpochMilli())) {
+            jdbcTemplate.update("DELETE FROM spaceship_shared_cache WHERE expires_at <= ?", Timestamp.from(now));
+        }
+    }
+
+    private String toJson(Object object) {
+        try {
+            return objectMapper.writeValueAsString(object);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot write " + object.getClass().getSimpleName() + " as JSON", e);
+        }
+    }
+
+    /**
+     * @return The value, or null when it was written by a version whose format this one cannot read: a miss.
+     */
+    private Object decode(Object key, String json) {
+        try {
+            return objectMapper.readValue(json, Entry.class).value(key);
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            logger.warn("Shared cache entry cannot be read, it is treated as missing: {}", e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * The stored form of a value: exactly one of {@code spaceship}, {@code content} (with {@code total} for a
+     * page, {@code hasNext} for a slice) and {@code count} is set. A page's sort is that of its key.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    record Entry(Spaceship spaceship, List<Spaceship> content, Integer page, Integer size, Long total, Boolean hasNext,
+                 Long count) {
+
+        static Entry of(Object value) {
+            if (value instanceof Spaceship spaceship) {
+                return new Entry(spaceship, null, null, null, null, null, null);
+            }
+            if (value instanceof Long count) {
+                return new Entry(null, null, null, null, null, null, count);
+            }
+            if (value instanceof Slice<?> slice && slice.getContent().stream().allMatch(Spaceship.class::isInstance)) {
+                List<Spaceship> content = slice.getContent().stream().map(Spaceship.class::cast).toList();
+                return slice instanceof Page<?> page
+                        ? new Entry(null, content, page.getNumber(), page.getSize(), page.getTotalElements(), null, null)
+                        : new Entry(null, content, slice.getNumber(), slice.getSize(), null, slice.hasNext(), null);
+            }
+            return null;
+        }
+
+        Object value(Object key) {
+            if (spaceship != null) {
+                return spaceship;
+            }
+            if (count != null) {
+                return count;
+            }
+            if (content == null || page == null || size == null) {
+                throw new IllegalArgumentException("Entry holds no value");
+            }
+            Pageable pageable = key instanceof SpaceshipPageKey pageKey
+                    ? PageRequest.of(page, size, Sort.by(Sort.Direction.fromString(pageKey.direction()), pageKey.sort()))
+                    : PageRequest.of(page, size);
+            return total != null ? new PageImpl<>(content, pageable, total) : new SliceImpl<>(content, pageable, Boolean.TRUE.equals(hasNext));
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.angularexercise.cache;
+
+import java.util.Collection;
+
+/**
+ * The shared second tier behind every node's {@link TwoTierCache near caches}: one store that all replicas read
+ * and write, such as a Redis or Hazelcast cluster. A deployment enables the two tiers by providing a bean of
+ * this type, or with {@code app.cache.shared.enabled}, which stores the tier in the database
+ * ({@link JdbcSharedCacheTier}); without one, every node keeps a single tier of its own.
+ * <p>
+ * Values are the cached pages, spaceships and totals themselves; a store outside the JVM has to serialize them.
+ */
+public interface SharedCacheTier {
+
+    /**
+     * @return The value stored for {@code key} in cache {@code cacheName}, or null on a miss.
+     */
+    Object get(String cacheName, Object key);
+
+    void put(String cacheName, Object key, Object value);
+
+    void evict(String cacheName, Object key);
+
+    void clear(String cacheName);
+
+    /**
+     * Removes the entries of cache {@code cacheName} that {@code changes} can affect, as
+     * {@link SpaceshipCacheInvalidator#affects(Object, Object, Collection)} decides for a near tier: pages by their
+     * name filter, sort and content, totals by their name filter. A store that cannot select them on its side may
+     * clear the whole cache instead: that is still correct, it only costs hits.
+     */
+    void evictAffected(String cacheName, Collection<SpaceshipChange> changes);
+}
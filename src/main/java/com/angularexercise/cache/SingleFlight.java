@@ -0,0 +1,80 @@
+package com.angularexercise.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Per-key deduplication of concurrent loads. The first caller for a key runs the loader on its own thread;
+ * callers that arrive while it runs wait for its result instead of running the same query again, so a cache
+ * miss on a hot key costs one query however many requests hit it at once. A waiter that is not served within
+ * its timeout runs the loader itself, so one stuck query cannot stall every request for its key. An exception
+ * of the loader is thrown to every caller of that load.
+ */
+public class SingleFlight<K, V> {
+
+    private static final Logger logger = LoggerFactory.getLogger(SingleFlight.class);
+    private final ConcurrentMap<K, CompletableFuture<V>> flights = new ConcurrentHashMap<>();
+
+    public V load(K key, Supplier<V> loader, Duration timeout) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> leader = flights.putIfAbsent(key, flight);
+        if (leader == null) {
+            try {
+                V value = loader.get();
+                flight.complete(value);
+                return value;
+            } catch (RuntimeException | Error e) {
+                flight.completeExceptionally(e);
+                throw e;
+            } finally {
+                flights.remove(key, flight);
+            }
+        }
+        try {
+            return leader.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            logger.warn("Load of {} still running after {} ms, loading it again", key, timeout.toMillis());
+            return loader.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the load of " + key, e);
+        }
+    }
+
+    /**
+     * Makes later callers start new loads instead of joining the running ones, which may have read the data
+     * before a write. Callers already waiting still get the running loads' results.
+     */
+    public void forgetAll() {
+        flights.clear();
+    }
+
+    /**
+     * {@link #forgetAll()} for the keys that match {@code forget} only; loads of other keys are still joined.
+     */
+    public void forgetIf(Predicate<K> forget) {
+        flights.keySet().removeIf(forget);
+    }
+
+    int inFlight() {
+        return flights.size();
+    }
+}
@@ -0,0 +1,265 @@
+package com.angularexercise.cache;
+
+import com.angularexercise.config.CacheConfig;
+import com.angularexercise.kafka.SpaceshipCacheInvalidationPublisher;
+import com.angularexercise.model.Spaceship;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Evicts only the cache entries a write can affect, instead of wiping whole caches.
+ * <ul>
+ *     <li>{@code spaceship}: only the ids that were updated or deleted.</li>
+ *     <li>{@code spaceships}: pages whose name filter matches the old or new name. A page sorted by id
+ *     survives an update that leaves it out of its content and does not change its filter membership,
+ *     because no row moves and the total stays the same.</li>
+ *     <li>{@code spaceshipCounts}: filtered totals whose filter a spaceship entered or left.</li>
+ * </ul>
+ * Pages are looked up by the filter keys of the changed names in the {@link SpaceshipPageCache}, which also keeps
+ * a page loaded before a write from being cached after the write's eviction.
+ * The node that made the write evicts its own caches, including the shared tier of a {@link TwoTierCache}, and
+ * then publishes the changes on the invalidation topic; every other node applies them to the tier it keeps
+ * itself.
+ */
+@Component
+public class SpaceshipCacheInvalidator {
+
+    /**
+     * Beyond this many changes nearly every page is affected and matching each one costs more than reloading.
+     */
+    public static final int BULK_CLEAR_THRESHOLD = 64;
+    private static final Logger logger = LoggerFactory.getLogger(SpaceshipCacheInvalidator.class);
+    private final CacheManager cacheManager;
+    private final SpaceshipCacheInvalidationPublisher publisher;
+    private final List<Consumer<Collection<SpaceshipChange>>> invalidationListeners = new CopyOnWriteArrayList<>();
+    // A local write is in flight from the moment it registers its invalidation until its listeners have run
+    private final AtomicLong writesStarted = new AtomicLong();
+    private final AtomicLong writesFinished = new AtomicLong();
+
+    @Autowired
+    public SpaceshipCacheInvalidator(CacheManager cacheManager, SpaceshipCacheInvalidationPublisher publisher) {
+        this.cacheManager = cacheManager;
+        this.publisher = publisher;
+    }
+
+    /**
+     * Registers a callback run with the changes before every eviction, local or from another node, for state that
+     * must follow the cache entries, such as loads that may have read the data before the write. It receives
+     * null when another node changed too many spaceships to list them.
+     */
+    public void addInvalidationListener(Consumer<Collection<SpaceshipChange>> listener) {
+        invalidationListeners.add(listener);
+    }
+
+    /**
+     * A stamp of this node's writes, for readers that must know whether a query they ran can have seen a
+     * write whose listeners have not run yet: if the stamp is the same non-negative value before and after the
+     * query, no such write committed in between.
+     *
+     * @return -1 while a write is between registering its invalidation and the end of its listeners
+     */
+    public long quietWriteStamp() {
+        long finished = writesFinished.get();
+        long started = writesStarted.get();
+        return started == finished ? started : -1;
+    }
+
+    public void invalidate(SpaceshipChange change) {
+        invalidate(List.of(change));
+    }
+
+    /**
+     * Applies a group of changes with a single pass over each cache. Inside a transaction the
+     * eviction is deferred until after commit, so a concurrent reader cannot re-cache the
+     * pre-commit state right after it was evicted. Other nodes are told once this node's caches are clean.
+     */
+    public void invalidate(Collection<SpaceshipChange> changes) {
+        writesStarted.incrementAndGet();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(changes, true);
+                    publisher.publish(changes);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    writesFinished.incrementAndGet();
+                }
+            });
+        } else {
+            try {
+                evict(changes, true);
+                publisher.publish(changes);
+            } finally {
+                writesFinished.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Applies changes written by another node. That node has already evicted the shared tier, so only the
+     * caches of this node are touched.
+     *
+     * @param changes The changes, or null when the other node changed too many spaceships to list them.
+     */
+    public void invalidateNear(Collection<SpaceshipChange> changes) {
+        if (changes == null) {
+            invalidationListeners.forEach(listener -> listener.accept(null));
+            clearNear(CacheConfig.SPACESHIP_CACHE);
+            clearNear(CacheConfig.SPACESHIPS_CACHE);
+            clearNear(CacheConfig.SPACESHIP_COUNTS_CACHE);
+        } else {
+            evict(changes, false);
+        }
+    }
+
+    private void clearNear(String cacheName) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            near(cache).clear();
+        }
+    }
+
+    private void evict(Collection<SpaceshipChange> changes, boolean includeShared) {
+        invalidationListeners.forEach(listener -> listener.accept(changes));
+        Cache byId = cacheManager.getCache(CacheConfig.SPACESHIP_CACHE);
+        if (byId != null) {
+            Cache target = includeShared ? byId : near(byId);
+            for (SpaceshipChange change : changes) {
+                if (change.type() != SpaceshipChange.Type.CREATED) {
+                    target.evict(change.id());
+                }
+            }
+        }
+
+        Cache counts = cacheManager.getCache(CacheConfig.SPACESHIP_COUNTS_CACHE);
+        if (counts != null) {
+            evictCounts(counts, changes, includeShared);
+        }
+
+        Cache pages = cacheManager.getCache(CacheConfig.SPACESHIPS_CACHE);
+        if (pages == null) {
+            return;
+        }
+        if (changes.size() > BULK_CLEAR_THRESHOLD) {
+            (includeShared ? pages : near(pages)).clear();
+            return;
+        }
+        if (near(pages) instanceof SpaceshipPageCache pageCache) {
+            logger.debug("Invalidated {} cached pages for {} change(s)", pageCache.evictAffected(changes), changes.size());
+        } else {
+            near(pages).clear();
+        }
+        if (includeShared && pages instanceof TwoTierCache twoTierCache) {
+            twoTierCache.getShared().evictAffected(pages.getName(), changes);
+        }
+    }
+
+    /**
+     * Filtered totals, keyed by lower-cased name filter, go only when a change moves a spaceship in or out of
+     * the filter; a rename within it leaves the total as it was.
+     */
+    private static void evictCounts(Cache counts, Collection<SpaceshipChange> changes, boolean includeShared) {
+        if (changes.size() > BULK_CLEAR_THRESHOLD) {
+            (includeShared ? counts : near(counts)).clear();
+            return;
+        }
+        if (near(counts) instanceof CaffeineCache caffeineCache) {
+            caffeineCache.getNativeCache().asMap().keySet().removeIf(filter -> changesCountOf(filter, changes));
+        } else {
+            near(counts).clear();
+        }
+        if (includeShared && counts instanceof TwoTierCache twoTierCache) {
+            twoTierCache.getShared().evictAffected(counts.getName(), changes);
+        }
+    }
+
+    private static boolean changesCountOf(Object filter, Collection<SpaceshipChange> changes) {
+        if (!(filter instanceof String nameFilter)) {
+            return true;
+        }
+        for (SpaceshipChange change : changes) {
+            boolean matchedBefore = change.type() != SpaceshipChange.Type.CREATED && SpaceshipPageKey.matches(nameFilter, change.oldName());
+            boolean matchesAfter = change.type() != SpaceshipChange.Type.DELETED && SpaceshipPageKey.matches(nameFilter, change.newName());
+            if (matchedBefore != matchesAfter) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The part of {@code cache} this node keeps itself: the near tier of a two-tier cache, otherwise the cache.
+     */
+    private static Cache near(Cache cache) {
+        return cache instanceof TwoTierCache twoTierCache ? twoTierCache.getNear() : cache;
+    }
+
+    /**
+     * Whether {@code changes} can change the cached value of {@code cacheKey}: a page or slice under a
+     * {@link SpaceshipPageKey}, or a total under its name filter. Other keys count as affected.
+     */
+    public static boolean affects(Object cacheKey, Object value, Collection<SpaceshipChange> changes) {
+        return cacheKey instanceof String nameFilter ? changesCountOf(nameFilter, changes) : affectsAny(cacheKey, value, changes);
+    }
+
+    /**
+     * Whether {@code changes} can change the page or slice of {@code key} when its content is not known, as
+     * while it is being loaded: a page sorted by id that the changed spaceships stayed in counts as changed.
+     */
+    public static boolean mayAffect(SpaceshipPageKey key, Collection<SpaceshipChange> changes) {
+        return affectsAny(key, null, changes);
+    }
+
+    private static boolean affectsAny(Object cacheKey, Object page, Collection<SpaceshipChange> changes) {
+        if (!(cacheKey instanceof SpaceshipPageKey key)) {
+            return true;
+        }
+        for (SpaceshipChange change : changes) {
+            if (affects(key, page, change)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean affects(SpaceshipPageKey key, Object page, SpaceshipChange change) {
+        boolean matchedBefore = change.type() != SpaceshipChange.Type.CREATED && key.matches(change.oldName());
+        boolean matchesAfter = change.type() != SpaceshipChange.Type.DELETED && key.matches(change.newName());
+        if (!matchedBefore && !matchesAfter) {
+            return false;
+        }
+        if (matchedBefore != matchesAfter) {
+            return true;
+        }
+        return !key.isSortedById() || contains(page, change.id());
+    }
+
+    private static boolean contains(Object page, Long id) {
+        if (!(page instanceof Slice<?> slice)) {
+            return true;
+        }
+        for (Object item : slice.getContent()) {
+            if (item instanceof Spaceship spaceship && id.equals(spaceship.getId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,25 @@
+package com.angularexercise.cache;
+
+/**
+ * Describes a single write to the spaceships table, with enough detail to tell which
+ * cached pages it can affect.
+ *
+ * @param oldName name before the write, null for creations
+ * @param newName name after the write, null for deletions
+ */
+public record SpaceshipChange(Type type, Long id, String oldName, String newName) {
+
+    public enum Type { CREATED, UPDATED, DELETED }
+
+    public static SpaceshipChange created(Long id, String name) {
+        return new SpaceshipChange(Type.CREATED, id, null, name);
+    }
+
+    public static SpaceshipChange updated(Long id, String oldName, String newName) {
+        return new SpaceshipChange(Type.UPDATED, id, oldName, newName);
+    }
+
+    public static SpaceshipChange deleted(Long id, String name) {
+        return new SpaceshipChange(Type.DELETED, id, name, null);
+    }
+}
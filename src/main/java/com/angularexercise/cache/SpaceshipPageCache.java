@@ -0,0 +1,210 @@
+package com.angularexercise.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@code spaceships} cache of this node: a Caffeine cache whose pages are indexed by the filter key of their
+ * name filter ({@link SpaceshipPageKey#filterKey}), so that {@link #evictAffected} only looks at the pages of the
+ * filters a change can match instead of every cached page.
+ * <p>
+ * A page loaded while a write commits may have been read before it, and must not be cached after the write's
+ * eviction has run. Each filter key counts the evictions that looked at it; a page put after a miss on the same
+ * thread, as {@code @Cacheable} does, is evicted again if its filter key was looked at since the miss. The page is
+ * indexed before it is stored, so an eviction running after the check finds it.
+ */
+public class SpaceshipPageCache extends CaffeineCache {
+
+    private final Map<String, FilterGroup> groups;
+    // The last miss of each thread, which the put of the loaded page on that thread is checked against
+    private final ThreadLocal<Miss> lastMiss = new ThreadLocal<>();
+
+    private SpaceshipPageCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache,
+                               Map<String, FilterGroup> groups) {
+        super(name, cache, false);
+        this.groups = groups;
+    }
+
+    /**
+     * Builds the cache from {@code builder}, which must not have an eviction listener of its own.
+     */
+    public static SpaceshipPageCache create(String name, Caffeine<Object, Object> builder) {
+        Map<String, FilterGroup> groups = new ConcurrentHashMap<>();
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> cache = builder.evictionListener((key, value, cause) -> {
+            FilterGroup group = key == null ? null : groups.get(filterKey(key));
+            if (group != null) {
+                group.keys.computeIfPresent(key, (k, indexed) -> indexed.stored && indexed.value == value ? null : indexed);
+            }
+        }).build();
+        return new SpaceshipPageCache(name, cache, groups);
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        Object value = super.lookup(key);
+        if (value == null) {
+            lastMiss.set(new Miss(key, group(key).evictions.get()));
+        }
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        putUnlessEvicted(key, value);
+    }
+
+    /**
+     * Stores the page unless an eviction looked at its filter key since this thread missed it, or since this
+     * call began if it did not.
+     *
+     * @return Whether the page stayed in the cache.
+     */
+    public boolean putUnlessEvicted(Object key, Object value) {
+        FilterGroup group = group(key);
+        Miss miss = lastMiss.get();
+        lastMiss.remove();
+        long evictions = miss != null && miss.key().equals(key) ? miss.evictions() : group.evictions.get();
+        Object storeValue = toStoreValue(value);
+        Indexed indexed = new Indexed(storeValue);
+        group.keys.put(key, indexed);
+        getNativeCache().put(key, storeValue);
+        indexed.stored = true;
+        if (group.evictions.get() != evictions) {
+            evict(key);
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        FilterGroup group = group(key);
+        long evictions = group.evictions.get();
+        Indexed[] loaded = new Indexed[1];
+        T value = super.get(key, () -> {
+            T result = valueLoader.call();
+            loaded[0] = new Indexed(toStoreValue(result));
+            group.keys.put(key, loaded[0]);
+            return result;
+        });
+        if (loaded[0] != null) {
+            loaded[0].stored = true;
+            if (group.evictions.get() != evictions) {
+                evict(key);
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public void evict(Object key) {
+        super.evict(key);
+        forgetIfGone(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean evicted = super.evictIfPresent(key);
+        forgetIfGone(key);
+        return evicted;
+    }
+
+    @Override
+    public void clear() {
+        invalidate();
+    }
+
+    @Override
+    public boolean invalidate() {
+        groups.values().forEach(group -> group.evictions.incrementAndGet());
+        boolean notEmpty = super.invalidate();
+        groups.values().forEach(group -> group.keys.keySet().forEach(this::forgetIfGone));
+        return notEmpty;
+    }
+
+    /**
+     * Evicts the pages {@code changes} can affect, by {@link SpaceshipCacheInvalidator#affects}, looking only at
+     * the unfiltered pages and those whose filter key is in one of the changed names.
+     *
+     * @return The number of pages evicted.
+     */
+    public int evictAffected(Collection<SpaceshipChange> changes) {
+        Set<String> filterKeys = new LinkedHashSet<>();
+        filterKeys.add("");
+        for (SpaceshipChange change : changes) {
+            filterKeys.addAll(SpaceshipPageKey.filterKeysIn(change.oldName()));
+            filterKeys.addAll(SpaceshipPageKey.filterKeysIn(change.newName()));
+        }
+        int evicted = 0;
+        for (String filterKey : filterKeys) {
+            FilterGroup group = groups.get(filterKey);
+            if (group == null) {
+                continue;
+            }
+            // Before looking at the pages: a page stored after this is checked by its put
+            group.evictions.incrementAndGet();
+            for (Object key : group.keys.keySet()) {
+                Object value = getNativeCache().policy().getIfPresentQuietly(key);
+                if (value != null && SpaceshipCacheInvalidator.affects(key, value, changes)) {
+                    getNativeCache().invalidate(key);
+                    evicted++;
+                }
+                forgetIfGone(key);
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * Drops {@code key} from the index if it is no longer cached and no put of it is under way.
+     */
+    private void forgetIfGone(Object key) {
+        FilterGroup group = groups.get(filterKey(key));
+        if (group == null) {
+            return;
+        }
+        Indexed indexed = group.keys.get(key);
+        if (indexed != null && indexed.stored && getNativeCache().policy().getIfPresentQuietly(key) == null) {
+            group.keys.remove(key, indexed);
+        }
+    }
+
+    private FilterGroup group(Object key) {
+        return groups.computeIfAbsent(filterKey(key), filterKey -> new FilterGroup());
+    }
+
+    /**
+     * Pages without a name filter, and keys that are not page keys, are under the empty filter key, which every
+     * change looks at.
+     */
+    private static String filterKey(Object key) {
+        return key instanceof SpaceshipPageKey pageKey && pageKey.nameFilter() != null
+                ? SpaceshipPageKey.filterKey(pageKey.nameFilter()) : "";
+    }
+
+    private static final class FilterGroup {
+        final AtomicLong evictions = new AtomicLong();
+        final Map<Object, Indexed> keys = new ConcurrentHashMap<>();
+    }
+
+    // One put of a key; the eviction listener only forgets the key for the value this put stored
+    private static final class Indexed {
+        final Object value;
+        volatile boolean stored;
+
+        Indexed(Object value) {
+            this.value = value;
+        }
+    }
+
+    private record Miss(Object key, long evictions) {
+    }
+}
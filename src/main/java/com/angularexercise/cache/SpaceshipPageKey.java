@@ -0,0 +1,82 @@
+package com.angularexercise.cache;
+
+import org.springframework.data.domain.Pageable;
+
+import java.io.Serializable;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Cache key for a page of spaceships. Keeping the request parts as fields (instead of a
+ * concatenated string) lets the invalidator decide which pages a write can affect.
+ *
+ * @param nameFilter lower-cased name filter, or null when the page is unfiltered
+ * @param withTotal whether the cached value is a {@code Page} with its total, or a {@code Slice} without
+ */
+public record SpaceshipPageKey(String nameFilter, String sort, String direction, int page, int size, boolean withTotal)
+        implements Serializable {
+
+    private static final int FILTER_KEY_LENGTH = 3;
+
+    public static SpaceshipPageKey of(String name, String sort, String direction, Pageable pageable) {
+        return of(name, sort, direction, pageable, true);
+    }
+
+    public static SpaceshipPageKey of(String name, String sort, String direction, Pageable pageable, boolean withTotal) {
+        return new SpaceshipPageKey(nameFilter(name), sort, direction.toLowerCase(Locale.ROOT),
+                pageable.getPageNumber(), pageable.getPageSize(), withTotal);
+    }
+
+    /**
+     * The name filter as it appears in keys: lower-cased, or null for none.
+     */
+    public static String nameFilter(String name) {
+        return name == null || name.isEmpty() ? null : name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Whether a spaceship with the given name belongs to the result set of this page's query.
+     */
+    public boolean matches(String spaceshipName) {
+        return matches(nameFilter, spaceshipName);
+    }
+
+    /**
+     * Whether a spaceship with the given name passes the lower-cased {@code nameFilter} (null passes everything).
+     */
+    public static boolean matches(String nameFilter, String spaceshipName) {
+        return nameFilter == null
+                || (spaceshipName != null && spaceshipName.toLowerCase(Locale.ROOT).contains(nameFilter));
+    }
+
+    public boolean isSortedById() {
+        return "id".equals(sort);
+    }
+
+    /**
+     * The first three characters of a lower-cased name filter, by which cached pages are grouped for eviction:
+     * a filter contained in a name has its first three characters there too. Empty for an empty filter.
+     */
+    public static String filterKey(String nameFilter) {
+        return nameFilter.length() <= FILTER_KEY_LENGTH ? nameFilter : nameFilter.substring(0, FILTER_KEY_LENGTH);
+    }
+
+    /**
+     * Every filter key a filter contained in {@code name} can have: its lower-cased substrings of up to three
+     * characters.
+     */
+    public static Set<String> filterKeysIn(String name) {
+        if (name == null) {
+            return Set.of();
+        }
+        String lowerCased = name.toLowerCase(Locale.ROOT);
+        Set<String> filterKeys = new LinkedHashSet<>();
+        for (int start = 0; start < lowerCased.length(); start++) {
+            for (int end = start + 1; end <= Math.min(start + FILTER_KEY_LENGTH, lowerCased.length()); end++) {
+                filterKeys.add(lowerCased.substring(start, end));
+            }
+        }
+        return filterKeys;
+    }
+}
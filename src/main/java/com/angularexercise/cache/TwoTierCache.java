@@ -0,0 +1,98 @@
+package com.angularexercise.cache;
+
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.util.concurrent.Callable;
+
+/**
+ * A small per-node Caffeine cache in front of a {@link SharedCacheTier}. Reads try the near cache, then the
+ * shared tier, and copy a shared hit into the near cache; writes and evictions go to both. Another node's
+ * writes reach the near cache through the invalidation topic (see {@link SpaceshipCacheInvalidator}), and the
+ * near cache's {@code expireAfterWrite} bounds how long an entry can outlive a lost invalidation. The near cache
+ * is written through its own {@code put}, so that a {@link SpaceshipPageCache} indexes what it holds.
+ */
+public class TwoTierCache extends AbstractValueAdaptingCache {
+
+    private final CaffeineCache near;
+    private final SharedCacheTier shared;
+
+    public TwoTierCache(CaffeineCache near, SharedCacheTier shared) {
+        super(false);
+        this.near = near;
+        this.shared = shared;
+    }
+
+    @Override
+    public String getName() {
+        return near.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return near.getNativeCache();
+    }
+
+    public CaffeineCache getNear() {
+        return near;
+    }
+
+    public SharedCacheTier getShared() {
+        return shared;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        ValueWrapper cached = near.get(key);
+        if (cached != null) {
+            return cached.get();
+        }
+        Object value = shared.get(getName(), key);
+        if (value != null) {
+            near.put(key, value);
+        }
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        return (T) fromStoreValue(near.get(key, () -> {
+            Object value = shared.get(getName(), key);
+            if (value == null) {
+                value = toStoreValue(valueLoader.call());
+                shared.put(getName(), key, value);
+            }
+            return value;
+        }));
+    }
+
+    /**
+     * Writes both tiers. A page the near tier turns down, having been loaded before a write whose eviction has run
+     * since, is taken out of the shared tier again.
+     */
+    @Override
+    public void put(Object key, Object value) {
+        Object storeValue = toStoreValue(value);
+        shared.put(getName(), key, storeValue);
+        if (near instanceof SpaceshipPageCache pages) {
+            if (!pages.putUnlessEvicted(key, storeValue)) {
+                shared.evict(getName(), key);
+            }
+        } else {
+            near.put(key, storeValue);
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        shared.evict(getName(), key);
+        near.evict(key);
+    }
+
+    @Override
+    public void clear() {
+        shared.clear(getName());
+        near.clear();
+    }
+}
@@ -0,0 +1,150 @@
+package com.angularexercise.config;
+
+import com.angularexercise.cache.JdbcSharedCacheTier;
+import com.angularexercise.cache.SharedCacheTier;
+import com.angularexercise.cache.SpaceshipPageCache;
+import com.angularexercise.cache.TwoTierCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.CaffeineSpec;
+import com.github.benmanes.caffeine.cache.Weigher;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Slice;
+import org.springframework.lang.Nullable;
+
+import java.util.Map;
+
+/**
+ * Replaces the default unbounded ConcurrentMapCacheManager with Caffeine caches.
+ * Every cache gets its own size/weight bound and expiry policy from {@link CacheProperties},
+ * and records hit/miss/eviction statistics that actuator exposes under {@code cache.*} metrics.
+ * The {@code spaceships} cache is a {@link SpaceshipPageCache}, which indexes its pages for the invalidator.
+ * <p>
+ * When the context has a {@link SharedCacheTier}, every cache becomes a {@link TwoTierCache}: a near tier
+ * built from {@code app.cache.near-spec} in front of the shared one, and its {@code cache.*} metrics are those of
+ * the near tier: a hit in the shared tier counts as a miss. {@code app.cache.shared.enabled} provides one, the
+ * {@link JdbcSharedCacheTier} on a pool of its own, in the database of {@code app.cache.shared.url} or else in the
+ * application's.
+ */
+@Configuration
+@EnableConfigurationProperties(CacheProperties.class)
+public class CacheConfig {
+
+    public static final String SPACESHIP_CACHE = "spaceship";
+    public static final String SPACESHIPS_CACHE = "spaceships";
+    public static final String SPACESHIP_COUNTS_CACHE = "spaceshipCounts";
+
+    @Bean
+    public CacheManager cacheManager(CacheProperties cacheProperties, @Nullable SharedCacheTier sharedTier) {
+        CaffeineCacheManager cacheManager;
+        if (sharedTier != null) {
+            cacheManager = new SpaceshipCacheManager(builder(cacheProperties.getNearSpec()), sharedTier);
+            cacheManager.setCaffeine(builder(cacheProperties.getNearSpec()));
+            cacheManager.setAllowNullValues(false);
+            for (String name : cacheProperties.getSpecs().keySet()) {
+                if (!SPACESHIPS_CACHE.equals(name)) {
+                    cacheManager.registerCustomCache(name, builder(cacheProperties.getNearSpec()).build());
+                }
+            }
+        } else {
+            String pagesSpec = cacheProperties.getSpecs().getOrDefault(SPACESHIPS_CACHE, cacheProperties.getDefaultSpec());
+            cacheManager = new SpaceshipCacheManager(builder(pagesSpec), null);
+            cacheManager.setCaffeine(builder(cacheProperties.getDefaultSpec()));
+            cacheManager.setAllowNullValues(false);
+            for (Map.Entry<String, String> entry : cacheProperties.getSpecs().entrySet()) {
+                if (!SPACESHIPS_CACHE.equals(entry.getKey())) {
+                    cacheManager.registerCustomCache(entry.getKey(), builder(entry.getValue()).build());
+                }
+            }
+        }
+        // Created up front like the registered ones, so that its metrics are bound on startup too
+        cacheManager.getCache(SPACESHIPS_CACHE);
+        return cacheManager;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.cache.shared.enabled", havingValue = "true")
+    public SharedCacheTier sharedCacheTier(DataSourceProperties dataSourceProperties, CacheProperties cacheProperties,
+                                           ObjectMapper objectMapper) {
+        CacheProperties.Shared shared = cacheProperties.getShared();
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName("shared-cache");
+        pool.setMaximumPoolSize(shared.getMaximumPoolSize());
+        if (shared.getUrl() != null) {
+            pool.setJdbcUrl(shared.getUrl());
+            pool.setUsername(shared.getUsername());
+            pool.setPassword(shared.getPassword());
+            Flyway.configure().dataSource(pool).locations("classpath:db/shared-cache")
+                    .table("shared_cache_schema_history").load().migrate();
+        } else {
+            pool.setJdbcUrl(dataSourceProperties.determineUrl());
+            pool.setUsername(dataSourceProperties.determineUsername());
+            pool.setPassword(dataSourceProperties.determinePassword());
+        }
+        return new JdbcSharedCacheTier(pool, shared.getTimeToLive(), objectMapper);
+    }
+
+    @Bean
+    public CacheMeterBinderProvider<TwoTierCache> twoTierCacheMeterBinderProvider() {
+        return (cache, tags) -> new CaffeineCacheMetrics<>(cache.getNear().getNativeCache(), cache.getName(), tags);
+    }
+
+    /**
+     * Builds a Caffeine builder from a spec string. Specs that bound the cache by
+     * {@code maximumWeight} weigh page results by their number of elements, so a cache
+     * of large pages holds fewer entries than a cache of small ones.
+     */
+    static Caffeine<Object, Object> builder(String spec) {
+        Caffeine<Object, Object> builder = Caffeine.from(CaffeineSpec.parse(spec));
+        if (spec.contains("maximumWeight")) {
+            builder.weigher(PAGE_WEIGHER);
+        }
+        return builder;
+    }
+
+    private static final Weigher<Object, Object> PAGE_WEIGHER = (key, value) ->
+            value instanceof Slice<?> slice ? slice.getNumberOfElements() + 1 : 1;
+
+    /**
+     * Creates the {@code spaceships} cache as a {@link SpaceshipPageCache}, and with a shared tier puts every
+     * cache in front of it.
+     */
+    private static class SpaceshipCacheManager extends CaffeineCacheManager {
+
+        private final Caffeine<Object, Object> pagesBuilder;
+        @Nullable
+        private final SharedCacheTier sharedTier;
+
+        SpaceshipCacheManager(Caffeine<Object, Object> pagesBuilder, @Nullable SharedCacheTier sharedTier) {
+            this.pagesBuilder = pagesBuilder;
+            this.sharedTier = sharedTier;
+        }
+
+        @Override
+        protected Cache createCaffeineCache(String name) {
+            return SPACESHIPS_CACHE.equals(name) ? withSharedTier(SpaceshipPageCache.create(name, pagesBuilder))
+                    : super.createCaffeineCache(name);
+        }
+
+        @Override
+        protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+            return withSharedTier((CaffeineCache) super.adaptCaffeineCache(name, cache));
+        }
+
+        private Cache withSharedTier(CaffeineCache cache) {
+            return sharedTier == null ? cache : new TwoTierCache(cache, sharedTier);
+        }
+    }
+}
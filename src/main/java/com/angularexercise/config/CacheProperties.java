@@ -0,0 +1,143 @@
+package com.angularexercise.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Cache settings bound from the {@code app.cache.*} block in application.properties.
+ * Each spec uses the Caffeine spec syntax, e.g. {@code maximumSize=1000,expireAfterWrite=10m,recordStats}.
+ */
+@ConfigurationProperties(prefix = "app.cache")
+public class CacheProperties {
+
+    private String defaultSpec = "maximumSize=1000,expireAfterWrite=10m,recordStats";
+
+    private Map<String, String> specs = new HashMap<>();
+
+    /**
+     * Spec of every cache's near tier when a {@link com.angularexercise.cache.SharedCacheTier} is configured;
+     * the specs above then describe what the shared tier holds. {@code expireAfterWrite} bounds how long a node
+     * can serve an entry whose invalidation message it missed.
+     */
+    private String nearSpec = "maximumWeight=20000,expireAfterWrite=30s,recordStats";
+
+    private final Shared shared = new Shared();
+
+    /**
+     * Identifies this node in cache invalidation messages; unique per process unless set.
+     */
+    private String nodeId = UUID.randomUUID().toString();
+
+    public String getDefaultSpec() {
+        return defaultSpec;
+    }
+
+    public void setDefaultSpec(String defaultSpec) {
+        this.defaultSpec = defaultSpec;
+    }
+
+    public Map<String, String> getSpecs() {
+        return specs;
+    }
+
+    public void setSpecs(Map<String, String> specs) {
+        this.specs = specs;
+    }
+
+    public String getNearSpec() {
+        return nearSpec;
+    }
+
+    public void setNearSpec(String nearSpec) {
+        this.nearSpec = nearSpec;
+    }
+
+    public Shared getShared() {
+        return shared;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    /**
+     * The shared tier in the database, {@link com.angularexercise.cache.JdbcSharedCacheTier}.
+     */
+    public static class Shared {
+
+        private boolean enabled;
+
+        /**
+         * How long an entry is served after it was written.
+         */
+        private Duration timeToLive = Duration.ofMinutes(10);
+
+        /**
+         * JDBC URL of the database holding the tier, migrated from {@code db/shared-cache}; the application's
+         * database when unset. The tier has a pool of its own either way.
+         */
+        private String url;
+
+        private String username;
+
+        private String password;
+
+        private int maximumPoolSize = 4;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getTimeToLive() {
+            return timeToLive;
+        }
+
+        public void setTimeToLive(Duration timeToLive) {
+            this.timeToLive = timeToLive;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+
+        public int getMaximumPoolSize() {
+            return maximumPoolSize;
+        }
+
+        public void setMaximumPoolSize(int maximumPoolSize) {
+            this.maximumPoolSize = maximumPoolSize;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.angularexercise.config;
+
+import org.springframework.context.annotation.Conditional;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the beans of the reactive API ({@code /api/reactive/spaceships}), which only exist when
+ * {@code app.reactive.enabled} is not false and the datasource is H2, see {@link OnReactiveApiCondition}.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Conditional(OnReactiveApiCondition.class)
+public @interface ConditionalOnReactiveApi {
+}
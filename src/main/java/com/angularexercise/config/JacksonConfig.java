@@ -2,17 +2,58 @@ package com.angularexercise.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
 
+/**
+ * The application's single {@link ObjectMapper}. Output is compact; a request can ask for indented JSON with
+ * {@value #PRETTY_PARAMETER}{@code =true}. The Blackbird module replaces reflective getter and setter calls
+ * with generated lambdas once a type's serializer is built.
+ */
 @Configuration
 public class JacksonConfig {
 
+    static final String PRETTY_PARAMETER = "pretty";
+
     @Bean
     public ObjectMapper objectMapper() {
         ObjectMapper mapper = new ObjectMapper();
-        mapper.enable(SerializationFeature.INDENT_OUTPUT);
+        mapper.registerModule(new BlackbirdModule());
         mapper.disable(SerializationFeature.FAIL_ON_EMPTY_BEANS);
         return mapper;
     }
-}
\ No newline at end of file
+
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+        return new PrettyPrintingConverter(objectMapper);
+    }
+
+    /**
+     * Indents the response body when the current request has {@code ?pretty=true}.
+     */
+    static class PrettyPrintingConverter extends MappingJackson2HttpMessageConverter {
+
+        PrettyPrintingConverter(ObjectMapper objectMapper) {
+            super(objectMapper);
+        }
+
+        @Override
+        protected ObjectWriter customizeWriter(ObjectWriter writer, JavaType javaType, MediaType contentType) {
+            return prettyPrintRequested() ? writer.withDefaultPrettyPrinter() : writer;
+        }
+
+        private static boolean prettyPrintRequested() {
+            RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+            return attributes instanceof ServletRequestAttributes servletAttributes
+                    && Boolean.parseBoolean(servletAttributes.getRequest().getParameter(PRETTY_PARAMETER));
+        }
+    }
+}
@@ -1,49 +1,147 @@
 package com.angularexercise.config;
 
-import com.angularexercise.model.Spaceship;
+import com.angularexercise.kafka.SpaceshipCacheInvalidationPublisher;
+import com.angularexercise.kafka.SpaceshipChangeCodec;
+import com.angularexercise.kafka.SpaceshipEvent;
+import com.angularexercise.kafka.SpaceshipEventPublisher;
+import com.angularexercise.kafka.SpaceshipEventSerializer;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.config.TopicConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
-import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.listener.ContainerProperties;
 
-import java.util.HashMap;
+import java.time.Duration;
 import java.util.Map;
 
 @Configuration
 @EnableKafka
 public class KafkaConfig {
 
-    @Value("${spring.kafka.bootstrap-servers}")
-    private String bootstrapServers;
+    private final KafkaProperties kafkaProperties;
 
+    @Value("${app.kafka.topic.partitions:6}")
+    private int partitions;
+
+    @Value("${app.kafka.topic.replicas:1}")
+    private int replicas;
+
+    @Autowired
+    public KafkaConfig(KafkaProperties kafkaProperties) {
+        this.kafkaProperties = kafkaProperties;
+    }
+
+    /**
+     * Producer settings from {@code spring.kafka.producer.*} (batching, linger, compression, acks,
+     * idempotence and delivery bounds), with the serializers pinned to the ones the consumers expect.
+     */
     @Bean
     public Map<String, Object> producerConfigs() {
-        Map<String, Object> props = new HashMap<>();
-        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        Map<String, Object> props = kafkaProperties.buildProducerProperties();
         props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, SpaceshipEventSerializer.class);
         return props;
     }
 
     @Bean
-    public ProducerFactory<String, Spaceship> producerFactory() {
+    public ProducerFactory<String, SpaceshipEvent> producerFactory() {
         return new DefaultKafkaProducerFactory<>(producerConfigs());
     }
 
     @Bean
-    public KafkaTemplate<String, Spaceship> kafkaTemplate() {
+    public KafkaTemplate<String, SpaceshipEvent> kafkaTemplate() {
         return new KafkaTemplate<>(producerFactory());
     }
 
+    /**
+     * Template for the cache invalidation topic, on the same producer settings; its payloads are already
+     * encoded by {@link SpaceshipChangeCodec}.
+     */
+    @Bean
+    public KafkaTemplate<String, byte[]> cacheInvalidationKafkaTemplate() {
+        Map<String, Object> props = kafkaProperties.buildProducerProperties();
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(props));
+    }
+
+    /**
+     * Records are keyed by spaceship id, so each ship's events stay ordered within one partition while
+     * different ships are consumed in parallel. Raising the partition count adds partitions to an
+     * existing topic on startup; ids then map to new partitions, so only do it while the topic is drained.
+     * The topic is log-compacted: it keeps at least the last event per spaceship, and deletions are
+     * tombstones, so it doubles as a changelog of the current fleet. That the last event is the latest version
+     * rests on the relay sending each spaceship's events in version order (see
+     * {@link com.angularexercise.kafka.SpaceshipOutboxRelay}); the read model still applies only newer versions,
+     * for the redeliveries a relay failover can cause.
+     */
     @Bean
     public NewTopic spaceshipTopic() {
-        return new NewTopic("spaceship-topic", 1, (short) 1);
+        return TopicBuilder.name(SpaceshipEventPublisher.TOPIC)
+                .partitions(partitions)
+                .replicas(replicas)
+                .compact()
+                .build();
+    }
+
+    /**
+     * Cache invalidations between nodes. One partition keeps them in write order, and they are only of use
+     * for as long as a cached entry lives, so they are not kept for long.
+     */
+    @Bean
+    public NewTopic cacheInvalidationTopic() {
+        return TopicBuilder.name(SpaceshipCacheInvalidationPublisher.TOPIC)
+                .partitions(1)
+                .replicas(replicas)
+                .config(TopicConfig.RETENTION_MS_CONFIG, String.valueOf(Duration.ofHours(1).toMillis()))
+                .build();
+    }
+
+    /**
+     * Listener factory for batch consumers: each poll (up to {@code spring.kafka.consumer.max-poll-records})
+     * is handed over as one list, and the listener acknowledges it once so offsets are committed once per batch.
+     * In virtual-thread mode the consumer threads are virtual, see {@link VirtualThreadConfig}.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> batchListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer, ConsumerFactory<Object, Object> kafkaConsumerFactory,
+            @Qualifier(VirtualThreadConfig.KAFKA_LISTENER_TASK_EXECUTOR) ObjectProvider<AsyncTaskExecutor> listenerTaskExecutor) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, kafkaConsumerFactory);
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        listenerTaskExecutor.ifAvailable(factory.getContainerProperties()::setListenerTaskExecutor);
+        return factory;
+    }
+
+    /**
+     * Listener factory for the cache invalidation consumer: one record per call, offsets committed by the
+     * container. Like the batch factory, it runs the consumer on a virtual thread in virtual-thread mode.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> cacheInvalidationListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer, ConsumerFactory<Object, Object> kafkaConsumerFactory,
+            @Qualifier(VirtualThreadConfig.KAFKA_LISTENER_TASK_EXECUTOR) ObjectProvider<AsyncTaskExecutor> listenerTaskExecutor) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, kafkaConsumerFactory);
+        listenerTaskExecutor.ifAvailable(factory.getContainerProperties()::setListenerTaskExecutor);
+        return factory;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,48 @@
+package com.angularexercise.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionMessage;
+import org.springframework.boot.autoconfigure.condition.ConditionOutcome;
+import org.springframework.boot.autoconfigure.condition.SpringBootCondition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.core.env.Environment;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The reactive API runs R2DBC on the JDBC datasource's database, and the only R2DBC driver on the classpath is
+ * H2's. With {@code app.reactive.enabled=false} or another datasource it is left out, and the rest of the
+ * application starts without it; the reason is logged once.
+ */
+class OnReactiveApiCondition extends SpringBootCondition {
+
+    static final String H2_URL_PREFIX = "jdbc:h2:";
+    private static final Logger logger = LoggerFactory.getLogger(OnReactiveApiCondition.class);
+    // Evaluated for every bean of the API
+    private static final Set<String> reported = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public ConditionOutcome getMatchOutcome(ConditionContext context, AnnotatedTypeMetadata metadata) {
+        Environment environment = context.getEnvironment();
+        ConditionMessage.Builder message = ConditionMessage.forCondition(ConditionalOnReactiveApi.class);
+        if (!environment.getProperty("app.reactive.enabled", Boolean.class, true)) {
+            return disabled(message.because("app.reactive.enabled is false"));
+        }
+        // Without a URL, Boot starts an embedded database, which is H2 here
+        String url = environment.getProperty("spring.datasource.url");
+        if (url != null && !url.startsWith(H2_URL_PREFIX)) {
+            return disabled(message.because("R2DBC is only set up for H2, the datasource is " + url));
+        }
+        return ConditionOutcome.match(message.because(url == null ? "embedded H2 datasource" : "H2 datasource " + url));
+    }
+
+    private static ConditionOutcome disabled(ConditionMessage message) {
+        if (reported.add(message.toString())) {
+            logger.info("Reactive API (/api/reactive/spaceships) disabled: {}", message);
+        }
+        return ConditionOutcome.noMatch(message);
+    }
+}
@@ -0,0 +1,58 @@
+package com.angularexercise.config;
+
+import io.r2dbc.h2.H2ConnectionConfiguration;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+/**
+ * R2DBC access for the reactive API, on the same H2 database as the JDBC {@code DataSource}: the connection
+ * factory is derived from the resolved datasource URL, so both stacks see the same tables (Flyway still
+ * migrates through JDBC).
+ * <p>
+ * Neither the connection factory nor the reactive transaction manager is a bean: Spring Boot backs off from
+ * the JDBC {@code DataSource} as soon as a {@code ConnectionFactory} bean exists, and with two
+ * {@code TransactionManager} beans {@code @Transactional} on the JPA services could no longer pick its manager
+ * by type. Reactive code gets the {@link DatabaseClient} and the {@link TransactionalOperator} instead.
+ * <p>
+ * Only H2 is supported; with another datasource the reactive API is left out, see {@link ConditionalOnReactiveApi}.
+ */
+@Configuration
+@ConditionalOnReactiveApi
+public class R2dbcConfig {
+
+    private final ConnectionFactory connectionFactory;
+
+    @Autowired
+    public R2dbcConfig(DataSourceProperties dataSourceProperties) {
+        this.connectionFactory = connectionFactory(dataSourceProperties);
+    }
+
+    private static ConnectionFactory connectionFactory(DataSourceProperties dataSourceProperties) {
+        String url = dataSourceProperties.determineUrl();
+        H2ConnectionConfiguration.Builder configuration = H2ConnectionConfiguration.builder()
+                .url(url.substring(OnReactiveApiCondition.H2_URL_PREFIX.length()))
+                .username(dataSourceProperties.determineUsername());
+        String password = dataSourceProperties.determinePassword();
+        if (password != null) {
+            configuration.password(password);
+        }
+        return new H2ConnectionFactory(configuration.build());
+    }
+
+    @Bean
+    public DatabaseClient databaseClient() {
+        return DatabaseClient.create(connectionFactory);
+    }
+
+    @Bean
+    public TransactionalOperator reactiveTransactionalOperator() {
+        return TransactionalOperator.create(new R2dbcTransactionManager(connectionFactory));
+    }
+}
@@ -0,0 +1,61 @@
+package com.angularexercise.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.concurrent.Executors;
+
+/**
+ * Opt-in virtual-thread mode ({@code app.virtual-threads.enabled=true}). Every thread that blocks on JDBC or
+ * Kafka is then a virtual thread:
+ * <ul>
+ *     <li>Tomcat runs each request on its own virtual thread instead of the {@code server.tomcat.threads.max}
+ *     pool, so the number of requests in flight is bounded by {@code server.tomcat.max-connections} only.</li>
+ *     <li>{@code applicationTaskExecutor}, which completes asynchronous MVC responses such as the streamed
+ *     export, starts a virtual thread per task.</li>
+ *     <li>Kafka listener containers poll and run the listener on virtual threads.</li>
+ *     <li>Scheduled tasks, among them the outbox relay waiting for broker acknowledgements, run on virtual
+ *     threads.</li>
+ * </ul>
+ * Producer send callbacks stay on the producer's I/O thread; they only count and log.
+ * <p>
+ * Tomcat 10.1.8 runs each HTTP/2 stream inside a {@code synchronized} block ({@code StreamProcessor.process}),
+ * so a request that arrives over h2 or h2c pins its carrier thread while it waits for JDBC. HTTP/1.1 requests
+ * do not pin.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    public static final String KAFKA_LISTENER_TASK_EXECUTOR = "kafkaListenerTaskExecutor";
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new SimpleAsyncTaskExecutor(Thread.ofVirtual().name("task-", 0).factory());
+    }
+
+    @Bean(name = KAFKA_LISTENER_TASK_EXECUTOR)
+    public AsyncTaskExecutor kafkaListenerTaskExecutor() {
+        return new SimpleAsyncTaskExecutor(Thread.ofVirtual().name("kafka-listener-", 0).factory());
+    }
+
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler(@Value("${spring.task.scheduling.pool.size:1}") int poolSize) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadFactory(Thread.ofVirtual().name("scheduling-", 0).factory());
+        return scheduler;
+    }
+}
@@ -0,0 +1,112 @@
+package com.angularexercise.controller;
+
+import com.angularexercise.config.ConditionalOnReactiveApi;
+import com.angularexercise.model.Spaceship;
+import com.angularexercise.model.SpaceshipPage;
+import com.angularexercise.service.ReactiveSpaceshipService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.UncheckedIOException;
+
+/**
+ * Reactive variant of {@link SpaceshipController}, side by side with it under {@code /api/reactive/spaceships}
+ * so the two can be compared under the same load. Handlers return {@link Mono} and {@link Flux}: the request
+ * is released into asynchronous mode as soon as the pipeline is assembled, and the database work runs on
+ * R2DBC instead of a blocked request thread.
+ */
+@RestController
+@ConditionalOnReactiveApi
+@RequestMapping("/api/reactive/spaceships")
+public class ReactiveSpaceshipController {
+
+    private final ReactiveSpaceshipService spaceshipService;
+    // One line per spaceship, so the shared mapper's indentation must not apply
+    private final ObjectWriter lineWriter;
+
+    @Autowired
+    public ReactiveSpaceshipController(ReactiveSpaceshipService spaceshipService, ObjectMapper objectMapper) {
+        this.spaceshipService = spaceshipService;
+        this.lineWriter = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+    }
+
+    /**
+     * Retrieves a page of spaceships.
+     *
+     * @param name Optional name parameter to filter spaceships by name.
+     * @param pageable Pagination information.
+     * @return A SpaceshipPage, in the same shape as {@link SpaceshipController#getAllSpaceships}.
+     */
+    @GetMapping
+    public Mono<SpaceshipPage> getAllSpaceships(
+            @RequestParam(required = false) String name,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(defaultValue = "asc") String direction,
+            Pageable pageable) {
+        return spaceshipService.getAllSpaceships(name, sort, direction, pageable).map(SpaceshipPage::of);
+    }
+
+    /**
+     * Streams every spaceship in id order as newline-delimited JSON. The next row is requested from the
+     * database only after the previous one was written to the client.
+     *
+     * @return A Flux with one JSON document per Spaceship.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<String> streamSpaceships() {
+        return spaceshipService.streamSpaceships().map(this::toJsonLine);
+    }
+
+    /**
+     * Retrieves a specific spaceship by its ID.
+     *
+     * @param id The ID of the spaceship to retrieve.
+     * @return The Spaceship if found, or 404 if not found.
+     */
+    @GetMapping("/{id}")
+    public Mono<Spaceship> getSpaceshipById(@PathVariable Long id) {
+        return spaceshipService.getSpaceshipById(id);
+    }
+
+    /**
+     * Creates a new spaceship.
+     *
+     * @param spaceship The Spaceship object to be created.
+     * @return ResponseEntity containing the created Spaceship.
+     */
+    @PostMapping("/create")
+    public Mono<ResponseEntity<Spaceship>> createSpaceship(@RequestBody Spaceship spaceship) {
+        return spaceshipService.createSpaceship(spaceship)
+                .map(created -> ResponseEntity.status(HttpStatus.CREATED).body(created));
+    }
+
+    /**
+     * Deletes a spaceship by its ID.
+     *
+     * @param id The ID of the spaceship to delete.
+     * @return ResponseEntity with no content if successful, or 404 if not found.
+     */
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> deleteSpaceship(@PathVariable Long id) {
+        return spaceshipService.deleteSpaceship(id).thenReturn(ResponseEntity.noContent().build());
+    }
+
+    private String toJsonLine(Spaceship spaceship) {
+        try {
+            // Strings are streamed as plain text, so the line separator is not added for us
+            return lineWriter.writeValueAsString(spaceship) + "\n";
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
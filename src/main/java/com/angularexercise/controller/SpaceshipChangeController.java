@@ -0,0 +1,41 @@
+package com.angularexercise.controller;
+
+import com.angularexercise.push.SpaceshipChangeBroadcaster;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Push channel for spaceship changes, so that clients can patch what they show instead of re-polling
+ * {@code GET /api/spaceships}. See {@link SpaceshipChangeBroadcaster} for the events.
+ */
+@RestController
+@RequestMapping("/api/spaceships/changes")
+public class SpaceshipChangeController {
+
+    private final SpaceshipChangeBroadcaster broadcaster;
+
+    @Autowired
+    public SpaceshipChangeController(SpaceshipChangeBroadcaster broadcaster) {
+        this.broadcaster = broadcaster;
+    }
+
+    /**
+     * Subscribes to spaceship changes as server-sent events.
+     *
+     * @param name Optional name parameter to receive only spaceships whose name contains it.
+     * @return ResponseEntity with the event stream, or 503 if this node has no room for another subscriber.
+     */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> subscribe(@RequestParam(required = false) String name) {
+        return broadcaster.subscribe(name)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+    }
+}
@@ -1,69 +1,160 @@
 package com.angularexercise.controller;
 
 import com.angularexercise.model.Spaceship;
+import com.angularexercise.model.SpaceshipPage;
+import com.angularexercise.model.SpaceshipSlice;
 import com.angularexercise.service.SpaceshipService;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 /**
  * REST Controller for managing Spaceship entities.
  * This controller provides CRUD operations for Spaceships via RESTful endpoints.
+ * <p>
+ * Single spaceships and pages carry a strong {@code ETag} (see {@link SpaceshipETags}); a GET whose
+ * {@code If-None-Match} still matches is answered with 304 and no body. Updates honour {@code If-Match}.
  */
 @RestController
 @RequestMapping("/api/spaceships")
 public class SpaceshipController {
     private static final Logger logger = LoggerFactory.getLogger(SpaceshipController.class);
+    private static final int MAX_SCROLL_SIZE = 1000;
+    static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
     private final SpaceshipService spaceshipService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.batch.max-size:50000}")
+    private int maxBatchSize = 50000;
+
+    // 0 lets clients store responses but revalidate them on every use
+    @Value("${app.http.max-age-seconds:0}")
+    private long maxAgeSeconds = 0;
 
     @Autowired
-    public SpaceshipController(SpaceshipService spaceshipService) {
+    public SpaceshipController(SpaceshipService spaceshipService, ObjectMapper objectMapper) {
         this.spaceshipService = spaceshipService;
+        this.objectMapper = objectMapper;
     }
 
     /**
      * Retrieves a page of spaceships.
      *
      * @param name Optional name parameter to filter spaceships by name.
+     * @param withTotal Whether to include {@code totalElements} and {@code totalPages}; without them the page
+     *                  only tells whether it is the last one.
      * @param pageable Pagination information.
-     * @return A Page of Spaceship objects.
+     * @return ResponseEntity containing a SpaceshipPage, or 304 if the client's copy is current.
      */
     @GetMapping
     @ResponseBody
-    public Page<Spaceship> getAllSpaceships(
+    public ResponseEntity<SpaceshipPage> getAllSpaceships(
             @RequestParam(required = false) String name,
             @RequestParam(defaultValue = "id") String sort,
             @RequestParam(defaultValue = "asc") String direction,
+            @RequestParam(defaultValue = "true") boolean withTotal,
             Pageable pageable) {
 
-        Page<Spaceship> spaceships = spaceshipService.getAllSpaceships(name, sort, direction, pageable);
+        Slice<Spaceship> spaceships = withTotal
+                ? spaceshipService.getAllSpaceships(name, sort, direction, pageable)
+                : spaceshipService.getSpaceshipSlice(name, sort, direction, pageable);
 
         logger.debug("Spaceships on this page: {}", spaceships.getContent());
         logger.debug("Is first page: {}, Is last page: {}", spaceships.isFirst(), spaceships.isLast());
         logger.debug("Pageable: offset={}, pageNumber={}, pageSize={}", pageable.getOffset(), pageable.getPageNumber(), pageable.getPageSize());
-        logger.debug("Page info: number={}, size={}, totalElements={}, totalPages={}", 
-                spaceships.getNumber(), spaceships.getSize(), spaceships.getTotalElements(), spaceships.getTotalPages());
+        if (spaceships instanceof Page<Spaceship> page) {
+            logger.debug("Page info: number={}, size={}, totalElements={}, totalPages={}",
+                    page.getNumber(), page.getSize(), page.getTotalElements(), page.getTotalPages());
+        }
         
-        return spaceships;
+        return ResponseEntity.ok()
+                .eTag(SpaceshipETags.of(spaceships))
+                .cacheControl(cacheControl())
+                .body(SpaceshipPage.of(spaceships));
     }
 
-    
+    /**
+     * Retrieves a window of spaceships using keyset (seek) pagination.
+     * Unlike {@link #getAllSpaceships}, no total count is computed and deep windows cost the same as the first one.
+     *
+     * @param name Optional name parameter to filter spaceships by name.
+     * @param size Maximum number of spaceships in the window.
+     * @param cursor Continuation token from the previous window's {@code nextCursor}; omit it for the first window.
+     * @return A SpaceshipSlice with the window content and the cursor for the next one.
+     */
+    @GetMapping("/scroll")
+    public SpaceshipSlice scrollSpaceships(
+            @RequestParam(required = false) String name,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(defaultValue = "asc") String direction,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String cursor) {
+        if (size < 1 || size > MAX_SCROLL_SIZE) {
+            throw new IllegalArgumentException("size must be between 1 and " + MAX_SCROLL_SIZE);
+        }
+        return spaceshipService.scrollSpaceships(name, sort, direction, size, cursor);
+    }
+
+    /**
+     * Exports every spaceship in id order. The response is streamed while rows are read from the database,
+     * so memory use stays flat no matter how large the fleet is.
+     *
+     * @param format {@code json} (a single array, the default), {@code ndjson} or {@code csv}.
+     * @return ResponseEntity whose body is written after the handler returns.
+     */
+    @GetMapping("/all")
+    public ResponseEntity<StreamingResponseBody> exportSpaceships(@RequestParam(defaultValue = "json") String format) {
+        SpaceshipExportWriter.Format exportFormat = SpaceshipExportWriter.Format.of(format);
+        StreamingResponseBody body = out -> {
+            try (SpaceshipExportWriter writer = SpaceshipExportWriter.open(exportFormat, out, objectMapper)) {
+                spaceshipService.exportSpaceships(spaceship -> {
+                    try {
+                        writer.write(spaceship);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return ResponseEntity.ok().contentType(exportFormat.mediaType()).body(body);
+    }
 
     /**
      * Retrieves a specific spaceship by its ID.
      *
      * @param id The ID of the spaceship to retrieve.
-     * @return ResponseEntity containing the Spaceship if found, or 404 if not found.
+     * @return ResponseEntity containing the Spaceship if found, 304 if the client's copy is current,
+     *         or 404 if not found.
      */
     @GetMapping("/{id}")
     public ResponseEntity<Spaceship> getSpaceshipById(@PathVariable Long id) {
         Spaceship spaceship = spaceshipService.getSpaceshipById(id);
-        return ResponseEntity.ok(spaceship);
+        return ResponseEntity.ok()
+                .eTag(SpaceshipETags.of(spaceship))
+                .cacheControl(cacheControl())
+                .body(spaceship);
     }
 
     /**
@@ -74,20 +165,26 @@ public class SpaceshipController {
      */
     @PostMapping("/create")
     public ResponseEntity<Spaceship> createSpaceship(@RequestBody Spaceship spaceship) {
-        return ResponseEntity.status(HttpStatus.CREATED).body(spaceshipService.createSpaceship(spaceship));
+        Spaceship createdSpaceship = spaceshipService.createSpaceship(spaceship);
+        return ResponseEntity.status(HttpStatus.CREATED).eTag(SpaceshipETags.of(createdSpaceship)).body(createdSpaceship);
     }
 
     /**
-     * Updates an existing spaceship.
+     * Updates an existing spaceship. The update only applies to the version named by {@code If-Match}, or, without
+     * that header, to the {@code version} in the body if it has one.
      *
      * @param id The ID of the spaceship to update.
      * @param spaceship The updated Spaceship object.
-     * @return ResponseEntity containing the updated Spaceship if found, or 404 if not found.
+     * @param ifMatch Optional ETag of the representation the update is based on.
+     * @return ResponseEntity containing the updated Spaceship if found, 404 if not found, 412 if {@code If-Match}
+     *         is stale, or 409 if the body's version is stale.
      */
     @PutMapping("/{id}")
-    public ResponseEntity<Spaceship> updateSpaceship(@PathVariable Long id, @RequestBody Spaceship spaceship) {
-        Spaceship updatedSpaceship = spaceshipService.updateSpaceship(id, spaceship);
-        return ResponseEntity.ok(updatedSpaceship);
+    public ResponseEntity<Spaceship> updateSpaceship(@PathVariable Long id, @RequestBody Spaceship spaceship,
+                                                     @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = ifMatch == null ? spaceship.getVersion() : SpaceshipETags.versionFromIfMatch(id, ifMatch);
+        Spaceship updatedSpaceship = spaceshipService.updateSpaceship(id, spaceship, expectedVersion);
+        return ResponseEntity.ok().eTag(SpaceshipETags.of(updatedSpaceship)).body(updatedSpaceship);
     }
 
     /**
@@ -101,4 +198,84 @@ public class SpaceshipController {
         spaceshipService.deleteSpaceship(id);
         return ResponseEntity.noContent().build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Creates many spaceships in one transaction.
+     *
+     * @param spaceships A JSON array of Spaceship objects.
+     * @return ResponseEntity containing the created Spaceships, in request order.
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<Spaceship>> createSpaceships(@RequestBody List<Spaceship> spaceships) {
+        requireBatchSize(spaceships.size());
+        return ResponseEntity.status(HttpStatus.CREATED).body(spaceshipService.createSpaceships(spaceships));
+    }
+
+    /**
+     * Creates many spaceships in one transaction from newline-delimited JSON, one Spaceship per line.
+     *
+     * @param body The NDJSON request body.
+     * @return ResponseEntity containing the created Spaceships, in request order.
+     */
+    @PostMapping(value = "/batch", consumes = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<List<Spaceship>> createSpaceshipsFromNdjson(InputStream body) throws IOException {
+        return createSpaceships(readNdjson(body));
+    }
+
+    /**
+     * Updates many spaceships in one transaction. Every Spaceship must carry its id.
+     *
+     * @param spaceships A JSON array of Spaceship objects.
+     * @return ResponseEntity containing the updated Spaceships, or 404 if any id does not exist.
+     */
+    @PutMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<Spaceship>> updateSpaceships(@RequestBody List<Spaceship> spaceships) {
+        requireBatchSize(spaceships.size());
+        return ResponseEntity.ok(spaceshipService.updateSpaceships(spaceships));
+    }
+
+    /**
+     * Updates many spaceships in one transaction from newline-delimited JSON, one Spaceship per line.
+     *
+     * @param body The NDJSON request body.
+     * @return ResponseEntity containing the updated Spaceships, or 404 if any id does not exist.
+     */
+    @PutMapping(value = "/batch", consumes = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<List<Spaceship>> updateSpaceshipsFromNdjson(InputStream body) throws IOException {
+        return updateSpaceships(readNdjson(body));
+    }
+
+    /**
+     * Deletes many spaceships by their IDs.
+     *
+     * @param ids A JSON array of spaceship IDs.
+     * @return ResponseEntity with no content if successful, or 404 if any id does not exist.
+     */
+    @DeleteMapping("/batch")
+    public ResponseEntity<Void> deleteSpaceships(@RequestBody List<Long> ids) {
+        requireBatchSize(ids.size());
+        spaceshipService.deleteSpaceships(ids);
+        return ResponseEntity.noContent().build();
+    }
+
+    private List<Spaceship> readNdjson(InputStream body) throws IOException {
+        List<Spaceship> spaceships = new ArrayList<>();
+        try (MappingIterator<Spaceship> iterator = objectMapper.readerFor(Spaceship.class).readValues(body)) {
+            while (iterator.hasNext()) {
+                spaceships.add(iterator.next());
+                requireBatchSize(spaceships.size());
+            }
+        }
+        return spaceships;
+    }
+
+    private void requireBatchSize(int size) {
+        if (size > maxBatchSize) {
+            throw new IllegalArgumentException("A batch can contain at most " + maxBatchSize + " spaceships");
+        }
+    }
+
+    private CacheControl cacheControl() {
+        return maxAgeSeconds > 0 ? CacheControl.maxAge(maxAgeSeconds, TimeUnit.SECONDS).mustRevalidate() : CacheControl.noCache();
+    }
+}
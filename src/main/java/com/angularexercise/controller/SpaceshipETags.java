@@ -0,0 +1,73 @@
+package com.angularexercise.controller;
+
+import com.angularexercise.model.Spaceship;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+
+import java.util.Objects;
+
+/**
+ * Entity tags for spaceship responses. They are derived from data the response already holds, so no body has
+ * to be serialized or hashed to answer {@code If-None-Match}:
+ * <ul>
+ *     <li>a single spaceship is tagged {@code "<id>-<version>"}, the {@code @Version} column changing with
+ *     every update. The tag is strong, so that it can be used in {@code If-Match};</li>
+ *     <li>a page is tagged with a 64-bit fingerprint of its position, its total (or whether there is a next page,
+ *     for a slice without total) and the id, version, name and
+ *     model of every spaceship on it. Name and model are included because the read model and the reactive
+ *     API may serve rows without a version. The tag is weak: the same page is sent gzip-compressed or not,
+ *     and Tomcat does not compress a response carrying a strong tag.</li>
+ * </ul>
+ */
+final class SpaceshipETags {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private SpaceshipETags() {
+    }
+
+    static String of(Spaceship spaceship) {
+        return "\"" + spaceship.getId() + "-" + spaceship.getVersion() + "\"";
+    }
+
+    static String of(Slice<Spaceship> page) {
+        // A slice is told apart from a page whose total happens to be 0 or 1
+        long total = page instanceof Page<Spaceship> withTotal ? withTotal.getTotalElements() : page.hasNext() ? -2 : -1;
+        long hash = mix(mix(mix(17, total), page.getNumber()), page.getSize());
+        for (Spaceship spaceship : page.getContent()) {
+            hash = mix(hash, Objects.hashCode(spaceship.getId()));
+            hash = mix(hash, Objects.hashCode(spaceship.getVersion()));
+            hash = mix(hash, Objects.hashCode(spaceship.getName()));
+            hash = mix(hash, Objects.hashCode(spaceship.getModel()));
+        }
+        return "W/\"p" + Long.toHexString(hash) + "\"";
+    }
+
+    /**
+     * The version an {@code If-Match} header requires of spaceship {@code id}, or {@code null} for {@code *}.
+     *
+     * @throws OptimisticLockingFailureException if the header names no current representation of the spaceship,
+     *         e.g. a weak tag or a tag of another spaceship.
+     */
+    static Long versionFromIfMatch(Long id, String ifMatch) {
+        String tag = ifMatch.trim();
+        if (tag.equals("*")) {
+            return null;
+        }
+        String prefix = "\"" + id + "-";
+        if (tag.startsWith(prefix) && tag.endsWith("\"") && tag.length() > prefix.length() + 1) {
+            try {
+                return Long.parseLong(tag.substring(prefix.length(), tag.length() - 1));
+            } catch (NumberFormatException e) {
+                // Falls through to the precondition failure below
+            }
+        }
+        throw new OptimisticLockingFailureException("If-Match " + tag + " does not match spaceship " + id);
+    }
+
+    private static long mix(long hash, long value) {
+        hash = (hash ^ value) * GOLDEN_GAMMA;
+        return hash ^ (hash >>> 29);
+    }
+}
@@ -0,0 +1,151 @@
+package com.angularexercise.controller;
+
+import com.angularexercise.model.Spaceship;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.MediaType;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Writes spaceships to an export response one at a time, so the response never has to be built in memory.
+ * Nothing is flushed per spaceship: output leaves in buffer-sized chunks, which also keeps gzip from
+ * ending a deflate block after every row.
+ */
+abstract class SpaceshipExportWriter implements Closeable {
+
+    enum Format {
+        JSON(MediaType.APPLICATION_JSON),
+        NDJSON(MediaType.parseMediaType(SpaceshipController.APPLICATION_NDJSON_VALUE)),
+        CSV(new MediaType("text", "csv", StandardCharsets.UTF_8));
+
+        private final MediaType mediaType;
+
+        Format(MediaType mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        MediaType mediaType() {
+            return mediaType;
+        }
+
+        static Format of(String format) {
+            try {
+                return valueOf(format.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported export format: " + format);
+            }
+        }
+    }
+
+    abstract void write(Spaceship spaceship) throws IOException;
+
+    static SpaceshipExportWriter open(Format format, OutputStream out, ObjectMapper objectMapper) throws IOException {
+        return switch (format) {
+            case JSON -> new JsonArrayWriter(out, objectMapper);
+            case NDJSON -> new NdjsonWriter(out, objectMapper);
+            case CSV -> new CsvWriter(out);
+        };
+    }
+
+    /**
+     * A single JSON array, the shape returned by the other list endpoints.
+     */
+    private static final class JsonArrayWriter extends SpaceshipExportWriter {
+        private final SequenceWriter sequence;
+
+        JsonArrayWriter(OutputStream out, ObjectMapper objectMapper) throws IOException {
+            this.sequence = objectMapper.writer()
+                    .without(SerializationFeature.INDENT_OUTPUT)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                    .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .writeValuesAsArray(out);
+        }
+
+        @Override
+        void write(Spaceship spaceship) throws IOException {
+            sequence.write(spaceship);
+        }
+
+        @Override
+        public void close() throws IOException {
+            sequence.close();
+        }
+    }
+
+    /**
+     * One compact JSON object per line.
+     */
+    private static final class NdjsonWriter extends SpaceshipExportWriter {
+        private final SequenceWriter sequence;
+
+        NdjsonWriter(OutputStream out, ObjectMapper objectMapper) throws IOException {
+            this.sequence = objectMapper.writer()
+                    .without(SerializationFeature.INDENT_OUTPUT)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                    .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .withRootValueSeparator("\n")
+                    .writeValues(out);
+        }
+
+        @Override
+        void write(Spaceship spaceship) throws IOException {
+            sequence.write(spaceship);
+        }
+
+        @Override
+        public void close() throws IOException {
+            sequence.close();
+        }
+    }
+
+    /**
+     * RFC 4180 CSV with an {@code id,name,model} header.
+     */
+    private static final class CsvWriter extends SpaceshipExportWriter {
+        private final Writer writer;
+
+        CsvWriter(OutputStream out) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writer.write("id,name,model\r\n");
+        }
+
+        @Override
+        void write(Spaceship spaceship) throws IOException {
+            writer.write(String.valueOf(spaceship.getId()));
+            writer.write(',');
+            writeField(spaceship.getName());
+            writer.write(',');
+            writeField(spaceship.getModel());
+            writer.write("\r\n");
+        }
+
+        private void writeField(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        @Override
+        public void close() throws IOException {
+            // Flush only: the servlet container owns the response stream
+            writer.flush();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.angularexercise.kafka;
+
+import com.angularexercise.cache.SpaceshipCacheInvalidator;
+import com.angularexercise.config.CacheProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Applies the cache invalidations of the other nodes to this node's caches. Every node must see every message,
+ * so each one consumes in a consumer group of its own, named after its node id, and starts at the end of the
+ * topic: a node that was down has empty caches, and nothing to catch up on. Its own messages are skipped, the
+ * writer having evicted its caches before publishing. Messages are counted in
+ * {@code spaceship.cache.invalidations.received}, tagged {@code outcome=applied} or {@code ignored}, and the
+ * evictions of an applied one are timed in {@code spaceship.cache.invalidations.processing}.
+ */
+@Service
+public class SpaceshipCacheInvalidationConsumer {
+
+    public static final String LISTENER_ID = "spaceship-cache-invalidation";
+    private static final Logger logger = LoggerFactory.getLogger(SpaceshipCacheInvalidationConsumer.class);
+    private final SpaceshipCacheInvalidator cacheInvalidator;
+    private final String nodeId;
+    private final byte[] origin;
+    private final Counter applied;
+    private final Counter ignored;
+    private final Timer processing;
+
+    @Autowired
+    public SpaceshipCacheInvalidationConsumer(SpaceshipCacheInvalidator cacheInvalidator, CacheProperties cacheProperties,
+                                              MeterRegistry meterRegistry) {
+        this.cacheInvalidator = cacheInvalidator;
+        this.nodeId = cacheProperties.getNodeId();
+        this.origin = nodeId.getBytes(StandardCharsets.UTF_8);
+        this.applied = meterRegistry.counter("spaceship.cache.invalidations.received", "outcome", "applied");
+        this.ignored = meterRegistry.counter("spaceship.cache.invalidations.received", "outcome", "ignored");
+        this.processing = Timer.builder("spaceship.cache.invalidations.processing")
+                .description("Time to apply another node's cache invalidation")
+                .register(meterRegistry);
+    }
+
+    public String getGroupId() {
+        return "spaceship-cache-" + nodeId;
+    }
+
+    @KafkaListener(id = LISTENER_ID, idIsGroup = false, groupId = "#{__listener.groupId}",
+            topics = SpaceshipCacheInvalidationPublisher.TOPIC, containerFactory = "cacheInvalidationListenerContainerFactory",
+            autoStartup = "${app.cache.invalidation.enabled:true}",
+            properties = {
+                    "value.deserializer=org.apache.kafka.common.serialization.ByteArrayDeserializer",
+                    "auto.offset.reset=latest"
+            })
+    public void consume(ConsumerRecord<String, byte[]> record) {
+        Header header = record.headers().lastHeader(SpaceshipCacheInvalidationPublisher.ORIGIN_HEADER);
+        if (header != null && Arrays.equals(header.value(), origin)) {
+            ignored.increment();
+            return;
+        }
+        processing.record(() -> cacheInvalidator.invalidateNear(SpaceshipChangeCodec.decode(record.value())));
+        applied.increment();
+        logger.debug("Applied cache invalidation from {} at offset {}",
+                header == null ? "unknown node" : new String(header.value(), StandardCharsets.UTF_8), record.offset());
+    }
+}
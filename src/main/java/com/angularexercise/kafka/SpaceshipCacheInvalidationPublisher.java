@@ -0,0 +1,109 @@
+package com.angularexercise.kafka;
+
+import com.angularexercise.cache.SpaceshipCacheInvalidator;
+import com.angularexercise.cache.SpaceshipChange;
+import com.angularexercise.config.CacheProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tells the other nodes which spaceships this node changed, so that they evict the affected entries of their
+ * own caches. Messages go to {@value #TOPIC}, carry the node id in the {@value #ORIGIN_HEADER} header so that
+ * the sender can skip its own, and are sent from a single background thread: a write never waits for the
+ * producer, not even for metadata while the broker is unreachable. Sends are counted in
+ * {@code spaceship.cache.invalidations.published}, tagged by {@code outcome}, and timed from the send to the
+ * acknowledgement in {@code spaceship.cache.invalidations.send}; a lost message leaves the other nodes' near
+ * caches stale until their entries expire.
+ */
+@Component
+public class SpaceshipCacheInvalidationPublisher implements DisposableBean {
+
+    public static final String TOPIC = "spaceship-cache-invalidation";
+    public static final String ORIGIN_HEADER = "origin-node";
+    private static final Logger logger = LoggerFactory.getLogger(SpaceshipCacheInvalidationPublisher.class);
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final byte[] origin;
+    private final Counter published;
+    private final Counter failed;
+    private final Timer sent;
+    private final Timer sendFailed;
+    private final ExecutorService sender = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cache-invalidation-sender");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Value("${app.cache.invalidation.enabled:true}")
+    private boolean enabled = true;
+
+    @Autowired
+    public SpaceshipCacheInvalidationPublisher(@Qualifier("cacheInvalidationKafkaTemplate") KafkaTemplate<String, byte[]> kafkaTemplate,
+                                               CacheProperties cacheProperties, MeterRegistry meterRegistry) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.origin = cacheProperties.getNodeId().getBytes(StandardCharsets.UTF_8);
+        this.published = meterRegistry.counter("spaceship.cache.invalidations.published", "outcome", "success");
+        this.failed = meterRegistry.counter("spaceship.cache.invalidations.published", "outcome", "failure");
+        this.sent = sendTimer(meterRegistry, "success");
+        this.sendFailed = sendTimer(meterRegistry, "failure");
+    }
+
+    public void publish(Collection<SpaceshipChange> changes) {
+        if (!enabled || changes.isEmpty()) {
+            return;
+        }
+        byte[] payload = SpaceshipChangeCodec.encode(changes, SpaceshipCacheInvalidator.BULK_CLEAR_THRESHOLD);
+        sender.execute(() -> send(payload, changes.size()));
+    }
+
+    private void send(byte[] payload, int changeCount) {
+        ProducerRecord<String, byte[]> record = new ProducerRecord<>(TOPIC, payload);
+        record.headers().add(ORIGIN_HEADER, origin);
+        long start = System.nanoTime();
+        try {
+            kafkaTemplate.send(record).whenComplete((result, exception) -> {
+                if (exception == null) {
+                    sent.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    published.increment();
+                    logger.debug("Published invalidation of {} change(s) at offset {}", changeCount, result.getRecordMetadata().offset());
+                } else {
+                    sendFailed.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    failed.increment();
+                    logger.error("Failed to publish invalidation of {} change(s)", changeCount, exception);
+                }
+            });
+        } catch (RuntimeException e) {
+            // Metadata unavailable within max.block.ms, or the record buffer is full
+            sendFailed.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            failed.increment();
+            logger.error("Failed to publish invalidation of {} change(s)", changeCount, e);
+        }
+    }
+
+    private static Timer sendTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("spaceship.cache.invalidations.send")
+                .description("Time from sending a cache invalidation to its acknowledgement")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void destroy() {
+        sender.shutdown();
+    }
+}
@@ -0,0 +1,79 @@
+package com.angularexercise.kafka;
+
+import com.angularexercise.cache.SpaceshipChange;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Binary encoding of the {@link SpaceshipChange}s of one write, the payload of a cache invalidation message:
+ * the number of changes, then per change its type, id and the old and new name (each preceded by a presence
+ * flag). A count of -1 stands for "everything": writes of more than {@code maxChanges} spaceships are sent
+ * that way, because the receiver would clear its page cache for them anyway.
+ */
+public final class SpaceshipChangeCodec {
+
+    private static final int EVERYTHING = -1;
+    private static final SpaceshipChange.Type[] TYPES = SpaceshipChange.Type.values();
+
+    private SpaceshipChangeCodec() {
+    }
+
+    public static byte[] encode(Collection<SpaceshipChange> changes, int maxChanges) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 + 48 * Math.min(changes.size(), maxChanges));
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            if (changes.size() > maxChanges) {
+                out.writeInt(EVERYTHING);
+                return bytes.toByteArray();
+            }
+            out.writeInt(changes.size());
+            for (SpaceshipChange change : changes) {
+                out.writeByte(change.type().ordinal());
+                out.writeLong(change.id());
+                writeNullableString(out, change.oldName());
+                writeNullableString(out, change.newName());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @return The changes, or null if the message stands for a change of everything.
+     */
+    public static List<SpaceshipChange> decode(byte[] payload) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            int count = in.readInt();
+            if (count == EVERYTHING) {
+                return null;
+            }
+            List<SpaceshipChange> changes = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                SpaceshipChange.Type type = TYPES[in.readByte()];
+                changes.add(new SpaceshipChange(type, in.readLong(), readNullableString(in), readNullableString(in)));
+            }
+            return changes;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeNullableString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullableString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -1,19 +1,145 @@
 package com.angularexercise.kafka;
 
-import com.angularexercise.model.Spaceship;
+import com.angularexercise.push.SpaceshipChangeBroadcaster;
+import com.angularexercise.readmodel.SpaceshipReadModel;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Service;
 
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Feeds every change on {@code spaceship-topic} to this node's {@link SpaceshipReadModel} and to the browsers
+ * connected to it. Every node must see every change, so each one consumes in a consumer group of its own,
+ * named after {@code app.kafka.instance-id} (the host name unless set). The id stays the same across restarts,
+ * so a restarted node resumes its group rather than leaving one behind per run; nodes sharing a host need an id
+ * each. A new group starts at the end of the topic: the read model is rebuilt from the database on startup, and
+ * browsers resync when they connect. The read model is told whether this node holds every partition, and does
+ * not serve while it does not.
+ */
 @Service
-public class SpaceshipConsumer {
+public class SpaceshipConsumer implements ConsumerSeekAware {
 
+    public static final String LISTENER_ID = "spaceship-events";
     private static final Logger logger = LoggerFactory.getLogger(SpaceshipConsumer.class);
+    private final SpaceshipReadModel readModel;
+    private final SpaceshipChangeBroadcaster broadcaster;
+    private final Timer processing;
+    private final Counter duplicates;
+    // Outbox ids of the latest records, to drop the ones the relay sends again
+    private final Cache<Long, Boolean> relayed;
+    private final String instanceId;
+    private final int partitions;
+    // Guarded by itself; the consumer threads share it
+    private final Set<TopicPartition> assigned = new HashSet<>();
+
+    @Autowired
+    public SpaceshipConsumer(SpaceshipReadModel readModel, SpaceshipChangeBroadcaster broadcaster, MeterRegistry meterRegistry,
+                             @Value("${app.kafka.instance-id:}") String instanceId, @Value("${app.kafka.topic.partitions:6}") int partitions,
+                             @Value("${app.outbox.dedup-window:100000}") int dedupWindow) {
+        this.readModel = readModel;
+        this.broadcaster = broadcaster;
+        this.instanceId = instanceId.isEmpty() ? hostName() : instanceId;
+        this.partitions = partitions;
+        this.relayed = Caffeine.newBuilder().maximumSize(dedupWindow).build();
+        this.duplicates = meterRegistry.counter("spaceship.events.duplicates");
+        this.processing = Timer.builder("spaceship.events.processing")
+                .description("Time to process one batch of spaceship events")
+                .register(meterRegistry);
+    }
+
+    public String getGroupId() {
+        return "spaceship-" + instanceId;
+    }
+
+    /**
+     * Receives everything a consumer thread fetched in one poll. Offsets are committed once, after the whole
+     * batch is processed; if processing throws, nothing is acknowledged and the batch is redelivered.
+     * Every change is applied to the {@link SpaceshipReadModel} and pushed to the browsers subscribed through
+     * the {@link SpaceshipChangeBroadcaster}. The time a batch takes is recorded in {@code spaceship.events.processing}.
+     * <p>
+     * The outbox relay may send a record again, with the same {@value SpaceshipEventPublisher#OUTBOX_ID_HEADER}
+     * header, after a timeout or a crash. The outbox ids of the last {@code app.outbox.dedup-window} records are
+     * remembered and records seen before are dropped, counted in {@code spaceship.events.duplicates}.
+     * A tombstone removes the spaceship from the read model at the version in its
+     * {@value SpaceshipEventPublisher#VERSION_HEADER} header; one without it, published directly or relayed from an
+     * entry written before entries had versions, removes it for good, spaceship ids not being reused.
+     */
+    // One consumer thread per partition; records of the same spaceship arrive in order on a single thread
+    @KafkaListener(id = LISTENER_ID, idIsGroup = false, groupId = "#{__listener.groupId}", topics = SpaceshipEventPublisher.TOPIC,
+            concurrency = "${app.kafka.topic.partitions:6}", containerFactory = "batchListenerContainerFactory",
+            properties = "auto.offset.reset=latest")
+    public void consume(List<ConsumerRecord<String, SpaceshipEvent>> records, Acknowledgment acknowledgment) {
+        logger.info("Received {} Spaceship messages", records.size());
+        Timer.Sample sample = Timer.start();
+        for (ConsumerRecord<String, SpaceshipEvent> record : records) {
+            Long outboxId = SpaceshipEventPublisher.outboxId(record);
+            if (outboxId != null && relayed.asMap().putIfAbsent(outboxId, Boolean.TRUE) != null) {
+                logger.debug("Dropped Spaceship message from partition {} at offset {}, outbox entry {} was already received",
+                        record.partition(), record.offset(), outboxId);
+                duplicates.increment();
+                continue;
+            }
+            if (record.value() == null) {
+                logger.debug("Received Spaceship deletion from partition {} at offset {}: {}", record.partition(), record.offset(), record.key());
+                long id = Long.parseLong(record.key());
+                Long version = SpaceshipEventPublisher.version(record);
+                readModel.remove(id, version == null ? Long.MAX_VALUE : version);
+                broadcaster.publishDeletion(id);
+            } else {
+                logger.debug("Received Spaceship message from partition {} at offset {}: {}", record.partition(), record.offset(), record.value());
+                readModel.apply(record.value());
+                broadcaster.publish(record.value());
+            }
+        }
+        sample.stop(processing);
+        acknowledgment.acknowledge();
+    }
+
+    /**
+     * By now the positions of the assigned partitions are fixed (the container commits them on assignment when
+     * the group has none yet), so every change published from here on is consumed.
+     */
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        synchronized (assigned) {
+            assigned.addAll(assignments.keySet());
+            readModel.setSubscribed(assigned.size() >= partitions);
+        }
+    }
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> revoked) {
+        synchronized (assigned) {
+            assigned.removeAll(revoked);
+            readModel.setSubscribed(assigned.size() >= partitions);
+        }
+    }
 
-    @KafkaListener(topics = "spaceship-topic", groupId = "spaceship-group")
-    public void consume(Spaceship spaceship) {
-        logger.info("Received Spaceship message: {}", spaceship);
-        // Add your business logic here to process the received spaceship message
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            logger.warn("Host name unavailable, consuming spaceship events as instance 'localhost'", e);
+            return "localhost";
+        }
     }
-}
\ No newline at end of file
+}
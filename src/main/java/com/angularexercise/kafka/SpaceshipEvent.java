@@ -0,0 +1,49 @@
+package com.angularexercise.kafka;
+
+import com.angularexercise.model.Spaceship;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Change event published to {@code spaceship-topic} for a created or updated spaceship, encoded with the
+ * {@code SpaceshipChangeEvent} Avro schema. It carries the full state after the change, so the latest
+ * event per id is enough to rebuild a spaceship from a compacted topic; {@code changedFields} says what
+ * the change touched. Deletions are not events but tombstones, see {@link SpaceshipEventPublisher}.
+ */
+public record SpaceshipEvent(Operation operation, long id, long version, Instant timestamp,
+                             String name, String model, List<Field> changedFields) {
+
+    public enum Operation {
+        CREATED,
+        UPDATED
+    }
+
+    public enum Field {
+        NAME,
+        MODEL
+    }
+
+    public static SpaceshipEvent created(Spaceship spaceship) {
+        return new SpaceshipEvent(Operation.CREATED, spaceship.getId(), versionOf(spaceship), Instant.now(),
+                spaceship.getName(), spaceship.getModel(), List.of(Field.NAME, Field.MODEL));
+    }
+
+    public static SpaceshipEvent updated(Spaceship spaceship, String oldName, String oldModel) {
+        List<Field> changedFields = new ArrayList<>(2);
+        if (!Objects.equals(oldName, spaceship.getName())) {
+            changedFields.add(Field.NAME);
+        }
+        if (!Objects.equals(oldModel, spaceship.getModel())) {
+            changedFields.add(Field.MODEL);
+        }
+        return new SpaceshipEvent(Operation.UPDATED, spaceship.getId(), versionOf(spaceship), Instant.now(),
+                spaceship.getName(), spaceship.getModel(), List.copyOf(changedFields));
+    }
+
+    private static long versionOf(Spaceship spaceship) {
+        return spaceship.getVersion() == null ? 0 : spaceship.getVersion();
+    }
+}
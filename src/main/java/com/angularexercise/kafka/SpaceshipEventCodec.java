@@ -0,0 +1,187 @@
+package com.angularexercise.kafka;
+
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaNormalization;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.message.BadHeaderException;
+import org.apache.avro.message.BinaryMessageDecoder;
+import org.apache.avro.message.SchemaStore;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Avro single-object encoding of {@link SpaceshipEvent}: a 10-byte header with the writer schema's
+ * fingerprint followed by the binary record. Schemas are looked up by fingerprint in the {@code .avsc} files
+ * under {@code classpath:avro/}, which stand in for a schema registry: keep every schema version that may
+ * still be on the topic there, and the decoder resolves it against the current one.
+ * <p>
+ * Records written with the current schema are encoded and decoded field by field, the way Avro's generated
+ * classes do it, without building an intermediate {@link GenericRecord}; only older writer schemas go
+ * through the generic resolving decoder.
+ */
+public final class SpaceshipEventCodec {
+
+    static final String SCHEMA_LOCATION = "avro/SpaceshipChangeEvent.avsc";
+    static final Schema SCHEMA = parse(new PathMatchingResourcePatternResolver().getResource("classpath:" + SCHEMA_LOCATION));
+    private static final long FINGERPRINT = SchemaNormalization.parsingFingerprint64(SCHEMA);
+    private static final byte[] HEADER = header(FINGERPRINT);
+    private static final SchemaStore SCHEMA_STORE = classpathSchemaStore();
+    private static final SpaceshipEvent.Operation[] OPERATIONS = SpaceshipEvent.Operation.values();
+    private static final SpaceshipEvent.Field[] FIELDS = SpaceshipEvent.Field.values();
+
+    private final BinaryMessageDecoder<GenericRecord> resolvingDecoder =
+            new BinaryMessageDecoder<>(GenericData.get(), SCHEMA, SCHEMA_STORE);
+
+    public byte[] encode(SpaceshipEvent event) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        out.writeBytes(HEADER);
+        BinaryEncoder encoder = EncoderFactory.get().directBinaryEncoder(out, null);
+        try {
+            encoder.writeEnum(event.operation().ordinal());
+            encoder.writeLong(event.id());
+            encoder.writeLong(event.version());
+            encoder.writeLong(event.timestamp().toEpochMilli());
+            writeNullableString(encoder, event.name());
+            writeNullableString(encoder, event.model());
+            encoder.writeArrayStart();
+            encoder.setItemCount(event.changedFields().size());
+            for (SpaceshipEvent.Field field : event.changedFields()) {
+                encoder.startItem();
+                encoder.writeEnum(field.ordinal());
+            }
+            encoder.writeArrayEnd();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @throws IOException if the header is invalid, the writer schema is not in {@code classpath:avro/} or the
+     * record does not match its schema; Avro reports the first two with runtime exceptions, which are the cause
+     */
+    public SpaceshipEvent decode(byte[] bytes) throws IOException {
+        try {
+            return decodeRecord(bytes);
+        } catch (AvroRuntimeException | ArrayIndexOutOfBoundsException e) {
+            // An enum ordinal out of range surfaces as the index into OPERATIONS or FIELDS
+            throw new IOException("Cannot decode spaceship event: " + e.getMessage(), e);
+        }
+    }
+
+    private SpaceshipEvent decodeRecord(byte[] bytes) throws IOException {
+        if (!hasHeader(bytes, HEADER)) {
+            return fromGenericRecord(resolvingDecoder.decode(bytes));
+        }
+        BinaryDecoder decoder = DecoderFactory.get().binaryDecoder(bytes, HEADER.length, bytes.length - HEADER.length, null);
+        SpaceshipEvent.Operation operation = OPERATIONS[decoder.readEnum()];
+        long id = decoder.readLong();
+        long version = decoder.readLong();
+        Instant timestamp = Instant.ofEpochMilli(decoder.readLong());
+        String name = readNullableString(decoder);
+        String model = readNullableString(decoder);
+        List<SpaceshipEvent.Field> changedFields = new ArrayList<>(FIELDS.length);
+        for (long n = decoder.readArrayStart(); n != 0; n = decoder.arrayNext()) {
+            for (long i = 0; i < n; i++) {
+                changedFields.add(FIELDS[decoder.readEnum()]);
+            }
+        }
+        return new SpaceshipEvent(operation, id, version, timestamp, name, model, List.copyOf(changedFields));
+    }
+
+    private static SpaceshipEvent fromGenericRecord(GenericRecord record) {
+        List<SpaceshipEvent.Field> changedFields = new ArrayList<>();
+        for (Object field : (List<?>) record.get("changedFields")) {
+            changedFields.add(SpaceshipEvent.Field.valueOf(field.toString()));
+        }
+        return new SpaceshipEvent(
+                SpaceshipEvent.Operation.valueOf(record.get("operation").toString()),
+                (Long) record.get("id"),
+                (Long) record.get("version"),
+                Instant.ofEpochMilli((Long) record.get("timestamp")),
+                toString(record.get("name")),
+                toString(record.get("model")),
+                List.copyOf(changedFields));
+    }
+
+    // ["null", "string"] unions: branch 0 is null, branch 1 is the string
+    private static void writeNullableString(BinaryEncoder encoder, String value) throws IOException {
+        if (value == null) {
+            encoder.writeIndex(0);
+            encoder.writeNull();
+        } else {
+            encoder.writeIndex(1);
+            encoder.writeString(value);
+        }
+    }
+
+    private static String readNullableString(BinaryDecoder decoder) throws IOException {
+        if (decoder.readIndex() == 0) {
+            decoder.readNull();
+            return null;
+        }
+        return decoder.readString();
+    }
+
+    private static String toString(Object value) {
+        return value == null ? null : value.toString();
+    }
+
+    private static boolean hasHeader(byte[] bytes, byte[] header) throws BadHeaderException {
+        if (bytes.length < header.length) {
+            throw new BadHeaderException("Not enough header bytes");
+        }
+        for (int i = 0; i < header.length; i++) {
+            if (bytes[i] != header[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Single-object encoding header: marker 0xC3 0x01, then the fingerprint little-endian
+    private static byte[] header(long fingerprint) {
+        byte[] header = new byte[10];
+        header[0] = (byte) 0xC3;
+        header[1] = (byte) 0x01;
+        for (int i = 0; i < 8; i++) {
+            header[2 + i] = (byte) (fingerprint >>> (8 * i));
+        }
+        return header;
+    }
+
+    private static SchemaStore classpathSchemaStore() {
+        SchemaStore.Cache store = new SchemaStore.Cache();
+        try {
+            for (Resource resource : new PathMatchingResourcePatternResolver().getResources("classpath*:avro/*.avsc")) {
+                store.addSchema(parse(resource));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return store;
+    }
+
+    private static Schema parse(Resource resource) {
+        // One parser per file: older versions of a schema reuse its full name
+        try (InputStream in = resource.getInputStream()) {
+            return new Schema.Parser().parse(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read Avro schema " + resource, e);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.angularexercise.kafka;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.io.IOException;
+
+/**
+ * Kafka deserializer for {@link SpaceshipEvent}; a tombstone is returned as null.
+ */
+public class SpaceshipEventDeserializer implements Deserializer<SpaceshipEvent> {
+
+    private final SpaceshipEventCodec codec = new SpaceshipEventCodec();
+
+    @Override
+    public SpaceshipEvent deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            return codec.decode(data);
+        } catch (IOException e) {
+            throw new SerializationException("Cannot decode spaceship event from " + topic, e);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.angularexercise.kafka;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Publishes spaceship events without waiting for the broker. Records are keyed by spaceship id, so all
+ * events of one ship land on the same partition and are consumed in order. The acknowledgement is
+ * handled on the producer's I/O thread: successes and failures are counted in
+ * {@code spaceship.events.published}, tagged by {@code outcome}, and the time from the send to the acknowledgement
+ * or failure in {@code spaceship.events.send}, tagged the same way. Retries are left to the producer, bounded by
+ * {@code delivery.timeout.ms}, and are part of that time.
+ * <p>
+ * Records relayed from the outbox carry the id of their outbox entry in the {@value #OUTBOX_ID_HEADER} header
+ * (8 bytes, big-endian). Delivery from the outbox is at-least-once: a record sent again after a relay crash has
+ * the same header value, so consumers that need exactly-once processing can drop it. They also carry the row
+ * version of their event in the {@value #VERSION_HEADER} header (same encoding), which is all a tombstone tells
+ * about the version a spaceship was deleted at.
+ */
+@Component
+public class SpaceshipEventPublisher {
+
+    public static final String TOPIC = "spaceship-topic";
+    public static final String OUTBOX_ID_HEADER = "outbox-id";
+    public static final String VERSION_HEADER = "version";
+    private static final Logger logger = LoggerFactory.getLogger(SpaceshipEventPublisher.class);
+    private final KafkaTemplate<String, SpaceshipEvent> kafkaTemplate;
+    private final Counter published;
+    private final Counter failed;
+    private final Timer sent;
+    private final Timer sendFailed;
+
+    @Autowired
+    public SpaceshipEventPublisher(KafkaTemplate<String, SpaceshipEvent> kafkaTemplate, MeterRegistry meterRegistry) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.published = meterRegistry.counter("spaceship.events.published", "outcome", "success");
+        this.failed = meterRegistry.counter("spaceship.events.published", "outcome", "failure");
+        this.sent = sendTimer(meterRegistry, "success");
+        this.sendFailed = sendTimer(meterRegistry, "failure");
+    }
+
+    /**
+     * Hands the event to the producer and returns immediately. The database write that produced the
+     * event has already happened, so a failed publication is logged and counted rather than thrown.
+     */
+    public CompletableFuture<SendResult<String, SpaceshipEvent>> publish(SpaceshipEvent event) {
+        return send(event.id(), event);
+    }
+
+    /**
+     * Publishes a tombstone for the spaceship: a null value under its key. Consumers treat it as a delete,
+     * and log compaction eventually drops every earlier event of that spaceship.
+     */
+    public CompletableFuture<SendResult<String, SpaceshipEvent>> publishDeletion(long id) {
+        return send(id, null);
+    }
+
+    /**
+     * Publishes an event written to the outbox, or a tombstone when {@code event} is null, tagged with the
+     * outbox entry id and the version, if the entry has one.
+     */
+    public CompletableFuture<SendResult<String, SpaceshipEvent>> publishFromOutbox(long outboxId, long id, Long version,
+                                                                                   SpaceshipEvent event) {
+        ProducerRecord<String, SpaceshipEvent> record = new ProducerRecord<>(TOPIC, key(id), event);
+        record.headers().add(OUTBOX_ID_HEADER, ByteBuffer.allocate(Long.BYTES).putLong(outboxId).array());
+        if (version != null) {
+            record.headers().add(VERSION_HEADER, ByteBuffer.allocate(Long.BYTES).putLong(version).array());
+        }
+        return send(id, event, () -> kafkaTemplate.send(record));
+    }
+
+    private CompletableFuture<SendResult<String, SpaceshipEvent>> send(long id, SpaceshipEvent event) {
+        return send(id, event, () -> kafkaTemplate.send(TOPIC, key(id), event));
+    }
+
+    private CompletableFuture<SendResult<String, SpaceshipEvent>> send(long id, SpaceshipEvent event,
+                                                                       Supplier<CompletableFuture<SendResult<String, SpaceshipEvent>>> sender) {
+        long start = System.nanoTime();
+        CompletableFuture<SendResult<String, SpaceshipEvent>> future;
+        try {
+            future = sender.get();
+        } catch (RuntimeException e) {
+            // Metadata unavailable within max.block.ms, or the record buffer is full
+            future = CompletableFuture.failedFuture(e);
+        }
+        return future.whenComplete((result, exception) -> {
+            if (exception == null) {
+                sent.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                published.increment();
+                logger.debug("Published {} of spaceship {} to partition {} at offset {}", event == null ? "DELETED" : event.operation(),
+                        id, result.getRecordMetadata().partition(), result.getRecordMetadata().offset());
+            } else {
+                sendFailed.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                failed.increment();
+                logger.error("Failed to publish event of spaceship {}", id, exception);
+            }
+        });
+    }
+
+    /**
+     * @return The outbox entry id of a record relayed from the outbox, or null for one published directly.
+     */
+    public static Long outboxId(ConsumerRecord<?, ?> record) {
+        Header header = record.headers().lastHeader(OUTBOX_ID_HEADER);
+        return header == null ? null : ByteBuffer.wrap(header.value()).getLong();
+    }
+
+    /**
+     * @return The version of a record relayed from the outbox, or null for one published directly or written
+     * to the outbox before entries had versions.
+     */
+    public static Long version(ConsumerRecord<?, ?> record) {
+        Header header = record.headers().lastHeader(VERSION_HEADER);
+        return header == null ? null : ByteBuffer.wrap(header.value()).getLong();
+    }
+
+    private static Timer sendTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("spaceship.events.send")
+                .description("Time from sending a spaceship event to its acknowledgement")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    static String key(long id) {
+        return String.valueOf(id);
+    }
+}
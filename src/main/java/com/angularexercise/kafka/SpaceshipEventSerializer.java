@@ -0,0 +1,16 @@
+package com.angularexercise.kafka;
+
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Kafka serializer for {@link SpaceshipEvent}; a null event is written as a null value, i.e. a tombstone.
+ */
+public class SpaceshipEventSerializer implements Serializer<SpaceshipEvent> {
+
+    private final SpaceshipEventCodec codec = new SpaceshipEventCodec();
+
+    @Override
+    public byte[] serialize(String topic, SpaceshipEvent event) {
+        return event == null ? null : codec.encode(event);
+    }
+}
@@ -0,0 +1,66 @@
+package com.angularexercise.kafka;
+
+import com.angularexercise.model.Spaceship;
+import com.angularexercise.model.SpaceshipOutboxEntry;
+import com.angularexercise.repository.SpaceshipOutboxRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Writes spaceship events to the {@code spaceship_outbox} table instead of sending them to Kafka. Every method
+ * joins the caller's transaction (and refuses to run without one), so an event is stored if and only if the
+ * change it describes is committed. {@link SpaceshipOutboxRelay} publishes the entries afterwards.
+ */
+@Component
+public class SpaceshipOutbox {
+
+    private final SpaceshipOutboxRepository outboxRepository;
+    private final SpaceshipEventCodec codec = new SpaceshipEventCodec();
+
+    @Autowired
+    public SpaceshipOutbox(SpaceshipOutboxRepository outboxRepository) {
+        this.outboxRepository = outboxRepository;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(SpaceshipEvent event) {
+        outboxRepository.save(new SpaceshipOutboxEntry(event.id(), event.version(), codec.encode(event)));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void appendAll(Collection<SpaceshipEvent> events) {
+        List<SpaceshipOutboxEntry> entries = new ArrayList<>(events.size());
+        for (SpaceshipEvent event : events) {
+            entries.add(new SpaceshipOutboxEntry(event.id(), event.version(), codec.encode(event)));
+        }
+        outboxRepository.saveAll(entries);
+    }
+
+    /**
+     * @param deleted The spaceship as it was before the deletion.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void appendDeletion(Spaceship deleted) {
+        outboxRepository.save(deletionOf(deleted));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void appendDeletions(Collection<Spaceship> deleted) {
+        List<SpaceshipOutboxEntry> entries = new ArrayList<>(deleted.size());
+        for (Spaceship spaceship : deleted) {
+            entries.add(deletionOf(spaceship));
+        }
+        outboxRepository.saveAll(entries);
+    }
+
+    private static SpaceshipOutboxEntry deletionOf(Spaceship deleted) {
+        long version = deleted.getVersion() == null ? 0 : deleted.getVersion();
+        return new SpaceshipOutboxEntry(deleted.getId(), version + 1, null);
+    }
+}
@@ -0,0 +1,168 @@
+package com.angularexercise.kafka;
+
+import com.angularexercise.config.CacheProperties;
+import com.angularexercise.model.SpaceshipOutboxEntry;
+import com.angularexercise.repository.SpaceshipOutboxRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Drains {@code spaceship_outbox} to {@code spaceship-topic}. Every {@code app.outbox.poll-interval-ms} it
+ * reads up to {@code app.outbox.batch-size} entries, sends them all without waiting, then waits
+ * for the acknowledgements and deletes the entries the broker confirmed. Full batches are followed by the
+ * next one immediately, so a backlog is drained at producer speed rather than one batch per interval.
+ * <p>
+ * Every node runs a relay, but only the holder of the lease in {@code spaceship_outbox_relay} drains: it takes
+ * the lease for {@code app.outbox.lease-ms} before every batch, and the others skip their poll. If the holder
+ * dies, another node takes over once the lease has expired, so the nodes' clocks must agree to well within
+ * the lease. A batch waits at most {@code app.outbox.ack-timeout-ms} for its acknowledgements, which must be
+ * shorter than the lease, so that a holder is done with its batch before anyone can take over.
+ * <p>
+ * Entries are read by spaceship and, within one, by version, not by id: ids are handed out in blocks per node,
+ * so a newer version can have a lower id than an older one still waiting, and a backlog drained over several
+ * batches would then publish them out of order and leave the older one in the compacted topic. Each version of
+ * a spaceship commits before the next can be written, so no later poll finds an older version than one
+ * already sent; a deletion is one version past the last and goes last.
+ * <p>
+ * Only the acknowledged prefix of a batch is deleted: after the first failure, or once the acknowledgement
+ * timeout is up, the remaining entries stay in the outbox and are sent again on the next poll, so nothing is
+ * lost and the per-spaceship order of the outbox is kept. Entries sent again after a timeout or after a crash
+ * between the acknowledgement and the delete may have been delivered already; they carry the same
+ * {@value SpaceshipEventPublisher#OUTBOX_ID_HEADER} header, and {@link SpaceshipConsumer} drops them.
+ */
+@Component
+public class SpaceshipOutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpaceshipOutboxRelay.class);
+    private final SpaceshipOutboxRepository outboxRepository;
+    private final SpaceshipEventPublisher eventPublisher;
+    private final String nodeId;
+    private final SpaceshipEventCodec codec = new SpaceshipEventCodec();
+
+    @Value("${app.outbox.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.outbox.lease-ms:15000}")
+    private long leaseMs;
+
+    @Value("${app.outbox.ack-timeout-ms:5000}")
+    private long ackTimeoutMs;
+
+    @Autowired
+    public SpaceshipOutboxRelay(SpaceshipOutboxRepository outboxRepository, SpaceshipEventPublisher eventPublisher,
+                                CacheProperties cacheProperties) {
+        this.outboxRepository = outboxRepository;
+        this.eventPublisher = eventPublisher;
+        this.nodeId = cacheProperties.getNodeId();
+    }
+
+    /**
+     * Relays batches until the outbox is empty, a send fails or another node holds the lease.
+     *
+     * @return The number of entries relayed and removed from the outbox.
+     */
+    @Scheduled(initialDelayString = "${app.outbox.poll-interval-ms:100}", fixedDelayString = "${app.outbox.poll-interval-ms:100}")
+    public int drain() {
+        int total = 0;
+        int relayed;
+        do {
+            relayed = relayBatch();
+            total += relayed;
+        } while (relayed == batchSize);
+        if (total > 0) {
+            logger.debug("Relayed {} spaceship events from the outbox", total);
+        }
+        return total;
+    }
+
+    /**
+     * Hands the lease over at shutdown, so that another node does not have to wait for it to expire.
+     */
+    @PreDestroy
+    void releaseLease() {
+        outboxRepository.releaseRelayLease(nodeId);
+    }
+
+    int relayBatch() {
+        Instant now = Instant.now();
+        if (outboxRepository.acquireRelayLease(nodeId, now, now.plusMillis(leaseMs)) == 0) {
+            return 0;
+        }
+        List<Pending> batch = decode(outboxRepository.findAllByOrderBySpaceshipIdAscVersionAsc(PageRequest.of(0, batchSize)));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        List<CompletableFuture<SendResult<String, SpaceshipEvent>>> sends = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            SpaceshipOutboxEntry entry = pending.entry();
+            CompletableFuture<SendResult<String, SpaceshipEvent>> send =
+                    eventPublisher.publishFromOutbox(entry.getId(), entry.getSpaceshipId(), entry.getVersion(), pending.event());
+            sends.add(send);
+            if (send.isCompletedExceptionally()) {
+                // The producer could not even accept the record (e.g. broker unreachable for max.block.ms);
+                // don't block again for every remaining entry
+                break;
+            }
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ackTimeoutMs);
+        List<Long> delivered = new ArrayList<>(sends.size());
+        for (int i = 0; i < sends.size(); i++) {
+            try {
+                sends.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (ExecutionException | TimeoutException e) {
+                logger.warn("Outbox relay stopped at entry {} ({}), {} remaining entries are retried on the next poll",
+                        batch.get(i).entry().getId(), e instanceof TimeoutException ? "not acknowledged in time" : "send failed",
+                        batch.size() - i);
+                break;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            delivered.add(batch.get(i).entry().getId());
+        }
+        if (!delivered.isEmpty()) {
+            outboxRepository.deleteAllByIdInBatch(delivered);
+        }
+        return delivered.size();
+    }
+
+    /**
+     * Decodes the entries up to the first one that cannot be.
+     */
+    List<Pending> decode(List<SpaceshipOutboxEntry> entries) {
+        List<Pending> batch = new ArrayList<>(entries.size());
+        for (SpaceshipOutboxEntry entry : entries) {
+            SpaceshipEvent event = null;
+            if (entry.getPayload() != null) {
+                try {
+                    event = codec.decode(entry.getPayload());
+                } catch (IOException e) {
+                    logger.error("Outbox entry {} cannot be decoded, the outbox is relayed up to it", entry.getId(), e);
+                    break;
+                }
+            }
+            batch.add(new Pending(entry, event));
+        }
+        return batch;
+    }
+
+    record Pending(SpaceshipOutboxEntry entry, SpaceshipEvent event) {
+    }
+}
@@ -0,0 +1,108 @@
+package com.angularexercise.model;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Helpers for the trigram index over spaceship names. Every name is indexed by its lower-cased
+ * 3-character substrings; any name containing a search term of 3 or more characters must contain
+ * all of the term's trigrams, which lets the database narrow candidates through an index before
+ * the exact LIKE check runs.
+ * <p>
+ * A search starts from the term's least common trigram alone: its rows are one range of the
+ * {@code (trigram, spaceship_id)} primary key, and the LIKE check on those candidates is cheaper than
+ * intersecting them with the other trigrams. How common each trigram is comes from
+ * {@link #probeSql(int)}, which counts at most {@value #MAX_CANDIDATES} rows per trigram; when even the
+ * rarest one reaches that, the index would visit more rows than it saves and a LIKE scan is used instead.
+ */
+public final class NameTrigrams {
+
+    public static final int LENGTH = 3;
+
+    public static final char LIKE_ESCAPE = '!';
+
+    /**
+     * Candidates above which a trigram no longer beats a LIKE scan: on H2, joining 10,000 trigram rows to
+     * their spaceships costs about what scanning 20,000 names does.
+     */
+    public static final int MAX_CANDIDATES = 10_000;
+
+    /**
+     * Trigrams of a long term whose frequency is probed; any of them is a valid starting point.
+     */
+    public static final int MAX_PROBED = 8;
+
+    private NameTrigrams() {
+    }
+
+    public static Set<String> of(String text) {
+        Set<String> trigrams = new HashSet<>();
+        if (text == null) {
+            return trigrams;
+        }
+        String normalized = text.toLowerCase(Locale.ROOT);
+        for (int i = 0; i + LENGTH <= normalized.length(); i++) {
+            trigrams.add(normalized.substring(i, i + LENGTH));
+        }
+        return trigrams;
+    }
+
+    /**
+     * Whether a search term is long enough to be served by the trigram index.
+     */
+    public static boolean isIndexable(String term) {
+        return term != null && term.length() >= LENGTH;
+    }
+
+    /**
+     * The trigrams of a term to probe, at most {@value #MAX_PROBED} of them.
+     */
+    public static List<String> probed(String term) {
+        return of(term).stream().sorted().limit(MAX_PROBED).toList();
+    }
+
+    /**
+     * One row with a column per trigram: the number of spaceships having {@code :t0}, {@code :t1}, ..., each
+     * counted up to {@value #MAX_CANDIDATES} index entries only.
+     */
+    public static String probeSql(int trigramCount) {
+        StringBuilder sql = new StringBuilder("SELECT ");
+        for (int i = 0; i < trigramCount; i++) {
+            sql.append(i == 0 ? "" : ", ")
+                    .append("(SELECT COUNT(*) FROM (SELECT 1 FROM spaceship_name_trigrams WHERE trigram = :t").append(i)
+                    .append(" LIMIT ").append(MAX_CANDIDATES).append(") c").append(i).append(")");
+        }
+        return sql.toString();
+    }
+
+    /**
+     * @param counts the probe's row, in the order of {@code trigrams}
+     * @return the rarest trigram, or null when every one has at least {@value #MAX_CANDIDATES} spaceships
+     */
+    public static String rarest(List<String> trigrams, List<? extends Number> counts) {
+        String rarest = null;
+        long fewest = MAX_CANDIDATES;
+        for (int i = 0; i < trigrams.size(); i++) {
+            long count = counts.get(i).longValue();
+            if (count < fewest) {
+                fewest = count;
+                rarest = trigrams.get(i);
+            }
+        }
+        return rarest;
+    }
+
+    /**
+     * Lower-cased {@code %term%} pattern with LIKE wildcards escaped by {@link #LIKE_ESCAPE}, so that the
+     * term keeps the literal substring semantics of Spring Data's {@code Containing} keyword.
+     */
+    public static String containsPattern(String term) {
+        String escaped = term.toLowerCase(Locale.ROOT)
+                .replace("!", "!!")
+                .replace("%", "!%")
+                .replace("_", "!_");
+        return "%" + escaped + "%";
+    }
+}
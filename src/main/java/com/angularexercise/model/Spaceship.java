@@ -1,19 +1,25 @@
 package com.angularexercise.model;
 
 import jakarta.persistence.*;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 
 import java.io.Serializable;
+import java.util.HashSet;
 import java.util.Objects;
+import java.util.Set;
 
 @Entity
 @JsonIgnoreProperties(ignoreUnknown = true)
+@JsonPropertyOrder({"id", "name", "model", "version"})
 @Table(name = "spaceships")
 public class Spaceship implements Serializable {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "spaceships_seq")
+    @SequenceGenerator(name = "spaceships_seq", sequenceName = "spaceships_seq", allocationSize = 50)
     @JsonProperty("id")
     private Long id;
 
@@ -23,17 +29,28 @@ public class Spaceship implements Serializable {
     @JsonProperty("model")
     private String model;
 
+    @Version
+    @JsonProperty("version")
+    private Long version;
+
+    // Trigram index over the name, kept in spaceship_name_trigrams and recomputed whenever the name changes
+    @JsonIgnore
+    @ElementCollection
+    @CollectionTable(name = "spaceship_name_trigrams", joinColumns = @JoinColumn(name = "spaceship_id"))
+    @Column(name = "trigram")
+    private Set<String> nameTrigrams = new HashSet<>();
+
     // Constructors
     public Spaceship() {}
 
     public Spaceship(String name, String model) {
-        this.name = name;
+        setName(name);
         this.model = model;
     }
 
     public Spaceship(Long id, String name, String model) {
         this.id = id;
-        this.name = name;
+        setName(name);
         this.model = model;
     }
 
@@ -51,6 +68,9 @@ public class Spaceship implements Serializable {
     }
 
     public void setName(String name) {
+        if (!Objects.equals(this.name, name)) {
+            this.nameTrigrams = NameTrigrams.of(name);
+        }
         this.name = name;
     }
 
@@ -62,6 +82,14 @@ public class Spaceship implements Serializable {
         this.model = model;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
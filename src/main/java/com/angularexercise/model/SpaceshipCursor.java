@@ -0,0 +1,52 @@
+package com.angularexercise.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Base64;
+
+/**
+ * Position of the last spaceship returned by a keyset query. Clients only see it as an opaque
+ * URL-safe token; the sort field and direction are embedded so a token cannot be replayed
+ * against a different ordering.
+ *
+ * @param value sort key of the last row, null when sorting by id or when the key was null
+ */
+public record SpaceshipCursor(String sort, String direction, String value, long id) {
+
+    private static final byte VERSION = 1;
+
+    public String encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeUTF(sort);
+            out.writeUTF(direction);
+            out.writeBoolean(value != null);
+            if (value != null) {
+                out.writeUTF(value);
+            }
+            out.writeLong(id);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    public static SpaceshipCursor decode(String token) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(token)))) {
+            if (in.readByte() != VERSION) {
+                throw new IllegalArgumentException("Unsupported cursor version");
+            }
+            String sort = in.readUTF();
+            String direction = in.readUTF();
+            String value = in.readBoolean() ? in.readUTF() : null;
+            return new SpaceshipCursor(sort, direction, value, in.readLong());
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+    }
+}
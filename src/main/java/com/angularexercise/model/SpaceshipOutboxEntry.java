@@ -0,0 +1,72 @@
+package com.angularexercise.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * A change event waiting in {@code spaceship_outbox} to be relayed to Kafka. The payload is the encoded
+ * event; it is null for a deletion, which is relayed as a tombstone. The version is the spaceship's after the
+ * change, one past its last for a deletion, so that the relay can send each spaceship's events in order.
+ */
+@Entity
+@Table(name = "spaceship_outbox")
+public class SpaceshipOutboxEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "spaceship_outbox_seq")
+    @SequenceGenerator(name = "spaceship_outbox_seq", sequenceName = "spaceship_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "spaceship_id", nullable = false)
+    private long spaceshipId;
+
+    private Long version;
+
+    private byte[] payload;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    protected SpaceshipOutboxEntry() {}
+
+    public SpaceshipOutboxEntry(long spaceshipId, long version, byte[] payload) {
+        this.spaceshipId = spaceshipId;
+        this.version = version;
+        this.payload = payload;
+        this.createdAt = Instant.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public long getSpaceshipId() {
+        return spaceshipId;
+    }
+
+    /**
+     * @return The version, or null for an entry written before the outbox recorded it.
+     */
+    public Long getVersion() {
+        return version;
+    }
+
+    public byte[] getPayload() {
+        return payload;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    @Override
+    public String toString() {
+        return "SpaceshipOutboxEntry{" +
+                "id=" + id +
+                ", spaceshipId=" + spaceshipId +
+                ", version=" + version +
+                ", deletion=" + (payload == null) +
+                '}';
+    }
+}
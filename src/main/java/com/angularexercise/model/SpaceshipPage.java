@@ -0,0 +1,32 @@
+package com.angularexercise.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+/**
+ * A page of spaceships as returned by {@code GET /api/spaceships}. Carries the fields clients use from Spring
+ * Data's {@link Page} under the same names, without the {@code pageable} and {@code sort} object graphs that
+ * serializing a {@code PageImpl} drags along. A {@link Slice}, asked for with {@code withTotal=false}, has
+ * no {@code totalElements} and {@code totalPages}.
+ *
+ * @param number zero-based index of the page
+ * @param size requested page size
+ */
+@JsonPropertyOrder({"content", "number", "size", "numberOfElements", "totalElements", "totalPages", "first", "last"})
+public record SpaceshipPage(List<Spaceship> content, int number, int size, int numberOfElements,
+                            @JsonInclude(JsonInclude.Include.NON_NULL) Long totalElements,
+                            @JsonInclude(JsonInclude.Include.NON_NULL) Integer totalPages, boolean first, boolean last) {
+
+    public static SpaceshipPage of(Slice<Spaceship> slice) {
+        if (slice instanceof Page<Spaceship> page) {
+            return new SpaceshipPage(page.getContent(), page.getNumber(), page.getSize(), page.getNumberOfElements(),
+                    page.getTotalElements(), page.getTotalPages(), page.isFirst(), page.isLast());
+        }
+        return new SpaceshipPage(slice.getContent(), slice.getNumber(), slice.getSize(), slice.getNumberOfElements(),
+                null, null, slice.isFirst(), slice.isLast());
+    }
+}
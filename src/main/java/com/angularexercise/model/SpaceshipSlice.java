@@ -0,0 +1,12 @@
+package com.angularexercise.model;
+
+import java.util.List;
+
+/**
+ * A window of spaceships returned by keyset pagination. There is no total count or page number;
+ * {@code nextCursor} is passed back as {@code cursor} to fetch the following window.
+ *
+ * @param nextCursor opaque continuation token, null when there are no more results
+ */
+public record SpaceshipSlice(List<Spaceship> content, int size, int numberOfElements, boolean hasNext, String nextCursor) {
+}
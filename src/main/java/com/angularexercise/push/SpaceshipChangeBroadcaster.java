@@ -0,0 +1,198 @@
+package com.angularexercise.push;
+
+import com.angularexercise.kafka.SpaceshipEvent;
+import com.angularexercise.model.Spaceship;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.UncheckedIOException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Fans the spaceship change stream out to browsers over server-sent events. {@link com.angularexercise.kafka.SpaceshipConsumer}
+ * hands every change from {@code spaceship-topic} to {@link #publish} or {@link #publishDeletion}; it consumes every
+ * partition on every node, so a browser sees all changes whichever node it is connected to. Each change is
+ * serialized once and buffered per {@link SpaceshipSubscriber}, and the writes happen on a virtual thread of their
+ * own, so a slow client never holds up the consumer, the other clients or the application's task executor.
+ * <p>
+ * A write to a client that does not read blocks until Tomcat's write timeout. A subscriber whose write has been
+ * blocked for more than {@code app.push.send-timeout-ms} is dropped the next time a change or heartbeat is
+ * offered to it: its buffer is freed and its stream is completed as soon as the blocked write gives up.
+ * <p>
+ * Events:
+ * <ul>
+ *     <li>{@code spaceship}: the spaceship's state after a create or update, as JSON.</li>
+ *     <li>{@code spaceship-removed}: the id of a spaceship that was deleted or, for a name-filtered
+ *     subscription, renamed out of the filter.</li>
+ *     <li>{@code resync}: the client fell behind and changes were dropped; it has to reload.</li>
+ * </ul>
+ * An idle subscription is an asynchronous request parked in Tomcat plus a small buffer; it holds no thread.
+ */
+@Component
+public class SpaceshipChangeBroadcaster {
+
+    static final String SPACESHIP_EVENT = "spaceship";
+    static final String REMOVED_EVENT = "spaceship-removed";
+
+    private static final Logger logger = LoggerFactory.getLogger(SpaceshipChangeBroadcaster.class);
+    private final Set<SpaceshipSubscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Executor executor;
+    private final ObjectWriter writer;
+
+    @Value("${app.push.buffer-size:256}")
+    private int bufferSize = 256;
+
+    @Value("${app.push.max-subscribers:50000}")
+    private int maxSubscribers = 50000;
+
+    @Value("${app.push.timeout-ms:1800000}")
+    private long timeoutMillis = 1800000;
+
+    @Value("${app.push.send-timeout-ms:10000}")
+    private long sendTimeoutMillis = 10000;
+
+    @Autowired
+    public SpaceshipChangeBroadcaster(ObjectMapper objectMapper) {
+        this(Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("push-", 0).factory()), objectMapper);
+    }
+
+    SpaceshipChangeBroadcaster(Executor executor, ObjectMapper objectMapper) {
+        this.executor = executor;
+        this.writer = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (executor instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Opens a subscription, optionally limited to spaceships whose name contains {@code name} (ignoring case).
+     *
+     * @return The emitter to return from the handler, or empty when the node is at {@code app.push.max-subscribers}.
+     */
+    public Optional<SseEmitter> subscribe(String name) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        return register(emitter, name) ? Optional.of(emitter) : Optional.empty();
+    }
+
+    boolean register(SseEmitter emitter, String name) {
+        if (subscribers.size() >= maxSubscribers) {
+            logger.warn("Rejected change stream subscription, {} subscribers connected", subscribers.size());
+            return false;
+        }
+        SpaceshipSubscriber subscriber = new SpaceshipSubscriber(emitter, name, bufferSize);
+        emitter.onCompletion(() -> unregister(subscriber));
+        emitter.onTimeout(() -> unregister(subscriber));
+        emitter.onError(error -> unregister(subscriber));
+        subscribers.add(subscriber);
+        // Commits the response right away, so the client sees the stream open before the first change
+        if (subscriber.offerHeartbeat()) {
+            executor.execute(subscriber::drain);
+        }
+        return true;
+    }
+
+    private void unregister(SpaceshipSubscriber subscriber) {
+        subscriber.close();
+        subscribers.remove(subscriber);
+    }
+
+    public void publish(SpaceshipEvent event) {
+        Spaceship spaceship = new Spaceship(event.id(), event.name(), event.model());
+        spaceship.setVersion(event.version());
+        SpaceshipPush upsert = new SpaceshipPush(SPACESHIP_EVENT, toJson(spaceship));
+        SpaceshipPush removal = removal(event.id());
+        boolean nameChanged = event.changedFields().contains(SpaceshipEvent.Field.NAME);
+        for (SpaceshipSubscriber subscriber : subscribers) {
+            if (subscriber.matches(event.name())) {
+                offer(subscriber, event.id(), upsert);
+            } else if (nameChanged && event.operation() == SpaceshipEvent.Operation.UPDATED) {
+                // It may have matched before the rename; a removal of a spaceship the client does not show is a no-op
+                offer(subscriber, event.id(), removal);
+            }
+        }
+    }
+
+    public void publishDeletion(long id) {
+        SpaceshipPush removal = removal(id);
+        for (SpaceshipSubscriber subscriber : subscribers) {
+            offer(subscriber, id, removal);
+        }
+    }
+
+    /**
+     * Sends a comment line to every subscriber, so that proxies keep idle connections open and closed
+     * connections are noticed.
+     */
+    @Scheduled(initialDelayString = "${app.push.heartbeat-ms:20000}", fixedDelayString = "${app.push.heartbeat-ms:20000}")
+    public void heartbeat() {
+        for (SpaceshipSubscriber subscriber : subscribers) {
+            if (subscriber.isClosed()) {
+                subscribers.remove(subscriber);
+            } else if (isStalled(subscriber)) {
+                drop(subscriber);
+            } else if (subscriber.offerHeartbeat()) {
+                executor.execute(subscriber::drain);
+            }
+        }
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    private void offer(SpaceshipSubscriber subscriber, long id, SpaceshipPush push) {
+        if (subscriber.isClosed()) {
+            // Normally removed by the emitter callbacks already; this covers a write that failed before they ran
+            subscribers.remove(subscriber);
+        } else if (isStalled(subscriber)) {
+            drop(subscriber);
+        } else if (subscriber.offer(id, push)) {
+            executor.execute(subscriber::drain);
+        }
+    }
+
+    private boolean isStalled(SpaceshipSubscriber subscriber) {
+        return subscriber.isSendingLongerThan(TimeUnit.MILLISECONDS.toNanos(sendTimeoutMillis));
+    }
+
+    private void drop(SpaceshipSubscriber subscriber) {
+        logger.debug("Dropped change stream subscriber, a write has been blocked for more than {} ms", sendTimeoutMillis);
+        unregister(subscriber);
+        // The emitter is locked by the blocked write, so it is completed on a thread that can wait for it
+        executor.execute(() -> subscriber.emitter().completeWithError(
+                new TimeoutException("Change stream write blocked for more than " + sendTimeoutMillis + " ms")));
+    }
+
+    private static SpaceshipPush removal(long id) {
+        return new SpaceshipPush(REMOVED_EVENT, Long.toString(id));
+    }
+
+    private String toJson(Spaceship spaceship) {
+        try {
+            return writer.writeValueAsString(spaceship);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.angularexercise.push;
+
+/**
+ * A server-sent event ready to be written: its name and its already serialized data, shared by every
+ * subscriber that receives it.
+ */
+record SpaceshipPush(String event, String data) {
+}
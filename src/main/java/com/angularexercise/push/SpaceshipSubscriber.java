@@ -0,0 +1,161 @@
+package com.angularexercise.push;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * One connected client of the change stream. Changes wait in a buffer of at most {@code capacity}
+ * spaceships until a drain task writes them out; a spaceship that changes again before it was sent
+ * only keeps its latest state. A client that falls further behind than the buffer allows loses the
+ * buffered changes and gets a single {@code resync} event instead, telling it to reload.
+ * <p>
+ * The lock guards the buffer only; nothing blocks while holding it, and at most one drain task per
+ * subscriber is queued or running at a time, so events reach a client in the order they were buffered.
+ * The drain task notes when its current write started, so that a client that stopped reading can be told apart.
+ */
+final class SpaceshipSubscriber {
+
+    static final String RESYNC_EVENT = "resync";
+    private static final long NOT_SENDING = Long.MIN_VALUE;
+
+    private final SseEmitter emitter;
+    private final String nameFilter;
+    private final int capacity;
+
+    private final Map<Long, SpaceshipPush> pending = new LinkedHashMap<>();
+    private boolean resync;
+    private boolean heartbeat;
+    private boolean draining;
+    private volatile boolean closed;
+    // nanoTime at which the write in progress started, NOT_SENDING between writes
+    private volatile long sendingSince = NOT_SENDING;
+
+    SpaceshipSubscriber(SseEmitter emitter, String name, int capacity) {
+        this.emitter = emitter;
+        this.nameFilter = name == null || name.isEmpty() ? null : name.toLowerCase(Locale.ROOT);
+        this.capacity = capacity;
+    }
+
+    SseEmitter emitter() {
+        return emitter;
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Whether a write to the client has been in progress for more than {@code timeoutNanos}.
+     */
+    boolean isSendingLongerThan(long timeoutNanos) {
+        long since = sendingSince;
+        return since != NOT_SENDING && System.nanoTime() - since > timeoutNanos;
+    }
+
+    /**
+     * Whether a spaceship with this name belongs to the client's subscription.
+     */
+    boolean matches(String spaceshipName) {
+        return nameFilter == null
+                || (spaceshipName != null && spaceshipName.toLowerCase(Locale.ROOT).contains(nameFilter));
+    }
+
+    /**
+     * Buffers a change, replacing an unsent one for the same spaceship.
+     *
+     * @return Whether the caller has to schedule {@link #drain()}.
+     */
+    synchronized boolean offer(long id, SpaceshipPush push) {
+        if (closed || resync) {
+            return false;
+        }
+        if (pending.size() >= capacity && !pending.containsKey(id)) {
+            pending.clear();
+            resync = true;
+        } else {
+            pending.put(id, push);
+        }
+        return schedule();
+    }
+
+    /**
+     * Asks for a comment line to be sent, which keeps idle connections open and detects dead ones.
+     *
+     * @return Whether the caller has to schedule {@link #drain()}.
+     */
+    synchronized boolean offerHeartbeat() {
+        if (closed) {
+            return false;
+        }
+        heartbeat = true;
+        return schedule();
+    }
+
+    private boolean schedule() {
+        if (draining) {
+            return false;
+        }
+        draining = true;
+        return true;
+    }
+
+    /**
+     * Writes everything buffered, including changes that arrive meanwhile, then returns. Runs on the
+     * broadcaster's executor; a failed write closes the subscriber.
+     */
+    void drain() {
+        while (true) {
+            List<SpaceshipPush> batch;
+            boolean sendResync;
+            boolean sendHeartbeat;
+            synchronized (this) {
+                if (closed || (pending.isEmpty() && !resync && !heartbeat)) {
+                    draining = false;
+                    return;
+                }
+                batch = new ArrayList<>(pending.values());
+                pending.clear();
+                sendResync = resync;
+                sendHeartbeat = heartbeat;
+                resync = false;
+                heartbeat = false;
+            }
+            try {
+                if (sendResync) {
+                    send(SseEmitter.event().name(RESYNC_EVENT).data(""));
+                }
+                for (SpaceshipPush push : batch) {
+                    send(SseEmitter.event().name(push.event()).data(push.data()));
+                }
+                if (sendHeartbeat) {
+                    send(SseEmitter.event().comment(""));
+                }
+            } catch (IOException | IllegalStateException e) {
+                // The client is gone (or the emitter already completed): stop sending, the callbacks unregister it
+                close();
+                emitter.completeWithError(e);
+                return;
+            }
+        }
+    }
+
+    private void send(SseEmitter.SseEventBuilder event) throws IOException {
+        sendingSince = System.nanoTime();
+        try {
+            emitter.send(event);
+        } finally {
+            sendingSince = NOT_SENDING;
+        }
+    }
+
+    synchronized void close() {
+        closed = true;
+        pending.clear();
+    }
+}
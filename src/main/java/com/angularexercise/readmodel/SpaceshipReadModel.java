@@ -0,0 +1,264 @@
+package com.angularexercise.readmodel;
+
+import com.angularexercise.kafka.SpaceshipEvent;
+import com.angularexercise.model.Spaceship;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * In-memory projection of the spaceship table, built from the change events on {@code spaceship-topic}.
+ * Spaceships are held in a skip list by id and in two more ordered by name and by model (ties broken by id),
+ * so a sorted page is a walk over one index and readers never take a lock. Iteration is weakly consistent:
+ * a page read during a concurrent update may miss the updated spaceship or, briefly, see it twice.
+ * <p>
+ * Events are applied only if they are newer than what the model holds (by row version), so redelivered or
+ * reordered events are harmless. A deletion leaves a tombstone with the version it was deleted at, so that an
+ * older event of the spaceship arriving after it does not bring it back; the last {@code app.read-model.tombstones}
+ * are kept, as many as the consumer remembers outbox ids of redelivered records. The model is rebuilt from a database snapshot on startup, once this node's
+ * consumer holds every partition of the topic, so that every write is either in the snapshot or consumed
+ * afterwards. It only serves queries, if {@code app.read-model.enabled} is set, once that rebuild has completed
+ * and for as long as the consumer holds every partition. It is eventually consistent with the database: a write
+ * shows up after the outbox relay and the consumer have passed it on.
+ */
+@Component
+public class SpaceshipReadModel {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpaceshipReadModel.class);
+    private static final Comparator<String> NULLS_FIRST = Comparator.nullsFirst(Comparator.naturalOrder());
+    private static final Comparator<Entry> BY_NAME = Comparator.comparing(Entry::name, NULLS_FIRST).thenComparingLong(Entry::id);
+    private static final Comparator<Entry> BY_MODEL = Comparator.comparing(Entry::model, NULLS_FIRST).thenComparingLong(Entry::id);
+    private static final int LOCK_STRIPES = 64;
+
+    private final ConcurrentSkipListMap<Long, Entry> byId = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListSet<Entry> byName = new ConcurrentSkipListSet<>(BY_NAME);
+    private final ConcurrentSkipListSet<Entry> byModel = new ConcurrentSkipListSet<>(BY_MODEL);
+    // Writers of one spaceship are serialized; the consumer already delivers its events on a single thread,
+    // this guards against the snapshot rebuild running next to it
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final Set<Long> deletedDuringRebuild = ConcurrentHashMap.newKeySet();
+    // Spaceship id to the version it was deleted at
+    private final Cache<Long, Long> tombstones;
+    private final boolean enabled;
+    private volatile boolean rebuilding;
+    private volatile boolean serving;
+    // Written under this, so that awaitSubscribed is woken up
+    private volatile boolean subscribed;
+
+    public SpaceshipReadModel(@Value("${app.read-model.enabled:false}") boolean enabled,
+                              @Value("${app.read-model.tombstones:100000}") int tombstones) {
+        this.enabled = enabled;
+        this.tombstones = Caffeine.newBuilder().maximumSize(tombstones).build();
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return Whether queries can be answered from memory: the model is enabled, has been rebuilt and receives
+     * the changes of every partition.
+     */
+    public boolean isServing() {
+        return serving && subscribed;
+    }
+
+    /**
+     * Set by the consumer: whether it holds every partition of {@code spaceship-topic}.
+     */
+    public synchronized void setSubscribed(boolean subscribed) {
+        this.subscribed = subscribed;
+        notifyAll();
+    }
+
+    /**
+     * @return Whether the consumer holds every partition; false if it did not within the timeout.
+     */
+    public synchronized boolean awaitSubscribed(long timeoutMs) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (!subscribed) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return true;
+    }
+
+    public static boolean supportsSort(String sort) {
+        return "id".equals(sort) || "name".equals(sort) || "model".equals(sort);
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    /**
+     * Loads every spaceship the snapshot hands over, then starts serving. Events consumed while the snapshot
+     * is read are applied as usual; whichever of the snapshot row and the event is newer wins, and spaceships
+     * deleted in the meantime are not brought back by the snapshot.
+     *
+     * @param snapshot Feeds every spaceship in the database to the given consumer and returns the count.
+     */
+    public void rebuild(ToLongFunction<Consumer<Spaceship>> snapshot) {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        deletedDuringRebuild.clear();
+        rebuilding = true;
+        long count;
+        try {
+            count = snapshot.applyAsLong(spaceship -> {
+                if (!deletedDuringRebuild.contains(spaceship.getId())) {
+                    upsert(Entry.of(spaceship));
+                }
+            });
+        } finally {
+            rebuilding = false;
+            deletedDuringRebuild.clear();
+        }
+        serving = true;
+        logger.info("Rebuilt spaceship read model from {} rows in {} ms", count, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public void apply(SpaceshipEvent event) {
+        if (enabled) {
+            upsert(new Entry(event.id(), event.name(), event.model(), event.version()));
+        }
+    }
+
+    /**
+     * Removes the spaceship and ignores its events of lower versions from now on.
+     *
+     * @param version The version the spaceship was deleted at, one past its last update.
+     */
+    public void remove(long id, long version) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (lock(id)) {
+            if (rebuilding) {
+                deletedDuringRebuild.add(id);
+            }
+            tombstones.asMap().merge(id, version, Math::max);
+            Entry current = byId.remove(id);
+            if (current != null) {
+                byName.remove(current);
+                byModel.remove(current);
+            }
+        }
+    }
+
+    /**
+     * Same contract as the database query behind {@code GET /api/spaceships}: an optional case-insensitive
+     * substring filter on the name, sorted by {@code sort} (one of {@link #supportsSort}), offset paging.
+     */
+    public Page<Spaceship> findAll(String name, String sort, Sort.Direction direction, Pageable pageable) {
+        Iterator<Entry> entries = iterator(sort, direction);
+        String term = name == null || name.isEmpty() ? null : name.toLowerCase(Locale.ROOT);
+        long offset = pageable.getOffset();
+        int pageSize = pageable.getPageSize();
+        List<Spaceship> content = new ArrayList<>(pageSize);
+        long total = 0;
+        while (entries.hasNext()) {
+            Entry entry = entries.next();
+            if (term != null && (entry.name() == null || !entry.lowerCaseName().contains(term))) {
+                continue;
+            }
+            if (total >= offset && content.size() < pageSize) {
+                content.add(entry.toSpaceship());
+            }
+            total++;
+            if (term == null && content.size() == pageSize) {
+                // Without a filter the total is the size of the index, no need to walk the rest
+                total = byId.size();
+                break;
+            }
+        }
+        return new PageImpl<>(content, PageRequest.of(pageable.getPageNumber(), pageSize, Sort.by(direction, sort)), total);
+    }
+
+    private Iterator<Entry> iterator(String sort, Sort.Direction direction) {
+        boolean ascending = direction.isAscending();
+        return switch (sort) {
+            case "id" -> (ascending ? byId.values() : byId.descendingMap().values()).iterator();
+            case "name" -> ordered(byName, ascending).iterator();
+            case "model" -> ordered(byModel, ascending).iterator();
+            default -> throw new IllegalArgumentException("Unsupported sort field: " + sort);
+        };
+    }
+
+    private static NavigableSet<Entry> ordered(ConcurrentSkipListSet<Entry> index, boolean ascending) {
+        return ascending ? index : index.descendingSet();
+    }
+
+    private void upsert(Entry entry) {
+        synchronized (lock(entry.id())) {
+            Long deletedAt = tombstones.getIfPresent(entry.id());
+            if (deletedAt != null && deletedAt > entry.version()) {
+                return;
+            }
+            Entry current = byId.get(entry.id());
+            if (current != null) {
+                if (current.version() >= entry.version()) {
+                    return;
+                }
+                byName.remove(current);
+                byModel.remove(current);
+            }
+            byId.put(entry.id(), entry);
+            byName.add(entry);
+            byModel.add(entry);
+        }
+    }
+
+    private Object lock(long id) {
+        return locks[(int) (id & (LOCK_STRIPES - 1))];
+    }
+
+    // Immutable copy of a spaceship; entities are only created for the rows of a page
+    private record Entry(long id, String name, String model, long version, String lowerCaseName) {
+
+        Entry(long id, String name, String model, long version) {
+            this(id, name, model, version, name == null ? null : name.toLowerCase(Locale.ROOT));
+        }
+
+        static Entry of(Spaceship spaceship) {
+            return new Entry(spaceship.getId(), spaceship.getName(), spaceship.getModel(),
+                    spaceship.getVersion() == null ? 0 : spaceship.getVersion());
+        }
+
+        Spaceship toSpaceship() {
+            Spaceship spaceship = new Spaceship(id, name, model);
+            spaceship.setVersion(version);
+            return spaceship;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.angularexercise.readmodel;
+
+import com.angularexercise.service.SpaceshipService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rebuilds the {@link SpaceshipReadModel} from a streamed database snapshot once the application is up and the
+ * consumer holds every partition, waiting up to {@code app.read-model.subscribe-timeout-ms} for it. Until it
+ * finishes, list queries keep going to the database; if the consumer never gets its partitions, they always do.
+ */
+@Component
+public class SpaceshipReadModelLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpaceshipReadModelLoader.class);
+    private final SpaceshipReadModel readModel;
+    private final SpaceshipService spaceshipService;
+
+    @Value("${app.read-model.subscribe-timeout-ms:60000}")
+    private long subscribeTimeoutMs;
+
+    @Autowired
+    public SpaceshipReadModelLoader(SpaceshipReadModel readModel, SpaceshipService spaceshipService) {
+        this.readModel = readModel;
+        this.spaceshipService = spaceshipService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() throws InterruptedException {
+        if (!readModel.isEnabled()) {
+            return;
+        }
+        if (!readModel.awaitSubscribed(subscribeTimeoutMs)) {
+            logger.warn("Spaceship consumer got no partitions within {} ms, the read model stays off", subscribeTimeoutMs);
+            return;
+        }
+        readModel.rebuild(spaceshipService::exportSpaceships);
+    }
+}
@@ -0,0 +1,199 @@
+package com.angularexercise.repository;
+
+import com.angularexercise.config.ConditionalOnReactiveApi;
+import com.angularexercise.kafka.SpaceshipEvent;
+import com.angularexercise.kafka.SpaceshipEventCodec;
+import com.angularexercise.model.NameTrigrams;
+import com.angularexercise.model.Spaceship;
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Non-blocking access to the spaceship tables over R2DBC, for the reactive API. Queries follow
+ * {@link SpaceshipRepository}: the same trigram lookup for name filters and the same sort fields. Writes keep
+ * the trigram rows and the {@code spaceship_outbox} entry in the transaction of the spaceship row, like the
+ * JPA path does, so events still reach Kafka only through the outbox relay.
+ * <p>
+ * Ids are drawn straight from {@code spaceships_seq} and {@code spaceship_outbox_seq}. Hibernate's pooled
+ * optimizer treats a drawn value as the top of a block of 50, and never uses a block it did not draw itself,
+ * so the two stacks cannot hand out the same id.
+ */
+@Repository
+@ConditionalOnReactiveApi
+public class ReactiveSpaceshipRepository {
+
+    public static final Set<String> SORT_FIELDS = Set.of("id", "name", "model");
+
+    private static final String COLUMNS = "s.id, s.name, s.model, s.version";
+
+    private static final String TRIGRAM_FILTER = " JOIN spaceship_name_trigrams g ON g.spaceship_id = s.id"
+            + " WHERE g.trigram = :trigram AND LOWER(s.name) LIKE :pattern ESCAPE '!'";
+
+    private static final String LIKE_FILTER = " WHERE LOWER(s.name) LIKE :pattern ESCAPE '!'";
+
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+    private final SpaceshipEventCodec codec = new SpaceshipEventCodec();
+
+    @Autowired
+    public ReactiveSpaceshipRepository(DatabaseClient databaseClient, TransactionalOperator transactionalOperator) {
+        this.databaseClient = databaseClient;
+        this.transactionalOperator = transactionalOperator;
+    }
+
+    public Mono<Spaceship> findById(long id) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM spaceships s WHERE s.id = :id")
+                .bind("id", id)
+                .map(ReactiveSpaceshipRepository::toSpaceship)
+                .one();
+    }
+
+    /**
+     * One page of spaceships, optionally filtered by a case-insensitive substring of the name, ordered by
+     * {@code sort} and then by id.
+     */
+    public Flux<Spaceship> findAll(String name, String sort, Sort.Direction direction, long offset, int limit) {
+        if (!SORT_FIELDS.contains(sort)) {
+            throw new IllegalArgumentException("Unsupported sort field: " + sort);
+        }
+        String order = direction.isAscending() ? "ASC" : "DESC";
+        return nameFilter(name).flatMapMany(filter -> filter.bind(databaseClient.sql("SELECT " + COLUMNS + " FROM spaceships s"
+                        + filter.sql() + " ORDER BY s." + sort + " " + order + ", s.id " + order + " LIMIT :limit OFFSET :offset"))
+                .bind("limit", limit)
+                .bind("offset", offset)
+                .map(ReactiveSpaceshipRepository::toSpaceship)
+                .all());
+    }
+
+    public Mono<Long> count(String name) {
+        return nameFilter(name).flatMap(filter -> filter.bind(databaseClient.sql("SELECT COUNT(*) FROM spaceships s" + filter.sql()))
+                .map(row -> row.get(0, Long.class))
+                .one());
+    }
+
+    /**
+     * Every spaceship in id order. Rows are emitted as the subscriber requests them, so a slow client holds
+     * back the query instead of buffering the table.
+     */
+    public Flux<Spaceship> streamAll() {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM spaceships s ORDER BY s.id")
+                .map(ReactiveSpaceshipRepository::toSpaceship)
+                .all();
+    }
+
+    /**
+     * Inserts the spaceship with version 0, its name trigrams and its creation event in one transaction.
+     */
+    public Mono<Spaceship> insert(Spaceship spaceship) {
+        Mono<Spaceship> insert = nextValue("spaceships_seq").flatMap(id -> {
+            Spaceship saved = new Spaceship(id, spaceship.getName(), spaceship.getModel());
+            saved.setVersion(0L);
+            DatabaseClient.GenericExecuteSpec row = databaseClient
+                    .sql("INSERT INTO spaceships (id, name, model, version) VALUES (:id, :name, :model, 0)")
+                    .bind("id", id)
+                    .bind("name", saved.getName());
+            row = saved.getModel() == null ? row.bindNull("model", String.class) : row.bind("model", saved.getModel());
+            return row.then()
+                    .thenMany(Flux.fromIterable(NameTrigrams.of(saved.getName())).concatMap(trigram -> databaseClient
+                            .sql("INSERT INTO spaceship_name_trigrams (trigram, spaceship_id) VALUES (:trigram, :id)")
+                            .bind("trigram", trigram)
+                            .bind("id", id)
+                            .then()))
+                    .then(appendToOutbox(id, codec.encode(SpaceshipEvent.created(saved))))
+                    .thenReturn(saved);
+        });
+        return insert.as(transactionalOperator::transactional);
+    }
+
+    /**
+     * Deletes the spaceship (its trigram rows cascade) and queues a tombstone in one transaction.
+     *
+     * @return The deleted spaceship's name, or empty when there was no such spaceship.
+     */
+    public Mono<String> deleteById(long id) {
+        Mono<String> delete = databaseClient.sql("SELECT name FROM spaceships WHERE id = :id FOR UPDATE")
+                .bind("id", id)
+                .map(row -> row.get(0, String.class))
+                .one()
+                .flatMap(name -> databaseClient.sql("DELETE FROM spaceships WHERE id = :id")
+                        .bind("id", id)
+                        .then()
+                        .then(appendToOutbox(id, null))
+                        .thenReturn(name));
+        return delete.as(transactionalOperator::transactional);
+    }
+
+    private Mono<Void> appendToOutbox(long spaceshipId, byte[] payload) {
+        DatabaseClient.GenericExecuteSpec entry = databaseClient.sql("INSERT INTO spaceship_outbox (id, spaceship_id, payload, created_at)"
+                        + " VALUES (NEXT VALUE FOR spaceship_outbox_seq, :spaceshipId, :payload, CURRENT_TIMESTAMP)")
+                .bind("spaceshipId", spaceshipId);
+        return (payload == null ? entry.bindNull("payload", byte[].class) : entry.bind("payload", payload)).then();
+    }
+
+    private Mono<Long> nextValue(String sequence) {
+        return databaseClient.sql("SELECT NEXT VALUE FOR " + sequence)
+                .map(row -> row.get(0, Long.class))
+                .one();
+    }
+
+    /**
+     * The name filter of a query, with its selective trigram probed as in {@link SpaceshipRepository}.
+     */
+    private Mono<NameFilter> nameFilter(String name) {
+        if (name == null || name.isEmpty()) {
+            return Mono.just(NameFilter.NONE);
+        }
+        String pattern = NameTrigrams.containsPattern(name);
+        if (!NameTrigrams.isIndexable(name)) {
+            return Mono.just(new NameFilter(pattern, null));
+        }
+        List<String> trigrams = NameTrigrams.probed(name);
+        DatabaseClient.GenericExecuteSpec probe = databaseClient.sql(NameTrigrams.probeSql(trigrams.size()));
+        for (int i = 0; i < trigrams.size(); i++) {
+            probe = probe.bind("t" + i, trigrams.get(i));
+        }
+        return probe.map(row -> {
+                    List<Long> counts = new ArrayList<>(trigrams.size());
+                    for (int i = 0; i < trigrams.size(); i++) {
+                        counts.add(row.get(i, Long.class));
+                    }
+                    return new NameFilter(pattern, NameTrigrams.rarest(trigrams, counts));
+                })
+                .one();
+    }
+
+    private record NameFilter(String pattern, String trigram) {
+
+        static final NameFilter NONE = new NameFilter(null, null);
+
+        String sql() {
+            if (pattern == null) {
+                return "";
+            }
+            return trigram == null ? LIKE_FILTER : TRIGRAM_FILTER;
+        }
+
+        DatabaseClient.GenericExecuteSpec bind(DatabaseClient.GenericExecuteSpec spec) {
+            if (pattern != null) {
+                spec = spec.bind("pattern", pattern);
+            }
+            return trigram == null ? spec : spec.bind("trigram", trigram);
+        }
+    }
+
+    private static Spaceship toSpaceship(Readable row) {
+        Spaceship spaceship = new Spaceship(row.get("id", Long.class), row.get("name", String.class), row.get("model", String.class));
+        spaceship.setVersion(row.get("version", Long.class));
+        return spaceship;
+    }
+}
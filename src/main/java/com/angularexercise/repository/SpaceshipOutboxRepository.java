@@ -0,0 +1,41 @@
+package com.angularexercise.repository;
+
+import com.angularexercise.model.SpaceshipOutboxEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface SpaceshipOutboxRepository extends JpaRepository<SpaceshipOutboxEntry, Long> {
+
+    /**
+     * Pending entries by spaceship, each spaceship's in version order, through the (spaceship_id, version)
+     * index. Every version of a spaceship is committed before the next one can be written, so a later read never
+     * finds an older version of a spaceship than the ones read before it.
+     */
+    List<SpaceshipOutboxEntry> findAllByOrderBySpaceshipIdAscVersionAsc(Pageable pageable);
+
+    /**
+     * Takes the relay lease for {@code owner} until {@code expiresAt}, if it is free, expired or already held
+     * by {@code owner}.
+     *
+     * @return 1 if {@code owner} holds the lease, 0 if another relay does.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE spaceship_outbox_relay SET owner = :owner, expires_at = :expiresAt"
+            + " WHERE id = 1 AND (owner = :owner OR owner IS NULL OR expires_at < :now)", nativeQuery = true)
+    int acquireRelayLease(@Param("owner") String owner, @Param("now") Instant now, @Param("expiresAt") Instant expiresAt);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE spaceship_outbox_relay SET owner = NULL WHERE id = 1 AND owner = :owner", nativeQuery = true)
+    int releaseRelayLease(@Param("owner") String owner);
+}
@@ -1,13 +1,89 @@
 package com.angularexercise.repository;
 
+import com.angularexercise.model.NameTrigrams;
 import com.angularexercise.model.Spaceship;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.stream.Stream;
+
 @Repository
-public interface SpaceshipRepository extends JpaRepository<Spaceship, Long> {
-    Page<Spaceship> findByNameContainingIgnoreCase(String name, Pageable pageable);
-    // This interface is empty as it inherits CRUD methods from JpaRepository
-}
\ No newline at end of file
+public interface SpaceshipRepository extends JpaRepository<Spaceship, Long>, SpaceshipRepositoryCustom {
+
+    int STREAM_FETCH_SIZE = 1000;
+
+    /**
+     * Case-insensitive substring search on the name. Terms of 3 or more characters with a trigram selective
+     * enough (see {@link NameTrigrams}) start from that trigram's index rows; shorter terms and terms made of
+     * common trigrams fall back to a plain LIKE scan.
+     */
+    default Page<Spaceship> findByNameContainingIgnoreCase(String name, Pageable pageable) {
+        String pattern = NameTrigrams.containsPattern(name);
+        String trigram = selectiveTrigram(name);
+        return trigram == null ? findByNameLike(pattern, pageable) : findByNameTrigram(pattern, trigram, pageable);
+    }
+
+    @Query(value = "select s from Spaceship s join s.nameTrigrams g where g = :trigram and lower(s.name) like :pattern escape '!'",
+           countQuery = "select count(s) from Spaceship s join s.nameTrigrams g where g = :trigram and lower(s.name) like :pattern escape '!'")
+    Page<Spaceship> findByNameTrigram(@Param("pattern") String pattern, @Param("trigram") String trigram, Pageable pageable);
+
+    @Query("select s from Spaceship s where lower(s.name) like :pattern escape '!'")
+    Page<Spaceship> findByNameLike(@Param("pattern") String pattern, Pageable pageable);
+
+    /**
+     * A page of all spaceships without the COUNT query: one row more than the page size is read to tell
+     * whether a next page exists.
+     */
+    @Query("select s from Spaceship s")
+    Slice<Spaceship> findSliceBy(Pageable pageable);
+
+    /**
+     * {@link #findByNameContainingIgnoreCase} without the COUNT query.
+     */
+    default Slice<Spaceship> findSliceByNameContainingIgnoreCase(String name, Pageable pageable) {
+        String pattern = NameTrigrams.containsPattern(name);
+        String trigram = selectiveTrigram(name);
+        return trigram == null ? findSliceByNameLike(pattern, pageable) : findSliceByNameTrigram(pattern, trigram, pageable);
+    }
+
+    @Query("select s from Spaceship s join s.nameTrigrams g where g = :trigram and lower(s.name) like :pattern escape '!'")
+    Slice<Spaceship> findSliceByNameTrigram(@Param("pattern") String pattern, @Param("trigram") String trigram, Pageable pageable);
+
+    @Query("select s from Spaceship s where lower(s.name) like :pattern escape '!'")
+    Slice<Spaceship> findSliceByNameLike(@Param("pattern") String pattern, Pageable pageable);
+
+    /**
+     * The total of {@link #findByNameContainingIgnoreCase}, on its own.
+     */
+    default long countByNameContainingIgnoreCase(String name) {
+        String pattern = NameTrigrams.containsPattern(name);
+        String trigram = selectiveTrigram(name);
+        return trigram == null ? countByNameLike(pattern) : countByNameTrigram(pattern, trigram);
+    }
+
+    @Query("select count(s) from Spaceship s join s.nameTrigrams g where g = :trigram and lower(s.name) like :pattern escape '!'")
+    long countByNameTrigram(@Param("pattern") String pattern, @Param("trigram") String trigram);
+
+    @Query("select count(s) from Spaceship s where lower(s.name) like :pattern escape '!'")
+    long countByNameLike(@Param("pattern") String pattern);
+
+    /**
+     * Forward-only stream over the whole table in id order, fetched from the driver {@value #STREAM_FETCH_SIZE}
+     * rows at a time and loaded read-only so Hibernate keeps no dirty-checking snapshots.
+     * Must be consumed inside a transaction and closed by the caller.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select s from Spaceship s order by s.id")
+    Stream<Spaceship> streamAllByOrderById();
+}
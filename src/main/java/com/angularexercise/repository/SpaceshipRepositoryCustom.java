@@ -0,0 +1,76 @@
+package com.angularexercise.repository;
+
+import com.angularexercise.model.Spaceship;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Queries that Spring Data cannot derive from method names.
+ */
+public interface SpaceshipRepositoryCustom {
+
+    Set<String> KEYSET_SORT_FIELDS = Set.of("id", "name", "model");
+
+    /**
+     * Keyset (seek) query: returns up to {@code limit} spaceships that come strictly after the
+     * position ({@code afterValue}, {@code afterId}) in the order {@code sort, id}, seeking to it in the
+     * {@code (sort, id)} index of that direction. The cost does not grow with how deep the position is, whereas
+     * an OFFSET query's does whenever the rows it skips have to be read, as with a name filter.
+     *
+     * @param name optional case-insensitive substring filter on the name
+     * @param sort one of {@code id}, {@code name} or {@code model}
+     * @param afterValue sort key of the last row already returned (ignored when sorting by id); null keys sort lowest
+     * @param afterId id of the last row already returned, or null to start from the beginning
+     */
+    List<Spaceship> findSliceAfter(String name, String sort, boolean ascending, String afterValue, Long afterId, int limit);
+
+    /**
+     * Picks the trigram a name search starts from: the least common of the term's trigrams, found with one
+     * bounded probe of the trigram index.
+     *
+     * @return the trigram, or null when the term is shorter than a trigram or all of its trigrams are too common
+     * for the index to beat a LIKE scan
+     */
+    String selectiveTrigram(String term);
+
+    /**
+     * Sets name and model and increments the version in a single statement that also returns the row as it was,
+     * without loading the entity first; on databases other than H2, a locking SELECT of the row and the UPDATE.
+     * The trigram rows are brought in line when the name changes.
+     *
+     * @param expectedVersion the version the row must be at, or null for any
+     * @return the spaceship before the update, or empty when no spaceship {@code id} is at {@code expectedVersion}
+     */
+    Optional<Spaceship> updateReturningPrevious(long id, String name, String model, Long expectedVersion);
+
+    /**
+     * Deletes the spaceship, and with it its trigram rows, in a single statement that also returns the row; on
+     * databases other than H2, a locking SELECT of the row and the DELETE.
+     *
+     * @return the deleted spaceship, or empty when there was none
+     */
+    Optional<Spaceship> deleteReturningPrevious(long id);
+
+    /**
+     * {@link #updateReturningPrevious} for many spaceships, with any version: one statement reads the rows and
+     * bumps their versions (on databases other than H2, a locking SELECT), then the names and models go out as
+     * JDBC batches of {@code hibernate.jdbc.batch_size}, each of which must change exactly one row, and so do the
+     * trigram rows of the renamed ones.
+     *
+     * @param details the new name and model under the id of every spaceship, ids unique
+     * @return the spaceships before the update by id; ids that are missing were not updated
+     */
+    Map<Long, Spaceship> updateAllReturningPrevious(Collection<Spaceship> details);
+
+    /**
+     * Deletes the spaceships, and with them their trigram rows, in a single statement that also returns the
+     * rows; on databases other than H2, a locking SELECT of the rows and the DELETE.
+     *
+     * @return the deleted spaceships by id; ids that are missing had no spaceship
+     */
+    Map<Long, Spaceship> deleteAllReturningPrevious(Collection<Long> ids);
+}
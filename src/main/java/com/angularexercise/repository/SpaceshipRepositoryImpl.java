@@ -0,0 +1,368 @@
+package com.angularexercise.repository;
+
+import com.angularexercise.model.NameTrigrams;
+import com.angularexercise.model.Spaceship;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.Session;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.jdbc.JdbcUpdateAffectedIncorrectNumberOfRowsException;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Implementation of {@link SpaceshipRepositoryCustom}, picked up by Spring Data through the Impl suffix.
+ * Single-spaceship writes use H2's data change delta tables ({@code SELECT ... FROM OLD TABLE (UPDATE ...)}),
+ * which return the rows a statement changed as they were before it, like {@code RETURNING} elsewhere. They are
+ * H2 syntax, so on any other dialect the writes fall back to a {@code SELECT ... FOR UPDATE} of the row followed
+ * by the plain UPDATE or DELETE: one statement more, with the same result. Batch updates read the rows once,
+ * in the statement that bumps their versions, and send the new names and models as JDBC batches.
+ */
+public class SpaceshipRepositoryImpl implements SpaceshipRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Whether the dialect is H2's, looked up on the first write
+    private volatile Boolean deltaTables;
+
+    @Override
+    public List<Spaceship> findSliceAfter(String name, String sort, boolean ascending, String afterValue, Long afterId, int limit) {
+        if (!KEYSET_SORT_FIELDS.contains(sort)) {
+            throw new IllegalArgumentException("Unsupported sort field: " + sort);
+        }
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Spaceship> query = cb.createQuery(Spaceship.class);
+        Root<Spaceship> root = query.from(Spaceship.class);
+        Path<Long> id = root.get("id");
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (name != null && !name.isEmpty()) {
+            predicates.add(nameContains(cb, root, name, selectiveTrigram(name)));
+        }
+        if (afterId != null) {
+            if ("id".equals(sort)) {
+                predicates.add(ascending ? cb.gt(id, afterId) : cb.lt(id, afterId));
+            } else {
+                predicates.add(after(cb, root.get(sort), id, ascending, afterValue, afterId));
+            }
+        }
+        query.where(predicates.toArray(new Predicate[0]));
+
+        if ("id".equals(sort)) {
+            query.orderBy(ascending ? cb.asc(id) : cb.desc(id));
+        } else {
+            Path<String> key = root.get(sort);
+            query.orderBy(ascending ? cb.asc(key) : cb.desc(key), ascending ? cb.asc(id) : cb.desc(id));
+        }
+        List<Spaceship> rows = entityManager.createQuery(query).setMaxResults(limit).getResultList();
+        if (!ascending && afterValue != null && afterId != null && !"id".equals(sort) && rows.size() < limit) {
+            // The null keys, which come last, are read on their own once the keys before them run out
+            List<Spaceship> withNullKeys = new ArrayList<>(rows);
+            withNullKeys.addAll(findSliceAfter(name, sort, false, null, Long.MAX_VALUE, limit - rows.size()));
+            return withNullKeys;
+        }
+        return rows;
+    }
+
+    @Override
+    public String selectiveTrigram(String term) {
+        if (!NameTrigrams.isIndexable(term)) {
+            return null;
+        }
+        List<String> trigrams = NameTrigrams.probed(term);
+        Query probe = entityManager.createNativeQuery(NameTrigrams.probeSql(trigrams.size()));
+        for (int i = 0; i < trigrams.size(); i++) {
+            probe.setParameter("t" + i, trigrams.get(i));
+        }
+        Object row = probe.getSingleResult();
+        List<Number> counts = row instanceof Object[] columns
+                ? Arrays.stream(columns).map(Number.class::cast).toList()
+                : List.of((Number) row);
+        return NameTrigrams.rarest(trigrams, counts);
+    }
+
+    @Override
+    public Optional<Spaceship> updateReturningPrevious(long id, String name, String model, Long expectedVersion) {
+        String update = "UPDATE spaceships SET name = :name, model = :model, version = version + 1 WHERE id = :id";
+        String versionCheck = expectedVersion != null ? " AND version = :version" : "";
+        Optional<Spaceship> previous;
+        if (deltaTables()) {
+            Query query = entityManager.createNativeQuery("SELECT name, model, version FROM OLD TABLE ("
+                            + update + versionCheck + ")")
+                    .setParameter("id", id)
+                    .setParameter("name", name)
+                    .setParameter("model", model);
+            if (expectedVersion != null) {
+                query.setParameter("version", expectedVersion);
+            }
+            previous = single(query.getResultList(), id);
+        } else {
+            // The row stays locked until the transaction ends, so the UPDATE writes over what was read
+            Query lock = entityManager.createNativeQuery("SELECT name, model, version FROM spaceships WHERE id = :id"
+                    + versionCheck + " FOR UPDATE").setParameter("id", id);
+            if (expectedVersion != null) {
+                lock.setParameter("version", expectedVersion);
+            }
+            previous = single(lock.getResultList(), id);
+            if (previous.isPresent()) {
+                entityManager.createNativeQuery(update)
+                        .setParameter("id", id)
+                        .setParameter("name", name)
+                        .setParameter("model", model)
+                        .executeUpdate();
+            }
+        }
+        previous.filter(before -> !Objects.equals(before.getName(), name))
+                .ifPresent(before -> replaceTrigrams(id, NameTrigrams.of(before.getName()), NameTrigrams.of(name)));
+        return previous;
+    }
+
+    @Override
+    public Optional<Spaceship> deleteReturningPrevious(long id) {
+        if (deltaTables()) {
+            return single(entityManager.createNativeQuery("SELECT name, model, version FROM OLD TABLE ("
+                            + "DELETE FROM spaceships WHERE id = :id)")
+                    .setParameter("id", id)
+                    .getResultList(), id);
+        }
+        Optional<Spaceship> previous = single(entityManager.createNativeQuery(
+                        "SELECT name, model, version FROM spaceships WHERE id = :id FOR UPDATE")
+                .setParameter("id", id)
+                .getResultList(), id);
+        if (previous.isPresent()) {
+            entityManager.createNativeQuery("DELETE FROM spaceships WHERE id = :id").setParameter("id", id).executeUpdate();
+        }
+        return previous;
+    }
+
+    @Override
+    public Map<Long, Spaceship> updateAllReturningPrevious(Collection<Spaceship> details) {
+        Set<Long> ids = details.stream().map(Spaceship::getId).collect(Collectors.toCollection(LinkedHashSet::new));
+        String update;
+        List<?> rows;
+        if (deltaTables()) {
+            // Bumps the versions and returns the rows as they were; the batch then writes over rows it has locked
+            rows = entityManager.createNativeQuery("SELECT id, name, model, version FROM OLD TABLE ("
+                            + "UPDATE spaceships SET version = version + 1 WHERE id IN (:ids))")
+                    .setParameter("ids", ids)
+                    .getResultList();
+            update = "UPDATE spaceships SET name = ?, model = ? WHERE id = ?";
+        } else {
+            rows = entityManager.createNativeQuery("SELECT id, name, model, version FROM spaceships WHERE id IN (:ids) FOR UPDATE")
+                    .setParameter("ids", ids)
+                    .getResultList();
+            update = "UPDATE spaceships SET name = ?, model = ?, version = version + 1 WHERE id = ?";
+        }
+        Map<Long, Spaceship> previous = byId(rows);
+        List<Spaceship> found = details.stream().filter(spaceship -> previous.containsKey(spaceship.getId())).toList();
+        if (found.isEmpty()) {
+            return previous;
+        }
+        List<Object[]> removedTrigrams = new ArrayList<>();
+        List<Object[]> addedTrigrams = new ArrayList<>();
+        for (Spaceship spaceship : found) {
+            String before = previous.get(spaceship.getId()).getName();
+            if (!Objects.equals(before, spaceship.getName())) {
+                Set<String> removed = new HashSet<>(NameTrigrams.of(before));
+                Set<String> added = new HashSet<>(NameTrigrams.of(spaceship.getName()));
+                removed.removeAll(NameTrigrams.of(spaceship.getName()));
+                added.removeAll(NameTrigrams.of(before));
+                removed.forEach(trigram -> removedTrigrams.add(new Object[] {spaceship.getId(), trigram}));
+                added.forEach(trigram -> addedTrigrams.add(new Object[] {trigram, spaceship.getId()}));
+            }
+        }
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(update)) {
+                executeBatches(statement, found, (spaceship, batch) -> {
+                    batch.setString(1, spaceship.getName());
+                    batch.setString(2, spaceship.getModel());
+                    batch.setLong(3, spaceship.getId());
+                }, update);
+            }
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "DELETE FROM spaceship_name_trigrams WHERE spaceship_id = ? AND trigram = ?")) {
+                executeBatches(statement, removedTrigrams, (row, batch) -> {
+                    batch.setLong(1, (Long) row[0]);
+                    batch.setString(2, (String) row[1]);
+                }, null);
+            }
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO spaceship_name_trigrams (trigram, spaceship_id) VALUES (?, ?)")) {
+                executeBatches(statement, addedTrigrams, (row, batch) -> {
+                    batch.setString(1, (String) row[0]);
+                    batch.setLong(2, (Long) row[1]);
+                }, null);
+            }
+        });
+        return previous;
+    }
+
+    @Override
+    public Map<Long, Spaceship> deleteAllReturningPrevious(Collection<Long> ids) {
+        if (deltaTables()) {
+            return byId(entityManager.createNativeQuery("SELECT id, name, model, version FROM OLD TABLE ("
+                            + "DELETE FROM spaceships WHERE id IN (:ids))")
+                    .setParameter("ids", ids)
+                    .getResultList());
+        }
+        Map<Long, Spaceship> previous = byId(entityManager.createNativeQuery(
+                        "SELECT id, name, model, version FROM spaceships WHERE id IN (:ids) FOR UPDATE")
+                .setParameter("ids", ids)
+                .getResultList());
+        if (!previous.isEmpty()) {
+            entityManager.createNativeQuery("DELETE FROM spaceships WHERE id IN (:ids)")
+                    .setParameter("ids", previous.keySet())
+                    .executeUpdate();
+        }
+        return previous;
+    }
+
+    /**
+     * Sends the rows in JDBC batches of {@code hibernate.jdbc.batch_size}.
+     *
+     * @param checkedSql when not null, every row must have changed exactly one row, which the error names it by
+     */
+    private <T> void executeBatches(PreparedStatement statement, List<T> rows, BatchSetter<T> setter, String checkedSql)
+            throws SQLException {
+        int batchSize = Math.max(1, entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getSessionFactoryOptions().getJdbcBatchSize());
+        for (int start = 0; start < rows.size(); start += batchSize) {
+            List<T> batch = rows.subList(start, Math.min(start + batchSize, rows.size()));
+            for (T row : batch) {
+                setter.set(row, statement);
+                statement.addBatch();
+            }
+            int[] counts = statement.executeBatch();
+            if (checkedSql != null) {
+                for (int count : counts) {
+                    if (count != 1 && count != Statement.SUCCESS_NO_INFO) {
+                        throw new JdbcUpdateAffectedIncorrectNumberOfRowsException(checkedSql, 1, count);
+                    }
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface BatchSetter<T> {
+
+        void set(T row, PreparedStatement statement) throws SQLException;
+    }
+
+    private boolean deltaTables() {
+        Boolean supported = deltaTables;
+        if (supported == null) {
+            supported = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                    .getJdbcServices().getDialect() instanceof H2Dialect;
+            deltaTables = supported;
+        }
+        return supported;
+    }
+
+    private static Optional<Spaceship> single(List<?> rows, long id) {
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        Object[] row = (Object[]) rows.get(0);
+        Spaceship spaceship = new Spaceship(id, (String) row[0], (String) row[1]);
+        spaceship.setVersion(((Number) row[2]).longValue());
+        return Optional.of(spaceship);
+    }
+
+    // Rows of id, name, model and version
+    private static Map<Long, Spaceship> byId(List<?> rows) {
+        Map<Long, Spaceship> spaceships = new LinkedHashMap<>();
+        for (Object result : rows) {
+            Object[] row = (Object[]) result;
+            long id = ((Number) row[0]).longValue();
+            Spaceship spaceship = new Spaceship(id, (String) row[1], (String) row[2]);
+            spaceship.setVersion(((Number) row[3]).longValue());
+            spaceships.put(id, spaceship);
+        }
+        return spaceships;
+    }
+
+    /**
+     * Touches only the trigrams the rename removed or added: one DELETE and one multi-row INSERT at most.
+     */
+    private void replaceTrigrams(long id, Set<String> before, Set<String> after) {
+        Set<String> removed = new HashSet<>(before);
+        removed.removeAll(after);
+        Set<String> added = new HashSet<>(after);
+        added.removeAll(before);
+        if (!removed.isEmpty()) {
+            entityManager.createNativeQuery("DELETE FROM spaceship_name_trigrams WHERE spaceship_id = :id AND trigram IN (:trigrams)")
+                    .setParameter("id", id)
+                    .setParameter("trigrams", removed)
+                    .executeUpdate();
+        }
+        if (!added.isEmpty()) {
+            StringBuilder sql = new StringBuilder("INSERT INTO spaceship_name_trigrams (trigram, spaceship_id) VALUES ");
+            for (int i = 0; i < added.size(); i++) {
+                sql.append(i == 0 ? "" : ", ").append("(:t").append(i).append(", :id)");
+            }
+            Query insert = entityManager.createNativeQuery(sql.toString()).setParameter("id", id);
+            int i = 0;
+            for (String trigram : added) {
+                insert.setParameter("t" + i++, trigram);
+            }
+            insert.executeUpdate();
+        }
+    }
+
+    /**
+     * Same semantics as {@link SpaceshipRepository#findByNameContainingIgnoreCase}: the rows of the selective
+     * trigram, when there is one, followed by the exact LIKE check.
+     */
+    private static Predicate nameContains(CriteriaBuilder cb, Root<Spaceship> root, String name, String trigram) {
+        Predicate like = cb.like(cb.lower(root.get("name")), NameTrigrams.containsPattern(name), NameTrigrams.LIKE_ESCAPE);
+        if (trigram == null) {
+            return like;
+        }
+        Join<Spaceship, String> trigrams = root.join("nameTrigrams");
+        return cb.and(cb.equal(trigrams, trigram), like);
+    }
+
+    /**
+     * Row-value comparison {@code (key, id) > (afterValue, afterId)} spelled out so that it also works
+     * with null keys, which H2 orders before any other value. A non-null position is bounded by a plain
+     * comparison on the key, which the database can start the (key, id) index range from; without it, the
+     * OR is tested on every row before the position. In descending order that bound leaves out the null keys,
+     * which {@link #findSliceAfter} reads afterwards.
+     */
+    private static Predicate after(CriteriaBuilder cb, Path<String> key, Path<Long> id, boolean ascending, String afterValue, Long afterId) {
+        if (ascending) {
+            if (afterValue == null) {
+                return cb.or(cb.and(cb.isNull(key), cb.gt(id, afterId)), cb.isNotNull(key));
+            }
+            return cb.and(cb.greaterThanOrEqualTo(key, afterValue), cb.or(cb.greaterThan(key, afterValue), cb.gt(id, afterId)));
+        }
+        if (afterValue == null) {
+            return cb.and(cb.isNull(key), cb.lt(id, afterId));
+        }
+        return cb.and(cb.lessThanOrEqualTo(key, afterValue), cb.or(cb.lessThan(key, afterValue), cb.lt(id, afterId)));
+    }
+}
@@ -0,0 +1,84 @@
+package com.angularexercise.service;
+
+import com.angularexercise.cache.SpaceshipCacheInvalidator;
+import com.angularexercise.cache.SpaceshipChange;
+import com.angularexercise.config.ConditionalOnReactiveApi;
+import com.angularexercise.exception.ResourceNotFoundException;
+import com.angularexercise.model.Spaceship;
+import com.angularexercise.repository.ReactiveSpaceshipRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Reactive counterpart of {@link SpaceshipService}, over {@link ReactiveSpaceshipRepository}. It works on the
+ * same tables, so both APIs see each other's writes; reads are not cached, and writes evict the entries the
+ * MVC side cached for them once their transaction has committed.
+ */
+@Service
+@ConditionalOnReactiveApi
+public class ReactiveSpaceshipService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveSpaceshipService.class);
+    private final ReactiveSpaceshipRepository repository;
+    private final SpaceshipCacheInvalidator cacheInvalidator;
+
+    @Autowired
+    public ReactiveSpaceshipService(ReactiveSpaceshipRepository repository, SpaceshipCacheInvalidator cacheInvalidator) {
+        this.repository = repository;
+        this.cacheInvalidator = cacheInvalidator;
+    }
+
+    /**
+     * Same contract as {@link SpaceshipService#getAllSpaceships}; the page and its total are queried
+     * concurrently.
+     */
+    public Mono<Page<Spaceship>> getAllSpaceships(String name, String sort, String direction, Pageable pageable) {
+        if (!ReactiveSpaceshipRepository.SORT_FIELDS.contains(sort)) {
+            throw new IllegalArgumentException("Unsupported sort field: " + sort);
+        }
+        Sort.Direction sortDirection = Sort.Direction.fromString(direction.toUpperCase());
+        Pageable pageableWithSort = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by(sortDirection, sort));
+        Mono<List<Spaceship>> content = repository
+                .findAll(name, sort, sortDirection, pageable.getOffset(), pageable.getPageSize())
+                .collectList();
+        return Mono.zip(content, repository.count(name),
+                (spaceships, total) -> new PageImpl<>(spaceships, pageableWithSort, total));
+    }
+
+    public Mono<Spaceship> getSpaceshipById(long id) {
+        return repository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Spaceship not found with id: " + id)));
+    }
+
+    public Flux<Spaceship> streamSpaceships() {
+        return repository.streamAll();
+    }
+
+    public Mono<Spaceship> createSpaceship(Spaceship spaceship) {
+        return repository.insert(spaceship).doOnNext(saved -> {
+            cacheInvalidator.invalidate(SpaceshipChange.created(saved.getId(), saved.getName()));
+            logger.info("Queued spaceship creation event for spaceship: {}", saved.getId());
+        });
+    }
+
+    public Mono<Void> deleteSpaceship(long id) {
+        return repository.deleteById(id)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Spaceship not found with id: " + id)))
+                .doOnNext(name -> {
+                    cacheInvalidator.invalidate(SpaceshipChange.deleted(id, name));
+                    logger.info("Queued spaceship deletion event for spaceship: {}", id);
+                })
+                .then();
+    }
+}
@@ -0,0 +1,103 @@
+package com.angularexercise.service;
+
+import com.angularexercise.cache.SpaceshipCacheInvalidator;
+import com.angularexercise.cache.SpaceshipChange;
+import com.angularexercise.config.CacheConfig;
+import com.angularexercise.repository.SpaceshipRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Totals for paged listings, so that a page does not pay for a COUNT query next to its own.
+ * <ul>
+ *     <li>The unfiltered total is counted, then followed by the committed creations and deletions, this node's
+ *     and, through the invalidation topic, the other nodes'. A count is kept only if no change was applied and
+ *     no local write was committing while it ran, so a local write is never both in the count and added to it.
+ *     Another node's write can be: its invalidation may arrive after a count that already saw it, or never.
+ *     The total is therefore counted again once it is {@code app.cache.total.max-age-ms} old, which bounds how
+ *     long such an error lasts. A batch too large for the topic to list makes it count again at once.</li>
+ *     <li>Filtered totals are cached per lower-cased name filter in {@code spaceshipCounts}, and evicted by the
+ *     {@link SpaceshipCacheInvalidator} when a spaceship enters or leaves the filter.</li>
+ * </ul>
+ * Rows written behind the application's back, e.g. with plain SQL, are seen at the next count.
+ */
+@Component
+public class SpaceshipCounter {
+
+    private static final long UNKNOWN = -1;
+    private final SpaceshipRepository spaceshipRepository;
+    private final SpaceshipCacheInvalidator cacheInvalidator;
+    // All guarded by this
+    private long total = UNKNOWN;
+    private long countedAt;
+    private long changeBatches;
+
+    @Value("${app.cache.total.max-age-ms:30000}")
+    long maxAgeMs = 30000;
+
+    @Autowired
+    public SpaceshipCounter(SpaceshipRepository spaceshipRepository, SpaceshipCacheInvalidator cacheInvalidator) {
+        this.spaceshipRepository = spaceshipRepository;
+        this.cacheInvalidator = cacheInvalidator;
+    }
+
+    @PostConstruct
+    void trackChanges() {
+        cacheInvalidator.addInvalidationListener(this::apply);
+    }
+
+    public long total() {
+        long seen;
+        synchronized (this) {
+            if (total != UNKNOWN && System.nanoTime() - countedAt < TimeUnit.MILLISECONDS.toNanos(maxAgeMs)) {
+                return total;
+            }
+            seen = changeBatches;
+        }
+        long stamp = cacheInvalidator.quietWriteStamp();
+        long counted = spaceshipRepository.count();
+        boolean quiet = stamp >= 0 && cacheInvalidator.quietWriteStamp() == stamp;
+        synchronized (this) {
+            // A change applied, or a local write committed but not applied yet, while counting may or may not be
+            // in the count, so it cannot be the base
+            if (changeBatches == seen && quiet) {
+                total = counted;
+                countedAt = System.nanoTime();
+            }
+        }
+        return counted;
+    }
+
+    /**
+     * @param nameFilter lower-cased name filter, as in {@link com.angularexercise.cache.SpaceshipPageKey}.
+     */
+    @Cacheable(value = CacheConfig.SPACESHIP_COUNTS_CACHE, key = "#nameFilter")
+    public long countMatching(String nameFilter) {
+        return spaceshipRepository.countByNameContainingIgnoreCase(nameFilter);
+    }
+
+    synchronized void apply(Collection<SpaceshipChange> changes) {
+        changeBatches++;
+        if (changes == null) {
+            total = UNKNOWN;
+            return;
+        }
+        if (total == UNKNOWN) {
+            return;
+        }
+        for (SpaceshipChange change : changes) {
+            switch (change.type()) {
+                case CREATED -> total++;
+                case DELETED -> total--;
+                case UPDATED -> {
+                }
+            }
+        }
+    }
+}
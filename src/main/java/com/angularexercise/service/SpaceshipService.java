@@ -1,84 +1,402 @@
 package com.angularexercise.service;
 
+import com.angularexercise.cache.SingleFlight;
+import com.angularexercise.cache.SpaceshipCacheInvalidator;
+import com.angularexercise.cache.SpaceshipChange;
+import com.angularexercise.cache.SpaceshipPageKey;
+import com.angularexercise.kafka.SpaceshipEvent;
+import com.angularexercise.kafka.SpaceshipOutbox;
 import com.angularexercise.model.Spaceship;
+import com.angularexercise.model.SpaceshipCursor;
+import com.angularexercise.model.SpaceshipSlice;
+import com.angularexercise.readmodel.SpaceshipReadModel;
 import com.angularexercise.repository.SpaceshipRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.transaction.annotation.Transactional;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import com.angularexercise.exception.ResourceNotFoundException;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
 @Service
 public class SpaceshipService {
 
     private static final Logger logger = LoggerFactory.getLogger(SpaceshipService.class);
     private final SpaceshipRepository spaceshipRepository;
-    private final KafkaTemplate<String, Spaceship> kafkaTemplate;
-    private static final String TOPIC = "spaceship-topic";
+    private final SpaceshipOutbox outbox;
+    private final SpaceshipCacheInvalidator cacheInvalidator;
+    private final SpaceshipReadModel readModel;
+    private final SpaceshipCounter counter;
+    private final SingleFlight<SpaceshipPageKey, Page<Spaceship>> pageLoads = new SingleFlight<>();
+    private final SingleFlight<SpaceshipPageKey, Slice<Spaceship>> sliceLoads = new SingleFlight<>();
+    private final SingleFlight<Long, Spaceship> spaceshipLoads = new SingleFlight<>();
+
+    @Value("${app.cache.single-flight.enabled:true}")
+    private boolean singleFlight = true;
+
+    @Value("${app.cache.single-flight.timeout-ms:5000}")
+    private long singleFlightTimeoutMs = 5000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
     @Autowired
-    public SpaceshipService(SpaceshipRepository spaceshipRepository, KafkaTemplate<String, Spaceship> kafkaTemplate) {
+    public SpaceshipService(SpaceshipRepository spaceshipRepository, SpaceshipOutbox outbox,
+                            SpaceshipCacheInvalidator cacheInvalidator, SpaceshipReadModel readModel,
+                            SpaceshipCounter counter) {
         this.spaceshipRepository = spaceshipRepository;
-        this.kafkaTemplate = kafkaTemplate;
+        this.outbox = outbox;
+        this.cacheInvalidator = cacheInvalidator;
+        this.readModel = readModel;
+        this.counter = counter;
     }
 
-    @Cacheable(value = "spaceships", key = "#name + '-' + #sort + '-' + #direction + '-' + #pageable.pageNumber + '-' + #pageable.pageSize")
+    /**
+     * Loads running when a write commits may have read the data before it; later misses must not join them.
+     * Only the loads the write can change are forgotten: those of the changed ids, and the pages and slices
+     * whose listing the changes touch, by the rules the page cache is evicted by. Without the list of changes,
+     * every load is.
+     */
+    @PostConstruct
+    void forgetLoadsOnInvalidation() {
+        cacheInvalidator.addInvalidationListener(changes -> {
+            if (changes == null) {
+                pageLoads.forgetAll();
+                sliceLoads.forgetAll();
+                spaceshipLoads.forgetAll();
+                return;
+            }
+            Set<Long> ids = new HashSet<>();
+            changes.forEach(change -> ids.add(change.id()));
+            spaceshipLoads.forgetIf(ids::contains);
+            pageLoads.forgetIf(key -> SpaceshipCacheInvalidator.mayAffect(key, changes));
+            sliceLoads.forgetIf(key -> SpaceshipCacheInvalidator.mayAffect(key, changes));
+        });
+    }
+
+    /**
+     * Served from the in-memory {@link SpaceshipReadModel} when it is enabled and rebuilt, otherwise from the
+     * database through the {@code spaceships} cache. The read model is kept current by the change stream, so
+     * its answers are not cached. Concurrent misses on the same page share one query.
+     * <p>
+     * The total comes from the {@link SpaceshipCounter} rather than a COUNT query next to the page's, and is
+     * not needed at all on the last page, which ends where the result does.
+     */
+    @Cacheable(value = "spaceships", key = "T(com.angularexercise.cache.SpaceshipPageKey).of(#name, #sort, #direction, #pageable)",
+            condition = "!@spaceshipReadModel.serving")
     public Page<Spaceship> getAllSpaceships(String name, String sort, String direction, Pageable pageable) {
         Sort.Direction sortDirection = Sort.Direction.fromString(direction.toUpperCase());
+        if (readModel.isServing() && SpaceshipReadModel.supportsSort(sort)) {
+            Page<Spaceship> result = readModel.findAll(name, sort, sortDirection, pageable);
+            logger.debug("Served {} spaceships for page {} from the read model", result.getNumberOfElements(), pageable.getPageNumber());
+            return result;
+        }
+        return load(pageLoads, SpaceshipPageKey.of(name, sort, direction, pageable),
+                () -> findPage(name, sort, sortDirection, pageable));
+    }
+
+    /**
+     * {@link #getAllSpaceships} without the total, for clients that only page forward and back: the result
+     * tells whether a next page exists, nothing more. It is cached apart from the pages with a total.
+     */
+    @Cacheable(value = "spaceships", key = "T(com.angularexercise.cache.SpaceshipPageKey).of(#name, #sort, #direction, #pageable, false)",
+            condition = "!@spaceshipReadModel.serving")
+    public Slice<Spaceship> getSpaceshipSlice(String name, String sort, String direction, Pageable pageable) {
+        Sort.Direction sortDirection = Sort.Direction.fromString(direction.toUpperCase());
+        if (readModel.isServing() && SpaceshipReadModel.supportsSort(sort)) {
+            Page<Spaceship> result = readModel.findAll(name, sort, sortDirection, pageable);
+            logger.debug("Served {} spaceships for page {} from the read model", result.getNumberOfElements(), pageable.getPageNumber());
+            return new SliceImpl<>(result.getContent(), result.getPageable(), result.hasNext());
+        }
+        return load(sliceLoads, SpaceshipPageKey.of(name, sort, direction, pageable, false),
+                () -> findSlice(name, sort, sortDirection, pageable));
+    }
+
+    private <K, V> V load(SingleFlight<K, V> flights, K key, Supplier<V> loader) {
+        if (!singleFlight) {
+            return loader.get();
+        }
+        return flights.load(key, loader, Duration.ofMillis(singleFlightTimeoutMs));
+    }
+
+    private Page<Spaceship> findPage(String name, String sort, Sort.Direction sortDirection, Pageable pageable) {
+        Slice<Spaceship> slice = findSlice(name, sort, sortDirection, pageable);
+        long total;
+        if (!slice.hasNext() && (slice.hasContent() || pageable.getOffset() == 0)) {
+            total = pageable.getOffset() + slice.getNumberOfElements();
+        } else {
+            String nameFilter = SpaceshipPageKey.nameFilter(name);
+            total = nameFilter == null ? counter.total() : counter.countMatching(nameFilter);
+        }
+        return new PageImpl<>(slice.getContent(), slice.getPageable(), total);
+    }
+
+    private Slice<Spaceship> findSlice(String name, String sort, Sort.Direction sortDirection, Pageable pageable) {
         Sort sorting = Sort.by(sortDirection, sort);
         Pageable pageableWithSort = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sorting);
-        
-        Page<Spaceship> result;
+
+        Slice<Spaceship> result;
         if (name != null && !name.isEmpty()) {
-            result = spaceshipRepository.findByNameContainingIgnoreCase(name, pageableWithSort);
+            result = spaceshipRepository.findSliceByNameContainingIgnoreCase(name, pageableWithSort);
         } else {
-            result = spaceshipRepository.findAll(pageableWithSort);
+            result = spaceshipRepository.findSliceBy(pageableWithSort);
         }
         logger.info("Fetched {} spaceships for page {} with size {}, name filter: {}, and sort: {}",
             result.getNumberOfElements(), pageable.getPageNumber(), pageable.getPageSize(), name, pageable.getSort());
         return result;
     }
 
+    /**
+     * Keyset pagination: returns the window after {@code cursor} (or the first window when it is null)
+     * without an OFFSET scan or a COUNT query, so every window costs the same regardless of depth.
+     */
+    public SpaceshipSlice scrollSpaceships(String name, String sort, String direction, int size, String cursor) {
+        if (!SpaceshipRepository.KEYSET_SORT_FIELDS.contains(sort)) {
+            throw new IllegalArgumentException("Unsupported sort field: " + sort);
+        }
+        String sortDirection = Sort.Direction.fromString(direction).name().toLowerCase();
+        SpaceshipCursor position = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            position = SpaceshipCursor.decode(cursor);
+            if (!position.sort().equals(sort) || !position.direction().equals(sortDirection)) {
+                throw new IllegalArgumentException("Cursor was issued for sort " + position.sort() + " " + position.direction());
+            }
+        }
+
+        List<Spaceship> rows = spaceshipRepository.findSliceAfter(name, sort, Sort.Direction.ASC.name().equalsIgnoreCase(sortDirection),
+                position != null ? position.value() : null, position != null ? position.id() : null, size + 1);
+        boolean hasNext = rows.size() > size;
+        List<Spaceship> content = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasNext) {
+            Spaceship last = content.get(content.size() - 1);
+            String value = switch (sort) {
+                case "name" -> last.getName();
+                case "model" -> last.getModel();
+                default -> null;
+            };
+            nextCursor = new SpaceshipCursor(sort, sortDirection, value, last.getId()).encode();
+        }
+        logger.info("Fetched {} spaceships after cursor {} with name filter: {}, and sort: {} {}",
+            content.size(), position, name, sort, sortDirection);
+        return new SpaceshipSlice(List.copyOf(content), size, content.size(), hasNext, nextCursor);
+    }
+
+    /**
+     * Concurrent misses on the same id share one query, and a missing id fails all of them with the same
+     * {@link ResourceNotFoundException}.
+     */
     @Cacheable(value = "spaceship", key = "#id")
     public Spaceship getSpaceshipById(Long id) {
+        if (!singleFlight) {
+            return findSpaceship(id);
+        }
+        return spaceshipLoads.load(id, () -> findSpaceship(id), Duration.ofMillis(singleFlightTimeoutMs));
+    }
+
+    private Spaceship findSpaceship(Long id) {
         return spaceshipRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Spaceship not found with id: " + id));
     }
 
-    @CacheEvict(value = "spaceships", allEntries = true)
+    /**
+     * Writes to the spaceship table and the change event to the outbox in one transaction; the event reaches
+     * Kafka through {@link com.angularexercise.kafka.SpaceshipOutboxRelay}, so no write waits for the broker.
+     */
+    @Transactional
     public Spaceship createSpaceship(Spaceship spaceship) {
         Spaceship savedSpaceship = spaceshipRepository.save(spaceship);
-        kafkaTemplate.send(TOPIC, savedSpaceship);
-        logger.info("Sent spaceship creation message to Kafka for spaceship: {}", savedSpaceship.getId());
+        cacheInvalidator.invalidate(SpaceshipChange.created(savedSpaceship.getId(), savedSpaceship.getName()));
+        outbox.append(SpaceshipEvent.created(savedSpaceship));
+        logger.info("Queued spaceship creation event for spaceship: {}", savedSpaceship.getId());
         return savedSpaceship;
     }
 
-    @CacheEvict(value = {"spaceship", "spaceships"}, allEntries = true)
+    @Transactional
     public Spaceship updateSpaceship(Long id, Spaceship spaceshipDetails) {
-        Spaceship existingSpaceship = spaceshipRepository.findById(id)
-            .orElseThrow(() -> new ResourceNotFoundException("Spaceship not found with id: " + id));
-        existingSpaceship.setName(spaceshipDetails.getName());
-        existingSpaceship.setModel(spaceshipDetails.getModel());
-        Spaceship updatedSpaceship = spaceshipRepository.save(existingSpaceship);
-        kafkaTemplate.send(TOPIC, updatedSpaceship);
-        logger.info("Sent spaceship update message to Kafka for spaceship: {}", updatedSpaceship.getId());
+        return updateSpaceship(id, spaceshipDetails, spaceshipDetails.getVersion());
+    }
+
+    /**
+     * Updates the spaceship only if it is still at {@code expectedVersion}; {@code null} updates any version.
+     * The check, the write and the read of the previous name and model, which the invalidation and the event
+     * need, are one UPDATE statement: no SELECT before it, and no entity loaded or dirty-checked. The result is
+     * built from the request and the previous version.
+     *
+     * @throws OptimisticLockingFailureException if the spaceship has moved on from {@code expectedVersion}.
+     */
+    @Transactional
+    public Spaceship updateSpaceship(Long id, Spaceship spaceshipDetails, Long expectedVersion) {
+        Spaceship previous = spaceshipRepository.updateReturningPrevious(id, spaceshipDetails.getName(),
+                        spaceshipDetails.getModel(), expectedVersion)
+                .orElseThrow(() -> updateFailure(id, expectedVersion));
+        Spaceship updatedSpaceship = new Spaceship(id, spaceshipDetails.getName(), spaceshipDetails.getModel());
+        updatedSpaceship.setVersion(previous.getVersion() + 1);
+        cacheInvalidator.invalidate(SpaceshipChange.updated(id, previous.getName(), updatedSpaceship.getName()));
+        outbox.append(SpaceshipEvent.updated(updatedSpaceship, previous.getName(), previous.getModel()));
+        logger.info("Queued spaceship update event for spaceship: {}", updatedSpaceship.getId());
         return updatedSpaceship;
     }
 
-    @CacheEvict(value = {"spaceship", "spaceships"}, allEntries = true)
+    /**
+     * Why an update matched no row. Only a failed update pays for the extra query.
+     */
+    private RuntimeException updateFailure(Long id, Long expectedVersion) {
+        if (expectedVersion != null) {
+            Long version = spaceshipRepository.findById(id).map(Spaceship::getVersion).orElse(null);
+            if (version != null) {
+                return new OptimisticLockingFailureException("Spaceship " + id + " is at version " + version
+                        + ", not " + expectedVersion);
+            }
+        }
+        return new ResourceNotFoundException("Spaceship not found with id: " + id);
+    }
+
+    /**
+     * A single DELETE that also returns the deleted row; its trigram rows go by cascade.
+     */
+    @Transactional
     public void deleteSpaceship(Long id) {
-        Spaceship spaceship = spaceshipRepository.findById(id)
+        Spaceship spaceship = spaceshipRepository.deleteReturningPrevious(id)
             .orElseThrow(() -> new ResourceNotFoundException("Spaceship not found with id: " + id));
-        spaceshipRepository.deleteById(id);
-        kafkaTemplate.send(TOPIC, spaceship);
-        logger.info("Sent spaceship deletion message to Kafka for spaceship: {}", spaceship.getId());
+        cacheInvalidator.invalidate(SpaceshipChange.deleted(id, spaceship.getName()));
+        outbox.appendDeletion(spaceship);
+        logger.info("Queued spaceship deletion event for spaceship: {}", spaceship.getId());
+    }
+
+    /**
+     * Creates many spaceships in one transaction. Ids come from the pooled sequence, so Hibernate sends the
+     * inserts as JDBC batches; the caches are invalidated once for the whole batch.
+     */
+    @Transactional
+    public List<Spaceship> createSpaceships(List<Spaceship> spaceships) {
+        List<Spaceship> savedSpaceships = spaceshipRepository.saveAll(spaceships);
+        spaceshipRepository.flush();
+        List<SpaceshipChange> changes = new ArrayList<>(savedSpaceships.size());
+        for (Spaceship savedSpaceship : savedSpaceships) {
+            changes.add(SpaceshipChange.created(savedSpaceship.getId(), savedSpaceship.getName()));
+        }
+        cacheInvalidator.invalidate(changes);
+        List<SpaceshipEvent> events = new ArrayList<>(savedSpaceships.size());
+        savedSpaceships.forEach(savedSpaceship -> events.add(SpaceshipEvent.created(savedSpaceship)));
+        outbox.appendAll(events);
+        logger.info("Queued {} spaceship creation events", savedSpaceships.size());
+        return savedSpaceships;
+    }
+
+    /**
+     * Updates many spaceships in one transaction. All ids must exist, otherwise nothing is updated. One
+     * statement reads the previous rows and bumps their versions, and the names and models go out as JDBC
+     * batches, with any version: nothing is loaded first and no entity is dirty-checked.
+     */
+    @Transactional
+    public List<Spaceship> updateSpaceships(List<Spaceship> spaceshipDetails) {
+        Map<Long, Spaceship> detailsById = new LinkedHashMap<>();
+        for (Spaceship details : spaceshipDetails) {
+            if (details.getId() == null) {
+                throw new IllegalArgumentException("Every spaceship in a batch update needs an id");
+            }
+            detailsById.put(details.getId(), details);
+        }
+
+        Map<Long, Spaceship> previousById = spaceshipRepository.updateAllReturningPrevious(detailsById.values());
+        // Rolls back the updates that did match
+        requireAllFound(detailsById.keySet(), previousById.keySet());
+        List<Spaceship> updatedSpaceships = new ArrayList<>(detailsById.size());
+        List<SpaceshipChange> changes = new ArrayList<>(detailsById.size());
+        List<SpaceshipEvent> events = new ArrayList<>(detailsById.size());
+        for (Spaceship details : detailsById.values()) {
+            Spaceship previous = previousById.get(details.getId());
+            Spaceship updatedSpaceship = new Spaceship(details.getId(), details.getName(), details.getModel());
+            updatedSpaceship.setVersion(previous.getVersion() + 1);
+            updatedSpaceships.add(updatedSpaceship);
+            changes.add(SpaceshipChange.updated(details.getId(), previous.getName(), updatedSpaceship.getName()));
+            events.add(SpaceshipEvent.updated(updatedSpaceship, previous.getName(), previous.getModel()));
+        }
+        cacheInvalidator.invalidate(changes);
+        outbox.appendAll(events);
+        logger.info("Queued {} spaceship update events", updatedSpaceships.size());
+        return updatedSpaceships;
+    }
+
+    /**
+     * Deletes many spaceships with a single DELETE statement that also returns the deleted rows. All ids must
+     * exist, otherwise nothing is deleted.
+     */
+    @Transactional
+    public void deleteSpaceships(List<Long> ids) {
+        Set<Long> uniqueIds = new LinkedHashSet<>(ids);
+        Map<Long, Spaceship> deleted = spaceshipRepository.deleteAllReturningPrevious(uniqueIds);
+        // Rolls back the deletions that did match
+        requireAllFound(uniqueIds, deleted.keySet());
+
+        List<SpaceshipChange> changes = new ArrayList<>(deleted.size());
+        for (Spaceship spaceship : deleted.values()) {
+            changes.add(SpaceshipChange.deleted(spaceship.getId(), spaceship.getName()));
+        }
+        cacheInvalidator.invalidate(changes);
+        outbox.appendDeletions(deleted.values());
+        logger.info("Queued {} spaceship deletion events", deleted.size());
+    }
+
+    /**
+     * Hands every spaceship, in id order, to the consumer without ever holding the whole table in memory.
+     * Rows are streamed from the database and the persistence context is cleared after every fetch, so
+     * heap use does not depend on the number of spaceships.
+     *
+     * @param consumer Receives each spaceship; it must not keep references to them.
+     * @return The number of spaceships exported.
+     */
+    @Transactional(readOnly = true)
+    public long exportSpaceships(Consumer<Spaceship> consumer) {
+        long count = 0;
+        try (Stream<Spaceship> spaceships = spaceshipRepository.streamAllByOrderById()) {
+            Iterator<Spaceship> iterator = spaceships.iterator();
+            while (iterator.hasNext()) {
+                consumer.accept(iterator.next());
+                if (++count % SpaceshipRepository.STREAM_FETCH_SIZE == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+        logger.info("Exported {} spaceships", count);
+        return count;
+    }
+
+    private static void requireAllFound(Collection<Long> ids, Set<Long> found) {
+        if (found.size() == ids.size()) {
+            return;
+        }
+        Set<Long> missing = new LinkedHashSet<>(ids);
+        missing.removeAll(found);
+        throw new ResourceNotFoundException("Spaceships not found with ids: " + missing);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,50 @@
+package db.migration;
+
+import com.angularexercise.model.NameTrigrams;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * V3 created {@code spaceship_name_trigrams} empty, so the spaceships written before it cannot be found by a
+ * trigram search. Indexes them with {@link NameTrigrams#of}, as the application does, rather than in SQL whose
+ * lower-casing could differ from Java's. Spaceships that already have trigram rows are left alone; those whose
+ * name is too short to have any are read again, at no cost but the read.
+ */
+public class V12__Name_trigram_backfill extends BaseJavaMigration {
+
+    private static final int BATCH_SIZE = 500;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        try (Statement select = connection.createStatement();
+             PreparedStatement insert = connection.prepareStatement(
+                     "INSERT INTO spaceship_name_trigrams (trigram, spaceship_id) VALUES (?, ?)")) {
+            select.setFetchSize(BATCH_SIZE);
+            int pending = 0;
+            try (ResultSet rows = select.executeQuery("SELECT id, name FROM spaceships s WHERE NOT EXISTS ("
+                    + "SELECT 1 FROM spaceship_name_trigrams t WHERE t.spaceship_id = s.id)")) {
+                while (rows.next()) {
+                    long id = rows.getLong(1);
+                    for (String trigram : NameTrigrams.of(rows.getString(2))) {
+                        insert.setString(1, trigram);
+                        insert.setLong(2, id);
+                        insert.addBatch();
+                        if (++pending == BATCH_SIZE) {
+                            insert.executeBatch();
+                            pending = 0;
+                        }
+                    }
+                }
+            }
+            if (pending > 0) {
+                insert.executeBatch();
+            }
+        }
+    }
+}
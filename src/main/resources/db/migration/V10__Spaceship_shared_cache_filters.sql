@@ -0,0 +1,20 @@
+-- The shared tier now stores JSON under a readable key, with the columns evictions select on (see
+-- JdbcSharedCacheTier). Its entries are only a cache, so the old table is dropped rather than converted.
+-- The same table, in a database of its own when app.cache.shared.url is set, is db/shared-cache/V1.
+DROP TABLE spaceship_shared_cache;
+
+CREATE TABLE spaceship_shared_cache (
+    cache_name VARCHAR(64) NOT NULL,
+    cache_key VARCHAR(1024) NOT NULL,
+    cache_value CLOB NOT NULL,
+    name_filter VARCHAR(255),
+    filter_key VARCHAR(3),
+    sorted_by_id BOOLEAN,
+    min_id BIGINT,
+    max_id BIGINT,
+    expires_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (cache_name, cache_key)
+);
+
+CREATE INDEX idx_spaceship_shared_cache_filter ON spaceship_shared_cache (cache_name, filter_key);
+CREATE INDEX idx_spaceship_shared_cache_expiry ON spaceship_shared_cache (expires_at);
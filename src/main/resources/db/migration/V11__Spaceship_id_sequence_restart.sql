@@ -0,0 +1,9 @@
+-- V4 started spaceships_seq at 1 although the identity column had already handed out ids. The pooled
+-- optimizer on Spaceship takes a sequence value as the top of a block of 50 and uses the 49 ids below it, so
+-- the next value must be at least MAX(id) + 50. A sequence that is already past that is not moved back.
+-- spaceship_outbox_seq needs no restart: it was created with its table, which never held other ids.
+ALTER SEQUENCE spaceships_seq RESTART WITH (
+    SELECT GREATEST(COALESCE(MAX(id), 0) + 50,
+                    (SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = 'SPACESHIPS_SEQ'))
+    FROM spaceships
+);
@@ -0,0 +1,6 @@
+-- The relay drains in (spaceship_id, version) order rather than by id: ids come from per-node pooled blocks,
+-- so a newer version of a spaceship can have a lower id than an older one still waiting, and a drain spread
+-- over several batches would then publish them out of order. Entries written before this column have no
+-- version and sort first of their spaceship, as they precede everything written since.
+ALTER TABLE spaceship_outbox ADD COLUMN version BIGINT;
+CREATE INDEX idx_spaceship_outbox_spaceship_version ON spaceship_outbox (spaceship_id, version);
@@ -0,0 +1,4 @@
+-- Composite indexes backing keyset pagination: each one serves both the ORDER BY (key, id)
+-- and the seek predicate (key, id) > (?, ?) without scanning the skipped rows.
+CREATE INDEX idx_spaceships_name_id ON spaceships (name, id);
+CREATE INDEX idx_spaceships_model_id ON spaceships (model, id);
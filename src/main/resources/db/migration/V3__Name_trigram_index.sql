@@ -0,0 +1,10 @@
+-- Trigram index over spaceship names. Substring searches look up every trigram of the search
+-- term through the primary key, then re-check the candidates with LIKE, instead of scanning
+-- the whole spaceships table with lower(name) like '%term%'.
+CREATE TABLE spaceship_name_trigrams (
+    trigram VARCHAR(3) NOT NULL,
+    spaceship_id BIGINT NOT NULL,
+    PRIMARY KEY (trigram, spaceship_id),
+    CONSTRAINT fk_name_trigrams_spaceship FOREIGN KEY (spaceship_id) REFERENCES spaceships (id) ON DELETE CASCADE
+);
+CREATE INDEX idx_name_trigrams_spaceship ON spaceship_name_trigrams (spaceship_id);
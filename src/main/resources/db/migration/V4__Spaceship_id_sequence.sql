@@ -0,0 +1,4 @@
+-- Ids now come from a sequence instead of the identity column, so Hibernate can assign them
+-- before the INSERT and group inserts into JDBC batches. The increment matches the allocationSize
+-- of the pooled optimizer on Spaceship: one sequence call reserves 50 ids.
+CREATE SEQUENCE spaceships_seq START WITH 1 INCREMENT BY 50;
@@ -0,0 +1,2 @@
+-- Row version for optimistic locking; also carried by every change event so consumers can discard stale ones.
+ALTER TABLE spaceships ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
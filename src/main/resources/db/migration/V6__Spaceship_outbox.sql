@@ -0,0 +1,12 @@
+-- Transactional outbox: every change event is inserted here in the same transaction as the spaceship row
+-- and relayed to spaceship-topic in the background. A null payload is a deletion (tombstone).
+-- Ids are pooled like spaceships_seq so that outbox inserts join the JDBC batches of bulk writes;
+-- the relay drains in id order.
+CREATE SEQUENCE spaceship_outbox_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE spaceship_outbox (
+    id BIGINT PRIMARY KEY,
+    spaceship_id BIGINT NOT NULL,
+    payload VARBINARY(4096),
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
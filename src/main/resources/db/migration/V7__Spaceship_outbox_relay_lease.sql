@@ -0,0 +1,9 @@
+-- Only one node relays the outbox at a time: the one holding this lease. A relay takes or renews it before
+-- every batch; if its holder stops renewing it, another node takes over once expires_at has passed.
+CREATE TABLE spaceship_outbox_relay (
+    id INT PRIMARY KEY,
+    owner VARCHAR(64),
+    expires_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+INSERT INTO spaceship_outbox_relay (id, owner, expires_at) VALUES (1, NULL, TIMESTAMP WITH TIME ZONE '1970-01-01 00:00:00+00');
@@ -0,0 +1,10 @@
+-- Shared tier of the two-tier caches when app.cache.shared.enabled is set (see JdbcSharedCacheTier): one row per
+-- cache entry, with the serialized key and value. cache_key is the SHA-256 of key_bytes, in hex.
+CREATE TABLE spaceship_shared_cache (
+    cache_name VARCHAR(64) NOT NULL,
+    cache_key CHAR(64) NOT NULL,
+    key_bytes BLOB NOT NULL,
+    cache_value BLOB NOT NULL,
+    expires_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (cache_name, cache_key)
+);
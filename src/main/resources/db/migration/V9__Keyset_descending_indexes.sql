@@ -0,0 +1,5 @@
+-- H2 reads an index in one direction only: without these, a descending listing sorts every row it matches
+-- rather than stopping after the window, and a descending keyset seek gains nothing over an OFFSET.
+CREATE INDEX idx_spaceships_name_id_desc ON spaceships (name DESC, id DESC);
+CREATE INDEX idx_spaceships_model_id_desc ON spaceships (model DESC, id DESC);
+CREATE INDEX idx_spaceships_id_desc ON spaceships (id DESC);
@@ -0,0 +1,17 @@
+-- Shared tier of the two-tier caches in a database of its own (app.cache.shared.url, see JdbcSharedCacheTier).
+-- Without it the tier is in the application's database, created by db/migration V8 and V10.
+CREATE TABLE spaceship_shared_cache (
+    cache_name VARCHAR(64) NOT NULL,
+    cache_key VARCHAR(1024) NOT NULL,
+    cache_value CLOB NOT NULL,
+    name_filter VARCHAR(255),
+    filter_key VARCHAR(3),
+    sorted_by_id BOOLEAN,
+    min_id BIGINT,
+    max_id BIGINT,
+    expires_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (cache_name, cache_key)
+);
+
+CREATE INDEX idx_spaceship_shared_cache_filter ON spaceship_shared_cache (cache_name, filter_key);
+CREATE INDEX idx_spaceship_shared_cache_expiry ON spaceship_shared_cache (expires_at);
@@ -0,0 +1,198 @@
+package com.angularexercise;
+
+import com.angularexercise.kafka.SpaceshipEventPublisher;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Transfer harness: measures wire bytes and end-to-end latency (until the body is read and decoded) of the
+ * JSON export for 1k, 10k and 100k spaceships, and of a 1000-spaceship page, over HTTP/1.1 and h2c, each
+ * with and without gzip. Latencies are medians of {@code payload.repetitions} requests after a warm-up; client
+ * and server share the JVM and the loopback interface, so they show the CPU cost of compressing rather than
+ * the transfer time saved on a real network. The harness is tagged {@code benchmark}, out of the default build,
+ * which only checks once per variant that a 1000-row export is negotiated as it should be. Row counts are set
+ * with {@code mvn -Pbenchmark test -Dtest=SpaceshipCompressionTest -Dpayload.rows=1000,10000}.
+ */
+@EmbeddedKafka(partitions = 1, topics = SpaceshipEventPublisher.TOPIC)
+class SpaceshipCompressionTest {
+
+    private static final int REPETITIONS = Integer.getInteger("payload.repetitions", 5);
+
+    private enum Variant {
+        HTTP_1_1_IDENTITY(HttpClient.Version.HTTP_1_1, false),
+        HTTP_1_1_GZIP(HttpClient.Version.HTTP_1_1, true),
+        H2C_IDENTITY(HttpClient.Version.HTTP_2, false),
+        H2C_GZIP(HttpClient.Version.HTTP_2, true);
+
+        final HttpClient.Version version;
+        final boolean gzip;
+
+        Variant(HttpClient.Version version, boolean gzip) {
+            this.version = version;
+            this.gzip = gzip;
+        }
+    }
+
+    private record Transfer(HttpClient.Version version, String contentEncoding, long wireBytes, long bodyBytes, long nanos) {
+    }
+
+    @Test
+    void testExportIsGzippedOnRequestOverBothVersions(EmbeddedKafkaBroker broker) throws Exception {
+        try (ConfigurableApplicationContext context = start(broker, "compression-check")) {
+            insert(context, 0, 1000);
+            String url = root(context) + "/all";
+            long identityBytes = 0;
+            for (Variant variant : Variant.values()) {
+                Transfer transfer = transfer(HttpClient.newBuilder().version(variant.version).build(), url, variant.gzip);
+                identityBytes = assertNegotiated(variant, url, transfer, identityBytes);
+            }
+        }
+    }
+
+    @Test
+    @Tag("benchmark")
+    void testCompressionAndHttp2(EmbeddedKafkaBroker broker) throws Exception {
+        int[] rowCounts = Arrays.stream(System.getProperty("payload.rows", "1000,10000,100000").split(","))
+                .mapToInt(Integer::parseInt).sorted().toArray();
+        try (ConfigurableApplicationContext context = start(broker, "compression")) {
+            String root = root(context);
+            List<String> report = new ArrayList<>();
+            int rows = 0;
+            for (int rowCount : rowCounts) {
+                insert(context, rows, rowCount);
+                rows = rowCount;
+                report.addAll(measure(root + "/all", rowCount + " rows, export"));
+            }
+            report.addAll(measure(root + "?size=1000", "1000-row page"));
+
+            System.out.printf("%-20s %-18s %12s %12s %10s%n", "payload", "variant", "wire bytes", "body bytes", "median ms");
+            report.forEach(System.out::println);
+        }
+    }
+
+    private static ConfigurableApplicationContext start(EmbeddedKafkaBroker broker, String database) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(AngularExerciseApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:" + database,
+                "--spring.kafka.bootstrap-servers=" + broker.getBrokersAsString(),
+                "--app.kafka.topic.partitions=1",
+                "--logging.level.root=WARN");
+        context.getBean(JdbcTemplate.class).update("DELETE FROM spaceships");
+        return context;
+    }
+
+    private static String root(ConfigurableApplicationContext context) {
+        return "http://localhost:" + ((ServletWebServerApplicationContext) context).getWebServer().getPort() + "/api/spaceships";
+    }
+
+    /**
+     * Adds the spaceships after the first {@code from} up to {@code to}.
+     */
+    private static void insert(ConfigurableApplicationContext context, int from, int to) {
+        // Straight into the table: the harness measures reads, and the outbox relay would compete for CPU
+        context.getBean(JdbcTemplate.class).update("INSERT INTO spaceships (id, name, model, version)"
+                + " SELECT X, 'Spaceship ' || X, 'Model ' || MOD(X, 97), 0 FROM SYSTEM_RANGE(?, ?)", from + 1, to);
+    }
+
+    /**
+     * @param identityBytes The body bytes of the uncompressed variant of the same version, checked against a gzip one.
+     * @return The body bytes, for the gzip variant that follows an uncompressed one.
+     */
+    private static long assertNegotiated(Variant variant, String url, Transfer transfer, long identityBytes) {
+        assertEquals(variant.version, transfer.version(), variant + " " + url);
+        assertEquals(variant.gzip ? "gzip" : null, transfer.contentEncoding(), variant + " " + url);
+        if (variant.gzip) {
+            assertEquals(identityBytes, transfer.bodyBytes(), variant + " " + url);
+            assertTrue(transfer.wireBytes() * 3 < transfer.bodyBytes(), variant + " " + url);
+        }
+        return transfer.bodyBytes();
+    }
+
+    private List<String> measure(String url, String payload) throws Exception {
+        List<String> lines = new ArrayList<>();
+        long identityBytes = 0;
+        for (Variant variant : Variant.values()) {
+            HttpClient client = HttpClient.newBuilder().version(variant.version).build();
+            for (int i = 0; i < 2; i++) {
+                transfer(client, url, variant.gzip);
+            }
+            long[] nanos = new long[REPETITIONS];
+            Transfer transfer = null;
+            for (int i = 0; i < REPETITIONS; i++) {
+                transfer = transfer(client, url, variant.gzip);
+                nanos[i] = transfer.nanos();
+            }
+            Arrays.sort(nanos);
+
+            identityBytes = assertNegotiated(variant, url, transfer, identityBytes);
+            lines.add(String.format("%-20s %-18s %12d %12d %10.2f", payload, variant, transfer.wireBytes(), transfer.bodyBytes(),
+                    nanos[nanos.length / 2] / 1e6));
+        }
+        return lines;
+    }
+
+    private static Transfer transfer(HttpClient client, String url, boolean gzip) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url));
+        if (gzip) {
+            request.header("Accept-Encoding", "gzip");
+        }
+        long sent = System.nanoTime();
+        HttpResponse<InputStream> response = client.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+        assertEquals(200, response.statusCode(), url);
+        String contentEncoding = response.headers().firstValue("Content-Encoding").orElse(null);
+        CountingInputStream wire = new CountingInputStream(response.body());
+        long bodyBytes;
+        try (InputStream body = "gzip".equals(contentEncoding) ? new GZIPInputStream(wire, 64 * 1024) : wire) {
+            bodyBytes = body.transferTo(OutputStream.nullOutputStream());
+        }
+        return new Transfer(response.version(), contentEncoding, wire.count, bodyBytes, System.nanoTime() - sent);
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+    }
+
+}
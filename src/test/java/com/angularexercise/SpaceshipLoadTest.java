@@ -0,0 +1,190 @@
+package com.angularexercise;
+
+import com.angularexercise.kafka.SpaceshipEventPublisher;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Load-test harness: starts the application three times, drives each with the same number of concurrent
+ * connections and compares them:
+ * <ul>
+ *     <li>the MVC API on the platform-thread Tomcat pool,</li>
+ *     <li>the MVC API in virtual-thread mode,</li>
+ *     <li>the reactive API ({@code /api/reactive/spaceships}) on the platform-thread pool.</li>
+ * </ul>
+ * Every connection sends a series of creates, page queries and single reads. Reports throughput, latency
+ * percentiles, and the peak of live threads and used heap while the load runs (client and server share the
+ * JVM, so both include the client's share, which is the same in every mode). Tagged {@code benchmark}, out of
+ * the default build, which covers each mode in {@code VirtualThreadConfigIntegrationTest} and
+ * {@code ReactiveSpaceshipControllerIntegrationTest}. The default is a quick run; the full comparison is
+ * {@code mvn -Pbenchmark test -Dtest=SpaceshipLoadTest -Dload.connections=10000}.
+ */
+@Tag("benchmark")
+@EmbeddedKafka(partitions = 1, topics = SpaceshipEventPublisher.TOPIC)
+class SpaceshipLoadTest {
+
+    private static final int CONNECTIONS = Integer.getInteger("load.connections", 200);
+    private static final int REQUESTS_PER_CONNECTION = Integer.getInteger("load.requests", 10);
+
+    @Test
+    void testPlatformVirtualAndReactive(EmbeddedKafkaBroker broker) throws Exception {
+        Result platform = run(broker, "platform", false, "/api/spaceships");
+        Result virtual = run(broker, "virtual", true, "/api/spaceships");
+        Result reactive = run(broker, "reactive", false, "/api/reactive/spaceships");
+
+        System.out.printf("%d connections x %d requests%n", CONNECTIONS, REQUESTS_PER_CONNECTION);
+        System.out.println("MVC, platform threads: " + platform);
+        System.out.println("MVC, virtual threads:  " + virtual);
+        System.out.println("reactive:              " + reactive);
+        // Errors (timeouts) of the platform pool under overload are part of the comparison, not a failure
+        assertEquals(0, virtual.errors());
+    }
+
+    private Result run(EmbeddedKafkaBroker broker, String mode, boolean virtualThreads, String path) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(AngularExerciseApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:load-" + mode,
+                "--spring.kafka.bootstrap-servers=" + broker.getBrokersAsString(),
+                "--app.kafka.topic.partitions=1",
+                "--app.virtual-threads.enabled=" + virtualThreads,
+                // Every connection is accepted in both modes; only the request threads differ
+                "--server.tomcat.max-connections=" + (CONNECTIONS + 100),
+                "--server.tomcat.accept-count=" + CONNECTIONS,
+                "--logging.level.root=WARN")) {
+            String root = "http://localhost:" + ((ServletWebServerApplicationContext) context).getWebServer().getPort() + path;
+            // Warm-up round, so that neither mode is measured while the JIT is still compiling
+            drive(root, Math.min(CONNECTIONS, 50), REQUESTS_PER_CONNECTION);
+            return drive(root, CONNECTIONS, REQUESTS_PER_CONNECTION);
+        }
+    }
+
+    private Result drive(String root, int connectionCount, int requestsPerConnection) throws Exception {
+        long[] latencies = new long[connectionCount * requestsPerConnection];
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> connections = new ArrayList<>(connectionCount);
+        ResourceSampler sampler = new ResourceSampler();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor(); sampler) {
+            // HTTP/1.1: one connection per client; over h2c the client would multiplex them all onto one connection
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(clients)
+                    .connectTimeout(Duration.ofSeconds(30)).build();
+            for (int c = 0; c < connectionCount; c++) {
+                int connection = c;
+                connections.add(clients.submit(() -> {
+                    start.await();
+                    int errors = 0;
+                    for (int r = 0; r < requestsPerConnection; r++) {
+                        int i = connection * requestsPerConnection + r;
+                        long sent = System.nanoTime();
+                        try {
+                            int status = client.send(request(root, i), HttpResponse.BodyHandlers.discarding()).statusCode();
+                            if (status >= 300) {
+                                errors++;
+                            }
+                        } catch (Exception e) {
+                            errors++;
+                        }
+                        latencies[i] = System.nanoTime() - sent;
+                    }
+                    return errors;
+                }));
+            }
+            long began = System.nanoTime();
+            start.countDown();
+            int errors = 0;
+            for (Future<Integer> connection : connections) {
+                errors += connection.get();
+            }
+            long elapsed = System.nanoTime() - began;
+            Arrays.sort(latencies);
+            return new Result(latencies.length / (elapsed / 1e9), percentile(latencies, 0.50), percentile(latencies, 0.99),
+                    latencies[latencies.length - 1] / 1_000_000.0, errors, sampler.peakThreads(), sampler.peakHeapBytes() / (1024.0 * 1024.0));
+        }
+    }
+
+    private static HttpRequest request(String root, int i) {
+        HttpRequest.Builder builder = switch (i % 4) {
+            case 0 -> HttpRequest.newBuilder(URI.create(root + "/create"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"name\":\"Load " + i + "\",\"model\":\"Load Class\"}"));
+            // Spread over many pages, so that most MVC page requests miss the cache
+            case 1 -> HttpRequest.newBuilder(URI.create(root + "?size=20&sort=name&page=" + (i / 4 % 500)));
+            case 2 -> HttpRequest.newBuilder(URI.create(root + "?size=20&name=load&page=" + (i / 4 % 50)));
+            default -> HttpRequest.newBuilder(URI.create(root + "/" + (1 + i % 12)));
+        };
+        return builder.timeout(Duration.ofSeconds(120)).build();
+    }
+
+    private static double percentile(long[] sortedNanos, double percentile) {
+        return sortedNanos[(int) Math.ceil(percentile * sortedNanos.length) - 1] / 1_000_000.0;
+    }
+
+    private record Result(double requestsPerSecond, double p50Millis, double p99Millis, double maxMillis, int errors,
+                          int peakThreads, double peakHeapMegabytes) {
+
+        @Override
+        public String toString() {
+            return String.format("%.0f req/s, p50 %.1f ms, p99 %.1f ms, max %.1f ms, %d errors, peak %d threads, peak heap %.0f MB",
+                    requestsPerSecond, p50Millis, p99Millis, maxMillis, errors, peakThreads, peakHeapMegabytes);
+        }
+    }
+
+    /**
+     * Samples live platform threads and used heap every 20 ms until closed. Virtual threads are not counted by
+     * the thread MX bean; their stacks live on the heap instead.
+     */
+    private static final class ResourceSampler implements AutoCloseable {
+
+        private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        private final AtomicInteger peakThreads = new AtomicInteger();
+        private final AtomicLong peakHeapBytes = new AtomicLong();
+
+        ResourceSampler() {
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+            scheduler.scheduleAtFixedRate(() -> {
+                peakThreads.accumulateAndGet(threads.getThreadCount(), Math::max);
+                peakHeapBytes.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+            }, 0, 20, TimeUnit.MILLISECONDS);
+        }
+
+        int peakThreads() {
+            return peakThreads.get();
+        }
+
+        long peakHeapBytes() {
+            return peakHeapBytes.get();
+        }
+
+        @Override
+        public void close() {
+            scheduler.shutdownNow();
+        }
+    }
+}
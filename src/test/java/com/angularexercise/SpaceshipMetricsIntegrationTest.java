@@ -0,0 +1,59 @@
+package com.angularexercise;
+
+import com.angularexercise.model.Spaceship;
+import com.angularexercise.service.SpaceshipService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Tests run without metrics export unless asked for it
+@AutoConfigureObservability
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class SpaceshipMetricsIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private SpaceshipService spaceshipService;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void testPrometheusExposesTimersOfEveryLayer() throws Exception {
+        Spaceship spaceship = spaceshipService.createSpaceship(new Spaceship("Metrics Probe", "Timer Class"));
+        assertEquals(200, get("/api/spaceships/" + spaceship.getId()).statusCode());
+        assertEquals(200, get("/api/spaceships/" + spaceship.getId()).statusCode());
+
+        HttpResponse<String> scrape = get("/actuator/prometheus");
+
+        assertEquals(200, scrape.statusCode());
+        List<String> lines = scrape.body().lines().toList();
+        assertHasLine(lines, "http_server_requests_seconds_bucket{", "uri=\"/api/spaceships/{id}\"");
+        assertHasLine(lines, "spaceship_service_seconds_bucket{", "method=\"getSpaceshipById\"", "outcome=\"success\"");
+        assertHasLine(lines, "spaceship_service_seconds_count{", "method=\"createSpaceship\"");
+        assertHasLine(lines, "spring_data_repository_invocations_seconds_bucket{", "repository=\"SpaceshipRepository\"");
+        assertHasLine(lines, "cache_gets_total{", "cache=\"spaceship\"", "result=\"hit\"");
+        assertHasLine(lines, "cache_gets_total{", "cache=\"spaceship\"", "result=\"miss\"");
+    }
+
+    private static void assertHasLine(List<String> lines, String prefix, String... labels) {
+        assertTrue(lines.stream().anyMatch(line -> line.startsWith(prefix) && List.of(labels).stream().allMatch(line::contains)),
+                "no " + prefix + " line with " + String.join(", ", labels));
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,66 @@
+package com.angularexercise.aspect;
+
+import com.angularexercise.exception.ResourceNotFoundException;
+import com.angularexercise.model.Spaceship;
+import com.angularexercise.service.SpaceshipService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class SpaceshipMetricsAspectTest {
+
+    private final SpaceshipService target = mock(SpaceshipService.class);
+    private MeterRegistry meterRegistry;
+    private SpaceshipService spaceshipService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new SpaceshipMetricsAspect(meterRegistry));
+        spaceshipService = factory.getProxy();
+    }
+
+    @Test
+    void testCallsAreTimedPerMethodAndOutcome() {
+        Spaceship enterprise = new Spaceship(1L, "Enterprise", "NCC-1701");
+        when(target.getSpaceshipById(1L)).thenReturn(enterprise);
+        when(target.getSpaceshipById(2L)).thenThrow(new ResourceNotFoundException("Spaceship not exist with id :2"));
+
+        assertSame(enterprise, spaceshipService.getSpaceshipById(1L));
+        assertSame(enterprise, spaceshipService.getSpaceshipById(1L));
+        assertThrows(ResourceNotFoundException.class, () -> spaceshipService.getSpaceshipById(2L));
+        spaceshipService.deleteSpaceship(1L);
+
+        assertEquals(2, timer("getSpaceshipById", "success").count());
+        assertEquals(1, timer("getSpaceshipById", "failure").count());
+        assertEquals(1, timer("deleteSpaceship", "success").count());
+        assertTrue(timer("getSpaceshipById", "success").totalTime(TimeUnit.NANOSECONDS) > 0);
+    }
+
+    @Test
+    void testTimersAreRegisteredOncePerMethod() {
+        when(target.getSpaceshipById(anyLong())).thenReturn(new Spaceship(1L, "Enterprise", "NCC-1701"));
+
+        for (long id = 0; id < 100; id++) {
+            spaceshipService.getSpaceshipById(id);
+        }
+
+        assertEquals(2, meterRegistry.find(SpaceshipMetricsAspect.SERVICE_TIMER).timers().size());
+        assertEquals(100, timer("getSpaceshipById", "success").count());
+    }
+
+    private Timer timer(String method, String outcome) {
+        return meterRegistry.get(SpaceshipMetricsAspect.SERVICE_TIMER).tag("method", method).tag("outcome", outcome).timer();
+    }
+}
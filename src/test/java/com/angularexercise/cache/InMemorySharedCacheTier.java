@@ -0,0 +1,61 @@
+package com.angularexercise.cache;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stand-in for a shared cache server: one instance registered in the contexts of several nodes of the same JVM
+ * plays the store they all talk to. Counts hits and misses, a miss being a load from the database.
+ */
+public class InMemorySharedCacheTier implements SharedCacheTier {
+
+    private final Map<String, ConcurrentMap<Object, Object>> caches = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @Override
+    public Object get(String cacheName, Object key) {
+        Object value = cache(cacheName).get(key);
+        (value == null ? misses : hits).incrementAndGet();
+        return value;
+    }
+
+    @Override
+    public void put(String cacheName, Object key, Object value) {
+        cache(cacheName).put(key, value);
+    }
+
+    @Override
+    public void evict(String cacheName, Object key) {
+        cache(cacheName).remove(key);
+    }
+
+    @Override
+    public void clear(String cacheName) {
+        cache(cacheName).clear();
+    }
+
+    @Override
+    public void evictAffected(String cacheName, Collection<SpaceshipChange> changes) {
+        cache(cacheName).entrySet().removeIf(entry -> SpaceshipCacheInvalidator.affects(entry.getKey(), entry.getValue(), changes));
+    }
+
+    public boolean contains(String cacheName, Object key) {
+        return cache(cacheName).containsKey(key);
+    }
+
+    public long hits() {
+        return hits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+
+    private ConcurrentMap<Object, Object> cache(String cacheName) {
+        return caches.computeIfAbsent(cacheName, name -> new ConcurrentHashMap<>());
+    }
+}
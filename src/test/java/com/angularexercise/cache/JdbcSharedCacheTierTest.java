@@ -0,0 +1,181 @@
+package com.angularexercise.cache;
+
+import com.angularexercise.config.JacksonConfig;
+import com.angularexercise.model.Spaceship;
+import com.angularexercise.repository.SpaceshipRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The tier commits on connections of its own; rows locked by a test transaction would block it
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class JdbcSharedCacheTierTest {
+
+    private static final String PAGES = "spaceships";
+    private static final String BY_ID = "spaceship";
+    private static final String COUNTS = "spaceshipCounts";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SpaceshipRepository spaceshipRepository;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM spaceship_shared_cache");
+        spaceshipRepository.deleteAll();
+    }
+
+    @Test
+    void testEntriesWrittenByOneNodeAreReadByAnother() {
+        JdbcSharedCacheTier node = tier(Duration.ofMinutes(10));
+        JdbcSharedCacheTier otherNode = tier(Duration.ofMinutes(10));
+        Spaceship spaceship = spaceshipRepository.findById(spaceshipRepository.save(new Spaceship("Enterprise", "NCC-1701")).getId()).orElseThrow();
+        SpaceshipPageKey key = SpaceshipPageKey.of("enter", "name", "asc", PageRequest.of(0, 10));
+        SpaceshipPageKey sliceKey = SpaceshipPageKey.of("enter", "name", "asc", PageRequest.of(0, 10), false);
+        Page<Spaceship> page = new PageImpl<>(List.of(spaceship), PageRequest.of(0, 10, Sort.by("name")), 1);
+
+        node.put(PAGES, key, page);
+        node.put(PAGES, sliceKey, new SliceImpl<>(List.of(spaceship), PageRequest.of(0, 10), true));
+        node.put(BY_ID, spaceship.getId(), spaceship);
+        node.put(COUNTS, "enter", 1L);
+
+        Page<?> cachedPage = (Page<?>) otherNode.get(PAGES, SpaceshipPageKey.of("ENTER", "name", "ASC", PageRequest.of(0, 10)));
+        assertEquals(List.of(spaceship), cachedPage.getContent());
+        assertEquals(1, cachedPage.getTotalElements());
+        assertEquals(Sort.by("name"), cachedPage.getSort());
+        Slice<?> cachedSlice = (Slice<?>) otherNode.get(PAGES, sliceKey);
+        assertFalse(cachedSlice instanceof Page<?>);
+        assertTrue(cachedSlice.hasNext());
+        assertEquals(spaceship, otherNode.get(BY_ID, spaceship.getId()));
+        assertEquals(spaceship.getVersion(), ((Spaceship) otherNode.get(BY_ID, spaceship.getId())).getVersion());
+        assertEquals(1L, otherNode.get(COUNTS, "enter"));
+        assertNull(otherNode.get(PAGES, SpaceshipPageKey.of("enter", "name", "desc", PageRequest.of(0, 10))));
+        assertNull(otherNode.get(PAGES, spaceship.getId()));
+
+        node.put(BY_ID, spaceship.getId(), new Spaceship(spaceship.getId(), "Enterprise-A", "NCC-1701-A"));
+        node.put(BY_ID, 0L, "not a cached type");
+
+        assertEquals("Enterprise-A", ((Spaceship) otherNode.get(BY_ID, spaceship.getId())).getName());
+        assertNull(otherNode.get(BY_ID, 0L));
+    }
+
+    @Test
+    void testEvictionsAndClearsAreSeenByEveryNode() {
+        JdbcSharedCacheTier node = tier(Duration.ofMinutes(10));
+        JdbcSharedCacheTier otherNode = tier(Duration.ofMinutes(10));
+        for (long id = 1; id <= 3; id++) {
+            node.put(BY_ID, id, new Spaceship(id, "Ship " + id, null));
+        }
+        node.put(PAGES, 1L, new Spaceship(1L, "Ship 1", null));
+
+        otherNode.evict(BY_ID, 1L);
+        // Entries by id are not selected by their filter
+        otherNode.evictAffected(BY_ID, List.of(SpaceshipChange.updated(2L, "Ship 2", "Ship 2, renamed")));
+
+        assertNull(node.get(BY_ID, 1L));
+        assertNotNull(node.get(BY_ID, 2L));
+
+        otherNode.clear(BY_ID);
+
+        assertNull(node.get(BY_ID, 3L));
+        assertNotNull(node.get(PAGES, 1L));
+    }
+
+    /**
+     * The DELETE removes exactly the pages and totals that the invalidator removes from a near tier.
+     */
+    @Test
+    void testEvictsWhatTheInvalidatorWouldEvict() {
+        JdbcSharedCacheTier tier = tier(Duration.ofMinutes(10));
+        Map<Object, Object> pages = new LinkedHashMap<>();
+        Map<Object, Object> counts = new LinkedHashMap<>();
+        for (String filter : new String[] {null, "e", "en", "ent", "enterp", "prise-a", "voy", "xyz"}) {
+            for (String sort : List.of("id", "name")) {
+                pages.put(SpaceshipPageKey.of(filter, sort, "asc", PageRequest.of(0, 2)), page(1L, 2L));
+                pages.put(SpaceshipPageKey.of(filter, sort, "desc", PageRequest.of(1, 2), false), page(7L, 8L));
+                pages.put(SpaceshipPageKey.of(filter, sort, "asc", PageRequest.of(9, 2)), page());
+            }
+            if (filter != null) {
+                counts.put(filter, 3L);
+            }
+        }
+        // More filter keys than the DELETE lists
+        String longName = IntStream.range(0, 300).mapToObj(i -> Integer.toString(i, 36)).collect(Collectors.joining());
+        List<List<SpaceshipChange>> changeSets = List.of(
+                List.of(SpaceshipChange.updated(2L, "Enterprise", "Enterprise-A")),
+                List.of(SpaceshipChange.updated(3L, "Enterprise", "Enterprise-A")),
+                List.of(SpaceshipChange.updated(6L, "Voyager", "Enterprise")),
+                List.of(SpaceshipChange.created(9L, "Enterprise")),
+                List.of(SpaceshipChange.deleted(1L, "Voyager")),
+                List.of(SpaceshipChange.created(10L, "XYZ"), SpaceshipChange.deleted(7L, "Defiant")),
+                List.of(SpaceshipChange.updated(5L, longName, longName + "x")));
+
+        for (List<SpaceshipChange> changes : changeSets) {
+            pages.forEach((key, page) -> tier.put(PAGES, key, page));
+            counts.forEach((key, count) -> tier.put(COUNTS, key, count));
+
+            tier.evictAffected(PAGES, changes);
+            tier.evictAffected(COUNTS, changes);
+
+            pages.forEach((key, page) -> assertEquals(SpaceshipCacheInvalidator.affects(key, page, changes),
+                    tier.get(PAGES, key) == null, key + " after " + changes));
+            counts.forEach((key, count) -> assertEquals(SpaceshipCacheInvalidator.affects(key, count, changes),
+                    tier.get(COUNTS, key) == null, key + " after " + changes));
+        }
+    }
+
+    @Test
+    void testExpiredAndUnreadableEntriesAreMisses() {
+        JdbcSharedCacheTier expiring = tier(Duration.ZERO);
+        JdbcSharedCacheTier tier = tier(Duration.ofMinutes(10));
+        expiring.put(BY_ID, 1L, new Spaceship(1L, "Enterprise", null));
+        tier.put(BY_ID, 2L, new Spaceship(2L, "Voyager", null));
+        tier.put(BY_ID, 3L, new Spaceship(3L, "Defiant", null));
+        jdbcTemplate.update("UPDATE spaceship_shared_cache SET cache_value = '{\"spaceship\": [' WHERE cache_key = '3'");
+
+        assertNull(tier.get(BY_ID, 1L));
+        assertNotNull(tier.get(BY_ID, 2L));
+        assertNull(tier.get(BY_ID, 3L));
+
+        // Purged by the next write of a tier whose expired rows are due
+        expiring.put(BY_ID, 4L, new Spaceship(4L, "Excelsior", null));
+
+        assertEquals(List.of("2", "3", "4"), jdbcTemplate.queryForList(
+                "SELECT cache_key FROM spaceship_shared_cache ORDER BY cache_key", String.class));
+    }
+
+    private JdbcSharedCacheTier tier(Duration timeToLive) {
+        return new JdbcSharedCacheTier(dataSource, timeToLive, new JacksonConfig().objectMapper());
+    }
+
+    private static Page<Spaceship> page(Long... ids) {
+        List<Spaceship> content = List.of(ids).stream().map(id -> new Spaceship(id, "Ship " + id, null)).toList();
+        return new PageImpl<>(content, PageRequest.of(0, 2), 20);
+    }
+}
@@ -0,0 +1,139 @@
+package com.angularexercise.cache;
+
+import com.angularexercise.AngularExerciseApplication;
+import com.angularexercise.config.CacheConfig;
+import com.angularexercise.kafka.SpaceshipCacheInvalidationPublisher;
+import com.angularexercise.kafka.SpaceshipEventPublisher;
+import com.angularexercise.service.SpaceshipService;
+import jakarta.persistence.EntityManagerFactory;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Thundering-herd harness: {@code herd.threads} threads (1000) released at once onto one page and then onto one
+ * spaceship, right after their cache entries were evicted, with single-flight off and on. Reports the SQL
+ * statements the herd caused and the latency percentiles of its requests. Tagged {@code benchmark}, out of the
+ * default build, which checks the coalescing itself in {@link SingleFlightTest}, e.g.
+ * {@code mvn -Pbenchmark test -Dtest=SingleFlightHerdTest -Dherd.threads=2000 -Dherd.rows=100000}.
+ */
+@Tag("benchmark")
+@EmbeddedKafka(partitions = 1, topics = {SpaceshipEventPublisher.TOPIC, SpaceshipCacheInvalidationPublisher.TOPIC})
+class SingleFlightHerdTest {
+
+    private static final int THREADS = Integer.getInteger("herd.threads", 1000);
+    private static final int ROWS = Integer.getInteger("herd.rows", 10_000);
+
+    @Test
+    void testHerdOnOneKeyAfterEviction(EmbeddedKafkaBroker broker) throws Exception {
+        System.out.printf("%d threads, %d rows%n%-14s %-5s %11s %9s %9s %9s%n", THREADS, ROWS,
+                "single-flight", "key", "statements", "p50 ms", "p99 ms", "max ms");
+        Herd pageWithout = null;
+        Herd spaceshipWithout = null;
+        for (boolean singleFlight : new boolean[]{false, true}) {
+            try (ConfigurableApplicationContext context = start(broker, singleFlight)) {
+                SpaceshipService service = context.getBean(SpaceshipService.class);
+                Herd page = herd(context, CacheConfig.SPACESHIPS_CACHE,
+                        s -> s.getAllSpaceships(null, "name", "desc", PageRequest.of(3, 20)));
+                Herd spaceship = herd(context, CacheConfig.SPACESHIP_CACHE, s -> s.getSpaceshipById(4242L));
+                page.print(singleFlight, "page");
+                spaceship.print(singleFlight, "id");
+                assertEquals(20, service.getAllSpaceships(null, "name", "desc", PageRequest.of(3, 20)).getNumberOfElements());
+
+                if (!singleFlight) {
+                    pageWithout = page;
+                    spaceshipWithout = spaceship;
+                } else {
+                    // Only callers arriving between the end of the load and the cache put start another one
+                    assertTrue(page.statements() <= 2L * THREADS / 100, page.statements() + " statements for one page");
+                    assertTrue(spaceship.statements() <= THREADS / 100, spaceship.statements() + " statements for one id");
+                    // How many overlap without it depends on the cores: on one, the first load may finish before most start
+                    assertTrue(page.statements() <= pageWithout.statements());
+                    assertTrue(spaceship.statements() <= spaceshipWithout.statements());
+                }
+            }
+        }
+    }
+
+    private ConfigurableApplicationContext start(EmbeddedKafkaBroker broker, boolean singleFlight) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(AngularExerciseApplication.class).run(
+                "--spring.main.web-application-type=none",
+                "--spring.datasource.url=jdbc:h2:mem:herd-" + singleFlight,
+                "--spring.kafka.bootstrap-servers=" + broker.getBrokersAsString(),
+                "--app.kafka.topic.partitions=1",
+                "--spring.jpa.properties.hibernate.generate_statistics=true",
+                // No relay polls among the counted statements
+                "--app.outbox.poll-interval-ms=3600000",
+                "--app.cache.single-flight.enabled=" + singleFlight,
+                "--logging.level.root=WARN");
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("DELETE FROM spaceships");
+        jdbcTemplate.update("INSERT INTO spaceships (id, name, model, version)"
+                + " SELECT X, 'Herd ship ' || X, 'Model ' || MOD(X, 97), 0 FROM SYSTEM_RANGE(1, ?)", ROWS);
+        return context;
+    }
+
+    private Herd herd(ConfigurableApplicationContext context, String cacheName, Consumer<SpaceshipService> request)
+            throws InterruptedException {
+        SpaceshipService service = context.getBean(SpaceshipService.class);
+        Statistics statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+        // Warm up the query path, then leave the key uncached
+        request.accept(service);
+        context.getBean(CacheManager.class).getCache(cacheName).clear();
+
+        Histogram latencies = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3);
+        AtomicInteger errors = new AtomicInteger();
+        CountDownLatch ready = new CountDownLatch(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>(THREADS);
+        for (int i = 0; i < THREADS; i++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                ready.countDown();
+                try {
+                    start.await();
+                    long begin = System.nanoTime();
+                    request.accept(service);
+                    latencies.recordValue((System.nanoTime() - begin) / 1000);
+                } catch (Exception e) {
+                    errors.incrementAndGet();
+                }
+            }));
+        }
+        ready.await();
+        long statementsBefore = statistics.getPrepareStatementCount();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, errors.get(), "failed requests");
+        return new Herd(statistics.getPrepareStatementCount() - statementsBefore, latencies);
+    }
+
+    private record Herd(long statements, Histogram latencies) {
+
+        void print(boolean singleFlight, String key) {
+            System.out.printf("%-14s %-5s %11d %9.1f %9.1f %9.1f%n", singleFlight ? "on" : "off", key, statements,
+                    latencies.getValueAtPercentile(50) / 1000.0, latencies.getValueAtPercentile(99) / 1000.0,
+                    latencies.getMaxValue() / 1000.0);
+        }
+    }
+}
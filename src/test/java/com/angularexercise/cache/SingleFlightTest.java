@@ -0,0 +1,153 @@
+package com.angularexercise.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final SingleFlight<String, String> flights = new SingleFlight<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Test
+    void testConcurrentCallersShareOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<String> loader = () -> {
+            loads.incrementAndGet();
+            await(release);
+            return "Enterprise";
+        };
+
+        List<Future<String>> callers = new ArrayList<>();
+        callers.add(executor.submit(() -> flights.load("1", loader, TIMEOUT)));
+        waitUntil(() -> loads.get() == 1);
+        for (int i = 0; i < 10; i++) {
+            callers.add(executor.submit(() -> flights.load("1", loader, TIMEOUT)));
+        }
+        Thread.sleep(50);
+        release.countDown();
+
+        for (Future<String> caller : callers) {
+            assertEquals("Enterprise", caller.get());
+        }
+        assertEquals(1, loads.get());
+        assertEquals(0, flights.inFlight());
+    }
+
+    @Test
+    void testDifferentKeysLoadIndependently() {
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("1", flights.load("1", () -> String.valueOf(loads.incrementAndGet()), TIMEOUT));
+        assertEquals("2", flights.load("2", () -> String.valueOf(loads.incrementAndGet()), TIMEOUT));
+        // Finished loads are not cached
+        assertEquals("3", flights.load("1", () -> String.valueOf(loads.incrementAndGet()), TIMEOUT));
+    }
+
+    @Test
+    void testFailureReachesEveryWaiter() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<String> loader = () -> {
+            loads.incrementAndGet();
+            await(release);
+            throw new IllegalArgumentException("No such spaceship");
+        };
+
+        Future<String> leader = executor.submit(() -> flights.load("1", loader, TIMEOUT));
+        waitUntil(() -> loads.get() == 1);
+        Future<String> waiter = executor.submit(() -> flights.load("1", loader, TIMEOUT));
+        Thread.sleep(50);
+        release.countDown();
+
+        for (Future<String> caller : List.of(leader, waiter)) {
+            Exception e = assertThrows(Exception.class, caller::get);
+            assertInstanceOf(IllegalArgumentException.class, e.getCause());
+        }
+        assertEquals(1, loads.get());
+        assertEquals(0, flights.inFlight());
+    }
+
+    @Test
+    void testWaiterLoadsItselfAfterTimeout() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> leader = executor.submit(() -> flights.load("1", () -> {
+            await(release);
+            return "stuck";
+        }, TIMEOUT));
+        waitUntil(() -> flights.inFlight() == 1);
+
+        assertEquals("fresh", flights.load("1", () -> "fresh", Duration.ofMillis(20)));
+
+        release.countDown();
+        assertEquals("stuck", leader.get());
+    }
+
+    @Test
+    void testForgottenLoadIsNotJoined() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> leader = executor.submit(() -> flights.load("1", () -> {
+            await(release);
+            return "before write";
+        }, TIMEOUT));
+        waitUntil(() -> flights.inFlight() == 1);
+
+        flights.forgetAll();
+
+        assertEquals("after write", flights.load("1", () -> "after write", TIMEOUT));
+        release.countDown();
+        assertEquals("before write", leader.get());
+    }
+
+    @Test
+    void testOnlyMatchingLoadsAreForgotten() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> changed = executor.submit(() -> flights.load("1", () -> {
+            await(release);
+            return "before write";
+        }, TIMEOUT));
+        Future<String> unchanged = executor.submit(() -> flights.load("2", () -> {
+            await(release);
+            return "unchanged";
+        }, TIMEOUT));
+        waitUntil(() -> flights.inFlight() == 2);
+
+        flights.forgetIf("1"::equals);
+
+        // The load of "2" is still there to be joined
+        assertEquals(1, flights.inFlight());
+        assertEquals("after write", flights.load("1", () -> "after write", TIMEOUT));
+        release.countDown();
+        assertEquals("before write", changed.get());
+        assertEquals("unchanged", unchanged.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void waitUntil(Supplier<Boolean> condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (!condition.get()) {
+            assertTrue(System.nanoTime() < deadline, "condition not reached");
+            Thread.sleep(1);
+        }
+    }
+}
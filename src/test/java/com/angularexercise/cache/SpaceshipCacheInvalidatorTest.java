@@ -0,0 +1,295 @@
+package com.angularexercise.cache;
+
+import com.angularexercise.config.CacheConfig;
+import com.angularexercise.config.CacheProperties;
+import com.angularexercise.kafka.SpaceshipCacheInvalidationPublisher;
+import com.angularexercise.model.Spaceship;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SpaceshipCacheInvalidatorTest {
+
+    private static final String[] CLASSES = {"Enterprise", "Voyager", "Defiant", "Galaxy"};
+
+    private CacheManager cacheManager;
+    private SpaceshipCacheInvalidationPublisher publisher;
+    private SpaceshipCacheInvalidator invalidator;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new CacheConfig().cacheManager(properties(), null);
+        publisher = mock(SpaceshipCacheInvalidationPublisher.class);
+        invalidator = new SpaceshipCacheInvalidator(cacheManager, publisher);
+    }
+
+    private static CacheProperties properties() {
+        CacheProperties properties = new CacheProperties();
+        properties.getSpecs().put("spaceships", "maximumSize=10000");
+        properties.getSpecs().put("spaceship", "maximumSize=10000");
+        properties.setNearSpec("maximumSize=100");
+        return properties;
+    }
+
+    @Test
+    void testUpdateEvictsOnlyChangedId() {
+        Cache byId = cacheManager.getCache("spaceship");
+        byId.put(1L, new Spaceship(1L, "Enterprise", "NCC-1701"));
+        byId.put(2L, new Spaceship(2L, "Voyager", "NCC-74656"));
+
+        invalidator.invalidate(SpaceshipChange.updated(1L, "Enterprise", "Enterprise-A"));
+
+        assertNull(byId.get(1L));
+        assertNotNull(byId.get(2L));
+    }
+
+    @Test
+    void testFilteredCountsGoOnlyWhenMembershipChanges() {
+        Cache counts = cacheManager.getCache(CacheConfig.SPACESHIP_COUNTS_CACHE);
+        counts.put("enter", 3L);
+        counts.put("voy", 2L);
+        counts.put("def", 1L);
+
+        invalidator.invalidate(List.of(
+                SpaceshipChange.updated(1L, "Enterprise", "Enterprise-A"),
+                SpaceshipChange.created(7L, "Voyager II")));
+
+        assertNotNull(counts.get("enter"), "a rename within the filter keeps its total");
+        assertNull(counts.get("voy"));
+        assertNotNull(counts.get("def"));
+
+        invalidator.invalidate(SpaceshipChange.updated(3L, "Defiant", "Sao Paulo"));
+
+        assertNull(counts.get("def"));
+    }
+
+    @Test
+    void testListenersSeeLocalAndRemoteChanges() {
+        List<Object> seen = new ArrayList<>();
+        invalidator.addInvalidationListener(seen::add);
+        List<SpaceshipChange> local = List.of(SpaceshipChange.created(1L, "Enterprise"));
+        List<SpaceshipChange> remote = List.of(SpaceshipChange.deleted(2L, "Voyager"));
+
+        invalidator.invalidate(local);
+        invalidator.invalidateNear(remote);
+        invalidator.invalidateNear(null);
+
+        assertEquals(Arrays.asList(local, remote, null), seen);
+    }
+
+    @Test
+    void testPagesWithNonMatchingFilterSurviveWrites() {
+        Cache pages = cacheManager.getCache("spaceships");
+        SpaceshipPageKey voyagerKey = SpaceshipPageKey.of("voy", "name", "asc", PageRequest.of(0, 10));
+        SpaceshipPageKey enterpriseKey = SpaceshipPageKey.of("ENTER", "name", "asc", PageRequest.of(0, 10));
+        SpaceshipPageKey unfilteredKey = SpaceshipPageKey.of(null, "name", "asc", PageRequest.of(0, 10));
+        pages.put(voyagerKey, page(List.of(new Spaceship(2L, "Voyager", "NCC-74656"))));
+        pages.put(enterpriseKey, page(List.of(new Spaceship(1L, "Enterprise", "NCC-1701"))));
+        pages.put(unfilteredKey, page(List.of()));
+
+        invalidator.invalidate(SpaceshipChange.created(3L, "Enterprise-B"));
+
+        assertNotNull(pages.get(voyagerKey));
+        assertNull(pages.get(enterpriseKey));
+        assertNull(pages.get(unfilteredKey));
+    }
+
+    @Test
+    void testIdSortedPageWithoutUpdatedShipSurvivesUpdate() {
+        Cache pages = cacheManager.getCache("spaceships");
+        SpaceshipPageKey firstPage = SpaceshipPageKey.of(null, "id", "asc", PageRequest.of(0, 1));
+        SpaceshipPageKey secondPage = SpaceshipPageKey.of(null, "id", "asc", PageRequest.of(1, 1));
+        pages.put(firstPage, page(List.of(new Spaceship(1L, "Enterprise", "NCC-1701"))));
+        pages.put(secondPage, page(List.of(new Spaceship(2L, "Voyager", "NCC-74656"))));
+
+        invalidator.invalidate(SpaceshipChange.updated(2L, "Voyager", "Voyager-A"));
+
+        assertNotNull(pages.get(firstPage));
+        assertNull(pages.get(secondPage));
+    }
+
+    @Test
+    void testUpdateMovingShipOutOfFilterEvictsPage() {
+        SpaceshipPageKey key = SpaceshipPageKey.of("voy", "id", "asc", PageRequest.of(5, 10));
+
+        assertTrue(SpaceshipCacheInvalidator.affects(key, page(List.of()), SpaceshipChange.updated(2L, "Voyager", "Defiant")));
+        assertFalse(SpaceshipCacheInvalidator.affects(key, page(List.of()), SpaceshipChange.updated(2L, "Voyager", "Voyager-A")));
+    }
+
+    @Test
+    void testPageOfUnknownContentIsAffectedUnlessTheChangeMissesItsFilter() {
+        SpaceshipPageKey byId = SpaceshipPageKey.of("voy", "id", "asc", PageRequest.of(0, 10));
+        SpaceshipPageKey byName = SpaceshipPageKey.of("voy", "name", "asc", PageRequest.of(0, 10));
+
+        assertFalse(SpaceshipCacheInvalidator.mayAffect(byId, List.of(SpaceshipChange.updated(1L, "Enterprise", "Excelsior"))));
+        assertFalse(SpaceshipCacheInvalidator.mayAffect(byName, List.of(SpaceshipChange.created(1L, "Enterprise"))));
+        assertTrue(SpaceshipCacheInvalidator.mayAffect(byId, List.of(SpaceshipChange.updated(2L, "Voyager", "Voyager-A"))));
+        assertTrue(SpaceshipCacheInvalidator.mayAffect(byName, List.of(
+                SpaceshipChange.created(1L, "Enterprise"), SpaceshipChange.deleted(2L, "Voyager"))));
+    }
+
+    @Test
+    void testLocalChangesArePublishedToOtherNodes() {
+        SpaceshipChange change = SpaceshipChange.deleted(1L, "Enterprise");
+
+        invalidator.invalidate(change);
+
+        verify(publisher).publish(List.of(change));
+    }
+
+    @Test
+    void testLocalChangesEvictBothTiers() {
+        InMemorySharedCacheTier sharedTier = new InMemorySharedCacheTier();
+        cacheManager = new CacheConfig().cacheManager(properties(), sharedTier);
+        invalidator = new SpaceshipCacheInvalidator(cacheManager, publisher);
+        SpaceshipPageKey enterpriseKey = SpaceshipPageKey.of("enter", "name", "asc", PageRequest.of(0, 10));
+        SpaceshipPageKey voyagerKey = SpaceshipPageKey.of("voy", "name", "asc", PageRequest.of(0, 10));
+        Cache pages = cacheManager.getCache("spaceships");
+        pages.put(enterpriseKey, page(List.of(new Spaceship(1L, "Enterprise", "NCC-1701"))));
+        pages.put(voyagerKey, page(List.of(new Spaceship(2L, "Voyager", "NCC-74656"))));
+        cacheManager.getCache("spaceship").put(1L, new Spaceship(1L, "Enterprise", "NCC-1701"));
+
+        invalidator.invalidate(SpaceshipChange.updated(1L, "Enterprise", "Enterprise-A"));
+
+        assertNull(pages.get(enterpriseKey));
+        assertFalse(sharedTier.contains("spaceships", enterpriseKey));
+        assertFalse(sharedTier.contains("spaceship", 1L));
+        assertNotNull(pages.get(voyagerKey));
+        assertTrue(sharedTier.contains("spaceships", voyagerKey));
+    }
+
+    @Test
+    void testRemoteChangesEvictOnlyTheNearTier() {
+        InMemorySharedCacheTier sharedTier = new InMemorySharedCacheTier();
+        cacheManager = new CacheConfig().cacheManager(properties(), sharedTier);
+        invalidator = new SpaceshipCacheInvalidator(cacheManager, publisher);
+        SpaceshipPageKey enterpriseKey = SpaceshipPageKey.of("enter", "name", "asc", PageRequest.of(0, 10));
+        SpaceshipPageKey voyagerKey = SpaceshipPageKey.of("voy", "name", "asc", PageRequest.of(0, 10));
+        TwoTierCache pages = (TwoTierCache) cacheManager.getCache("spaceships");
+        pages.put(enterpriseKey, page(List.of(new Spaceship(1L, "Enterprise", "NCC-1701"))));
+        pages.put(voyagerKey, page(List.of(new Spaceship(2L, "Voyager", "NCC-74656"))));
+
+        invalidator.invalidateNear(List.of(SpaceshipChange.created(3L, "Enterprise-B")));
+
+        assertNull(pages.getNear().get(enterpriseKey));
+        assertNotNull(pages.getNear().get(voyagerKey));
+        assertTrue(sharedTier.contains("spaceships", enterpriseKey));
+        verifyNoInteractions(publisher);
+
+        invalidator.invalidateNear(null);
+
+        assertNull(pages.getNear().get(voyagerKey));
+        assertTrue(sharedTier.contains("spaceships", voyagerKey));
+    }
+
+    /**
+     * Mixed read/write simulation over an in-memory fleet. Reports the page-cache hit ratio with the
+     * previous allEntries eviction and with targeted invalidation, and checks that every hit served
+     * under targeted invalidation is identical to a fresh query.
+     */
+    @Test
+    void testHitRatioUnderMixedTrafficImprovesOverAllEntriesEviction() {
+        double allEntriesHitRatio = simulate(false);
+        setUp();
+        double targetedHitRatio = simulate(true);
+
+        System.out.printf("Page cache hit ratio under 90/10 read/write traffic: allEntries=%.3f, targeted=%.3f%n",
+                allEntriesHitRatio, targetedHitRatio);
+        assertTrue(targetedHitRatio > allEntriesHitRatio * 2,
+                "targeted=" + targetedHitRatio + " allEntries=" + allEntriesHitRatio);
+    }
+
+    private double simulate(boolean targeted) {
+        Random random = new Random(42);
+        Map<Long, Spaceship> fleet = new TreeMap<>();
+        long nextId = 1;
+        for (; nextId <= 500; nextId++) {
+            fleet.put(nextId, new Spaceship(nextId, CLASSES[(int) (nextId % CLASSES.length)] + nextId, "Model " + nextId));
+        }
+        String[] filters = {null, "enterprise", "voyager", "defiant", "galaxy", "enterprise1", "voyager2", "defiant3"};
+        String[] sorts = {"id", "name"};
+        Cache pages = cacheManager.getCache("spaceships");
+        int reads = 0;
+        int hits = 0;
+
+        for (int i = 0; i < 200_000; i++) {
+            if (random.nextInt(100) < 90) {
+                String filter = filters[random.nextInt(filters.length)];
+                String sort = sorts[random.nextInt(sorts.length)];
+                Pageable pageable = PageRequest.of(random.nextInt(5), 10);
+                SpaceshipPageKey key = SpaceshipPageKey.of(filter, sort, "asc", pageable);
+                Page<Spaceship> fresh = query(fleet, key, pageable);
+                Cache.ValueWrapper cached = pages.get(key);
+                reads++;
+                if (cached != null) {
+                    hits++;
+                    assertEquals(fresh, cached.get(), "stale page served for " + key);
+                } else {
+                    pages.put(key, fresh);
+                }
+                continue;
+            }
+
+            SpaceshipChange change;
+            int op = random.nextInt(10);
+            if (op == 0) {
+                Spaceship created = new Spaceship(nextId, CLASSES[random.nextInt(CLASSES.length)] + nextId, "New");
+                fleet.put(nextId++, created);
+                change = SpaceshipChange.created(created.getId(), created.getName());
+            } else if (op == 1 && fleet.size() > 1) {
+                Long id = (Long) fleet.keySet().toArray()[random.nextInt(fleet.size())];
+                Spaceship deleted = fleet.remove(id);
+                change = SpaceshipChange.deleted(id, deleted.getName());
+            } else {
+                Long id = (Long) fleet.keySet().toArray()[random.nextInt(fleet.size())];
+                Spaceship existing = fleet.get(id);
+                String newName = op == 2 ? CLASSES[random.nextInt(CLASSES.length)] + id : existing.getName();
+                fleet.put(id, new Spaceship(id, newName, "Refit " + i));
+                change = SpaceshipChange.updated(id, existing.getName(), newName);
+            }
+            if (targeted) {
+                invalidator.invalidate(change);
+            } else {
+                cacheManager.getCache("spaceship").clear();
+                pages.clear();
+            }
+        }
+        return (double) hits / reads;
+    }
+
+    private static Page<Spaceship> query(Map<Long, Spaceship> fleet, SpaceshipPageKey key, Pageable pageable) {
+        Comparator<Spaceship> order = key.isSortedById()
+                ? Comparator.comparing(Spaceship::getId)
+                : Comparator.comparing(Spaceship::getName).thenComparing(Spaceship::getId);
+        List<Spaceship> matching = new ArrayList<>();
+        for (Spaceship spaceship : fleet.values()) {
+            if (key.matches(spaceship.getName())) {
+                matching.add(new Spaceship(spaceship.getId(), spaceship.getName(), spaceship.getModel()));
+            }
+        }
+        matching.sort(order);
+        int from = Math.min((int) pageable.getOffset(), matching.size());
+        int to = Math.min(from + pageable.getPageSize(), matching.size());
+        return new PageImpl<>(matching.subList(from, to), pageable, matching.size());
+    }
+
+    private static Page<Spaceship> page(List<Spaceship> content) {
+        return new PageImpl<>(content, PageRequest.of(0, 10), content.size());
+    }
+}
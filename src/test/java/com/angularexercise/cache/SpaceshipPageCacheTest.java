@@ -0,0 +1,85 @@
+package com.angularexercise.cache;
+
+import com.angularexercise.model.Spaceship;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpaceshipPageCacheTest {
+
+    private final SpaceshipPageCache cache = SpaceshipPageCache.create("spaceships", Caffeine.newBuilder().maximumSize(1000));
+
+    @Test
+    void testEvictsTheAffectedPagesOfEveryFilterKey() {
+        SpaceshipPageKey enterprise = SpaceshipPageKey.of("enterp", "name", "asc", PageRequest.of(0, 10));
+        SpaceshipPageKey prise = SpaceshipPageKey.of("prise", "name", "asc", PageRequest.of(0, 10));
+        SpaceshipPageKey e = SpaceshipPageKey.of("e", "name", "asc", PageRequest.of(0, 10));
+        SpaceshipPageKey voyager = SpaceshipPageKey.of("voy", "name", "asc", PageRequest.of(0, 10));
+        SpaceshipPageKey unfiltered = SpaceshipPageKey.of(null, "name", "asc", PageRequest.of(0, 10));
+        SpaceshipPageKey unfilteredById = SpaceshipPageKey.of(null, "id", "asc", PageRequest.of(0, 10));
+        for (SpaceshipPageKey key : List.of(enterprise, prise, e, voyager, unfiltered)) {
+            cache.put(key, page(1L));
+        }
+        cache.put(unfilteredById, page(1L));
+
+        assertEquals(4, cache.evictAffected(List.of(SpaceshipChange.updated(2L, "Enterprise", "Enterprise-A"))));
+
+        assertNull(cache.get(enterprise));
+        assertNull(cache.get(prise));
+        assertNull(cache.get(e));
+        assertNull(cache.get(unfiltered));
+        assertNotNull(cache.get(voyager));
+        assertNotNull(cache.get(unfilteredById));
+    }
+
+    @Test
+    void testPageLoadedBeforeAnEvictionOfItsFilterIsNotCached() {
+        SpaceshipPageKey enterprise = SpaceshipPageKey.of("enter", "name", "asc", PageRequest.of(0, 10));
+        SpaceshipPageKey voyager = SpaceshipPageKey.of("voy", "name", "asc", PageRequest.of(0, 10));
+
+        assertNull(cache.get(enterprise));
+        // The write commits and evicts while the page is loaded
+        cache.evictAffected(List.of(SpaceshipChange.updated(1L, "Enterprise", "Enterprise-A")));
+        assertFalse(cache.putUnlessEvicted(enterprise, page(1L)));
+        assertNull(cache.get(voyager));
+        cache.evictAffected(List.of(SpaceshipChange.updated(1L, "Enterprise", "Enterprise-A")));
+        cache.put(voyager, page(2L));
+
+        assertNull(cache.get(enterprise));
+        assertNotNull(cache.get(voyager));
+        // Loaded after the eviction
+        cache.put(enterprise, page(1L));
+        assertNotNull(cache.get(enterprise));
+    }
+
+    @Test
+    void testPagesCachedAgainAfterAClearAreEvicted() {
+        SpaceshipPageKey enterprise = SpaceshipPageKey.of("enter", "name", "asc", PageRequest.of(0, 10));
+        cache.put(enterprise, page(1L));
+        cache.clear();
+        cache.put(enterprise, page(1L));
+        cache.evict(enterprise);
+        cache.put(enterprise, page(1L));
+
+        assertEquals(1, cache.evictAffected(List.of(SpaceshipChange.deleted(1L, "Enterprise"))));
+        assertNull(cache.get(enterprise));
+    }
+
+    @Test
+    void testGetWithLoaderIndexesTheLoadedPage() {
+        SpaceshipPageKey enterprise = SpaceshipPageKey.of("enter", "name", "asc", PageRequest.of(0, 10));
+
+        assertEquals(page(1L), cache.get(enterprise, () -> page(1L)));
+        assertEquals(1, cache.evictAffected(List.of(SpaceshipChange.deleted(1L, "Enterprise"))));
+    }
+
+    private static Page<Spaceship> page(Long id) {
+        return new PageImpl<>(List.of(new Spaceship(id, "Enterprise", "NCC-1701")), PageRequest.of(0, 10), 1);
+    }
+}
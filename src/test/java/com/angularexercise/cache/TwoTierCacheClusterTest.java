@@ -0,0 +1,210 @@
+package com.angularexercise.cache;
+
+import com.angularexercise.AngularExerciseApplication;
+import com.angularexercise.config.CacheConfig;
+import com.angularexercise.kafka.SpaceshipCacheInvalidationConsumer;
+import com.angularexercise.kafka.SpaceshipCacheInvalidationPublisher;
+import com.angularexercise.kafka.SpaceshipEventPublisher;
+import com.angularexercise.model.Spaceship;
+import com.angularexercise.service.SpaceshipService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.ContainerTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Several nodes in one JVM: separate application contexts on one H2 database, one embedded Kafka broker and
+ * one {@link InMemorySharedCacheTier}, each with its own near caches and invalidation consumer. The tests that
+ * measure staleness over many writes and hit rates as nodes are added are tagged {@code benchmark}, out of the
+ * default build: {@code mvn -Pbenchmark test -Dtest=TwoTierCacheClusterTest -Dcluster.nodes=5}.
+ */
+@EmbeddedKafka(partitions = 1, topics = {SpaceshipEventPublisher.TOPIC, SpaceshipCacheInvalidationPublisher.TOPIC})
+class TwoTierCacheClusterTest {
+
+    private static final int NODES = Integer.getInteger("cluster.nodes", 3);
+    private static final int PAGES = 30;
+    private static final int PASSES = 20;
+    // A lost invalidation is bounded by the near tier's expireAfterWrite (30s); a delivered one must be far quicker
+    private static final long STALENESS_BOUND_MS = 5000;
+
+    private final InMemorySharedCacheTier sharedTier = new InMemorySharedCacheTier();
+    private final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        nodes.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    void testWritesReachOtherNodes(EmbeddedKafkaBroker broker) throws Exception {
+        writeAndAwaitOtherNode(broker, 2);
+    }
+
+    @Test
+    @Tag("benchmark")
+    void testWritesReachOtherNodesWithinBoundedStaleness(EmbeddedKafkaBroker broker) throws Exception {
+        writeAndAwaitOtherNode(broker, 20);
+    }
+
+    /**
+     * Updates a spaceship {@code updates} times on one node, each time waiting until the other node reads the new
+     * name both by id and in a filtered page, and reports how long that took.
+     */
+    private void writeAndAwaitOtherNode(EmbeddedKafkaBroker broker, int updates) throws Exception {
+        ConfigurableApplicationContext writerNode = startNode(broker, "writer");
+        ConfigurableApplicationContext readerNode = startNode(broker, "reader");
+        SpaceshipService writer = writerNode.getBean(SpaceshipService.class);
+        SpaceshipService reader = readerNode.getBean(SpaceshipService.class);
+        Spaceship spaceship = writer.createSpaceship(new Spaceship("Staleness probe", "Probe"));
+
+        long[] lagMillis = new long[updates];
+        for (int i = 0; i < updates; i++) {
+            // Both nodes hold the current state in their near caches
+            String before = reader.getSpaceshipById(spaceship.getId()).getName();
+            assertEquals(before, writer.getSpaceshipById(spaceship.getId()).getName());
+            Page<Spaceship> filtered = reader.getAllSpaceships("staleness probe", "id", "asc", PageRequest.of(0, 10));
+            assertEquals(before, filtered.getContent().get(0).getName());
+
+            String after = "Staleness probe " + i;
+            writer.updateSpaceship(spaceship.getId(), new Spaceship(after, "Probe"));
+            long committed = System.nanoTime();
+            while (!after.equals(reader.getSpaceshipById(spaceship.getId()).getName())
+                    || !after.equals(reader.getAllSpaceships("staleness probe", "id", "asc", PageRequest.of(0, 10)).getContent().get(0).getName())) {
+                assertTrue(System.nanoTime() - committed < STALENESS_BOUND_MS * 1_000_000, "reader still stale after " + STALENESS_BOUND_MS + " ms");
+                Thread.sleep(1);
+            }
+            lagMillis[i] = (System.nanoTime() - committed) / 1_000_000;
+            // The writer evicted its own caches synchronously, before publishing
+            assertEquals(after, writer.getSpaceshipById(spaceship.getId()).getName());
+        }
+        Arrays.sort(lagMillis);
+        System.out.printf("Staleness on the other node after %d updates: median %d ms, max %d ms%n",
+                updates, lagMillis[updates / 2], lagMillis[updates - 1]);
+
+        MeterRegistry writerMeters = writerNode.getBean(MeterRegistry.class);
+        while (received(writerMeters, "ignored") < updates + 1) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, received(writerMeters, "applied"), "the writer must skip its own invalidations");
+        assertTrue(received(readerNode.getBean(MeterRegistry.class), "applied") >= updates);
+    }
+
+    /**
+     * Reads of {@value #PAGES} pages, spread over 1 to {@code cluster.nodes} nodes. Every page is
+     * loaded from the database once for the whole cluster, so the hit rate does not drop as nodes are added,
+     * whereas the near tiers alone, i.e. one cache per node, miss once per page and node.
+     */
+    @Test
+    @Tag("benchmark")
+    void testHitRateHoldsAsNodesAreAdded(EmbeddedKafkaBroker broker) {
+        for (int i = 0; i < NODES; i++) {
+            startNode(broker, "node-" + i);
+        }
+        nodes.get(0).getBean(JdbcTemplate.class).update("INSERT INTO spaceships (id, name, model, version)"
+                + " SELECT X, 'Cluster ship ' || X, 'Model ' || MOD(X, 97), 0 FROM SYSTEM_RANGE(1000001, 1000000 + ?)", PAGES * 20);
+
+        System.out.printf("%-6s %9s %14s %16s %9s%n", "nodes", "requests", "near hit rate", "overall hit rate", "DB loads");
+        for (int nodeCount = 1; nodeCount <= NODES; nodeCount++) {
+            nodes.forEach(node -> node.getBean(CacheManager.class).getCache(CacheConfig.SPACESHIPS_CACHE).clear());
+            long nearHitsBefore = nearHits();
+            long loadsBefore = sharedTier.misses();
+
+            int requests = PAGES * PASSES;
+            for (int i = 0; i < requests; i++) {
+                // Every pass sends each page to the next node, as a load balancer would spread them over time
+                nodes.get((i + i / PAGES) % nodeCount).getBean(SpaceshipService.class)
+                        .getAllSpaceships(null, "id", "desc", PageRequest.of(i % PAGES, 20));
+            }
+
+            long nearHits = nearHits() - nearHitsBefore;
+            long loads = sharedTier.misses() - loadsBefore;
+            System.out.printf("%-6d %9d %14.3f %16.3f %9d%n", nodeCount, requests, (double) nearHits / requests,
+                    1 - (double) loads / requests, loads);
+            assertEquals(PAGES, loads, nodeCount + " nodes");
+            assertEquals(requests - (long) PAGES * nodeCount, nearHits, nodeCount + " nodes");
+        }
+    }
+
+    /**
+     * The tier the nodes ship with: the database they share holds the entries, nothing is registered.
+     */
+    @Test
+    void testNodesShareTheDatabaseTier(EmbeddedKafkaBroker broker) throws Exception {
+        ConfigurableApplicationContext writerNode = startNode(broker, "jdbc-writer", false);
+        ConfigurableApplicationContext readerNode = startNode(broker, "jdbc-reader", false);
+        SpaceshipService writer = writerNode.getBean(SpaceshipService.class);
+        SpaceshipService reader = readerNode.getBean(SpaceshipService.class);
+        JdbcTemplate jdbcTemplate = writerNode.getBean(JdbcTemplate.class);
+        assertInstanceOf(JdbcSharedCacheTier.class,
+                ((TwoTierCache) readerNode.getBean(CacheManager.class).getCache(CacheConfig.SPACESHIP_CACHE)).getShared());
+        Spaceship spaceship = writer.createSpaceship(new Spaceship("Database tier probe", "Probe"));
+        writer.getSpaceshipById(spaceship.getId());
+
+        // Changed in the table, yet the reader finds the model it had: in the shared tier the writer filled
+        jdbcTemplate.update("UPDATE spaceships SET model = 'Changed behind the caches' WHERE id = ?", spaceship.getId());
+        assertEquals("Probe", reader.getSpaceshipById(spaceship.getId()).getModel());
+
+        writer.updateSpaceship(spaceship.getId(), new Spaceship("Database tier probe, renamed", "Probe"));
+        long committed = System.nanoTime();
+        while (!"Database tier probe, renamed".equals(reader.getSpaceshipById(spaceship.getId()).getName())) {
+            assertTrue(System.nanoTime() - committed < STALENESS_BOUND_MS * 1_000_000, "reader still stale after " + STALENESS_BOUND_MS + " ms");
+            Thread.sleep(1);
+        }
+    }
+
+    private ConfigurableApplicationContext startNode(EmbeddedKafkaBroker broker, String nodeId) {
+        return startNode(broker, nodeId, true);
+    }
+
+    private ConfigurableApplicationContext startNode(EmbeddedKafkaBroker broker, String nodeId, boolean inMemoryTier) {
+        ConfigurableApplicationContext node = new SpringApplicationBuilder(AngularExerciseApplication.class)
+                .initializers(context -> {
+                    if (inMemoryTier) {
+                        context.getBeanFactory().registerSingleton("sharedCacheTier", sharedTier);
+                    }
+                })
+                .run("--spring.main.web-application-type=none",
+                        "--spring.datasource.url=jdbc:h2:mem:cluster;DB_CLOSE_DELAY=-1",
+                        "--spring.kafka.bootstrap-servers=" + broker.getBrokersAsString(),
+                        "--app.kafka.topic.partitions=1",
+                        "--app.cache.node-id=" + nodeId,
+                        "--app.cache.shared.enabled=" + !inMemoryTier,
+                        "--logging.level.root=WARN");
+        nodes.add(node);
+        // The consumer starts at the end of the topic: anything published before it is assigned is not seen
+        ContainerTestUtils.waitForAssignment(node.getBean(KafkaListenerEndpointRegistry.class)
+                .getListenerContainer(SpaceshipCacheInvalidationConsumer.LISTENER_ID), 1);
+        return node;
+    }
+
+    private long nearHits() {
+        long hits = 0;
+        for (ConfigurableApplicationContext node : nodes) {
+            TwoTierCache pages = (TwoTierCache) node.getBean(CacheManager.class).getCache(CacheConfig.SPACESHIPS_CACHE);
+            CaffeineCache near = pages.getNear();
+            hits += near.getNativeCache().stats().hitCount();
+        }
+        return hits;
+    }
+
+    private static double received(MeterRegistry meterRegistry, String outcome) {
+        return meterRegistry.counter("spaceship.cache.invalidations.received", "outcome", outcome).count();
+    }
+}
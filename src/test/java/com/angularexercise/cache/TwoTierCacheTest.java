@@ -0,0 +1,86 @@
+package com.angularexercise.cache;
+
+import com.angularexercise.model.Spaceship;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TwoTierCacheTest {
+
+    private final InMemorySharedCacheTier sharedTier = new InMemorySharedCacheTier();
+
+    private TwoTierCache node() {
+        return new TwoTierCache(new CaffeineCache("spaceship", Caffeine.newBuilder().maximumSize(100).build(), false), sharedTier);
+    }
+
+    @Test
+    void testSharedHitIsCopiedToTheNearTier() {
+        TwoTierCache writer = node();
+        TwoTierCache reader = node();
+        Spaceship enterprise = new Spaceship(1L, "Enterprise", "NCC-1701");
+
+        writer.put(1L, enterprise);
+
+        assertNull(reader.getNear().get(1L));
+        assertSame(enterprise, reader.get(1L).get());
+        assertSame(enterprise, reader.getNear().get(1L).get());
+        assertEquals(1, sharedTier.hits());
+    }
+
+    @Test
+    void testLoaderRunsOnceAcrossNodes() {
+        TwoTierCache first = node();
+        TwoTierCache second = node();
+        AtomicInteger loads = new AtomicInteger();
+        Callable<Spaceship> loader = () -> {
+            loads.incrementAndGet();
+            return new Spaceship(1L, "Enterprise", "NCC-1701");
+        };
+
+        first.get(1L, loader);
+        Spaceship loaded = second.get(1L, loader);
+
+        assertEquals(1, loads.get());
+        assertEquals("Enterprise", loaded.getName());
+    }
+
+    @Test
+    void testEvictAndClearReachBothTiers() {
+        TwoTierCache cache = node();
+        cache.put(1L, new Spaceship(1L, "Enterprise", "NCC-1701"));
+        cache.put(2L, new Spaceship(2L, "Voyager", "NCC-74656"));
+
+        cache.evict(1L);
+
+        assertNull(cache.get(1L));
+        assertFalse(sharedTier.contains("spaceship", 1L));
+        assertTrue(sharedTier.contains("spaceship", 2L));
+
+        cache.clear();
+
+        assertNull(cache.getNear().get(2L));
+        assertFalse(sharedTier.contains("spaceship", 2L));
+    }
+
+    @Test
+    void testPageLoadedBeforeAnEvictionLeavesNeitherTier() {
+        SpaceshipPageCache near = SpaceshipPageCache.create("spaceships", Caffeine.newBuilder().maximumSize(100));
+        TwoTierCache pages = new TwoTierCache(near, sharedTier);
+        SpaceshipPageKey key = SpaceshipPageKey.of("enter", "name", "asc", PageRequest.of(0, 10));
+
+        assertNull(pages.get(key));
+        near.evictAffected(List.of(SpaceshipChange.created(1L, "Enterprise")));
+        pages.put(key, new PageImpl<>(List.of(new Spaceship(1L, "Enterprise", "NCC-1701"))));
+
+        assertNull(near.get(key));
+        assertFalse(sharedTier.contains("spaceships", key));
+    }
+}
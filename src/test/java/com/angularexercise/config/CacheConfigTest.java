@@ -0,0 +1,105 @@
+package com.angularexercise.config;
+
+import com.angularexercise.cache.JdbcSharedCacheTier;
+import com.angularexercise.cache.TwoTierCache;
+import com.angularexercise.model.Spaceship;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheConfigTest {
+
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        CacheProperties properties = new CacheProperties();
+        properties.getSpecs().put("spaceships", "maximumWeight=1000,expireAfterWrite=10m,expireAfterAccess=5m,recordStats");
+        properties.getSpecs().put("spaceship", "maximumSize=100,expireAfterWrite=30m,recordStats");
+        cacheManager = new CacheConfig().cacheManager(properties, null);
+    }
+
+    @Test
+    void testPageCacheStaysBoundedUnderMillionsOfDistinctKeys() {
+        Cache cache = cacheManager.getCache("spaceships");
+        List<Spaceship> content = List.of(new Spaceship(1L, "Enterprise", "NCC-1701"));
+
+        for (int i = 0; i < 2_000_000; i++) {
+            cache.put("name" + i + "-id-asc-0-10", new PageImpl<>(content, PageRequest.of(0, 10), 1));
+        }
+
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache = ((CaffeineCache) cache).getNativeCache();
+        nativeCache.cleanUp();
+        long weightedSize = nativeCache.policy().eviction().orElseThrow().weightedSize().orElseThrow();
+        assertTrue(weightedSize <= 1000, "weighted size should respect maximumWeight but was " + weightedSize);
+        assertTrue(nativeCache.stats().evictionCount() > 0);
+    }
+
+    @Test
+    void testSpaceshipCacheRecordsHitsAndMisses() {
+        Cache cache = cacheManager.getCache("spaceship");
+        cache.put(1L, new Spaceship(1L, "Enterprise", "NCC-1701"));
+
+        assertNotNull(cache.get(1L));
+        assertNull(cache.get(2L));
+
+        CacheStats stats = ((CaffeineCache) cache).getNativeCache().stats();
+        assertEquals(1, stats.hitCount());
+        assertEquals(1, stats.missCount());
+    }
+
+    @Test
+    void testUnconfiguredCacheUsesDefaultSpec() {
+        Cache cache = cacheManager.getCache("other");
+
+        assertNotNull(cache);
+        assertTrue(((CaffeineCache) cache).getNativeCache().policy().eviction().isPresent());
+    }
+
+    @Test
+    void testSharedTierIsTheDatabaseWhenEnabled() {
+        DataSourceProperties dataSourceProperties = new DataSourceProperties();
+        dataSourceProperties.setUrl("jdbc:h2:mem:cache-config-test");
+        ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+                .withBean(DataSourceProperties.class, () -> dataSourceProperties)
+                .withBean(ObjectMapper.class, () -> new JacksonConfig().objectMapper())
+                .withUserConfiguration(CacheConfig.class);
+
+        contextRunner.run(context -> assertInstanceOf(CaffeineCache.class, context.getBean(CacheManager.class).getCache("spaceship")));
+        contextRunner.withPropertyValues("app.cache.shared.enabled=true").run(context -> {
+            Cache cache = context.getBean(CacheManager.class).getCache("spaceship");
+            assertInstanceOf(JdbcSharedCacheTier.class, assertInstanceOf(TwoTierCache.class, cache).getShared());
+        });
+    }
+
+    @Test
+    void testSharedTierInADatabaseOfItsOwnIsMigrated() {
+        ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+                .withBean(DataSourceProperties.class, DataSourceProperties::new)
+                .withBean(ObjectMapper.class, () -> new JacksonConfig().objectMapper())
+                .withUserConfiguration(CacheConfig.class)
+                .withPropertyValues("app.cache.shared.enabled=true", "app.cache.shared.url=jdbc:h2:mem:shared-cache;DB_CLOSE_DELAY=-1",
+                        "app.cache.shared.username=sa");
+
+        contextRunner.run(context -> {
+            Cache cache = context.getBean(CacheManager.class).getCache("spaceship");
+            Spaceship spaceship = new Spaceship(1L, "Enterprise", "NCC-1701");
+            cache.put(1L, spaceship);
+            ((TwoTierCache) cache).getNear().clear();
+
+            assertEquals(spaceship, cache.get(1L, Spaceship.class));
+        });
+    }
+}
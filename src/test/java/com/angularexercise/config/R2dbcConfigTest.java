@@ -0,0 +1,48 @@
+package com.angularexercise.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class R2dbcConfigTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withUserConfiguration(DataSourcePropertiesConfig.class, R2dbcConfig.class);
+
+    @Test
+    void testH2DatasourceGetsTheReactiveApi() {
+        contextRunner.withPropertyValues("spring.datasource.url=jdbc:h2:mem:reactive")
+                .run(context -> {
+                    assertNull(context.getStartupFailure());
+                    assertEquals(1, context.getBeanNamesForType(DatabaseClient.class).length);
+                });
+    }
+
+    @Test
+    void testOtherDatasourceStartsWithoutTheReactiveApi() {
+        contextRunner.withPropertyValues("spring.datasource.url=jdbc:postgresql://localhost/spaceships")
+                .run(context -> {
+                    assertNull(context.getStartupFailure());
+                    assertEquals(0, context.getBeanNamesForType(DatabaseClient.class).length);
+                });
+    }
+
+    @Test
+    void testReactiveApiCanBeSwitchedOff() {
+        contextRunner.withPropertyValues("spring.datasource.url=jdbc:h2:mem:reactive", "app.reactive.enabled=false")
+                .run(context -> {
+                    assertNull(context.getStartupFailure());
+                    assertEquals(0, context.getBeanNamesForType(DatabaseClient.class).length);
+                });
+    }
+
+    @Configuration
+    @EnableConfigurationProperties(DataSourceProperties.class)
+    static class DataSourcePropertiesConfig {
+    }
+}
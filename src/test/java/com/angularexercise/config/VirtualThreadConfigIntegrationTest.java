@@ -0,0 +1,155 @@
+package com.angularexercise.config;
+
+import com.angularexercise.kafka.SpaceshipEventPublisher;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.apache.catalina.connector.Connector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"app.virtual-threads.enabled=true", "app.kafka.topic.partitions=1"})
+@EmbeddedKafka(partitions = 1, topics = SpaceshipEventPublisher.TOPIC, bootstrapServersProperty = "spring.kafka.bootstrap-servers")
+class VirtualThreadConfigIntegrationTest {
+
+    private static final int REQUESTS = 200;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ServletWebServerApplicationContext applicationContext;
+
+    @Autowired
+    @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    private AsyncTaskExecutor applicationTaskExecutor;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    @Autowired
+    private KafkaListenerEndpointRegistry listenerRegistry;
+
+    @Test
+    void testBlockingWorkRunsOnVirtualThreads() throws Exception {
+        Connector connector = ((TomcatWebServer) applicationContext.getWebServer()).getTomcat().getConnector();
+        assertTrue(runsOnVirtualThread(connector.getProtocolHandler().getExecutor()), "Tomcat request threads");
+        assertTrue(runsOnVirtualThread(applicationTaskExecutor), "applicationTaskExecutor");
+        assertTrue(runsOnVirtualThread(task -> taskScheduler.schedule(task, Instant.now())), "task scheduler");
+        for (var container : listenerRegistry.getListenerContainers()) {
+            AsyncTaskExecutor executor = ((ConcurrentMessageListenerContainer<?, ?>) container).getContainerProperties().getListenerTaskExecutor();
+            assertNotNull(executor, container.getListenerId());
+            assertTrue(runsOnVirtualThread(executor), container.getListenerId());
+        }
+    }
+
+    /**
+     * Records {@code jdk.VirtualThreadPinned} while requests of every kind run concurrently. A virtual thread
+     * that blocks inside a {@code synchronized} block of this application would hold on to its carrier thread.
+     */
+    @Test
+    void testRequestPathDoesNotPinCarrierThreads() throws Exception {
+        List<RecordedEvent> pinned = new ArrayList<>();
+        try (RecordingStream recording = new RecordingStream();
+             ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.onEvent("jdk.VirtualThreadPinned", event -> {
+                synchronized (pinned) {
+                    pinned.add(event);
+                }
+            });
+            recording.startAsync();
+            // Control: pins on purpose, so a broken recording cannot pass as "no pinning"
+            Thread.ofVirtual().start(VirtualThreadConfigIntegrationTest::pinCarrier).join();
+
+            // HTTP/1.1 only; HTTP/2 streams pin inside Tomcat (see VirtualThreadConfig)
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(clients).build();
+            List<Future<Integer>> statuses = new ArrayList<>();
+            for (int i = 0; i < REQUESTS; i++) {
+                HttpRequest request = request(i);
+                statuses.add(clients.submit(() -> client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode()));
+            }
+            for (Future<Integer> status : statuses) {
+                assertTrue(status.get(60, TimeUnit.SECONDS) < 300);
+            }
+            // Events are delivered in chunks; stop() flushes the last one
+            recording.stop();
+        }
+
+        List<String> applicationFrames = new ArrayList<>();
+        synchronized (pinned) {
+            for (RecordedEvent event : pinned) {
+                for (RecordedFrame frame : event.getStackTrace().getFrames()) {
+                    String type = frame.getMethod().getType().getName();
+                    if (type.equals(VirtualThreadConfigIntegrationTest.class.getName())) {
+                        break;
+                    }
+                    if (type.startsWith("com.angularexercise.")) {
+                        applicationFrames.add(type + "." + frame.getMethod().getName() + ":" + frame.getLineNumber());
+                        break;
+                    }
+                }
+            }
+            System.out.printf("Pinned virtual threads during %d requests: %d including the control, %d in application code%n",
+                    REQUESTS, pinned.size(), applicationFrames.size());
+        }
+        assertFalse(pinned.isEmpty(), "the control pin was not recorded");
+        assertEquals(List.of(), applicationFrames);
+    }
+
+    private static synchronized void pinCarrier() {
+        try {
+            Thread.sleep(20);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private HttpRequest request(int i) {
+        String root = "http://localhost:" + port + "/api/spaceships";
+        return switch (i % 5) {
+            case 0 -> HttpRequest.newBuilder(URI.create(root + "/create"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"name\":\"Virtual " + i + "\",\"model\":\"Loom Class\"}")).build();
+            case 1 -> HttpRequest.newBuilder(URI.create(root + "?page=" + (i % 3) + "&size=20&name=virtual")).build();
+            case 2 -> HttpRequest.newBuilder(URI.create(root + "/scroll?size=20&sort=name")).build();
+            case 3 -> HttpRequest.newBuilder(URI.create(root + "/all?format=ndjson")).build();
+            default -> HttpRequest.newBuilder(URI.create(root + "/1")).build();
+        };
+    }
+
+    private static boolean runsOnVirtualThread(Executor executor) throws Exception {
+        CompletableFuture<Boolean> virtual = new CompletableFuture<>();
+        executor.execute(() -> virtual.complete(Thread.currentThread().isVirtual()));
+        return virtual.get(10, TimeUnit.SECONDS);
+    }
+}
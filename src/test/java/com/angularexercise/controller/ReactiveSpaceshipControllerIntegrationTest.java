@@ -0,0 +1,149 @@
+package com.angularexercise.controller;
+
+import com.angularexercise.model.Spaceship;
+import com.angularexercise.repository.ReactiveSpaceshipRepository;
+import com.angularexercise.repository.SpaceshipRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ReactiveSpaceshipControllerIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private SpaceshipRepository spaceshipRepository;
+
+    @Autowired
+    private ReactiveSpaceshipRepository reactiveRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private String mvcUrl() {
+        return "http://localhost:" + port + "/api/spaceships";
+    }
+
+    private String reactiveUrl() {
+        return "http://localhost:" + port + "/api/reactive/spaceships";
+    }
+
+    @Test
+    void testReactiveCreateIsVisibleToTheMvcApi() {
+        ResponseEntity<Spaceship> created = restTemplate.postForEntity(reactiveUrl() + "/create",
+                new Spaceship("Reactive Pioneer", "Flux Class"), Spaceship.class);
+        assertThat(created.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        Long id = created.getBody().getId();
+        assertThat(created.getBody().getVersion()).isZero();
+
+        Spaceship read = restTemplate.getForObject(mvcUrl() + "/" + id, Spaceship.class);
+        assertThat(read.getName()).isEqualTo("Reactive Pioneer");
+        // Found through the trigram index, so the reactive insert wrote the trigram rows too
+        assertThat(spaceshipRepository.findByNameContainingIgnoreCase("pioneer", Pageable.unpaged())
+                .map(Spaceship::getId).getContent()).containsExactly(id);
+        assertThat(jdbcTemplate.queryForObject("SELECT version FROM spaceships WHERE id = ?", Long.class, id)).isZero();
+    }
+
+    @Test
+    void testReactiveDeleteEvictsTheMvcCache() {
+        Spaceship saved = spaceshipRepository.save(new Spaceship("Reactive Doomed", "Mono Class"));
+        assertThat(restTemplate.getForEntity(mvcUrl() + "/" + saved.getId(), Spaceship.class).getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        ResponseEntity<Void> deleted = restTemplate.exchange(reactiveUrl() + "/" + saved.getId(), HttpMethod.DELETE, null, Void.class);
+        assertThat(deleted.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+
+        assertThat(restTemplate.getForEntity(mvcUrl() + "/" + saved.getId(), String.class).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM spaceship_name_trigrams WHERE spaceship_id = ?",
+                Long.class, saved.getId())).isZero();
+    }
+
+    @Test
+    void testMissingSpaceshipAndUnsupportedSort() {
+        assertThat(restTemplate.getForEntity(reactiveUrl() + "/987654321", String.class).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(restTemplate.exchange(reactiveUrl() + "/987654321", HttpMethod.DELETE, null, String.class).getStatusCode())
+                .isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(restTemplate.getForEntity(reactiveUrl() + "?sort=version", String.class).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void testPagesMatchTheMvcApi() throws Exception {
+        spaceshipRepository.saveAll(IntStream.range(0, 30)
+                .mapToObj(i -> new Spaceship("Parallel " + (i * 7 % 30), i % 4 == 0 ? null : "Model " + (i % 3)))
+                .toList());
+
+        for (String query : List.of("?name=parallel&sort=name&size=7&page=1", "?name=PARALLEL 1&sort=id&direction=desc&size=5",
+                "?name=el&sort=name&size=10&page=2", "?name=parallel&sort=model&size=30")) {
+            JsonNode mvc = objectMapper.readTree(restTemplate.getForObject(mvcUrl() + query, String.class));
+            JsonNode reactive = objectMapper.readTree(restTemplate.getForObject(reactiveUrl() + query, String.class));
+
+            assertThat(reactive.get("totalElements")).as(query).isEqualTo(mvc.get("totalElements"));
+            assertThat(reactive.get("totalPages")).as(query).isEqualTo(mvc.get("totalPages"));
+            assertThat(names(reactive)).as(query).isEqualTo(names(mvc));
+        }
+    }
+
+    @Test
+    void testStreamsEverySpaceshipAsNdjsonInIdOrder() throws Exception {
+        spaceshipRepository.saveAll(IntStream.range(0, 50).mapToObj(i -> new Spaceship("Streamed " + i, "Stream Class")).toList());
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(List.of(MediaType.APPLICATION_NDJSON));
+        ResponseEntity<String> response = restTemplate.exchange(reactiveUrl() + "/stream", HttpMethod.GET,
+                new HttpEntity<>(headers), String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getContentType().isCompatibleWith(MediaType.APPLICATION_NDJSON)).isTrue();
+        List<Long> ids = new ArrayList<>();
+        for (String line : response.getBody().split("\n")) {
+            ids.add(objectMapper.readValue(line, Spaceship.class).getId());
+        }
+        assertThat(ids).hasSize((int) spaceshipRepository.count()).isSorted();
+    }
+
+    @Test
+    void testStreamEmitsOnlyWhatIsRequested() {
+        spaceshipRepository.saveAll(IntStream.range(0, 10).mapToObj(i -> new Spaceship("Demand " + i, null)).toList());
+
+        StepVerifier.create(reactiveRepository.streamAll(), 1)
+                .expectNextCount(1)
+                .expectNoEvent(Duration.ofMillis(100))
+                .thenRequest(3)
+                .expectNextCount(3)
+                .thenCancel()
+                .verify();
+    }
+
+    private static List<String> names(JsonNode page) {
+        List<String> names = new ArrayList<>();
+        page.get("content").forEach(spaceship -> names.add(spaceship.get("name").asText()));
+        return names;
+    }
+}
@@ -0,0 +1,168 @@
+package com.angularexercise.controller;
+
+import com.angularexercise.model.Spaceship;
+import com.angularexercise.service.SpaceshipService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class SpaceshipConditionalGetIntegrationTest {
+
+    private static final int POLLS = Integer.getInteger("poll.requests", 500);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private SpaceshipService spaceshipService;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void testSpaceshipIsNotSentAgainUntilItChanges() throws Exception {
+        Spaceship spaceship = spaceshipService.createSpaceship(new Spaceship("Conditional Detail", "Etag Class"));
+        String url = getRootUrl() + "/" + spaceship.getId();
+
+        HttpResponse<String> first = get(url, null);
+        assertEquals(200, first.statusCode());
+        assertEquals("\"" + spaceship.getId() + "-0\"", etag(first));
+        assertEquals("no-cache", first.headers().firstValue("Cache-Control").orElseThrow());
+
+        HttpResponse<String> revalidated = get(url, etag(first));
+        assertEquals(304, revalidated.statusCode());
+        assertEquals("", revalidated.body());
+        assertEquals(etag(first), etag(revalidated));
+
+        spaceshipService.updateSpaceship(spaceship.getId(), new Spaceship("Conditional Detail-A", "Etag Class"));
+        HttpResponse<String> changed = get(url, etag(first));
+        assertEquals(200, changed.statusCode());
+        assertEquals("\"" + spaceship.getId() + "-1\"", etag(changed));
+        assertTrue(changed.body().contains("Conditional Detail-A"));
+    }
+
+    @Test
+    void testPageIsNotSentAgainUntilItChanges() throws Exception {
+        spaceshipService.createSpaceship(new Spaceship("Conditional Page 1", "Etag Class"));
+        String url = getRootUrl() + "?name=conditional%20page&size=5";
+
+        HttpResponse<String> first = get(url, null);
+        assertEquals(200, first.statusCode());
+        assertEquals(304, get(url, etag(first)).statusCode());
+
+        spaceshipService.createSpaceship(new Spaceship("Conditional Page 2", "Etag Class"));
+        HttpResponse<String> changed = get(url, etag(first));
+        assertEquals(200, changed.statusCode());
+        assertNotEquals(etag(first), etag(changed));
+        assertTrue(changed.body().contains("Conditional Page 2"));
+    }
+
+    @Test
+    void testStaleUpdatesAreRejected() throws Exception {
+        Spaceship spaceship = spaceshipService.createSpaceship(new Spaceship("Conditional Update", "Etag Class"));
+        String url = getRootUrl() + "/" + spaceship.getId();
+        String loaded = etag(get(url, null));
+
+        assertEquals(200, put(url, "{\"name\":\"Conditional Update-A\",\"model\":\"Etag Class\"}", loaded).statusCode());
+        // Both writers loaded version 0; the second one is told so instead of overwriting the first
+        assertEquals(412, put(url, "{\"name\":\"Conditional Update-B\",\"model\":\"Etag Class\"}", loaded).statusCode());
+        assertEquals(409, put(url, "{\"name\":\"Conditional Update-B\",\"model\":\"Etag Class\",\"version\":0}", null).statusCode());
+        assertEquals(200, put(url, "{\"name\":\"Conditional Update-B\",\"model\":\"Etag Class\"}", "*").statusCode());
+
+        assertEquals("Conditional Update-B", spaceshipService.getSpaceshipById(spaceship.getId()).getName());
+    }
+
+    /**
+     * A client polling an unchanged page, once with plain GETs and once revalidating with {@code If-None-Match}.
+     * Prints the bytes received and the CPU time of Tomcat's request threads for both.
+     */
+    @Test
+    void testPollingWithIfNoneMatchSavesBandwidthAndCpu() throws Exception {
+        spaceshipService.createSpaceships(IntStream.range(0, 50)
+                .mapToObj(i -> new Spaceship("Conditional Poll " + i, "Polling Class " + i))
+                .collect(Collectors.toList()));
+        String url = getRootUrl() + "?name=conditional%20poll&size=50";
+        String etag = etag(get(url, null));
+        // Warm up both paths
+        poll(url, null, POLLS / 4);
+        poll(url, etag, POLLS / 4);
+
+        long[] unconditional = poll(url, null, POLLS);
+        long[] conditional = poll(url, etag, POLLS);
+
+        System.out.printf("%d polls of a 50-spaceship page: unconditional %d bytes, %.1f ms request-thread CPU;"
+                        + " If-None-Match %d bytes, %.1f ms request-thread CPU%n",
+                POLLS, unconditional[0], unconditional[1] / 1e6, conditional[0], conditional[1] / 1e6);
+        assertEquals(0, conditional[0]);
+        assertTrue(unconditional[0] > 0);
+    }
+
+    /**
+     * @return Body bytes received, and CPU nanoseconds spent by the server's request threads meanwhile.
+     */
+    private long[] poll(String url, String etag, int polls) throws Exception {
+        long cpuBefore = requestThreadCpuNanos();
+        long bytes = 0;
+        int expectedStatus = etag == null ? 200 : 304;
+        for (int i = 0; i < polls; i++) {
+            HttpResponse<byte[]> response = client.send(request(url, etag).build(), HttpResponse.BodyHandlers.ofByteArray());
+            assertEquals(expectedStatus, response.statusCode());
+            bytes += response.body().length;
+        }
+        return new long[]{bytes, requestThreadCpuNanos() - cpuBefore};
+    }
+
+    private static long requestThreadCpuNanos() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long total = 0;
+        for (ThreadInfo info : threads.getThreadInfo(threads.getAllThreadIds())) {
+            if (info != null && info.getThreadName().startsWith("http-nio-")) {
+                total += Math.max(0, threads.getThreadCpuTime(info.getThreadId()));
+            }
+        }
+        return total;
+    }
+
+    private HttpResponse<String> get(String url, String etag) throws Exception {
+        return client.send(request(url, etag).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> put(String url, String body, String ifMatch) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(body));
+        if (ifMatch != null) {
+            request.header("If-Match", ifMatch);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static HttpRequest.Builder request(String url, String etag) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url));
+        if (etag != null) {
+            request.header("If-None-Match", etag);
+        }
+        return request;
+    }
+
+    private static String etag(HttpResponse<?> response) {
+        return response.headers().firstValue("ETag").orElseThrow();
+    }
+
+    private String getRootUrl() {
+        return "http://localhost:" + port + "/api/spaceships";
+    }
+}
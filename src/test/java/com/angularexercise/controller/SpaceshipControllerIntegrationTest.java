@@ -14,6 +14,9 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.jdbc.Sql;
 
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -83,6 +86,24 @@ public class SpaceshipControllerIntegrationTest {
         assertThat(updatedSpaceship.getName()).isEqualTo("Updated Spaceship");
     }
 
+    /**
+     * Writes only store their events in the outbox. Run on its own, this test has no broker at all, and a
+     * create must still not wait for the producer to give up (max.block.ms, 2 seconds).
+     */
+    @Test
+    public void testWritesDoNotWaitForTheBroker() {
+        long slowestMillis = 0;
+        for (int i = 0; i < 20; i++) {
+            long start = System.nanoTime();
+            ResponseEntity<Spaceship> response = restTemplate.postForEntity(getRootUrl() + "/create",
+                    new Spaceship("Offline " + i, "Offline Model"), Spaceship.class);
+            slowestMillis = Math.max(slowestMillis, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        }
+
+        assertThat(slowestMillis).isLessThan(1000);
+    }
+
     @Test
     public void testDeleteSpaceship() {
         Spaceship spaceship = new Spaceship();
@@ -118,6 +139,39 @@ public class SpaceshipControllerIntegrationTest {
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
     }
 
+    @Test
+    public void testGetAllSpaceshipsWithoutTotal() {
+        spaceshipRepository.save(new Spaceship("Spaceship 1", "Model 1"));
+        spaceshipRepository.save(new Spaceship("Spaceship 2", "Model 2"));
+
+        ResponseEntity<String> response = restTemplate.getForEntity(getRootUrl() + "?page=0&size=1&withTotal=false", String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).doesNotContain("totalElements").doesNotContain("totalPages");
+        assertThat(response.getBody()).contains("\"numberOfElements\":1").contains("\"last\":false");
+    }
+
+    @Test
+    public void testTotalFollowsCreationsAndDeletions() {
+        Spaceship[] created = new Spaceship[3];
+        for (int i = 0; i < created.length; i++) {
+            created[i] = restTemplate.postForEntity(getRootUrl() + "/create", new Spaceship("Counted " + i, "Model"), Spaceship.class).getBody();
+        }
+        long before = totalElements();
+
+        restTemplate.postForEntity(getRootUrl() + "/create", new Spaceship("Counted 3", "Model"), Spaceship.class);
+        assertThat(totalElements()).isEqualTo(before + 1);
+
+        restTemplate.delete(getRootUrl() + "/" + created[0].getId());
+        restTemplate.delete(getRootUrl() + "/" + created[1].getId());
+        assertThat(totalElements()).isEqualTo(before - 1);
+    }
+
+    private long totalElements() {
+        // Not the last page, whose total is where it ends: this one takes it from the counter
+        ResponseEntity<Map> response = restTemplate.getForEntity(getRootUrl() + "?page=0&size=1", Map.class);
+        return ((Number) response.getBody().get("totalElements")).longValue();
+    }
+
     @Test
     public void testGetAllSpaceshipsPagination() {
         Spaceship spaceship1 = new Spaceship();
@@ -132,10 +186,10 @@ public class SpaceshipControllerIntegrationTest {
 
         ResponseEntity<String> response = restTemplate.getForEntity(getRootUrl() + "?page=0&size=1", String.class);
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
-        assertThat(response.getBody()).contains("\"totalElements\" : 2");
-        assertThat(response.getBody()).contains("\"totalPages\" : 2");
-        assertThat(response.getBody()).contains("\"size\" : 1");
-        assertThat(response.getBody()).contains("\"number\" : 0");
+        assertThat(response.getBody()).contains("\"totalElements\":2");
+        assertThat(response.getBody()).contains("\"totalPages\":2");
+        assertThat(response.getBody()).contains("\"size\":1");
+        assertThat(response.getBody()).contains("\"number\":0");
     }
 
     @Test
@@ -156,4 +210,16 @@ public class SpaceshipControllerIntegrationTest {
         assertThat(response.getBody().indexOf("A Spaceship")).isLessThan(response.getBody().indexOf("B Spaceship"));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testResponsesAreCompactUnlessPrettyPrintingIsRequested() {
+        Spaceship spaceship = spaceshipRepository.save(new Spaceship("Compact Spaceship", "Compact Model"));
+
+        String compact = restTemplate.getForObject(getRootUrl() + "/" + spaceship.getId(), String.class);
+        assertThat(compact).isEqualTo("{\"id\":" + spaceship.getId() + ",\"name\":\"Compact Spaceship\",\"model\":\"Compact Model\",\"version\":0}");
+
+        String pretty = restTemplate.getForObject(getRootUrl() + "?pretty=true", String.class);
+        assertThat(pretty).contains("\"totalElements\" : 1").contains(System.lineSeparator());
+        assertThat(pretty).doesNotContain("pageable");
+    }
+
+}
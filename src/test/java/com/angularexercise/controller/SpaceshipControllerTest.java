@@ -1,19 +1,29 @@
 package com.angularexercise.controller;
 
 import com.angularexercise.model.Spaceship;
+import com.angularexercise.model.SpaceshipPage;
+import com.angularexercise.model.SpaceshipSlice;
 import com.angularexercise.service.SpaceshipService;
 import com.angularexercise.exception.ResourceNotFoundException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.*;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -23,6 +33,9 @@ class SpaceshipControllerTest {
     @Mock
     private SpaceshipService spaceshipService;
 
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     @InjectMocks
     private SpaceshipController spaceshipController;
 
@@ -42,10 +55,10 @@ class SpaceshipControllerTest {
 
         when(spaceshipService.getAllSpaceships(null, "id", "asc", pageable)).thenReturn(page);
 
-        Page<Spaceship> result = spaceshipController.getAllSpaceships(null, "id", "asc", pageable);
+        SpaceshipPage result = spaceshipController.getAllSpaceships(null, "id", "asc", true, pageable).getBody();
 
-        assertEquals(2, result.getTotalElements());
-        assertEquals(2, result.getContent().size());
+        assertEquals(2, result.totalElements());
+        assertEquals(2, result.content().size());
         verify(spaceshipService, times(1)).getAllSpaceships(null, "id", "asc", pageable);
     }
 
@@ -60,15 +73,49 @@ class SpaceshipControllerTest {
 
         when(spaceshipService.getAllSpaceships(null, "name", "desc", pageable)).thenReturn(page);
 
-        Page<Spaceship> result = spaceshipController.getAllSpaceships(null, "name", "desc", pageable);
+        SpaceshipPage result = spaceshipController.getAllSpaceships(null, "name", "desc", true, pageable).getBody();
 
-        assertEquals(2, result.getTotalElements());
-        assertEquals(2, result.getContent().size());
-        assertEquals("Voyager", result.getContent().get(0).getName());
-        assertEquals("Enterprise", result.getContent().get(1).getName());
+        assertEquals(2, result.totalElements());
+        assertEquals(2, result.content().size());
+        assertEquals("Voyager", result.content().get(0).getName());
+        assertEquals("Enterprise", result.content().get(1).getName());
         verify(spaceshipService, times(1)).getAllSpaceships(null, "name", "desc", pageable);
     }
 
+    @Test
+    void testGetAllSpaceshipsWithoutTotal() {
+        Pageable pageable = PageRequest.of(0, 1);
+        Slice<Spaceship> slice = new SliceImpl<>(List.of(new Spaceship(1L, "Enterprise", "NCC-1701")), pageable, true);
+
+        when(spaceshipService.getSpaceshipSlice(null, "id", "asc", pageable)).thenReturn(slice);
+
+        SpaceshipPage result = spaceshipController.getAllSpaceships(null, "id", "asc", false, pageable).getBody();
+
+        assertNull(result.totalElements());
+        assertNull(result.totalPages());
+        assertFalse(result.last());
+        assertEquals(1, result.content().size());
+        verify(spaceshipService, never()).getAllSpaceships(any(), any(), any(), any());
+    }
+
+    @Test
+    void testScrollSpaceships() {
+        SpaceshipSlice slice = new SpaceshipSlice(List.of(new Spaceship(1L, "Enterprise", "NCC-1701")), 1, 1, true, "token");
+
+        when(spaceshipService.scrollSpaceships(null, "id", "asc", 1, null)).thenReturn(slice);
+
+        SpaceshipSlice result = spaceshipController.scrollSpaceships(null, "id", "asc", 1, null);
+
+        assertEquals(slice, result);
+        verify(spaceshipService, times(1)).scrollSpaceships(null, "id", "asc", 1, null);
+    }
+
+    @Test
+    void testScrollSpaceshipsRejectsInvalidSize() {
+        assertThrows(IllegalArgumentException.class, () -> spaceshipController.scrollSpaceships(null, "id", "asc", 0, null));
+        verifyNoInteractions(spaceshipService);
+    }
+
     @Test
     void testGetSpaceshipById() {
         Long id = 1L;
@@ -116,9 +163,9 @@ class SpaceshipControllerTest {
         Spaceship spaceship = new Spaceship(id, "Enterprise-A", "NCC-1701-A");
         Spaceship updatedSpaceship = new Spaceship(id, "Enterprise-A", "NCC-1701-A");
 
-        when(spaceshipService.updateSpaceship(id, spaceship)).thenReturn(updatedSpaceship);
+        when(spaceshipService.updateSpaceship(id, spaceship, null)).thenReturn(updatedSpaceship);
 
-        ResponseEntity<Spaceship> response = spaceshipController.updateSpaceship(id, spaceship);
+        ResponseEntity<Spaceship> response = spaceshipController.updateSpaceship(id, spaceship, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
@@ -132,9 +179,62 @@ class SpaceshipControllerTest {
         Long id = 1L;
         Spaceship spaceship = new Spaceship(id, "Enterprise-A", "NCC-1701-A");
 
-        when(spaceshipService.updateSpaceship(id, spaceship)).thenThrow(new ResourceNotFoundException("Spaceship not found"));
+        when(spaceshipService.updateSpaceship(id, spaceship, null)).thenThrow(new ResourceNotFoundException("Spaceship not found"));
+
+        assertThrows(ResourceNotFoundException.class, () -> spaceshipController.updateSpaceship(id, spaceship, null));
+    }
+
+    @Test
+    void testGetSpaceshipByIdIsTaggedWithItsVersion() {
+        Spaceship spaceship = new Spaceship(1L, "Enterprise", "NCC-1701");
+        spaceship.setVersion(3L);
+
+        when(spaceshipService.getSpaceshipById(1L)).thenReturn(spaceship);
+
+        ResponseEntity<Spaceship> response = spaceshipController.getSpaceshipById(1L);
+
+        assertEquals("\"1-3\"", response.getHeaders().getETag());
+        assertEquals("no-cache", response.getHeaders().getCacheControl());
+    }
+
+    @Test
+    void testPageETagChangesWithContent() {
+        Pageable pageable = PageRequest.of(0, 10);
+        Spaceship enterprise = new Spaceship(1L, "Enterprise", "NCC-1701");
+        enterprise.setVersion(0L);
+        Page<Spaceship> page = new PageImpl<>(List.of(enterprise), pageable, 1);
+
+        when(spaceshipService.getAllSpaceships(null, "id", "asc", pageable)).thenReturn(page);
+        String before = spaceshipController.getAllSpaceships(null, "id", "asc", true, pageable).getHeaders().getETag();
+        assertEquals(before, spaceshipController.getAllSpaceships(null, "id", "asc", true, pageable).getHeaders().getETag());
+
+        enterprise.setVersion(1L);
+        assertNotEquals(before, spaceshipController.getAllSpaceships(null, "id", "asc", true, pageable).getHeaders().getETag());
+    }
+
+    @Test
+    void testUpdateSpaceshipTakesTheExpectedVersionFromIfMatch() {
+        Long id = 1L;
+        Spaceship spaceship = new Spaceship(id, "Enterprise-A", "NCC-1701-A");
+        spaceship.setVersion(7L);
+        Spaceship updatedSpaceship = new Spaceship(id, "Enterprise-A", "NCC-1701-A");
+        updatedSpaceship.setVersion(5L);
+
+        when(spaceshipService.updateSpaceship(id, spaceship, 4L)).thenReturn(updatedSpaceship);
+
+        ResponseEntity<Spaceship> response = spaceshipController.updateSpaceship(id, spaceship, "\"1-4\"");
 
-        assertThrows(ResourceNotFoundException.class, () -> spaceshipController.updateSpaceship(id, spaceship));
+        assertEquals("\"1-5\"", response.getHeaders().getETag());
+        verify(spaceshipService, times(1)).updateSpaceship(id, spaceship, 4L);
+    }
+
+    @Test
+    void testUpdateSpaceshipRejectsIfMatchOfAnotherSpaceship() {
+        Spaceship spaceship = new Spaceship(1L, "Enterprise-A", "NCC-1701-A");
+
+        assertThrows(OptimisticLockingFailureException.class, () -> spaceshipController.updateSpaceship(1L, spaceship, "\"2-4\""));
+        assertThrows(OptimisticLockingFailureException.class, () -> spaceshipController.updateSpaceship(1L, spaceship, "W/\"1-4\""));
+        verifyNoInteractions(spaceshipService);
     }
 
     @Test
@@ -157,4 +257,109 @@ class SpaceshipControllerTest {
 
         assertThrows(ResourceNotFoundException.class, () -> spaceshipController.deleteSpaceship(id));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testCreateSpaceships() {
+        List<Spaceship> spaceships = List.of(new Spaceship("Enterprise", "NCC-1701"));
+        List<Spaceship> savedSpaceships = List.of(new Spaceship(1L, "Enterprise", "NCC-1701"));
+
+        when(spaceshipService.createSpaceships(spaceships)).thenReturn(savedSpaceships);
+
+        ResponseEntity<List<Spaceship>> response = spaceshipController.createSpaceships(spaceships);
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertEquals(savedSpaceships, response.getBody());
+    }
+
+    @Test
+    void testCreateSpaceshipsFromNdjson() throws Exception {
+        String body = "{\"name\":\"Enterprise\",\"model\":\"NCC-1701\"}\n{\"name\":\"Voyager\",\"model\":\"NCC-74656\"}\n";
+        List<Spaceship> parsed = List.of(new Spaceship("Enterprise", "NCC-1701"), new Spaceship("Voyager", "NCC-74656"));
+
+        when(spaceshipService.createSpaceships(parsed)).thenReturn(parsed);
+
+        ResponseEntity<List<Spaceship>> response = spaceshipController.createSpaceshipsFromNdjson(
+            new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        verify(spaceshipService, times(1)).createSpaceships(parsed);
+    }
+
+    @Test
+    void testUpdateSpaceships() {
+        List<Spaceship> spaceships = List.of(new Spaceship(1L, "Enterprise-A", "NCC-1701-A"));
+
+        when(spaceshipService.updateSpaceships(spaceships)).thenReturn(spaceships);
+
+        ResponseEntity<List<Spaceship>> response = spaceshipController.updateSpaceships(spaceships);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(spaceships, response.getBody());
+    }
+
+    @Test
+    void testDeleteSpaceships() {
+        ResponseEntity<Void> response = spaceshipController.deleteSpaceships(List.of(1L, 2L));
+
+        assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
+        verify(spaceshipService, times(1)).deleteSpaceships(List.of(1L, 2L));
+    }
+
+    @Test
+    void testBatchSizeIsLimited() {
+        List<Long> ids = new java.util.ArrayList<>();
+        for (long i = 0; i <= 50_000; i++) {
+            ids.add(i);
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> spaceshipController.deleteSpaceships(ids));
+        verifyNoInteractions(spaceshipService);
+    }
+
+    @Test
+    void testExportSpaceshipsAsJsonArray() throws Exception {
+        String body = export("json", List.of(new Spaceship(1L, "Enterprise", "NCC-1701"), new Spaceship(2L, "Voyager", null)));
+
+        Spaceship[] exported = objectMapper.readValue(body, Spaceship[].class);
+        assertEquals(2, exported.length);
+        assertEquals("Voyager", exported[1].getName());
+    }
+
+    @Test
+    void testExportSpaceshipsAsNdjson() throws Exception {
+        String body = export("ndjson", List.of(new Spaceship(1L, "Enterprise", "NCC-1701"), new Spaceship(2L, "Voyager", null)));
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("Enterprise", objectMapper.readValue(lines[0], Spaceship.class).getName());
+        assertEquals(2L, objectMapper.readValue(lines[1], Spaceship.class).getId());
+    }
+
+    @Test
+    void testExportSpaceshipsAsCsv() throws Exception {
+        String body = export("csv", List.of(new Spaceship(1L, "Enterprise, \"A\"", "NCC-1701"), new Spaceship(2L, "Voyager", null)));
+
+        assertEquals("id,name,model\r\n1,\"Enterprise, \"\"A\"\"\",NCC-1701\r\n2,Voyager,\r\n", body);
+    }
+
+    @Test
+    void testExportRejectsUnknownFormat() {
+        assertThrows(IllegalArgumentException.class, () -> spaceshipController.exportSpaceships("xml"));
+        verifyNoInteractions(spaceshipService);
+    }
+
+    @SuppressWarnings("unchecked")
+    private String export(String format, List<Spaceship> spaceships) throws Exception {
+        doAnswer(invocation -> {
+            spaceships.forEach(invocation.getArgument(0, Consumer.class));
+            return (long) spaceships.size();
+        }).when(spaceshipService).exportSpaceships(any());
+
+        ResponseEntity<StreamingResponseBody> response = spaceshipController.exportSpaceships(format);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
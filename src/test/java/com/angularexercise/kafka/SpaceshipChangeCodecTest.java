@@ -0,0 +1,32 @@
+package com.angularexercise.kafka;
+
+import com.angularexercise.cache.SpaceshipChange;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpaceshipChangeCodecTest {
+
+    @Test
+    void testRoundTrip() {
+        List<SpaceshipChange> changes = List.of(
+                SpaceshipChange.created(1L, "Enterprise"),
+                SpaceshipChange.updated(2L, "Voyager", "Voyager-Ä"),
+                SpaceshipChange.deleted(3L, "Defiant"));
+
+        assertEquals(changes, SpaceshipChangeCodec.decode(SpaceshipChangeCodec.encode(changes, 64)));
+    }
+
+    @Test
+    void testTooManyChangesAreSentAsEverything() {
+        List<SpaceshipChange> changes = Collections.nCopies(65, SpaceshipChange.created(1L, "Enterprise"));
+
+        byte[] payload = SpaceshipChangeCodec.encode(changes, 64);
+
+        assertEquals(4, payload.length);
+        assertNull(SpaceshipChangeCodec.decode(payload));
+    }
+}
@@ -0,0 +1,129 @@
+package com.angularexercise.kafka;
+
+import com.angularexercise.model.Spaceship;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.BatchAcknowledgingMessageListener;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.MessageListener;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "app.kafka.topic.partitions=2")
+@EmbeddedKafka(partitions = 2, topics = SpaceshipEventPublisher.TOPIC, bootstrapServersProperty = "spring.kafka.bootstrap-servers")
+class SpaceshipConsumerBatchIntegrationTest {
+
+    private static final int BENCHMARK_RECORDS = 20_000;
+
+    @Autowired
+    private SpaceshipEventPublisher publisher;
+
+    @Autowired
+    private KafkaTemplate<String, SpaceshipEvent> kafkaTemplate;
+
+    @Autowired
+    private EmbeddedKafkaBroker embeddedKafka;
+
+    @Autowired
+    private SpaceshipConsumer spaceshipConsumer;
+
+    @Test
+    void testBatchListenerCommitsEveryRecord() throws Exception {
+        int count = 200;
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+        for (long id = 1; id <= count; id++) {
+            futures.add(publisher.publish(SpaceshipEvent.created(new Spaceship(id, "Ship " + id, "Model"))));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+
+        try (AdminClient admin = AdminClient.create(Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, embeddedKafka.getBrokersAsString()))) {
+            long committed = 0;
+            long deadline = System.currentTimeMillis() + 30_000;
+            while (committed < count && System.currentTimeMillis() < deadline) {
+                Thread.sleep(200);
+                committed = admin.listConsumerGroupOffsets(spaceshipConsumer.getGroupId()).partitionsToOffsetAndMetadata().get()
+                        .values().stream().mapToLong(OffsetAndMetadata::offset).sum();
+            }
+            assertEquals(count, committed);
+        }
+    }
+
+    /**
+     * Micro-benchmark: drains the same backlog with a record listener that commits after every record
+     * and with a batch listener that acknowledges once per poll. Timed from the first record received. Run with
+     * {@code -Pbenchmark}.
+     */
+    @Test
+    @Tag("benchmark")
+    void testBatchListenerThroughputAgainstRecordListener() throws Exception {
+        embeddedKafka.addTopics(new NewTopic("consumer-benchmark", 1, (short) 1));
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+        for (long id = 1; id <= BENCHMARK_RECORDS; id++) {
+            futures.add(kafkaTemplate.send("consumer-benchmark", String.valueOf(id), SpaceshipEvent.created(new Spaceship(id, "Ship " + id, "Model " + (id % 10)))));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(60, TimeUnit.SECONDS);
+
+        long single = drain("record-listener", ContainerProperties.AckMode.RECORD, false);
+        long batch = drain("batch-listener", ContainerProperties.AckMode.MANUAL, true);
+
+        System.out.printf("Consumed %d records: record listener %.0f/s, batch listener %.0f/s%n",
+                BENCHMARK_RECORDS, BENCHMARK_RECORDS * 1e9 / single, BENCHMARK_RECORDS * 1e9 / batch);
+        assertTrue(batch < single, "batch=" + batch + "ns single=" + single + "ns");
+    }
+
+    private long drain(String group, ContainerProperties.AckMode ackMode, boolean batch) throws Exception {
+        CountDownLatch received = new CountDownLatch(BENCHMARK_RECORDS);
+        AtomicLong firstReceived = new AtomicLong();
+        ContainerProperties containerProperties = new ContainerProperties("consumer-benchmark");
+        containerProperties.setAckMode(ackMode);
+        if (batch) {
+            containerProperties.setMessageListener((BatchAcknowledgingMessageListener<String, SpaceshipEvent>) (records, acknowledgment) -> {
+                firstReceived.compareAndSet(0, System.nanoTime());
+                records.forEach(record -> received.countDown());
+                acknowledgment.acknowledge();
+            });
+        } else {
+            containerProperties.setMessageListener((MessageListener<String, SpaceshipEvent>) (ConsumerRecord<String, SpaceshipEvent> record) -> {
+                firstReceived.compareAndSet(0, System.nanoTime());
+                received.countDown();
+            });
+        }
+
+        Map<String, Object> props = KafkaTestUtils.consumerProps(group, "false", embeddedKafka);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 500);
+        ConcurrentMessageListenerContainer<String, SpaceshipEvent> container = new ConcurrentMessageListenerContainer<>(
+                new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(), new SpaceshipEventDeserializer()),
+                containerProperties);
+        container.start();
+        try {
+            assertTrue(received.await(120, TimeUnit.SECONDS), group + " missing records: " + received.getCount());
+            return System.nanoTime() - firstReceived.get();
+        } finally {
+            container.stop();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.angularexercise.kafka;
+
+import com.angularexercise.model.Spaceship;
+import com.angularexercise.push.SpaceshipChangeBroadcaster;
+import com.angularexercise.readmodel.SpaceshipReadModel;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SpaceshipConsumerTest {
+
+    private final SpaceshipReadModel readModel = mock(SpaceshipReadModel.class);
+    private final SpaceshipChangeBroadcaster broadcaster = mock(SpaceshipChangeBroadcaster.class);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SpaceshipConsumer consumer = new SpaceshipConsumer(readModel, broadcaster, meterRegistry, "node-1", 2, 2);
+
+    @Test
+    void testEveryNodeConsumesInAGroupOfItsOwn() {
+        SpaceshipConsumer otherNode = new SpaceshipConsumer(readModel, broadcaster, meterRegistry, "node-2", 2, 2);
+
+        SpaceshipConsumer restarted = new SpaceshipConsumer(readModel, broadcaster, meterRegistry, "node-1", 2, 2);
+
+        assertEquals("spaceship-node-1", consumer.getGroupId());
+        assertEquals("spaceship-node-2", otherNode.getGroupId());
+        assertEquals(consumer.getGroupId(), restarted.getGroupId());
+    }
+
+    @Test
+    void testReadModelIsSubscribedWhileEveryPartitionIsAssigned() {
+        TopicPartition first = new TopicPartition(SpaceshipEventPublisher.TOPIC, 0);
+        TopicPartition second = new TopicPartition(SpaceshipEventPublisher.TOPIC, 1);
+
+        // One consumer thread per partition
+        consumer.onPartitionsAssigned(Map.of(first, 0L), null);
+        verify(readModel).setSubscribed(false);
+        consumer.onPartitionsAssigned(Map.of(second, 0L), null);
+        verify(readModel).setSubscribed(true);
+        consumer.onPartitionsRevoked(List.of(second));
+        verify(readModel, times(2)).setSubscribed(false);
+    }
+
+    @Test
+    void testRecordsRelayedAgainAreDropped() {
+        SpaceshipEvent enterprise = SpaceshipEvent.created(new Spaceship(1L, "Enterprise", "NCC-1701"));
+        SpaceshipEvent voyager = SpaceshipEvent.created(new Spaceship(2L, "Voyager", "NCC-74656"));
+
+        consumer.consume(List.of(relayed(10, 1L, enterprise), relayed(11, 2L, voyager)), mock(Acknowledgment.class));
+        consumer.consume(List.of(relayed(11, 2L, voyager), relayed(12, 1L, null)), mock(Acknowledgment.class));
+
+        verify(readModel, times(1)).apply(enterprise);
+        verify(readModel, times(1)).apply(voyager);
+        verify(broadcaster, times(1)).publish(voyager);
+        verify(readModel).remove(1L, Long.MAX_VALUE);
+        assertEquals(1, meterRegistry.get("spaceship.events.duplicates").counter().count());
+    }
+
+    @Test
+    void testRecordsWithoutOutboxIdAreAlwaysApplied() {
+        SpaceshipEvent enterprise = SpaceshipEvent.created(new Spaceship(1L, "Enterprise", "NCC-1701"));
+        ConsumerRecord<String, SpaceshipEvent> direct = new ConsumerRecord<>(SpaceshipEventPublisher.TOPIC, 0, 0, "1", enterprise);
+
+        consumer.consume(List.of(direct, direct), mock(Acknowledgment.class));
+
+        verify(readModel, times(2)).apply(enterprise);
+    }
+
+    @Test
+    void testTombstonesRemoveAtTheirVersion() {
+        ConsumerRecord<String, SpaceshipEvent> tombstone = relayed(10, 1L, null);
+        tombstone.headers().add(SpaceshipEventPublisher.VERSION_HEADER, ByteBuffer.allocate(Long.BYTES).putLong(3L).array());
+
+        consumer.consume(List.of(tombstone), mock(Acknowledgment.class));
+
+        verify(readModel).remove(1L, 3L);
+        verify(broadcaster).publishDeletion(1L);
+    }
+
+    private static ConsumerRecord<String, SpaceshipEvent> relayed(long outboxId, long id, SpaceshipEvent event) {
+        ConsumerRecord<String, SpaceshipEvent> record = new ConsumerRecord<>(SpaceshipEventPublisher.TOPIC, 0, outboxId, String.valueOf(id), event);
+        record.headers().add(SpaceshipEventPublisher.OUTBOX_ID_HEADER, ByteBuffer.allocate(Long.BYTES).putLong(outboxId).array());
+        return record;
+    }
+}
@@ -0,0 +1,150 @@
+package com.angularexercise.kafka;
+
+import com.angularexercise.model.Spaceship;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.message.BadHeaderException;
+import org.apache.avro.message.BinaryMessageEncoder;
+import org.apache.avro.message.MissingSchemaException;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpaceshipEventCodecTest {
+
+    private static final int BENCHMARK_EVENTS = 200_000;
+
+    private final SpaceshipEventCodec codec = new SpaceshipEventCodec();
+
+    @Test
+    void testRoundTrip() throws Exception {
+        SpaceshipEvent event = new SpaceshipEvent(SpaceshipEvent.Operation.UPDATED, 42L, 7L,
+                Instant.now().truncatedTo(ChronoUnit.MILLIS), "Enterprise-A", null, List.of(SpaceshipEvent.Field.NAME));
+
+        assertEquals(event, codec.decode(codec.encode(event)));
+    }
+
+    @Test
+    void testUpdatedEventListsOnlyChangedFields() {
+        Spaceship spaceship = new Spaceship(1L, "Enterprise-A", "NCC-1701");
+        spaceship.setVersion(3L);
+
+        SpaceshipEvent event = SpaceshipEvent.updated(spaceship, "Enterprise", "NCC-1701");
+
+        assertEquals(List.of(SpaceshipEvent.Field.NAME), event.changedFields());
+        assertEquals(3L, event.version());
+    }
+
+    @Test
+    void testTombstonesPassThroughAsNull() {
+        assertNull(new SpaceshipEventSerializer().serialize(SpaceshipEventPublisher.TOPIC, null));
+        assertNull(new SpaceshipEventDeserializer().deserialize(SpaceshipEventPublisher.TOPIC, null));
+    }
+
+    @Test
+    void testUnknownWriterSchemaIsRejected() {
+        byte[] bytes = codec.encode(SpaceshipEvent.created(new Spaceship(1L, "Enterprise", "NCC-1701")));
+        // Bytes 2..9 of the single-object header hold the writer schema fingerprint
+        bytes[2] ^= 0x7f;
+
+        IOException exception = assertThrows(IOException.class, () -> codec.decode(bytes));
+        assertInstanceOf(MissingSchemaException.class, exception.getCause());
+        assertThrows(SerializationException.class,
+                () -> new SpaceshipEventDeserializer().deserialize(SpaceshipEventPublisher.TOPIC, bytes));
+    }
+
+    @Test
+    void testCorruptPayloadsAreReportedAsIOException() {
+        byte[] bytes = codec.encode(SpaceshipEvent.created(new Spaceship(1L, "Enterprise", "NCC-1701")));
+        byte[] badOperation = bytes.clone();
+        // The operation enum right after the header, zig-zag encoded: 126 is operation 63
+        badOperation[10] = (byte) 126;
+
+        assertInstanceOf(BadHeaderException.class, assertThrows(IOException.class, () -> codec.decode(new byte[] {1, 2})).getCause());
+        assertThrows(IOException.class, () -> codec.decode(badOperation));
+        assertThrows(IOException.class, () -> codec.decode(Arrays.copyOf(bytes, 12)));
+    }
+
+    @Test
+    void testOlderWriterSchemaIsResolvedAgainstCurrent() throws Exception {
+        Schema v0 = new Schema.Parser().parse(new ClassPathResource("avro/SpaceshipChangeEvent-v0.avsc").getInputStream());
+        GenericRecord record = new GenericData.Record(v0);
+        record.put("operation", new GenericData.EnumSymbol(v0.getField("operation").schema(), "UPDATED"));
+        record.put("id", 42L);
+        record.put("version", 7L);
+        record.put("timestamp", 1_700_000_000_000L);
+        record.put("name", "Enterprise");
+        record.put("model", null);
+        ByteBuffer buffer = new BinaryMessageEncoder<GenericRecord>(GenericData.get(), v0).encode(record);
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+
+        SpaceshipEvent event = codec.decode(bytes);
+
+        assertEquals(new SpaceshipEvent(SpaceshipEvent.Operation.UPDATED, 42L, 7L, Instant.ofEpochMilli(1_700_000_000_000L),
+                "Enterprise", null, List.of()), event);
+    }
+
+    /**
+     * Payload size and encode/decode cost per event of the Avro envelope against the JSON the topic used to
+     * carry: the bare entity through Spring's JsonSerializer, whose type information travels in a header.
+     */
+    @Test
+    void testAvroEnvelopeAgainstJson() throws Exception {
+        Spaceship spaceship = new Spaceship(123_456L, "USS Enterprise", "Constitution Class");
+        spaceship.setVersion(4L);
+        SpaceshipEvent event = SpaceshipEvent.updated(spaceship, "Enterprise", "Constitution Class");
+
+        RecordHeaders headers = new RecordHeaders();
+        Serializer<Spaceship> jsonSerializer = new JsonSerializer<>();
+        byte[] json = jsonSerializer.serialize(SpaceshipEventPublisher.TOPIC, headers, spaceship);
+        int jsonHeaderBytes = Arrays.stream(headers.toArray()).mapToInt(h -> h.key().length() + h.value().length).sum();
+        Deserializer<Spaceship> jsonDeserializer = new JsonDeserializer<>(Spaceship.class, false);
+        byte[] avro = codec.encode(event);
+
+        double jsonSer = nanosPerEvent(() -> jsonSerializer.serialize(SpaceshipEventPublisher.TOPIC, new RecordHeaders(), spaceship));
+        double jsonDeser = nanosPerEvent(() -> jsonDeserializer.deserialize(SpaceshipEventPublisher.TOPIC, json));
+        double avroSer = nanosPerEvent(() -> codec.encode(event));
+        double avroDeser = nanosPerEvent(() -> {
+            try {
+                return codec.decode(avro);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        System.out.printf("JSON entity: %d bytes + %d header bytes, ser %.0f ns, deser %.0f ns%n",
+                json.length, jsonHeaderBytes, jsonSer, jsonDeser);
+        System.out.printf("Avro event:  %d bytes, ser %.0f ns, deser %.0f ns%n", avro.length, avroSer, avroDeser);
+        assertTrue(avro.length < json.length, "avro=" + avro.length + " json=" + json.length);
+    }
+
+    private static double nanosPerEvent(Supplier<Object> operation) {
+        Object sink = null;
+        for (int i = 0; i < BENCHMARK_EVENTS; i++) {
+            sink = operation.get();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_EVENTS; i++) {
+            sink = operation.get();
+        }
+        assertNotNull(sink);
+        return (System.nanoTime() - start) / (double) BENCHMARK_EVENTS;
+    }
+}
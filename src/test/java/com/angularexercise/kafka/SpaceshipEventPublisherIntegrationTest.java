@@ -0,0 +1,105 @@
+package com.angularexercise.kafka;
+
+import com.angularexercise.model.Spaceship;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.config.TopicConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@EmbeddedKafka(partitions = 1, topics = SpaceshipEventPublisher.TOPIC, bootstrapServersProperty = "spring.kafka.bootstrap-servers")
+class SpaceshipEventPublisherIntegrationTest {
+
+    @Autowired
+    private SpaceshipEventPublisher publisher;
+
+    @Autowired
+    private ProducerFactory<String, SpaceshipEvent> producerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EmbeddedKafkaBroker embeddedKafka;
+
+    @Autowired
+    private NewTopic spaceshipTopic;
+
+    @Test
+    void testProducerUsesThroughputProfile() {
+        Map<String, Object> config = producerFactory.getConfigurationProperties();
+
+        assertEquals("all", config.get(ProducerConfig.ACKS_CONFIG));
+        assertEquals("lz4", config.get(ProducerConfig.COMPRESSION_TYPE_CONFIG));
+        assertEquals("true", config.get(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG));
+        assertEquals("20", config.get(ProducerConfig.LINGER_MS_CONFIG));
+        assertEquals(65536, config.get(ProducerConfig.BATCH_SIZE_CONFIG));
+    }
+
+    @Test
+    void testSpaceshipTopicIsCompacted() {
+        assertEquals(TopicConfig.CLEANUP_POLICY_COMPACT, spaceshipTopic.configs().get(TopicConfig.CLEANUP_POLICY_CONFIG));
+    }
+
+    @Test
+    void testDeletionIsAcknowledgedAsTombstone() throws Exception {
+        SendResult<String, SpaceshipEvent> result = publisher.publishDeletion(42L).get(30, TimeUnit.SECONDS);
+
+        assertEquals("42", result.getProducerRecord().key());
+        assertNull(result.getProducerRecord().value());
+        assertTrue(result.getRecordMetadata().hasOffset());
+    }
+
+    @Test
+    void testPublishedEventsAreAcknowledgedAndDelivered() throws Exception {
+        int count = 500;
+        double before = meterRegistry.counter("spaceship.events.published", "outcome", "success").count();
+
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+        for (long id = 1; id <= count; id++) {
+            futures.add(publisher.publish(SpaceshipEvent.created(new Spaceship(id, "Ship " + id, "Model " + (id % 10)))));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+
+        assertEquals(before + count, meterRegistry.counter("spaceship.events.published", "outcome", "success").count());
+        assertEquals(count, consumeAll(count));
+    }
+
+    private int consumeAll(int expected) {
+        Map<String, Object> props = KafkaTestUtils.consumerProps("publisher-test", "false", embeddedKafka);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        int received = 0;
+        try (Consumer<String, String> consumer = new DefaultKafkaConsumerFactory<>(props,
+                new StringDeserializer(), new StringDeserializer()).createConsumer()) {
+            embeddedKafka.consumeFromAnEmbeddedTopic(consumer, SpaceshipEventPublisher.TOPIC);
+            long deadline = System.currentTimeMillis() + 30_000;
+            while (received < expected && System.currentTimeMillis() < deadline) {
+                ConsumerRecords<String, String> records = KafkaTestUtils.getRecords(consumer, Duration.ofSeconds(5));
+                received += records.count();
+            }
+        }
+        return received;
+    }
+}
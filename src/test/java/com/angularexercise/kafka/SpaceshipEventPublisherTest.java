@@ -0,0 +1,95 @@
+package com.angularexercise.kafka;
+
+import com.angularexercise.model.Spaceship;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SpaceshipEventPublisherTest {
+
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, SpaceshipEvent> kafkaTemplate = mock(KafkaTemplate.class);
+    private MeterRegistry meterRegistry;
+    private SpaceshipEventPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        publisher = new SpaceshipEventPublisher(kafkaTemplate, meterRegistry);
+    }
+
+    @Test
+    void testSuccessfulSendIsCounted() {
+        SpaceshipEvent event = SpaceshipEvent.created(new Spaceship(1L, "Enterprise", "NCC-1701"));
+        RecordMetadata metadata = new RecordMetadata(new TopicPartition(SpaceshipEventPublisher.TOPIC, 0), 0, 7, 0, 0, 0);
+        when(kafkaTemplate.send(SpaceshipEventPublisher.TOPIC, "1", event)).thenReturn(
+                CompletableFuture.completedFuture(new SendResult<>(new ProducerRecord<>(SpaceshipEventPublisher.TOPIC, "1", event), metadata)));
+
+        publisher.publish(event).join();
+
+        assertEquals(1.0, count("success"));
+        assertEquals(0.0, count("failure"));
+        assertEquals(1, sendTimer("success").count());
+    }
+
+    @Test
+    void testFailedAcknowledgementIsCounted() {
+        SpaceshipEvent event = SpaceshipEvent.created(new Spaceship(1L, "Enterprise", "NCC-1701"));
+        CompletableFuture<SendResult<String, SpaceshipEvent>> pending = new CompletableFuture<>();
+        when(kafkaTemplate.send(SpaceshipEventPublisher.TOPIC, "1", event)).thenReturn(pending);
+
+        CompletableFuture<SendResult<String, SpaceshipEvent>> future = publisher.publish(event);
+
+        // The caller is not blocked until the broker answers
+        assertFalse(future.isDone());
+        pending.completeExceptionally(new TimeoutException("Expiring record"));
+        assertTrue(future.isCompletedExceptionally());
+        assertEquals(0.0, count("success"));
+        assertEquals(1.0, count("failure"));
+        assertEquals(0, sendTimer("success").count());
+        assertEquals(1, sendTimer("failure").count());
+    }
+
+    @Test
+    void testSynchronousSendFailureDoesNotPropagate() {
+        SpaceshipEvent event = SpaceshipEvent.created(new Spaceship(1L, "Enterprise", "NCC-1701"));
+        when(kafkaTemplate.send(SpaceshipEventPublisher.TOPIC, "1", event))
+                .thenThrow(new KafkaException("Send failed", new TimeoutException("Topic not present in metadata")));
+
+        CompletableFuture<SendResult<String, SpaceshipEvent>> future = assertDoesNotThrow(() -> publisher.publish(event));
+
+        assertTrue(future.isCompletedExceptionally());
+        assertEquals(1.0, count("failure"));
+    }
+
+    @Test
+    void testDeletionIsPublishedAsTombstone() {
+        when(kafkaTemplate.send(SpaceshipEventPublisher.TOPIC, "1", null)).thenReturn(new CompletableFuture<>());
+
+        publisher.publishDeletion(1L);
+
+        verify(kafkaTemplate, times(1)).send(SpaceshipEventPublisher.TOPIC, "1", null);
+    }
+
+    private Timer sendTimer(String outcome) {
+        return meterRegistry.get("spaceship.events.send").tag("outcome", outcome).timer();
+    }
+
+    private double count(String outcome) {
+        return meterRegistry.counter("spaceship.events.published", "outcome", outcome).count();
+    }
+}
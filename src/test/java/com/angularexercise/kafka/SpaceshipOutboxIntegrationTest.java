@@ -0,0 +1,296 @@
+package com.angularexercise.kafka;
+
+import com.angularexercise.config.CacheProperties;
+import com.angularexercise.model.Spaceship;
+import com.angularexercise.model.SpaceshipOutboxEntry;
+import com.angularexercise.repository.SpaceshipOutboxRepository;
+import com.angularexercise.service.SpaceshipService;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs the outbox relay by hand (the scheduled poll is pushed out of the way) and simulates the ways it can
+ * fail halfway: the broker rejecting a send, acknowledgements not coming in time, and the relay dying after
+ * the broker acknowledged a batch but before the batch was deleted from the outbox. Relays of other nodes are
+ * built with another node id and compete for the lease.
+ */
+@SpringBootTest(properties = {"app.outbox.poll-interval-ms=3600000", "app.kafka.topic.partitions=1"})
+@EmbeddedKafka(partitions = 1, topics = SpaceshipEventPublisher.TOPIC, bootstrapServersProperty = "spring.kafka.bootstrap-servers")
+class SpaceshipOutboxIntegrationTest {
+
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private SpaceshipService spaceshipService;
+
+    @Autowired
+    private SpaceshipOutboxRelay relay;
+
+    @Autowired
+    private SpaceshipOutboxRepository outboxRepository;
+
+    @Autowired
+    private SpaceshipEventPublisher publisher;
+
+    @Autowired
+    private EmbeddedKafkaBroker embeddedKafka;
+
+    @Autowired
+    private CacheProperties cacheProperties;
+
+    private Consumer<String, SpaceshipEvent> consumer;
+
+    @BeforeEach
+    void setUp() {
+        Map<String, Object> props = KafkaTestUtils.consumerProps("outbox-test", "false", embeddedKafka);
+        consumer = new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(), new SpaceshipEventDeserializer()).createConsumer();
+        TopicPartition partition = new TopicPartition(SpaceshipEventPublisher.TOPIC, 0);
+        consumer.assign(List.of(partition));
+        consumer.seekToEnd(List.of(partition));
+        consumer.position(partition);
+    }
+
+    @AfterEach
+    void tearDown() {
+        consumer.close();
+        assertEquals(0, relay.drain());
+    }
+
+    @Test
+    void testChangesAreRelayedInOrderAndOutboxIsPruned() {
+        Spaceship spaceship = spaceshipService.createSpaceship(new Spaceship("Enterprise", "NCC-1701"));
+        spaceshipService.updateSpaceship(spaceship.getId(), new Spaceship("Enterprise-A", "NCC-1701"));
+        spaceshipService.deleteSpaceship(spaceship.getId());
+        assertEquals(3, outboxRepository.count());
+
+        assertEquals(3, relay.drain());
+
+        assertEquals(0, outboxRepository.count());
+        List<ConsumerRecord<String, SpaceshipEvent>> records = consume(3);
+        assertEquals(List.of(String.valueOf(spaceship.getId())), records.stream().map(ConsumerRecord::key).distinct().toList());
+        assertEquals(SpaceshipEvent.Operation.CREATED, records.get(0).value().operation());
+        assertEquals(SpaceshipEvent.Operation.UPDATED, records.get(1).value().operation());
+        assertEquals(1L, records.get(1).value().version());
+        assertEquals(List.of(SpaceshipEvent.Field.NAME), records.get(1).value().changedFields());
+        assertNull(records.get(2).value());
+    }
+
+    @Test
+    void testRejectedSendKeepsTheRestOfTheBatch() {
+        List<Long> outboxIds = createSpaceships(1200);
+        AtomicInteger sends = new AtomicInteger();
+        SpaceshipEventPublisher failingPublisher = mock(SpaceshipEventPublisher.class, delegatesTo(publisher));
+        doAnswer(invocation -> sends.incrementAndGet() == 700
+                ? CompletableFuture.failedFuture(new IllegalStateException("Broker unavailable"))
+                : publisher.publishFromOutbox(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2),
+                        invocation.getArgument(3)))
+                .when(failingPublisher).publishFromOutbox(anyLong(), anyLong(), any(), any());
+
+        // The first batch goes through, the second stops at its 200th entry
+        assertEquals(699, relayWith(outboxRepository, failingPublisher).drain());
+        assertEquals(501, outboxRepository.count());
+        assertEquals(501, relay.drain());
+
+        Map<Long, Long> deliveries = countByOutboxId(consume(1200));
+        assertEquals(outboxIds, List.copyOf(deliveries.keySet()));
+        assertTrue(deliveries.values().stream().allMatch(count -> count == 1), "duplicates: " + deliveries);
+    }
+
+    @Test
+    void testCrashBeforePruningRedeliversWithSameOutboxId() {
+        List<Long> outboxIds = createSpaceships(1200);
+        AtomicInteger deletes = new AtomicInteger();
+        SpaceshipOutboxRepository crashingRepository = mock(SpaceshipOutboxRepository.class, delegatesTo(outboxRepository));
+        doAnswer(invocation -> {
+            if (deletes.incrementAndGet() == 2) {
+                throw new IllegalStateException("Relay killed");
+            }
+            outboxRepository.deleteAllByIdInBatch(invocation.getArgument(0));
+            return null;
+        }).when(crashingRepository).deleteAllByIdInBatch(any());
+
+        // The second batch is acknowledged by the broker but stays in the outbox
+        assertThrows(IllegalStateException.class, () -> relayWith(crashingRepository, publisher).drain());
+        assertEquals(700, outboxRepository.count());
+        assertEquals(700, relay.drain());
+
+        List<ConsumerRecord<String, SpaceshipEvent>> records = consume(1200 + BATCH_SIZE);
+        Map<Long, Long> deliveries = countByOutboxId(records);
+        assertEquals(outboxIds, List.copyOf(deliveries.keySet()));
+        assertEquals(BATCH_SIZE, deliveries.values().stream().filter(count -> count == 2).count());
+        // Dropping repeated outbox ids leaves every event exactly once
+        Map<Long, SpaceshipEvent> deduplicated = new HashMap<>();
+        for (ConsumerRecord<String, SpaceshipEvent> record : records) {
+            SpaceshipEvent previous = deduplicated.putIfAbsent(SpaceshipEventPublisher.outboxId(record), record.value());
+            assertTrue(previous == null || previous.equals(record.value()));
+        }
+        assertEquals(1200, deduplicated.size());
+    }
+
+    @Test
+    void testOnlyTheLeaseHolderRelays() {
+        relay.drain();
+        SpaceshipOutboxRelay otherNode = relayWith(outboxRepository, publisher, otherNode());
+        createSpaceships(3);
+
+        assertEquals(0, otherNode.drain());
+        assertEquals(3, outboxRepository.count());
+
+        // Handed over at shutdown
+        relay.releaseLease();
+        assertEquals(3, otherNode.drain());
+        createSpaceships(2);
+        assertEquals(0, relay.drain());
+
+        // Taken over once expired, as if the other node had died right after its last renewal
+        Instant now = Instant.now();
+        outboxRepository.acquireRelayLease("other-node", now, now);
+        assertEquals(2, relay.drain());
+        assertEquals(0, otherNode.drain());
+        consume(5);
+    }
+
+    @Test
+    void testUnacknowledgedSendsAreRetriedOnTheNextPoll() {
+        List<Long> outboxIds = createSpaceships(10);
+        AtomicInteger sends = new AtomicInteger();
+        SpaceshipEventPublisher stalledPublisher = mock(SpaceshipEventPublisher.class, delegatesTo(publisher));
+        doAnswer(invocation -> sends.incrementAndGet() == 4
+                ? new CompletableFuture<>()
+                : publisher.publishFromOutbox(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2),
+                        invocation.getArgument(3)))
+                .when(stalledPublisher).publishFromOutbox(anyLong(), anyLong(), any(), any());
+        SpaceshipOutboxRelay stalledRelay = relayWith(outboxRepository, stalledPublisher, cacheProperties);
+        ReflectionTestUtils.setField(stalledRelay, "ackTimeoutMs", 500L);
+
+        long start = System.nanoTime();
+        assertEquals(3, stalledRelay.drain());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5), "waited for the delivery timeout");
+        assertEquals(7, outboxRepository.count());
+        assertEquals(7, relay.drain());
+
+        // The sends after the stalled one were delivered twice
+        Map<Long, Long> deliveries = countByOutboxId(consume(16));
+        assertEquals(outboxIds, deliveries.keySet().stream().sorted().toList());
+        assertEquals(6, deliveries.values().stream().filter(count -> count == 2).count());
+    }
+
+    @Test
+    void testEventsOfASpaceshipGoOutInVersionOrderAcrossBatches() {
+        Spaceship spaceship = new Spaceship(4242L, "Defiant", "NX-74205");
+        spaceship.setVersion(1L);
+        SpaceshipEventCodec codec = new SpaceshipEventCodec();
+        // Written by two nodes whose pooled outbox ids are in the opposite order of the writes
+        outboxRepository.saveAll(List.of(
+                new SpaceshipOutboxEntry(4242L, 2L, null),
+                new SpaceshipOutboxEntry(4242L, 1L, codec.encode(SpaceshipEvent.updated(spaceship, "Valiant", "NX-74205"))),
+                new SpaceshipOutboxEntry(4243L, 0L, codec.encode(SpaceshipEvent.created(new Spaceship(4243L, "Valiant", "NX-74210")))),
+                new SpaceshipOutboxEntry(4242L, 0L, codec.encode(SpaceshipEvent.created(new Spaceship(4242L, "Valiant", "NX-74205"))))));
+        SpaceshipOutboxRelay smallBatches = relayWith(outboxRepository, publisher);
+        ReflectionTestUtils.setField(smallBatches, "batchSize", 1);
+
+        assertEquals(4, smallBatches.drain());
+
+        List<ConsumerRecord<String, SpaceshipEvent>> records = consume(4);
+        assertEquals(List.of("4242", "4242", "4242", "4243"), records.stream().map(ConsumerRecord::key).toList());
+        assertEquals(SpaceshipEvent.Operation.CREATED, records.get(0).value().operation());
+        assertEquals(SpaceshipEvent.Operation.UPDATED, records.get(1).value().operation());
+        assertNull(records.get(2).value());
+        assertEquals(2L, SpaceshipEventPublisher.version(records.get(2)));
+    }
+
+    @Test
+    void testUndecodableEntryStopsTheRelayAfterTheEntriesBeforeIt() {
+        List<Long> outboxIds = createSpaceships(3);
+        long lastId = outboxRepository.findAll().stream().mapToLong(SpaceshipOutboxEntry::getSpaceshipId).max().orElseThrow();
+        Spaceship renamed = new Spaceship(lastId, "Outbox 2", "Model 2");
+        byte[] corrupt = new SpaceshipEventCodec().encode(SpaceshipEvent.updated(renamed, "Rio Grande", "Model 2"));
+        corrupt[10] = (byte) 126;
+        SpaceshipOutboxEntry undecodable = outboxRepository.save(new SpaceshipOutboxEntry(lastId, 1L, corrupt));
+        createSpaceships(1);
+
+        assertEquals(3, relay.drain());
+        assertEquals(outboxIds, consume(3).stream().map(SpaceshipEventPublisher::outboxId).toList());
+        assertEquals(2, outboxRepository.count());
+
+        // Still there on the next poll, and the entries after it wait behind it
+        assertEquals(0, relay.drain());
+        outboxRepository.deleteById(undecodable.getId());
+        assertEquals(1, relay.drain());
+        consume(1);
+    }
+
+    private List<Long> createSpaceships(int count) {
+        spaceshipService.createSpaceships(IntStream.range(0, count)
+                .mapToObj(i -> new Spaceship("Outbox " + i, "Model " + (i % 10)))
+                .collect(Collectors.toList()));
+        return outboxRepository.findAll().stream().map(SpaceshipOutboxEntry::getId).sorted().toList();
+    }
+
+    private SpaceshipOutboxRelay relayWith(SpaceshipOutboxRepository repository, SpaceshipEventPublisher eventPublisher) {
+        return relayWith(repository, eventPublisher, cacheProperties);
+    }
+
+    private SpaceshipOutboxRelay relayWith(SpaceshipOutboxRepository repository, SpaceshipEventPublisher eventPublisher,
+                                           CacheProperties nodeProperties) {
+        SpaceshipOutboxRelay relay = new SpaceshipOutboxRelay(repository, eventPublisher, nodeProperties);
+        ReflectionTestUtils.setField(relay, "batchSize", BATCH_SIZE);
+        ReflectionTestUtils.setField(relay, "leaseMs", 15_000L);
+        ReflectionTestUtils.setField(relay, "ackTimeoutMs", 5_000L);
+        return relay;
+    }
+
+    private static CacheProperties otherNode() {
+        CacheProperties properties = new CacheProperties();
+        properties.setNodeId("other-node");
+        return properties;
+    }
+
+    private List<ConsumerRecord<String, SpaceshipEvent>> consume(int expected) {
+        List<ConsumerRecord<String, SpaceshipEvent>> records = new ArrayList<>();
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (records.size() < expected && System.currentTimeMillis() < deadline) {
+            consumer.poll(Duration.ofMillis(500)).forEach(records::add);
+        }
+        // Anything beyond the expected count would be an unexpected duplicate
+        consumer.poll(Duration.ofMillis(500)).forEach(records::add);
+        assertEquals(expected, records.size());
+        return records;
+    }
+
+    // Outbox id -> number of times it was delivered, in order of first delivery
+    private static Map<Long, Long> countByOutboxId(List<ConsumerRecord<String, SpaceshipEvent>> records) {
+        return records.stream().collect(Collectors.groupingBy(SpaceshipEventPublisher::outboxId,
+                LinkedHashMap::new, Collectors.counting()));
+    }
+}
@@ -0,0 +1,175 @@
+package com.angularexercise.kafka;
+
+import com.angularexercise.model.Spaceship;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.MessageListener;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "app.kafka.topic.partitions=" + SpaceshipPartitioningIntegrationTest.PARTITIONS)
+@EmbeddedKafka(partitions = SpaceshipPartitioningIntegrationTest.PARTITIONS, topics = SpaceshipEventPublisher.TOPIC,
+        bootstrapServersProperty = "spring.kafka.bootstrap-servers")
+class SpaceshipPartitioningIntegrationTest {
+
+    static final int PARTITIONS = 4;
+    private static final int SHIPS = 50;
+    private static final int UPDATES_PER_SHIP = 20;
+
+    @Autowired
+    private SpaceshipEventPublisher publisher;
+
+    @Autowired
+    private KafkaTemplate<String, SpaceshipEvent> kafkaTemplate;
+
+    @Autowired
+    private KafkaListenerEndpointRegistry listenerRegistry;
+
+    @Autowired
+    private EmbeddedKafkaBroker embeddedKafka;
+
+    @Test
+    void testConsumerConcurrencyMatchesPartitions() {
+        for (MessageListenerContainer container : listenerRegistry.getListenerContainers()) {
+            if (SpaceshipCacheInvalidationConsumer.LISTENER_ID.equals(container.getListenerId())) {
+                // Cache invalidations have a single-partition topic of their own
+                continue;
+            }
+            assertEquals(PARTITIONS, ((ConcurrentMessageListenerContainer<?, ?>) container).getConcurrency());
+        }
+    }
+
+    @Test
+    void testEventsOfOneSpaceshipStayOrderedOnOnePartition() throws Exception {
+        Map<String, List<Integer>> sequences = new ConcurrentHashMap<>();
+        Map<String, Integer> partitions = new ConcurrentHashMap<>();
+        CountDownLatch received = new CountDownLatch(SHIPS * UPDATES_PER_SHIP);
+        ConcurrentMessageListenerContainer<String, SpaceshipEvent> container = container(SpaceshipEventPublisher.TOPIC, PARTITIONS,
+                "ordering-test", (ConsumerRecord<String, SpaceshipEvent> record) -> {
+                    int version = (int) record.value().version();
+                    sequences.computeIfAbsent(record.key(), key -> new ArrayList<>()).add(version);
+                    assertEquals(record.partition(), partitions.computeIfAbsent(record.key(), key -> record.partition()));
+                    received.countDown();
+                });
+        container.start();
+        try {
+            waitForEveryConsumerToOwnPartitions(container, PARTITIONS);
+            List<CompletableFuture<?>> futures = new ArrayList<>();
+            for (int version = 0; version < UPDATES_PER_SHIP; version++) {
+                for (long id = 1; id <= SHIPS; id++) {
+                    Spaceship spaceship = new Spaceship(id, "Ship " + id, "Model");
+                    spaceship.setVersion((long) version);
+                    futures.add(publisher.publish(SpaceshipEvent.updated(spaceship, "Ship " + id, "Model")));
+                }
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+
+            assertTrue(received.await(30, TimeUnit.SECONDS), "missing records: " + received.getCount());
+        } finally {
+            container.stop();
+        }
+
+        assertEquals(SHIPS, sequences.size());
+        for (Map.Entry<String, List<Integer>> entry : sequences.entrySet()) {
+            List<Integer> versions = entry.getValue();
+            for (int i = 0; i < versions.size(); i++) {
+                assertEquals(i, versions.get(i), "out of order for spaceship " + entry.getKey() + ": " + versions);
+            }
+        }
+        assertTrue(partitions.values().stream().distinct().count() > 1, "all spaceships landed on one partition");
+    }
+
+    /**
+     * Same keyed records with the same per-record processing cost, consumed from one partition by one thread
+     * and from {@value #PARTITIONS} partitions by {@value #PARTITIONS} threads. Timed from the first send,
+     * once the consumers own their partitions.
+     */
+    @Test
+    void testThroughputScalesWithPartitions() throws Exception {
+        embeddedKafka.addTopics(new NewTopic("throughput-1", 1, (short) 1), new NewTopic("throughput-n", PARTITIONS, (short) 1));
+        int records = 400;
+
+        long single = consumeWithProcessingCost("throughput-1", 1, records);
+        long parallel = consumeWithProcessingCost("throughput-n", PARTITIONS, records);
+
+        System.out.printf("Consumed %d records: 1 partition %.0f/s, %d partitions %.0f/s%n",
+                records, records * 1e9 / single, PARTITIONS, records * 1e9 / parallel);
+        assertTrue(parallel * 2 < single, "expected at least 2x speedup, single=" + single + "ns parallel=" + parallel + "ns");
+    }
+
+    private long consumeWithProcessingCost(String topic, int concurrency, int records) throws Exception {
+        CountDownLatch received = new CountDownLatch(records);
+        ConcurrentMessageListenerContainer<String, SpaceshipEvent> container = container(topic, concurrency, topic + "-group",
+                (ConsumerRecord<String, SpaceshipEvent> record) -> {
+                    try {
+                        Thread.sleep(5);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    received.countDown();
+                });
+        container.start();
+        try {
+            waitForEveryConsumerToOwnPartitions(container, concurrency);
+            long start = System.nanoTime();
+            for (long id = 1; id <= records; id++) {
+                kafkaTemplate.send(topic, String.valueOf(id), SpaceshipEvent.created(new Spaceship(id, "Ship " + id, "Model")));
+            }
+            assertTrue(received.await(60, TimeUnit.SECONDS), "missing records: " + received.getCount());
+            return System.nanoTime() - start;
+        } finally {
+            container.stop();
+        }
+    }
+
+    private static void waitForEveryConsumerToOwnPartitions(ConcurrentMessageListenerContainer<?, ?> container,
+                                                           int concurrency) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (System.currentTimeMillis() < deadline) {
+            // With eager rebalancing the first consumer briefly owns every partition; wait until all threads have work
+            Map<String, Collection<TopicPartition>> assignments = container.getAssignmentsByClientId();
+            if (assignments != null && assignments.size() == concurrency
+                    && assignments.values().stream().noneMatch(Collection::isEmpty)) {
+                return;
+            }
+            Thread.sleep(100);
+        }
+        fail("consumers did not all get partitions: " + container.getAssignmentsByClientId());
+    }
+
+    private ConcurrentMessageListenerContainer<String, SpaceshipEvent> container(String topic, int concurrency, String group,
+                                                                                  MessageListener<String, SpaceshipEvent> listener) {
+        Map<String, Object> props = KafkaTestUtils.consumerProps(group, "false", embeddedKafka);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        ContainerProperties containerProperties = new ContainerProperties(topic);
+        containerProperties.setMessageListener(listener);
+        ConcurrentMessageListenerContainer<String, SpaceshipEvent> container = new ConcurrentMessageListenerContainer<>(
+                new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(), new SpaceshipEventDeserializer()), containerProperties);
+        container.setConcurrency(concurrency);
+        return container;
+    }
+}
@@ -0,0 +1,115 @@
+package com.angularexercise.load;
+
+import com.angularexercise.load.SpaceshipWorkload.Operation;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load generator: requests arrive at a fixed mean rate whether or not earlier ones have completed,
+ * as they do from independent users. Each request is sent on its own virtual thread, and its latency is
+ * measured from the time it was scheduled to arrive, not from the time it was sent, so that a stall of the
+ * generator or the server counts against every request it delayed (no coordinated omission). Arrivals are
+ * either Poisson (exponential gaps) or evenly spaced.
+ */
+final class OpenLoopDriver {
+
+    private static final long HIGHEST_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    /**
+     * Latencies of the successful requests of each operation, in microseconds, and the failures: a status of
+     * 400 or more, a timeout or a connection error.
+     */
+    record Run(Map<Operation, Histogram> latencies, Map<Operation, Long> errors, long arrivals) {
+
+        long errorCount() {
+            return errors.values().stream().mapToLong(Long::longValue).sum();
+        }
+    }
+
+    private final HttpClient client;
+    private final SpaceshipWorkload workload;
+    private final double ratePerSecond;
+    private final boolean poisson;
+
+    OpenLoopDriver(HttpClient client, SpaceshipWorkload workload, double ratePerSecond, boolean poisson) {
+        if (ratePerSecond <= 0) {
+            throw new IllegalArgumentException("The arrival rate must be positive: " + ratePerSecond);
+        }
+        this.client = client;
+        this.workload = workload;
+        this.ratePerSecond = ratePerSecond;
+        this.poisson = poisson;
+    }
+
+    /**
+     * Generates arrivals for {@code duration}, then waits for the requests still in flight.
+     */
+    Run run(Duration duration, long seed) {
+        Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+        Map<Operation, AtomicLong> errors = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new ConcurrentHistogram(HIGHEST_LATENCY_MICROS, 3));
+            errors.put(operation, new AtomicLong());
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        double meanGapNanos = 1e9 / ratePerSecond;
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        long arrivals = 0;
+        double scheduled = start;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            while ((long) scheduled < end) {
+                long intended = (long) scheduled;
+                long wait;
+                while ((wait = intended - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                Operation operation = workload.next(random);
+                HttpRequest request = workload.request(operation, random);
+                if (request == null) {
+                    operation = Operation.CREATE;
+                    request = workload.request(operation, random);
+                }
+                Operation sent = operation;
+                HttpRequest toSend = request;
+                executor.execute(() -> send(sent, toSend, intended, latencies.get(sent), errors.get(sent)));
+                arrivals++;
+                scheduled += poisson ? -Math.log(1 - random.nextDouble()) * meanGapNanos : meanGapNanos;
+            }
+        }
+        Map<Operation, Long> errorCounts = new EnumMap<>(Operation.class);
+        errors.forEach((operation, count) -> errorCounts.put(operation, count.get()));
+        return new Run(latencies, errorCounts, arrivals);
+    }
+
+    private void send(Operation operation, HttpRequest request, long intended, Histogram latency, AtomicLong errors) {
+        try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intended);
+            if (response.statusCode() >= 400) {
+                errors.incrementAndGet();
+                return;
+            }
+            latency.recordValue(Math.min(micros, HIGHEST_LATENCY_MICROS));
+            workload.completed(operation, response);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            errors.incrementAndGet();
+        } catch (Exception e) {
+            errors.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.angularexercise.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.random.RandomGenerator;
+
+/**
+ * The request mix of the load harness: which operation comes next, and the HTTP request for it. Reads and
+ * updates target the seeded spaceships; deletes take spaceships created during the run, so the seeded data set
+ * keeps its size. A delete drawn before any create has completed is sent as a create.
+ */
+final class SpaceshipWorkload {
+
+    enum Operation {
+        READ, LIST, SEARCH, CREATE, UPDATE, DELETE
+    }
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+    private static final String[] SORTS = {"id", "name", "model"};
+
+    private final String root;
+    private final long[] seededIds;
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+    private final Queue<Long> created = new ConcurrentLinkedQueue<>();
+
+    SpaceshipWorkload(String root, long[] seededIds, Map<Operation, Integer> mix) {
+        this.root = root;
+        this.seededIds = seededIds;
+        this.operations = mix.keySet().toArray(Operation[]::new);
+        this.cumulativeWeights = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += mix.get(operations[i]);
+            cumulativeWeights[i] = total;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("The mix has no operation with a positive weight: " + mix);
+        }
+    }
+
+    /**
+     * Parses a mix such as {@code read:60,list:20,create:20}. Weights are relative, they need not add up to 100.
+     */
+    static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected operation:weight, got '" + entry + "'");
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight for " + parts[0]);
+            }
+            weights.merge(Operation.valueOf(parts[0].trim().toUpperCase()), weight, Integer::sum);
+        }
+        return weights;
+    }
+
+    Operation next(RandomGenerator random) {
+        int draw = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        int i = 0;
+        while (cumulativeWeights[i] <= draw) {
+            i++;
+        }
+        Operation operation = operations[i];
+        return operation == Operation.DELETE && created.isEmpty() ? Operation.CREATE : operation;
+    }
+
+    /**
+     * The request for {@code operation}, or {@code null} if it is a delete and the spaceships created so far
+     * have all been taken by other deletes.
+     */
+    HttpRequest request(Operation operation, RandomGenerator random) {
+        return switch (operation) {
+            case READ -> get(root + "/" + seededId(random));
+            case LIST -> get(root + "?page=" + random.nextInt(seededIds.length / 20 + 1) + "&size=20&sort="
+                    + SORTS[random.nextInt(SORTS.length)] + "&direction=" + (random.nextBoolean() ? "asc" : "desc"));
+            case SEARCH -> get(root + "?size=20&sort=name&name="
+                    + URLEncoder.encode("ship " + (10 + random.nextInt(90)), StandardCharsets.UTF_8));
+            case CREATE -> json(root + "/create", "POST", spaceship(random));
+            case UPDATE -> json(root + "/" + seededId(random), "PUT", spaceship(random));
+            case DELETE -> {
+                Long id = created.poll();
+                yield id == null ? null : HttpRequest.newBuilder(URI.create(root + "/" + id)).timeout(TIMEOUT).DELETE().build();
+            }
+        };
+    }
+
+    /**
+     * Records the spaceship a successful create returned, as a target for a later delete.
+     */
+    void completed(Operation operation, HttpResponse<String> response) throws Exception {
+        if (operation == Operation.CREATE && response.statusCode() == 201) {
+            JsonNode body = MAPPER.readTree(response.body());
+            created.add(body.get("id").asLong());
+        }
+    }
+
+    private long seededId(RandomGenerator random) {
+        return seededIds[random.nextInt(seededIds.length)];
+    }
+
+    private static String spaceship(RandomGenerator random) {
+        int n = random.nextInt(1_000_000);
+        return "{\"name\":\"Load ship " + n + "\",\"model\":\"Model " + (n % 97) + "\"}";
+    }
+
+    private static HttpRequest get(String url) {
+        return HttpRequest.newBuilder(URI.create(url)).timeout(TIMEOUT).GET().build();
+    }
+
+    private static HttpRequest json(String url, String method, String body) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(TIMEOUT)
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+}
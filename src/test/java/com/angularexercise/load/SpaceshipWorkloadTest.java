@@ -0,0 +1,157 @@
+package com.angularexercise.load;
+
+import com.angularexercise.AngularExerciseApplication;
+import com.angularexercise.kafka.SpaceshipEventPublisher;
+import com.angularexercise.load.SpaceshipWorkload.Operation;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * End-to-end load harness, the baseline against which performance changes are judged. Boots the application
+ * on H2 and an embedded Kafka broker, seeds {@code load.rows} spaceships through the batch endpoint, and drives
+ * it with an {@link OpenLoopDriver open-model} request mix for a warm-up and then a measured period. Reports
+ * count, errors and latency percentiles per operation, and writes each operation's percentile distribution
+ * ({@code .hgrm}, plottable with HdrHistogram's plotter) to {@code load.report-dir}. All settings are system
+ * properties:
+ * <ul>
+ *     <li>{@code load.rate}: arrivals per second (20);</li>
+ *     <li>{@code load.mix}: relative weights of read, list, search, create, update and delete;</li>
+ *     <li>{@code load.arrivals}: {@code poisson} or {@code uniform};</li>
+ *     <li>{@code load.rows}, {@code load.warmup} and {@code load.duration} (seconds);</li>
+ *     <li>{@code load.virtual-threads}: serve requests on virtual threads.</li>
+ * </ul>
+ * Tagged {@code benchmark}, out of the default build. The default is a short run at a rate a single core
+ * sustains; e.g. {@code mvn -Pbenchmark test -Dtest=SpaceshipWorkloadTest -Dload.rate=500 -Dload.duration=60
+ * -Dload.rows=100000} for a longer one.
+ */
+@Tag("benchmark")
+@EmbeddedKafka(partitions = 1, topics = SpaceshipEventPublisher.TOPIC)
+class SpaceshipWorkloadTest {
+
+    private static final int ROWS = Integer.getInteger("load.rows", 10_000);
+    private static final double RATE = Double.parseDouble(System.getProperty("load.rate", "20"));
+    private static final Duration WARMUP = Duration.ofSeconds(Integer.getInteger("load.warmup", 5));
+    private static final Duration DURATION = Duration.ofSeconds(Integer.getInteger("load.duration", 10));
+    private static final String MIX = System.getProperty("load.mix", "read:40,list:20,search:15,create:10,update:10,delete:5");
+    private static final boolean POISSON = !"uniform".equalsIgnoreCase(System.getProperty("load.arrivals", "poisson"));
+    private static final boolean VIRTUAL_THREADS = Boolean.getBoolean("load.virtual-threads");
+    private static final Path REPORT_DIR = Path.of(System.getProperty("load.report-dir", "target/load-report"));
+    private static final int SEED_BATCH = 5000;
+
+    @Test
+    void testMixedWorkload(EmbeddedKafkaBroker broker) throws Exception {
+        Map<Operation, Integer> mix = SpaceshipWorkload.parseMix(MIX);
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(AngularExerciseApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:workload",
+                "--spring.kafka.bootstrap-servers=" + broker.getBrokersAsString(),
+                "--app.kafka.topic.partitions=1",
+                "--app.virtual-threads.enabled=" + VIRTUAL_THREADS,
+                "--logging.level.root=WARN");
+             HttpClient client = HttpClient.newBuilder()
+                     // HTTP/1.1: one request per connection at a time, as browsers behind a proxy would send them
+                     .version(HttpClient.Version.HTTP_1_1)
+                     .executor(Executors.newVirtualThreadPerTaskExecutor())
+                     .build()) {
+            String root = "http://localhost:" + ((ServletWebServerApplicationContext) context).getWebServer().getPort() + "/api/spaceships";
+            context.getBean(JdbcTemplate.class).update("DELETE FROM spaceships");
+            long[] seededIds = seed(client, root);
+            assertEquals(ROWS, seededIds.length);
+
+            SpaceshipWorkload workload = new SpaceshipWorkload(root, seededIds, mix);
+            OpenLoopDriver driver = new OpenLoopDriver(client, workload, RATE, POISSON);
+            driver.run(WARMUP, 1);
+            OpenLoopDriver.Run run = driver.run(DURATION, 2);
+
+            report(run);
+            assertEquals(0, run.errorCount(), "Failed requests: " + run.errors());
+            mix.forEach((operation, weight) -> {
+                if (weight > 0) {
+                    assertTrue(run.latencies().get(operation).getTotalCount() > 0, operation + " was never sent");
+                }
+            });
+        }
+    }
+
+    private static long[] seed(HttpClient client, String root) throws IOException, InterruptedException {
+        ObjectMapper mapper = new ObjectMapper();
+        long[] ids = new long[ROWS];
+        for (int from = 0; from < ROWS; from += SEED_BATCH) {
+            String body = IntStream.range(from, Math.min(ROWS, from + SEED_BATCH))
+                    .mapToObj(i -> "{\"name\":\"Spaceship " + i + "\",\"model\":\"Model " + (i % 97) + "\"}")
+                    .collect(Collectors.joining(",", "[", "]"));
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(root + "/batch"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(201, response.statusCode(), response.body());
+            int i = from;
+            for (JsonNode spaceship : mapper.readTree(response.body())) {
+                ids[i++] = spaceship.get("id").asLong();
+            }
+        }
+        return ids;
+    }
+
+    private static void report(OpenLoopDriver.Run run) throws IOException {
+        Files.createDirectories(REPORT_DIR);
+        System.out.printf("%d rows, %s arrivals at %.0f/s for %ds (%d sent), %s threads, mix %s%n",
+                ROWS, POISSON ? "Poisson" : "uniform", RATE, DURATION.toSeconds(), run.arrivals(),
+                VIRTUAL_THREADS ? "virtual" : "platform", MIX);
+        System.out.printf("%-8s %8s %7s %9s %9s %9s %9s %9s %9s%n",
+                "op", "count", "errors", "mean ms", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        Histogram all = new Histogram(3);
+        for (Map.Entry<Operation, Histogram> entry : run.latencies().entrySet()) {
+            Histogram latency = entry.getValue();
+            long errors = run.errors().get(entry.getKey());
+            if (latency.getTotalCount() + errors == 0) {
+                continue;
+            }
+            all.add(latency);
+            printRow(entry.getKey().name().toLowerCase(), latency, errors);
+            write(entry.getKey().name().toLowerCase(), latency);
+        }
+        printRow("all", all, run.errorCount());
+        write("all", all);
+        System.out.println("Percentile distributions written to " + REPORT_DIR.toAbsolutePath());
+    }
+
+    private static void printRow(String operation, Histogram latency, long errors) {
+        System.out.printf("%-8s %8d %7d %9.2f %9.2f %9.2f %9.2f %9.2f %9.2f%n", operation, latency.getTotalCount(), errors,
+                latency.getMean() / 1000, latency.getValueAtPercentile(50) / 1000.0, latency.getValueAtPercentile(90) / 1000.0,
+                latency.getValueAtPercentile(99) / 1000.0, latency.getValueAtPercentile(99.9) / 1000.0,
+                latency.getMaxValue() / 1000.0);
+    }
+
+    private static void write(String operation, Histogram latency) throws IOException {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(REPORT_DIR.resolve(operation + ".hgrm")))) {
+            // Recorded in microseconds, reported in milliseconds
+            latency.outputPercentileDistribution(out, 1000.0);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.angularexercise.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NameTrigramsTest {
+
+    @Test
+    void testTrigramsAreLowerCasedSubstrings() {
+        assertEquals(Set.of("ent", "nte", "ter"), NameTrigrams.of("ENTer"));
+    }
+
+    @Test
+    void testShortAndNullNamesHaveNoTrigrams() {
+        assertTrue(NameTrigrams.of("ab").isEmpty());
+        assertTrue(NameTrigrams.of(null).isEmpty());
+    }
+
+    @Test
+    void testOnlyTermsOfThreeOrMoreCharactersAreIndexable() {
+        assertFalse(NameTrigrams.isIndexable("De"));
+        assertTrue(NameTrigrams.isIndexable("Def"));
+    }
+
+    @Test
+    void testContainsPatternEscapesWildcards() {
+        assertEquals("%50!% off!_now!!%", NameTrigrams.containsPattern("50% OFF_now!"));
+    }
+
+    @Test
+    void testRarestTrigramMustBeUnderTheCandidateCap() {
+        List<String> trigrams = List.of("ent", "nte", "ter");
+
+        assertEquals("nte", NameTrigrams.rarest(trigrams, List.of(9000, 12, 40)));
+        assertEquals("ter", NameTrigrams.rarest(trigrams, List.of(9000, 12, 0)));
+        assertNull(NameTrigrams.rarest(trigrams, List.of(NameTrigrams.MAX_CANDIDATES, NameTrigrams.MAX_CANDIDATES, NameTrigrams.MAX_CANDIDATES)));
+    }
+
+    @Test
+    void testLongTermsProbeABoundedNumberOfTrigrams() {
+        assertEquals(List.of("ent", "nte", "ter"), NameTrigrams.probed("ENTer"));
+        assertEquals(NameTrigrams.MAX_PROBED, NameTrigrams.probed("Constitution Class refit 2").size());
+    }
+}
@@ -0,0 +1,33 @@
+package com.angularexercise.model;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpaceshipCursorTest {
+
+    @Test
+    void testCursorRoundTrip() {
+        SpaceshipCursor cursor = new SpaceshipCursor("name", "desc", "Enterprise/NCC-1701 ü", 42L);
+
+        assertEquals(cursor, SpaceshipCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void testCursorRoundTripWithNullValue() {
+        SpaceshipCursor cursor = new SpaceshipCursor("model", "asc", null, 7L);
+
+        assertEquals(cursor, SpaceshipCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void testCursorIsUrlSafe() {
+        String token = new SpaceshipCursor("name", "asc", "???>>>", Long.MAX_VALUE).encode();
+
+        assertTrue(token.matches("[A-Za-z0-9_-]+"));
+    }
+
+    @Test
+    void testInvalidCursorIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> SpaceshipCursor.decode("not-a-cursor"));
+    }
+}
@@ -0,0 +1,218 @@
+package com.angularexercise.push;
+
+import com.angularexercise.kafka.SpaceshipEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpaceshipChangeBroadcasterTest {
+
+    // Drain tasks wait here until the test runs them, like a client that has not been written to yet
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+    private final SpaceshipChangeBroadcaster broadcaster = new SpaceshipChangeBroadcaster(tasks::add, new ObjectMapper());
+
+    @Test
+    void testSubscriberReceivesUpsertsAndRemovals() {
+        RecordingEmitter client = subscribe(null);
+
+        broadcaster.publish(created(1L, "Enterprise"));
+        broadcaster.publishDeletion(2L);
+        runTasks();
+
+        assertEquals(List.of(
+                "event:spaceship\ndata:{\"id\":1,\"name\":\"Enterprise\",\"model\":\"Galaxy Class\",\"version\":0}\n\n",
+                "event:spaceship-removed\ndata:2\n\n"), client.events);
+    }
+
+    @Test
+    void testPendingChangesOfOneSpaceshipAreCoalesced() {
+        RecordingEmitter client = subscribe(null);
+
+        broadcaster.publish(created(1L, "Enterprise"));
+        broadcaster.publish(renamed(1L, "Enterprise-A", 1));
+        broadcaster.publish(created(2L, "Voyager"));
+        runTasks();
+
+        assertEquals(2, client.events.size());
+        assertTrue(client.events.get(0).contains("Enterprise-A"));
+        assertTrue(client.events.get(1).contains("Voyager"));
+    }
+
+    @Test
+    void testSubscriberThatFallsBehindIsToldToResync() {
+        ReflectionTestUtils.setField(broadcaster, "bufferSize", 3);
+        RecordingEmitter client = subscribe(null);
+
+        // The drain task does not get to run while the changes arrive
+        for (long id = 1; id <= 5; id++) {
+            broadcaster.publish(created(id, "Ship " + id));
+        }
+        runTasks();
+        // Changes after the overflow are dropped too: the reload that follows the resync covers them
+        assertEquals(List.of("event:resync\ndata:\n\n"), client.events);
+
+        broadcaster.publish(created(6L, "Ship 6"));
+        runTasks();
+        assertEquals(2, client.events.size());
+        assertTrue(client.events.get(1).contains("Ship 6"));
+    }
+
+    @Test
+    void testNameFilterSelectsSpaceshipsAndReportsRenamesOutOfIt() {
+        RecordingEmitter client = subscribe("ENTER");
+
+        broadcaster.publish(created(1L, "Enterprise"));
+        broadcaster.publish(created(2L, "Voyager"));
+        runTasks();
+        broadcaster.publish(renamed(1L, "Excelsior", 1));
+        runTasks();
+
+        assertEquals(2, client.events.size());
+        assertTrue(client.events.get(0).contains("\"name\":\"Enterprise\""));
+        assertEquals("event:spaceship-removed\ndata:1\n\n", client.events.get(1));
+    }
+
+    @Test
+    void testFailedWriteUnregistersSubscriber() {
+        RecordingEmitter client = subscribe(null);
+        client.failing = true;
+
+        broadcaster.publish(created(1L, "Enterprise"));
+        runTasks();
+        broadcaster.publish(created(2L, "Voyager"));
+
+        assertEquals(0, broadcaster.subscriberCount());
+        assertTrue(tasks.isEmpty());
+    }
+
+    @Test
+    void testSubscriberStuckInAWriteIsDropped() throws Exception {
+        ReflectionTestUtils.setField(broadcaster, "sendTimeoutMillis", 50L);
+        RecordingEmitter client = subscribe(null);
+        client.blocked = new CountDownLatch(1);
+
+        // A client that stopped reading: the write blocks until the connection times out
+        broadcaster.publish(created(1L, "Enterprise"));
+        Thread writer = Thread.ofVirtual().start(tasks.poll());
+        Thread.sleep(100);
+        broadcaster.publish(created(2L, "Voyager"));
+
+        assertEquals(0, broadcaster.subscriberCount());
+        client.blocked.countDown();
+        writer.join();
+        runTasks();
+        assertInstanceOf(TimeoutException.class, client.completedWith);
+        assertEquals(1, client.events.size());
+    }
+
+    @Test
+    void testRejectsSubscribersBeyondLimit() {
+        ReflectionTestUtils.setField(broadcaster, "maxSubscribers", 2);
+        subscribe(null);
+        subscribe("enterprise");
+
+        assertFalse(broadcaster.register(new RecordingEmitter(), null));
+        assertTrue(broadcaster.subscribe(null).isEmpty());
+        assertEquals(2, broadcaster.subscriberCount());
+    }
+
+    /**
+     * Heap held by idle subscriptions on the application side: emitter, callbacks and empty buffer. Tomcat's
+     * per-connection state comes on top, see SpaceshipChangeStreamIntegrationTest.
+     */
+    @Test
+    void testIdleSubscribersAreCheap() {
+        int count = 50_000;
+        long before = usedHeapAfterGc();
+        for (int i = 0; i < count; i++) {
+            assertTrue(broadcaster.subscribe(i % 2 == 0 ? null : "ship").isPresent());
+        }
+        tasks.clear();
+        long perSubscriber = (usedHeapAfterGc() - before) / count;
+
+        System.out.printf("%d idle subscribers: about %d bytes each%n", count, perSubscriber);
+        assertEquals(count, broadcaster.subscriberCount());
+        assertTrue(perSubscriber < 4096, perSubscriber + " bytes per subscriber");
+    }
+
+    private RecordingEmitter subscribe(String name) {
+        RecordingEmitter emitter = new RecordingEmitter();
+        assertTrue(broadcaster.register(emitter, name));
+        runTasks();
+        emitter.events.clear();
+        return emitter;
+    }
+
+    private void runTasks() {
+        while (!tasks.isEmpty()) {
+            tasks.poll().run();
+        }
+    }
+
+    private static SpaceshipEvent created(long id, String name) {
+        return new SpaceshipEvent(SpaceshipEvent.Operation.CREATED, id, 0, Instant.now(), name, "Galaxy Class",
+                List.of(SpaceshipEvent.Field.NAME, SpaceshipEvent.Field.MODEL));
+    }
+
+    private static SpaceshipEvent renamed(long id, String name, long version) {
+        return new SpaceshipEvent(SpaceshipEvent.Operation.UPDATED, id, version, Instant.now(), name, "Galaxy Class",
+                List.of(SpaceshipEvent.Field.NAME));
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final List<String> events = new ArrayList<>();
+        private boolean failing;
+        private volatile CountDownLatch blocked;
+        private Throwable completedWith;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (failing) {
+                throw new IOException("Broken pipe");
+            }
+            if (blocked != null) {
+                try {
+                    blocked.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+            Set<ResponseBodyEmitter.DataWithMediaType> parts = builder.build();
+            String event = parts.stream().map(part -> part.getData().toString()).collect(Collectors.joining());
+            if (!event.startsWith(":")) {
+                events.add(event);
+            }
+        }
+
+        @Override
+        public void completeWithError(Throwable ex) {
+            completedWith = ex;
+            super.completeWithError(ex);
+        }
+    }
+}
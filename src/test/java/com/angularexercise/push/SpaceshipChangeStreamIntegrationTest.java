@@ -0,0 +1,157 @@
+package com.angularexercise.push;
+
+import com.angularexercise.kafka.SpaceshipEventPublisher;
+import com.angularexercise.model.Spaceship;
+import com.angularexercise.service.SpaceshipService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Subscribes over real HTTP connections and drives changes through the service, the outbox, Kafka and
+ * {@link com.angularexercise.kafka.SpaceshipConsumer}. The idle-subscriber test, which measures the heap each
+ * subscriber holds, is tagged {@code benchmark} and defaults to a quick run; the full one is
+ * {@code mvn -Pbenchmark test -Dtest=SpaceshipChangeStreamIntegrationTest -Dpush.subscribers=50000}, which
+ * needs a file descriptor limit above twice that (client and server share the process).
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "app.kafka.topic.partitions=1")
+@EmbeddedKafka(partitions = 1, topics = SpaceshipEventPublisher.TOPIC, bootstrapServersProperty = "spring.kafka.bootstrap-servers")
+class SpaceshipChangeStreamIntegrationTest {
+
+    private static final int IDLE_SUBSCRIBERS = Integer.getInteger("push.subscribers", 1000);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private SpaceshipService spaceshipService;
+
+    @Autowired
+    private SpaceshipChangeBroadcaster broadcaster;
+
+    @Test
+    void testChangesArePushedToMatchingSubscribers() throws Exception {
+        try (ExecutorService readers = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient client = HttpClient.newBuilder().executor(readers).build();
+            int before = broadcaster.subscriberCount();
+            BlockingQueue<String> everything = subscribe(client, readers, "");
+            BlockingQueue<String> probes = subscribe(client, readers, "?name=PUSH%20PROBE");
+            awaitSubscribers(before + 2);
+
+            spaceshipService.createSpaceship(new Spaceship("Unrelated Push Ship", "Push Class"));
+            Spaceship probe = spaceshipService.createSpaceship(new Spaceship("Push Probe", "Push Class"));
+            nextEvent(everything, "spaceship", "Unrelated Push Ship");
+            // The filtered subscriber skips the unrelated ship: the first event it gets is the probe
+            assertTrue(nextEvent(probes, null, null).contains("\"id\":" + probe.getId() + ",\"name\":\"Push Probe\""));
+
+            spaceshipService.updateSpaceship(probe.getId(), new Spaceship("Renamed Ship", "Push Class"));
+            assertEquals(probe.getId().toString(), nextEvent(probes, "spaceship-removed", null));
+            nextEvent(everything, "spaceship", "Renamed Ship");
+
+            spaceshipService.deleteSpaceship(probe.getId());
+            assertEquals(probe.getId().toString(), nextEvent(everything, "spaceship-removed", null));
+        }
+    }
+
+    @Test
+    @Tag("benchmark")
+    void testManyIdleSubscribersAllReceiveAChange() throws Exception {
+        try (ExecutorService readers = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient client = HttpClient.newBuilder().executor(readers).build();
+            int before = broadcaster.subscriberCount();
+            long heapBefore = usedHeapAfterGc();
+            int threadsBefore = Thread.activeCount();
+            List<BlockingQueue<String>> subscribers = new ArrayList<>(IDLE_SUBSCRIBERS);
+            for (int i = 0; i < IDLE_SUBSCRIBERS; i++) {
+                subscribers.add(subscribe(client, readers, ""));
+            }
+            awaitSubscribers(before + IDLE_SUBSCRIBERS);
+            long heapPerSubscriber = (usedHeapAfterGc() - heapBefore) / IDLE_SUBSCRIBERS;
+            System.out.printf("%d idle subscribers: about %d bytes of heap each (client and server), %d platform threads more%n",
+                    IDLE_SUBSCRIBERS, heapPerSubscriber, Thread.activeCount() - threadsBefore);
+
+            spaceshipService.createSpaceship(new Spaceship("Broadcast Ship", "Push Class"));
+            for (BlockingQueue<String> subscriber : subscribers) {
+                nextEvent(subscriber, "spaceship", "Broadcast Ship");
+            }
+        }
+    }
+
+    /**
+     * Reads the stream on a virtual thread and queues its lines; the caller polls the queue.
+     */
+    private BlockingQueue<String> subscribe(HttpClient client, ExecutorService readers, String query) {
+        BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/spaceships/changes" + query))
+                .header("Accept", "text/event-stream").build();
+        readers.submit(() -> {
+            HttpResponse<Stream<String>> response = client.send(request, HttpResponse.BodyHandlers.ofLines());
+            assertEquals(200, response.statusCode());
+            response.body().forEach(lines::add);
+            return null;
+        });
+        return lines;
+    }
+
+    /**
+     * Skips heartbeats and other events until one named {@code event} whose data contains {@code marker} arrives
+     * (null matches anything), and returns its data. Fails on any other event when {@code marker} is null.
+     */
+    private static String nextEvent(BlockingQueue<String> lines, String event, String marker) throws InterruptedException {
+        String name = null;
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (true) {
+            String line = lines.poll(Math.max(1, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            assertNotNull(line, "no " + event + " event containing " + marker + " within 30 seconds");
+            if (line.startsWith("event:")) {
+                name = line.substring("event:".length());
+            } else if (line.startsWith("data:") && name != null) {
+                String data = line.substring("data:".length());
+                if (marker == null) {
+                    if (event != null) {
+                        assertEquals(event, name, data);
+                    }
+                    return data;
+                }
+                if (name.equals(event) && data.contains(marker)) {
+                    return data;
+                }
+                name = null;
+            }
+        }
+    }
+
+    private void awaitSubscribers(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (broadcaster.subscriberCount() < count) {
+            assertTrue(System.currentTimeMillis() < deadline, broadcaster.subscriberCount() + " of " + count + " subscribers connected");
+            Thread.sleep(20);
+        }
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,99 @@
+package com.angularexercise.readmodel;
+
+import com.angularexercise.kafka.SpaceshipEventPublisher;
+import com.angularexercise.model.Spaceship;
+import com.angularexercise.repository.SpaceshipRepository;
+import com.angularexercise.service.SpaceshipService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"app.read-model.enabled=true", "app.kafka.topic.partitions=1"})
+@EmbeddedKafka(partitions = 1, topics = SpaceshipEventPublisher.TOPIC, bootstrapServersProperty = "spring.kafka.bootstrap-servers")
+class SpaceshipReadModelIntegrationTest {
+
+    @Autowired
+    private SpaceshipService spaceshipService;
+
+    @Autowired
+    private SpaceshipReadModel readModel;
+
+    @Autowired
+    private SpaceshipRepository spaceshipRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testWritesReachTheReadModelThroughTheChangeStream() throws Exception {
+        awaitUntil(readModel::isServing);
+        Spaceship created = spaceshipService.createSpaceship(new Spaceship("Read Model Probe", "Probe Class"));
+        awaitUntil(() -> names("probe").equals(List.of("Read Model Probe")));
+
+        spaceshipService.updateSpaceship(created.getId(), new Spaceship("Read Model Probe-A", "Probe Class"));
+        awaitUntil(() -> names("probe").equals(List.of("Read Model Probe-A")));
+
+        // Answered from memory: a row removed behind the application's back is still listed
+        jdbcTemplate.update("DELETE FROM spaceships WHERE id = ?", created.getId());
+        assertEquals(List.of("Read Model Probe-A"), names("probe"));
+
+        jdbcTemplate.update("INSERT INTO spaceships (id, name, model, version) VALUES (?, ?, ?, 1)",
+                created.getId(), "Read Model Probe-A", "Probe Class");
+        spaceshipService.deleteSpaceship(created.getId());
+        awaitUntil(() -> names("probe").isEmpty());
+    }
+
+    @Test
+    void testReadModelAnswersLikeTheDatabase() throws Exception {
+        awaitUntil(readModel::isServing);
+        spaceshipService.createSpaceships(IntStream.range(0, 300)
+                .mapToObj(i -> new Spaceship("Parity " + (i * 7919 % 300), i % 5 == 0 ? null : "Model " + (i % 7)))
+                .collect(Collectors.toList()));
+        long rows = spaceshipRepository.count();
+        awaitUntil(() -> readModel.size() == rows);
+
+        for (String sort : List.of("id", "name", "model")) {
+            for (Sort.Direction direction : Sort.Direction.values()) {
+                for (String name : new String[]{null, "parity 1", "ARITY 29"}) {
+                    PageRequest page = PageRequest.of(2, 25, Sort.by(direction, sort).and(Sort.by(direction, "id")));
+                    Page<Spaceship> expected = name == null ? spaceshipRepository.findAll(page)
+                            : spaceshipRepository.findByNameContainingIgnoreCase(name, page);
+                    Page<Spaceship> actual = readModel.findAll(name, sort, direction, PageRequest.of(2, 25));
+
+                    String query = sort + " " + direction + " name=" + name;
+                    assertEquals(expected.getTotalElements(), actual.getTotalElements(), query);
+                    assertEquals(ids(expected), ids(actual), query);
+                }
+            }
+        }
+    }
+
+    private List<String> names(String filter) {
+        return spaceshipService.getAllSpaceships(filter, "id", "asc", PageRequest.of(0, 10)).getContent().stream()
+                .map(Spaceship::getName).toList();
+    }
+
+    private static List<Long> ids(Page<Spaceship> page) {
+        return page.getContent().stream().map(Spaceship::getId).toList();
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not met within 30 seconds");
+            Thread.sleep(50);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.angularexercise.readmodel;
+
+import com.angularexercise.kafka.SpaceshipEvent;
+import com.angularexercise.model.Spaceship;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpaceshipReadModelTest {
+
+    private static final int BENCHMARK_SPACESHIPS = 100_000;
+    private static final int BENCHMARK_QUERIES = 20_000;
+
+    private final SpaceshipReadModel readModel = rebuilt(List.of(
+            ship(1L, "Voyager", "Intrepid Class", 0),
+            ship(2L, "Enterprise", "Galaxy Class", 0),
+            ship(3L, "Defiant", null, 0),
+            ship(4L, "enterprise-E", "Sovereign Class", 0)));
+
+    @Test
+    void testDisabledModelNeverServes() {
+        SpaceshipReadModel disabled = new SpaceshipReadModel(false, 1000);
+        disabled.rebuild(consumer -> 0);
+        disabled.apply(event(1L, "Enterprise", "Galaxy Class", 0));
+
+        assertFalse(disabled.isServing());
+        assertEquals(0, disabled.size());
+    }
+
+    @Test
+    void testSortsByEveryIndexInBothDirections() {
+        assertEquals(List.of(1L, 2L, 3L, 4L), ids(readModel.findAll(null, "id", Sort.Direction.ASC, PageRequest.of(0, 10))));
+        assertEquals(List.of(4L, 3L, 2L, 1L), ids(readModel.findAll(null, "id", Sort.Direction.DESC, PageRequest.of(0, 10))));
+        assertEquals(List.of(3L, 2L, 1L, 4L), ids(readModel.findAll(null, "name", Sort.Direction.ASC, PageRequest.of(0, 10))));
+        // Nulls first when ascending, last when descending, as the database sorts them
+        assertEquals(List.of(3L, 2L, 1L, 4L), ids(readModel.findAll(null, "model", Sort.Direction.ASC, PageRequest.of(0, 10))));
+        assertEquals(List.of(4L, 1L, 2L, 3L), ids(readModel.findAll(null, "model", Sort.Direction.DESC, PageRequest.of(0, 10))));
+    }
+
+    @Test
+    void testFiltersByNameIgnoringCaseAndPages() {
+        Page<Spaceship> page = readModel.findAll("ENTER", "id", Sort.Direction.ASC, PageRequest.of(1, 1));
+
+        assertEquals(List.of(4L), ids(page));
+        assertEquals(2, page.getTotalElements());
+        assertEquals(2, page.getTotalPages());
+        assertEquals(Sort.by(Sort.Direction.ASC, "id"), page.getSort());
+    }
+
+    @Test
+    void testUnfilteredPageReportsTotalWithoutFullWalk() {
+        Page<Spaceship> page = readModel.findAll(null, "name", Sort.Direction.ASC, PageRequest.of(0, 2));
+
+        assertEquals(List.of(3L, 2L), ids(page));
+        assertEquals(4, page.getTotalElements());
+    }
+
+    @Test
+    void testUpdateMovesSpaceshipInSecondaryIndexes() {
+        readModel.apply(event(1L, "Archer", "NX Class", 1));
+
+        assertEquals(List.of(1L, 3L, 2L, 4L), ids(readModel.findAll(null, "name", Sort.Direction.ASC, PageRequest.of(0, 10))));
+        assertEquals(4, readModel.size());
+        assertEquals(1L, readModel.findAll("archer", "id", Sort.Direction.ASC, PageRequest.of(0, 10)).getContent().get(0).getVersion());
+    }
+
+    @Test
+    void testStaleEventIsIgnored() {
+        readModel.apply(event(2L, "Enterprise-A", "Constitution Class", 2));
+        readModel.apply(event(2L, "Enterprise-Old", "Galaxy Class", 1));
+
+        assertEquals("Enterprise-A", readModel.findAll("enterprise-", "id", Sort.Direction.ASC, PageRequest.of(0, 10)).getContent().get(0).getName());
+    }
+
+    @Test
+    void testRemoveDropsSpaceshipFromEveryIndex() {
+        readModel.remove(2L, 1);
+
+        assertEquals(List.of(3L, 1L, 4L), ids(readModel.findAll(null, "name", Sort.Direction.ASC, PageRequest.of(0, 10))));
+        assertEquals(List.of(3L, 1L, 4L), ids(readModel.findAll(null, "model", Sort.Direction.ASC, PageRequest.of(0, 10))));
+        assertEquals(3, readModel.size());
+    }
+
+    @Test
+    void testEventsOlderThanTheDeletionDoNotBringTheSpaceshipBack() {
+        readModel.remove(2L, 2);
+        readModel.apply(event(2L, "Enterprise-A", "Galaxy Class", 1));
+        // Deleted before its creation arrived
+        readModel.remove(5L, 1);
+        readModel.apply(event(5L, "Excelsior", "Excelsior Class", 0));
+
+        assertEquals(List.of(1L, 3L, 4L), ids(readModel.findAll(null, "id", Sort.Direction.ASC, PageRequest.of(0, 10))));
+        assertEquals(3, readModel.size());
+    }
+
+    @Test
+    void testServesOnlyWhileSubscribedToEveryPartition() {
+        SpaceshipReadModel model = new SpaceshipReadModel(true, 1000);
+        model.rebuild(consumer -> 0);
+        assertFalse(model.isServing());
+
+        model.setSubscribed(true);
+        assertTrue(model.isServing());
+        model.setSubscribed(false);
+        assertFalse(model.isServing());
+    }
+
+    @Test
+    void testAwaitSubscribedWakesUpOnSubscription() throws Exception {
+        SpaceshipReadModel model = new SpaceshipReadModel(true, 1000);
+        assertFalse(model.awaitSubscribed(10));
+
+        Thread subscriber = new Thread(() -> model.setSubscribed(true));
+        subscriber.start();
+        assertTrue(model.awaitSubscribed(10_000));
+        subscriber.join();
+    }
+
+    @Test
+    void testRebuildKeepsNewerEventsAndDeletions() {
+        SpaceshipReadModel model = new SpaceshipReadModel(true, 1000);
+        model.setSubscribed(true);
+        model.rebuild(consumer -> {
+            // Consumed while the snapshot is being read
+            model.apply(event(1L, "Enterprise-A", "Constitution Class", 2));
+            model.remove(2L, 1);
+            consumer.accept(ship(1L, "Enterprise", "Constitution Class", 1));
+            consumer.accept(ship(2L, "Voyager", "Intrepid Class", 0));
+            assertFalse(model.isServing());
+            return 2;
+        });
+
+        assertTrue(model.isServing());
+        List<Spaceship> content = model.findAll(null, "id", Sort.Direction.ASC, PageRequest.of(0, 10)).getContent();
+        assertEquals(1, content.size());
+        assertEquals("Enterprise-A", content.get(0).getName());
+    }
+
+    /**
+     * Micro-benchmark: first page of 20, sorted by name, against a model of 100k spaceships, on one thread and
+     * on every core. Unfiltered pages walk only the entries they return. Run with {@code -Pbenchmark}.
+     */
+    @Test
+    @Tag("benchmark")
+    void testPageQueryLatencyAndScaling() throws Exception {
+        SpaceshipReadModel model = rebuilt(LongStream.rangeClosed(1, BENCHMARK_SPACESHIPS)
+                .mapToObj(id -> ship(id, "Ship " + Long.toHexString(id * 2654435761L), "Model " + (id % 10), 0))
+                .toList());
+        PageRequest page = PageRequest.of(0, 20);
+        runQueries(model, page, BENCHMARK_QUERIES);
+
+        long start = System.nanoTime();
+        runQueries(model, page, BENCHMARK_QUERIES);
+        double singleThreadedMicros = (System.nanoTime() - start) / 1000.0 / BENCHMARK_QUERIES;
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            start = System.nanoTime();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> runQueries(model, page, BENCHMARK_QUERIES)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("Read model page query: %.1f us on 1 thread, %.0f queries/s on %d threads (%.0f queries/s on 1)%n",
+                singleThreadedMicros, threads * BENCHMARK_QUERIES / seconds, threads, 1e6 / singleThreadedMicros);
+        assertTrue(singleThreadedMicros < 1000, "page query took " + singleThreadedMicros + " us");
+    }
+
+    private static void runQueries(SpaceshipReadModel model, PageRequest page, int queries) {
+        for (int i = 0; i < queries; i++) {
+            assertEquals(20, model.findAll(null, "name", Sort.Direction.ASC, page).getNumberOfElements());
+        }
+    }
+
+    private static SpaceshipReadModel rebuilt(List<Spaceship> spaceships) {
+        SpaceshipReadModel model = new SpaceshipReadModel(true, 1000);
+        model.setSubscribed(true);
+        model.rebuild(consumer -> {
+            spaceships.forEach(consumer);
+            return spaceships.size();
+        });
+        return model;
+    }
+
+    private static Spaceship ship(long id, String name, String model, long version) {
+        Spaceship spaceship = new Spaceship(id, name, model);
+        spaceship.setVersion(version);
+        return spaceship;
+    }
+
+    private static SpaceshipEvent event(long id, String name, String model, long version) {
+        return new SpaceshipEvent(SpaceshipEvent.Operation.UPDATED, id, version, Instant.now(), name, model, List.of());
+    }
+
+    private static List<Long> ids(Page<Spaceship> page) {
+        return page.getContent().stream().map(Spaceship::getId).toList();
+    }
+}
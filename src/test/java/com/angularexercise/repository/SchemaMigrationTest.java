@@ -0,0 +1,68 @@
+package com.angularexercise.repository;
+
+import com.angularexercise.model.NameTrigrams;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.configuration.FluentConfiguration;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Migrates a database that already holds spaceships written by an earlier schema, as a deployed one does.
+ */
+class SchemaMigrationTest {
+
+    @Test
+    void testSequenceStartsAfterTheIdentityIds() {
+        DataSource dataSource = database();
+        migrate(dataSource, "3");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("INSERT INTO spaceships (name, model) VALUES ('Enterprise', 'NCC-1701'), ('Voyager', 'NCC-74656')");
+        jdbcTemplate.update("INSERT INTO spaceships (id, name, model) VALUES (120, 'Defiant', 'NX-74205')");
+
+        migrate(dataSource, null);
+
+        // The pooled optimizer hands out the 49 ids below the value it gets
+        long next = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR spaceships_seq", Long.class);
+        assertEquals(120, next - 50);
+    }
+
+    @Test
+    void testSpaceshipsWrittenBeforeTheTrigramIndexAreIndexed() {
+        DataSource dataSource = database();
+        migrate(dataSource, "2");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        for (int i = 0; i < 1200; i++) {
+            jdbcTemplate.update("INSERT INTO spaceships (name, model) VALUES (?, 'Legacy')", "Legacy Ship " + i);
+        }
+        jdbcTemplate.update("INSERT INTO spaceships (name, model) VALUES ('Ö-Class Ωmega', NULL), ('XY', NULL)");
+
+        migrate(dataSource, null);
+
+        long omega = jdbcTemplate.queryForObject("SELECT id FROM spaceships WHERE model IS NULL AND name <> 'XY'", Long.class);
+        assertEquals(NameTrigrams.of("Ö-Class Ωmega"), Set.copyOf(jdbcTemplate.queryForList(
+                "SELECT trigram FROM spaceship_name_trigrams WHERE spaceship_id = ?", String.class, omega)));
+        assertEquals(1200, jdbcTemplate.queryForObject(
+                "SELECT COUNT(DISTINCT spaceship_id) FROM spaceship_name_trigrams WHERE trigram = 'leg'", Integer.class));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(DISTINCT spaceship_id) FROM spaceship_name_trigrams WHERE trigram = '999'", Integer.class));
+    }
+
+    private static DataSource database() {
+        return new DriverManagerDataSource("jdbc:h2:mem:migration-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+    }
+
+    private static void migrate(DataSource dataSource, String target) {
+        FluentConfiguration configuration = Flyway.configure().dataSource(dataSource);
+        if (target != null) {
+            configuration.target(target);
+        }
+        configuration.load().migrate();
+    }
+}
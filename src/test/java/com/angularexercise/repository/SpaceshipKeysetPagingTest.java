@@ -0,0 +1,129 @@
+package com.angularexercise.repository;
+
+import com.angularexercise.model.NameTrigrams;
+import com.angularexercise.model.Spaceship;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Deep paging harness: {@code paging.rows} spaceships (200,000) named after 20 classes and their id, with 97
+ * models, one in five without. For every keyset sort field, unfiltered and ascending, and filtered on "12" (a term
+ * too short for the trigram index, so a LIKE on the name) in both directions, times the window of {@code paging.size} rows (20) at several depths through
+ * {@link SpaceshipRepository#findSliceAfter} and through the OFFSET query of the same order, as medians of
+ * {@code paging.repetitions} runs (15) after a warm-up. Both must return the same rows.
+ * <p>
+ * H2's indexes count the rows under each page, so an unfiltered OFFSET in index order skips to its row
+ * without reading the ones before: both queries stay flat with depth, and the keyset query pays for the
+ * Criteria query it builds. A filtered OFFSET has to test every row before the window, so there the keyset
+ * query, which seeks to its position, must be faster at the deepest window.
+ * <p>
+ * Before the key bound in {@code SpaceshipRepositoryImpl.after}, the deepest filtered keyset window sorted by model
+ * cost as much as the OFFSET one, 229 ms against 226 ms; before the descending indexes of V9, a filtered
+ * descending window by name cost 30 ms or more by either query at any depth.
+ * Tagged {@code benchmark}, out of the default build; the keyset queries' results are covered by
+ * {@link SpaceshipRepositoryTest}. {@code mvn -Pbenchmark test -Dtest=SpaceshipKeysetPagingTest -Dpaging.rows=1000000}.
+ */
+@DataJpaTest
+@Tag("benchmark")
+class SpaceshipKeysetPagingTest {
+
+    private static final int ROWS = Integer.getInteger("paging.rows", 200_000);
+    private static final int SIZE = Integer.getInteger("paging.size", 20);
+    private static final int REPETITIONS = Integer.getInteger("paging.repetitions", 15);
+    private static final String FILTER = "12";
+
+    @Autowired
+    private SpaceshipRepository spaceshipRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testKeysetWindowsStayFlatWithDepthAndBeatAFilteredOffset() {
+        load();
+        String pattern = NameTrigrams.containsPattern(FILTER);
+        int matching = (int) spaceshipRepository.countByNameLike(pattern);
+        System.out.printf("%d rows, %d matching \"%s\", windows of %d%n%-6s %-5s %-7s %9s %11s %11s%n",
+                ROWS, matching, FILTER, SIZE, "sort", "dir", "filter", "offset", "keyset ms", "offset ms");
+
+        for (String sort : SpaceshipRepository.KEYSET_SORT_FIELDS.stream().sorted().toList()) {
+            measure(sort, Sort.Direction.ASC, null, ROWS);
+            for (Sort.Direction direction : Sort.Direction.values()) {
+                double[] deepest = measure(sort, direction, FILTER, matching);
+                assertTrue(deepest[0] < deepest[1], sort + " " + direction + ", filtered: deepest window "
+                        + deepest[0] + " ms by keyset, " + deepest[1] + " ms by offset");
+            }
+        }
+    }
+
+    /**
+     * @return The keyset and the offset median of the deepest window.
+     */
+    private double[] measure(String sort, Sort.Direction direction, String filter, int rows) {
+        Sort order = "id".equals(sort) ? Sort.by(direction, "id") : Sort.by(direction, sort, "id");
+        String orderBy = "id".equals(sort) ? "id " + direction : sort + " " + direction + ", id " + direction;
+        double[] deepest = new double[2];
+        for (int fraction : List.of(0, 100, 10, 2, 1)) {
+            // A multiple of the window size, the last window when the whole result is skipped
+            int depth = fraction == 0 ? 0 : (rows / fraction - 1) / SIZE * SIZE;
+            PageRequest page = PageRequest.of(depth / SIZE, SIZE, order);
+            Map<String, Object> last = depth == 0 ? null : jdbcTemplate.queryForMap("SELECT " + sort + " AS sort_key, id"
+                    + " FROM spaceships" + (filter == null ? "" : " WHERE LOWER(name) LIKE ? ESCAPE '!'")
+                    + " ORDER BY " + orderBy + " LIMIT 1 OFFSET ?",
+                    filter == null ? new Object[] {depth - 1} : new Object[] {NameTrigrams.containsPattern(filter), depth - 1});
+            String afterValue = last == null || "id".equals(sort) ? null : (String) last.get("SORT_KEY");
+            Long afterId = last == null ? null : ((Number) last.get("ID")).longValue();
+            Supplier<Slice<Spaceship>> offsetQuery = filter == null
+                    ? () -> spaceshipRepository.findSliceBy(page)
+                    : () -> spaceshipRepository.findSliceByNameContainingIgnoreCase(filter, page);
+
+            assertEquals(ids(offsetQuery.get().getContent()),
+                    ids(spaceshipRepository.findSliceAfter(filter, sort, direction.isAscending(), afterValue, afterId, SIZE)),
+                    sort + " " + direction + " at " + depth);
+
+            deepest[0] = median(() -> spaceshipRepository.findSliceAfter(filter, sort, direction.isAscending(), afterValue, afterId, SIZE + 1));
+            deepest[1] = median(offsetQuery);
+            System.out.printf("%-6s %-5s %-7s %9d %11.2f %11.2f%n", sort, direction, filter == null ? "-" : filter, depth, deepest[0], deepest[1]);
+        }
+        return deepest;
+    }
+
+    private void load() {
+        jdbcTemplate.update("DELETE FROM spaceships");
+        jdbcTemplate.update("INSERT INTO spaceships (id, name, model, version) SELECT X, ARRAY_GET(ARRAY["
+                + "'Enterprise', 'Voyager', 'Defiant', 'Excelsior', 'Intrepid', 'Galaxy', 'Nova', 'Sovereign', 'Constitution', 'Miranda',"
+                + "'Ship', 'Oberth', 'Ambassador', 'Akira', 'Steamrunner', 'Saber', 'Norway', 'Prometheus', 'Olympic', 'Nebula'"
+                + "], MOD(X, 20) + 1) || ' ' || X, CASEWHEN(MOD(X, 5) = 0, NULL, 'Model ' || MOD(X, 97)), 0 FROM SYSTEM_RANGE(1, ?)", ROWS);
+    }
+
+    private static List<Long> ids(List<Spaceship> spaceships) {
+        return spaceships.stream().map(Spaceship::getId).toList();
+    }
+
+    private static double median(Supplier<?> query) {
+        for (int i = 0; i < 3; i++) {
+            query.get();
+        }
+        double[] millis = new double[REPETITIONS];
+        for (int i = 0; i < REPETITIONS; i++) {
+            long start = System.nanoTime();
+            query.get();
+            millis[i] = (System.nanoTime() - start) / 1e6;
+        }
+        Arrays.sort(millis);
+        return millis[REPETITIONS / 2];
+    }
+}
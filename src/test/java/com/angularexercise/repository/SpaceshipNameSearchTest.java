@@ -0,0 +1,118 @@
+package com.angularexercise.repository;
+
+import com.angularexercise.model.NameTrigrams;
+import com.angularexercise.model.Spaceship;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Name search harness: {@code search.rows} spaceships (100,000) named after 20 classes and their id, e.g.
+ * "Voyager 4242", with their trigram rows. Times a sorted page with its total and a filtered count through
+ * {@link SpaceshipRepository#findByNameContainingIgnoreCase} and through the plain LIKE scan, as medians of
+ * {@code search.repetitions} runs (15) after a warm-up. Selective terms must be faster through the trigram
+ * index; terms whose every trigram is common must fall back to the scan. The timing test is tagged
+ * {@code benchmark}, out of the default build:
+ * {@code mvn -Pbenchmark test -Dtest=SpaceshipNameSearchTest -Dsearch.rows=1000000}.
+ */
+@DataJpaTest
+class SpaceshipNameSearchTest {
+
+    private static final int ROWS = Integer.getInteger("search.rows", 100_000);
+    private static final int REPETITIONS = Integer.getInteger("search.repetitions", 15);
+    private static final List<String> TERMS = List.of("ship 12", "voyager 4242", "4242", "galaxy 99");
+
+    @Autowired
+    private SpaceshipRepository spaceshipRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testSelectiveTermsFindWhatTheScanFinds() {
+        load(5_000);
+        Pageable page = PageRequest.of(0, 20, Sort.by("model", "id"));
+
+        for (String term : TERMS) {
+            assertNotNull(spaceshipRepository.selectiveTrigram(term), term);
+            assertSameAsScan(term, page);
+        }
+    }
+
+    @Test
+    @Tag("benchmark")
+    void testSelectiveTermsBeatTheScanAndCommonOnesFallBackToIt() {
+        load(ROWS);
+        Pageable page = PageRequest.of(0, 20, Sort.by("model", "id"));
+        System.out.printf("%d rows%n%-14s %-8s %9s %9s %11s %11s%n", ROWS, "term", "trigram", "page ms", "scan ms", "count ms", "scan ms");
+
+        for (String term : TERMS) {
+            String pattern = NameTrigrams.containsPattern(term);
+            String trigram = spaceshipRepository.selectiveTrigram(term);
+            assertNotNull(trigram, term);
+            assertSameAsScan(term, page);
+
+            double indexedPage = median(() -> spaceshipRepository.findByNameContainingIgnoreCase(term, page));
+            double scannedPage = median(() -> spaceshipRepository.findByNameLike(pattern, page));
+            double indexedCount = median(() -> spaceshipRepository.countByNameContainingIgnoreCase(term));
+            double scannedCount = median(() -> spaceshipRepository.countByNameLike(pattern));
+            System.out.printf("%-14s %-8s %9.2f %9.2f %11.2f %11.2f%n", term, trigram, indexedPage, scannedPage, indexedCount, scannedCount);
+            assertTrue(indexedPage < scannedPage, term + ": page " + indexedPage + " ms through the index, " + scannedPage + " ms scanning");
+            assertTrue(indexedCount < scannedCount, term + ": count " + indexedCount + " ms through the index, " + scannedCount + " ms scanning");
+        }
+
+        // "ira" is in every Miranda and Akira, a tenth of the rows; "er " in three classes
+        if (ROWS >= 10 * NameTrigrams.MAX_CANDIDATES) {
+            for (String term : List.of("ira", "er ")) {
+                assertNull(spaceshipRepository.selectiveTrigram(term), term);
+                assertEquals(spaceshipRepository.countByNameLike(NameTrigrams.containsPattern(term)),
+                        spaceshipRepository.countByNameContainingIgnoreCase(term), term);
+            }
+        }
+    }
+
+    private void assertSameAsScan(String term, Pageable page) {
+        Page<Spaceship> indexed = spaceshipRepository.findByNameContainingIgnoreCase(term, page);
+        Page<Spaceship> scanned = spaceshipRepository.findByNameLike(NameTrigrams.containsPattern(term), page);
+        assertEquals(scanned.getContent(), indexed.getContent(), term);
+        assertEquals(scanned.getTotalElements(), indexed.getTotalElements(), term);
+        assertEquals(scanned.getTotalElements(), spaceshipRepository.countByNameContainingIgnoreCase(term), term);
+    }
+
+    private void load(int rows) {
+        jdbcTemplate.update("DELETE FROM spaceships");
+        jdbcTemplate.update("INSERT INTO spaceships (id, name, model, version) SELECT X, ARRAY_GET(ARRAY["
+                + "'Enterprise', 'Voyager', 'Defiant', 'Excelsior', 'Intrepid', 'Galaxy', 'Nova', 'Sovereign', 'Constitution', 'Miranda',"
+                + "'Ship', 'Oberth', 'Ambassador', 'Akira', 'Steamrunner', 'Saber', 'Norway', 'Prometheus', 'Olympic', 'Nebula'"
+                + "], MOD(X, 20) + 1) || ' ' || X, 'Model ' || MOD(X, 97), 0 FROM SYSTEM_RANGE(1, ?)", rows);
+        jdbcTemplate.update("INSERT INTO spaceship_name_trigrams (trigram, spaceship_id)"
+                + " SELECT DISTINCT SUBSTRING(LOWER(s.name), p.X, 3), s.id FROM spaceships s"
+                + " JOIN SYSTEM_RANGE(1, 40) p ON p.X <= CHAR_LENGTH(s.name) - 2");
+    }
+
+    private static double median(Supplier<?> query) {
+        for (int i = 0; i < 3; i++) {
+            query.get();
+        }
+        double[] millis = new double[REPETITIONS];
+        for (int i = 0; i < REPETITIONS; i++) {
+            long start = System.nanoTime();
+            query.get();
+            millis[i] = (System.nanoTime() - start) / 1e6;
+        }
+        Arrays.sort(millis);
+        return millis[REPETITIONS / 2];
+    }
+}
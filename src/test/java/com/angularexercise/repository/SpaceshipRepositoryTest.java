@@ -0,0 +1,317 @@
+package com.angularexercise.repository;
+
+import com.angularexercise.model.Spaceship;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class SpaceshipRepositoryTest {
+
+    @Autowired
+    private SpaceshipRepository spaceshipRepository;
+
+    @Autowired
+    private SpaceshipRepositoryImpl spaceshipRepositoryImpl;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        spaceshipRepository.deleteAll();
+        List<Spaceship> spaceships = new ArrayList<>();
+        for (int i = 0; i < 57; i++) {
+            // Repeated names and null models exercise the (key, id) tie-breaking and null handling
+            spaceships.add(new Spaceship("Ship " + (i % 7), i % 5 == 0 ? null : "Model " + (i % 4)));
+        }
+        spaceshipRepository.saveAll(spaceships);
+    }
+
+    @Test
+    void testKeysetWalkMatchesOffsetOrderForEverySortAndDirection() {
+        for (String sort : List.of("id", "name", "model")) {
+            for (Sort.Direction direction : Sort.Direction.values()) {
+                Sort expectedOrder = "id".equals(sort)
+                        ? Sort.by(direction, "id")
+                        : Sort.by(direction, sort).and(Sort.by(direction, "id"));
+                List<Spaceship> expected = spaceshipRepository.findAll(expectedOrder);
+
+                List<Spaceship> walked = walk(null, sort, direction.isAscending(), 10);
+
+                assertEquals(ids(expected), ids(walked), "sort=" + sort + " direction=" + direction);
+            }
+        }
+    }
+
+    @Test
+    void testKeysetWalkWithNameFilter() {
+        List<Spaceship> walked = walk("SHIP 3", "name", true, 4);
+
+        assertFalse(walked.isEmpty());
+        assertTrue(walked.stream().allMatch(s -> s.getName().equals("Ship 3")));
+        assertEquals(spaceshipRepository.findAll().stream().filter(s -> s.getName().equals("Ship 3")).count(), walked.size());
+    }
+
+    @Test
+    void testNameSearchMatchesSubstringSemantics() {
+        spaceshipRepository.saveAll(List.of(
+                new Spaceship("Enterprise", "Galaxy Class"),
+                new Spaceship("USS Enterprise-D", "Galaxy Class"),
+                new Spaceship("Defiant", "Defiant Class"),
+                new Spaceship("50% Voyager", "Intrepid Class"),
+                new Spaceship("Voyager_2", "Intrepid Class")));
+
+        for (String term : List.of("enter", "ENTERPRISE", "prise-d", "nt", "e", "%", "_2", "50% v", "ship 1", "xyz", "ianT")) {
+            List<String> expected = spaceshipRepository.findAll(Sort.by("id")).stream()
+                    .map(Spaceship::getName)
+                    .filter(n -> n.toLowerCase().contains(term.toLowerCase()))
+                    .toList();
+
+            List<String> found = spaceshipRepository.findByNameContainingIgnoreCase(term, PageRequest.of(0, 100, Sort.by("id")))
+                    .map(Spaceship::getName)
+                    .getContent();
+
+            assertEquals(expected, found, "term=" + term);
+        }
+    }
+
+    @Test
+    void testNameSearchFollowsRenamesAndDeletes() {
+        Spaceship spaceship = spaceshipRepository.save(new Spaceship("Enterprise", "Galaxy Class"));
+        spaceship.setName("Excelsior");
+        spaceshipRepository.saveAndFlush(spaceship);
+
+        assertEquals(0, spaceshipRepository.findByNameContainingIgnoreCase("enterprise", PageRequest.of(0, 10)).getTotalElements());
+        assertEquals(1, spaceshipRepository.findByNameContainingIgnoreCase("celsi", PageRequest.of(0, 10)).getTotalElements());
+
+        spaceshipRepository.deleteById(spaceship.getId());
+        spaceshipRepository.flush();
+
+        assertEquals(0, spaceshipRepository.findByNameContainingIgnoreCase("celsi", PageRequest.of(0, 10)).getTotalElements());
+    }
+
+    @Test
+    void testUpdateReturningPreviousIsOneStatementAndKeepsTrigramsInLine() {
+        Spaceship spaceship = spaceshipRepository.saveAndFlush(new Spaceship("Enterprise", "Galaxy Class"));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Spaceship previous = spaceshipRepository.updateReturningPrevious(spaceship.getId(), "Enterprise", null, 0L).orElseThrow();
+
+        assertEquals("Galaxy Class", previous.getModel());
+        assertEquals(0L, previous.getVersion());
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        previous = spaceshipRepository.updateReturningPrevious(spaceship.getId(), "Excelsior", "Constitution Class", null).orElseThrow();
+
+        assertEquals("Enterprise", previous.getName());
+        assertNull(previous.getModel());
+        assertEquals(1L, previous.getVersion());
+        // The rename adds and removes trigrams: one DELETE and one INSERT
+        assertEquals(4, statistics.getPrepareStatementCount());
+        assertEquals(0, spaceshipRepository.findByNameContainingIgnoreCase("enterprise", PageRequest.of(0, 10)).getTotalElements());
+        assertEquals(1, spaceshipRepository.findByNameContainingIgnoreCase("celsi", PageRequest.of(0, 10)).getTotalElements());
+        assertEquals(1, spaceshipRepository.findByNameContainingIgnoreCase("excelsior", PageRequest.of(0, 10)).getTotalElements());
+    }
+
+    @Test
+    void testUpdateReturningPreviousMatchesNothingForMissingIdOrOtherVersion() {
+        Spaceship spaceship = spaceshipRepository.saveAndFlush(new Spaceship("Enterprise", "Galaxy Class"));
+
+        assertTrue(spaceshipRepository.updateReturningPrevious(spaceship.getId(), "Excelsior", "Galaxy Class", 5L).isEmpty());
+        assertTrue(spaceshipRepository.updateReturningPrevious(-1, "Excelsior", "Galaxy Class", null).isEmpty());
+        assertEquals(1, spaceshipRepository.findByNameContainingIgnoreCase("enterprise", PageRequest.of(0, 10)).getTotalElements());
+    }
+
+    @Test
+    void testDeleteReturningPreviousIsOneStatement() {
+        Spaceship spaceship = spaceshipRepository.saveAndFlush(new Spaceship("Excelsior", "Constitution Class"));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Spaceship deleted = spaceshipRepository.deleteReturningPrevious(spaceship.getId()).orElseThrow();
+
+        assertEquals("Excelsior", deleted.getName());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertTrue(spaceshipRepository.deleteReturningPrevious(spaceship.getId()).isEmpty());
+        assertEquals(0, spaceshipRepository.findByNameContainingIgnoreCase("celsi", PageRequest.of(0, 10)).getTotalElements());
+    }
+
+    @Test
+    void testUpdateAllReadsOnceAndBatchesTheWrites() {
+        List<Spaceship> fleet = spaceshipRepository.saveAllAndFlush(fleet(1200));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        List<Spaceship> details = fleet.stream()
+                .map(spaceship -> new Spaceship(spaceship.getId(), spaceship.getId() % 2 == 0 ? "Renamed " + spaceship.getId() : spaceship.getName(), "Refit"))
+                .collect(Collectors.toCollection(ArrayList::new));
+        details.add(new Spaceship(-1L, "Ghost", null));
+
+        Map<Long, Spaceship> previous = spaceshipRepository.updateAllReturningPrevious(details);
+
+        // The versions are bumped and the rows returned by one statement; the rest is sent as JDBC batches
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(1200, previous.size());
+        assertFalse(previous.containsKey(-1L));
+        Spaceship first = fleet.get(0);
+        assertEquals(first.getName(), previous.get(first.getId()).getName());
+        assertEquals(0L, previous.get(first.getId()).getVersion());
+        entityManager.clear();
+        Spaceship updated = spaceshipRepository.findById(first.getId()).orElseThrow();
+        assertEquals("Refit", updated.getModel());
+        assertEquals(1L, updated.getVersion());
+        assertEquals(600, spaceshipRepository.findByNameContainingIgnoreCase("renamed", PageRequest.of(0, 10)).getTotalElements());
+        assertEquals(600, spaceshipRepository.findByNameContainingIgnoreCase("imported", PageRequest.of(0, 10)).getTotalElements());
+    }
+
+    @Test
+    void testDeleteAllReturningPreviousIsOneStatement() {
+        List<Spaceship> fleet = spaceshipRepository.saveAllAndFlush(fleet(3));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Map<Long, Spaceship> deleted = spaceshipRepository.deleteAllReturningPrevious(
+                List.of(fleet.get(0).getId(), fleet.get(1).getId(), -1L));
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(Set.of(fleet.get(0).getId(), fleet.get(1).getId()), deleted.keySet());
+        assertEquals(fleet.get(1).getName(), deleted.get(fleet.get(1).getId()).getName());
+        entityManager.clear();
+        assertFalse(spaceshipRepository.existsById(fleet.get(0).getId()));
+        assertTrue(spaceshipRepository.existsById(fleet.get(2).getId()));
+    }
+
+    @Test
+    void testWritesOnOtherDatabasesLockTheRowAndThenWriteIt() {
+        Spaceship spaceship = spaceshipRepository.saveAndFlush(new Spaceship("Enterprise", "Galaxy Class"));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        ReflectionTestUtils.setField(spaceshipRepositoryImpl, "deltaTables", false);
+        try {
+            statistics.clear();
+
+            Spaceship previous = spaceshipRepository.updateReturningPrevious(spaceship.getId(), "Excelsior", "Constitution Class", 0L).orElseThrow();
+
+            assertEquals("Enterprise", previous.getName());
+            assertEquals(0L, previous.getVersion());
+            // SELECT ... FOR UPDATE, UPDATE, then the trigram DELETE and INSERT
+            assertEquals(4, statistics.getPrepareStatementCount());
+            assertTrue(spaceshipRepository.updateReturningPrevious(spaceship.getId(), "Voyager", null, 0L).isEmpty());
+            assertEquals(1, spaceshipRepository.findByNameContainingIgnoreCase("excelsior", PageRequest.of(0, 10)).getTotalElements());
+
+            Spaceship deleted = spaceshipRepository.deleteReturningPrevious(spaceship.getId()).orElseThrow();
+
+            assertEquals("Excelsior", deleted.getName());
+            assertEquals(1L, deleted.getVersion());
+            assertTrue(spaceshipRepository.deleteReturningPrevious(spaceship.getId()).isEmpty());
+            assertTrue(spaceshipRepository.updateReturningPrevious(spaceship.getId(), "Voyager", null, null).isEmpty());
+
+            List<Spaceship> fleet = spaceshipRepository.saveAllAndFlush(fleet(2));
+            Map<Long, Spaceship> previousRows = spaceshipRepository.updateAllReturningPrevious(List.of(
+                    new Spaceship(fleet.get(0).getId(), "Voyager", null), new Spaceship(fleet.get(1).getId(), fleet.get(1).getName(), "Refit")));
+            assertEquals(fleet.get(0).getName(), previousRows.get(fleet.get(0).getId()).getName());
+            assertEquals(1, spaceshipRepository.findByNameContainingIgnoreCase("voyager", PageRequest.of(0, 10)).getTotalElements());
+            entityManager.clear();
+            assertEquals(1L, spaceshipRepository.findById(fleet.get(1).getId()).orElseThrow().getVersion());
+            assertEquals(Set.of(fleet.get(0).getId()), spaceshipRepository.deleteAllReturningPrevious(List.of(fleet.get(0).getId(), -1L)).keySet());
+            assertFalse(spaceshipRepository.existsById(fleet.get(0).getId()));
+        } finally {
+            ReflectionTestUtils.setField(spaceshipRepositoryImpl, "deltaTables", null);
+        }
+    }
+
+    @Test
+    void testSaveAllSendsInsertsAsJdbcBatches() {
+        spaceshipRepository.flush();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        spaceshipRepository.saveAll(fleet(2000));
+        spaceshipRepository.flush();
+
+        // 2000 ships plus their trigram rows, in batches of 500, plus one sequence call per 50 ids
+        assertEquals(2000, statistics.getEntityInsertCount());
+        assertTrue(statistics.getPrepareStatementCount() < 200,
+                "expected batched inserts but prepared " + statistics.getPrepareStatementCount() + " statements");
+    }
+
+    /**
+     * Compares the single-item write path (one transaction per ship, as with POST /create) against one
+     * batched saveAll, as with POST /batch.
+     */
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void testBatchInsertThroughputAgainstSingleItemPath() {
+        int count = 2000;
+        long start = System.nanoTime();
+        for (Spaceship spaceship : fleet(count)) {
+            spaceshipRepository.save(spaceship);
+        }
+        long singleNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        spaceshipRepository.saveAll(fleet(count));
+        long batchNanos = System.nanoTime() - start;
+
+        System.out.printf("Inserted %d spaceships: single-item %.0f/s, batch %.0f/s%n",
+                count, count / (singleNanos / 1e9), count / (batchNanos / 1e9));
+        assertTrue(batchNanos < singleNanos);
+        spaceshipRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void testUnsupportedSortFieldIsRejected() {
+        assertThrows(InvalidDataAccessApiUsageException.class,
+                () -> spaceshipRepository.findSliceAfter(null, "version; drop", true, null, null, 10));
+    }
+
+    private List<Spaceship> walk(String name, String sort, boolean ascending, int size) {
+        List<Spaceship> walked = new ArrayList<>();
+        String afterValue = null;
+        Long afterId = null;
+        while (true) {
+            List<Spaceship> slice = spaceshipRepository.findSliceAfter(name, sort, ascending, afterValue, afterId, size);
+            walked.addAll(slice);
+            if (slice.size() < size) {
+                return walked;
+            }
+            Spaceship last = slice.get(slice.size() - 1);
+            afterValue = "name".equals(sort) ? last.getName() : "model".equals(sort) ? last.getModel() : null;
+            afterId = last.getId();
+        }
+    }
+
+    private static List<Spaceship> fleet(int count) {
+        List<Spaceship> spaceships = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            spaceships.add(new Spaceship("Imported " + i, "Model " + (i % 10)));
+        }
+        return spaceships;
+    }
+
+    private static List<Long> ids(List<Spaceship> spaceships) {
+        return spaceships.stream().map(Spaceship::getId).toList();
+    }
+}
@@ -0,0 +1,90 @@
+package com.angularexercise.service;
+
+import com.angularexercise.cache.SpaceshipCacheInvalidator;
+import com.angularexercise.cache.SpaceshipChange;
+import com.angularexercise.exception.ResourceNotFoundException;
+import com.angularexercise.model.Spaceship;
+import com.angularexercise.repository.ReactiveSpaceshipRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveSpaceshipServiceTest {
+
+    @Mock
+    private ReactiveSpaceshipRepository repository;
+
+    @Mock
+    private SpaceshipCacheInvalidator cacheInvalidator;
+
+    @InjectMocks
+    private ReactiveSpaceshipService spaceshipService;
+
+    @Test
+    void testGetAllSpaceshipsCombinesPageAndTotal() {
+        when(repository.findAll("enter", "name", Sort.Direction.DESC, 20, 10))
+                .thenReturn(Flux.just(new Spaceship(1L, "Enterprise", "Galaxy Class")));
+        when(repository.count("enter")).thenReturn(Mono.just(21L));
+
+        StepVerifier.create(spaceshipService.getAllSpaceships("enter", "name", "desc", PageRequest.of(2, 10)))
+                .assertNext(page -> {
+                    assertEquals(List.of("Enterprise"), page.getContent().stream().map(Spaceship::getName).toList());
+                    assertEquals(21, page.getTotalElements());
+                    assertEquals(3, page.getTotalPages());
+                    assertEquals(Sort.by(Sort.Direction.DESC, "name"), page.getSort());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void testGetMissingSpaceshipFailsWithNotFound() {
+        when(repository.findById(7L)).thenReturn(Mono.empty());
+
+        StepVerifier.create(spaceshipService.getSpaceshipById(7L))
+                .expectError(ResourceNotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    void testCreateInvalidatesCachesOnlyAfterInsert() {
+        Spaceship saved = new Spaceship(5L, "Defiant", "Defiant Class");
+        when(repository.insert(any())).thenReturn(Mono.just(saved));
+
+        Mono<Spaceship> created = spaceshipService.createSpaceship(new Spaceship("Defiant", "Defiant Class"));
+        verifyNoInteractions(cacheInvalidator);
+
+        StepVerifier.create(created).expectNext(saved).verifyComplete();
+        verify(cacheInvalidator).invalidate(SpaceshipChange.created(5L, "Defiant"));
+    }
+
+    @Test
+    void testDeleteMissingSpaceshipFailsWithNotFound() {
+        when(repository.deleteById(9L)).thenReturn(Mono.empty());
+
+        StepVerifier.create(spaceshipService.deleteSpaceship(9L))
+                .expectError(ResourceNotFoundException.class)
+                .verify();
+        verifyNoInteractions(cacheInvalidator);
+    }
+
+    @Test
+    void testDeleteInvalidatesWithDeletedName() {
+        when(repository.deleteById(9L)).thenReturn(Mono.just("Voyager"));
+
+        StepVerifier.create(spaceshipService.deleteSpaceship(9L)).verifyComplete();
+        verify(cacheInvalidator).invalidate(SpaceshipChange.deleted(9L, "Voyager"));
+    }
+}
@@ -0,0 +1,125 @@
+package com.angularexercise.service;
+
+import com.angularexercise.cache.SpaceshipCacheInvalidator;
+import com.angularexercise.cache.SpaceshipChange;
+import com.angularexercise.kafka.SpaceshipCacheInvalidationPublisher;
+import com.angularexercise.repository.SpaceshipRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SpaceshipCounterTest {
+
+    @Mock
+    private SpaceshipRepository spaceshipRepository;
+
+    @Mock
+    private SpaceshipCacheInvalidator cacheInvalidator;
+
+    @InjectMocks
+    private SpaceshipCounter counter;
+
+    @Test
+    void testTotalIsCountedOnceThenFollowsChanges() {
+        when(spaceshipRepository.count()).thenReturn(10L);
+
+        assertEquals(10, counter.total());
+        counter.apply(List.of(SpaceshipChange.created(11L, "Enterprise"), SpaceshipChange.created(12L, "Voyager")));
+        counter.apply(List.of(SpaceshipChange.updated(11L, "Enterprise", "Enterprise-A")));
+        counter.apply(List.of(SpaceshipChange.deleted(3L, "Defiant")));
+
+        assertEquals(11, counter.total());
+        verify(spaceshipRepository, times(1)).count();
+    }
+
+    @Test
+    void testUnlistedChangesMakeItCountAgain() {
+        when(spaceshipRepository.count()).thenReturn(10L, 500L);
+
+        assertEquals(10, counter.total());
+        counter.apply(null);
+
+        assertEquals(500, counter.total());
+        assertEquals(500, counter.total());
+        verify(spaceshipRepository, times(2)).count();
+    }
+
+    @Test
+    void testCountRacingAChangeIsNotKept() {
+        when(spaceshipRepository.count()).thenAnswer(invocation -> {
+            // Committed while the count ran: the count may or may not include it
+            counter.apply(List.of(SpaceshipChange.created(11L, "Enterprise")));
+            return 10L;
+        }).thenReturn(11L);
+
+        assertEquals(10, counter.total());
+        assertEquals(11, counter.total());
+        assertEquals(11, counter.total());
+        verify(spaceshipRepository, times(2)).count();
+    }
+
+    @Test
+    void testCountSeeingAWriteBeforeItsListenersRanIsNotKept() {
+        SpaceshipCacheInvalidator invalidator = new SpaceshipCacheInvalidator(mock(CacheManager.class),
+                mock(SpaceshipCacheInvalidationPublisher.class));
+        SpaceshipCounter racingCounter = new SpaceshipCounter(spaceshipRepository, invalidator);
+        racingCounter.trackChanges();
+        when(spaceshipRepository.count()).thenReturn(10L);
+        assertEquals(10, racingCounter.total());
+
+        when(spaceshipRepository.count()).thenReturn(11L);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            invalidator.invalidate(SpaceshipChange.created(11L, "Enterprise"));
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            racingCounter.apply(null);
+            // Committed, so in the count, but not applied yet
+            assertEquals(11, racingCounter.total());
+            TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+            TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(11, racingCounter.total());
+        assertEquals(11, racingCounter.total());
+        verify(spaceshipRepository, times(3)).count();
+    }
+
+    @Test
+    void testTotalIsCountedAgainOnceTooOld() {
+        counter.maxAgeMs = 0;
+        when(spaceshipRepository.count()).thenReturn(10L, 12L);
+
+        assertEquals(10, counter.total());
+        // A creation on another node whose invalidation was lost
+        assertEquals(12, counter.total());
+    }
+
+    @Test
+    void testChangesBeforeTheFirstCountAreIgnored() {
+        counter.apply(List.of(SpaceshipChange.created(11L, "Enterprise")));
+        when(spaceshipRepository.count()).thenReturn(11L);
+
+        assertEquals(11, counter.total());
+    }
+
+    @Test
+    void testRegistersWithTheInvalidator() {
+        counter.trackChanges();
+
+        verify(cacheInvalidator).addInvalidationListener(any());
+    }
+}
@@ -0,0 +1,98 @@
+package com.angularexercise.service;
+
+import com.angularexercise.cache.SpaceshipCacheInvalidator;
+import com.angularexercise.kafka.SpaceshipOutbox;
+import com.angularexercise.readmodel.SpaceshipReadModel;
+import com.angularexercise.repository.SpaceshipRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Exports a large table through {@link SpaceshipService#exportSpaceships}. The table lives in a file-backed
+ * H2 database so that the rows themselves do not occupy the test heap. The default build exports a few fetches'
+ * worth; the large export is tagged {@code benchmark}, and its full-size run is
+ * {@code mvn -Pbenchmark test -Dtest=SpaceshipExportTest -Dexport.rows=5000000 -DargLine=-Xmx128m}.
+ */
+@DataJpaTest(properties = "spring.datasource.url=jdbc:h2:file:./target/h2/spaceship-export")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(SpaceshipService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SpaceshipExportTest {
+
+    private static final long ROWS = Long.getLong("export.rows", 200_000);
+    private static final long INSERT_CHUNK = 100_000;
+
+    @Autowired
+    private SpaceshipService spaceshipService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @MockBean
+    private SpaceshipOutbox outbox;
+
+    @MockBean
+    private SpaceshipCacheInvalidator cacheInvalidator;
+
+    @MockBean
+    private SpaceshipReadModel readModel;
+
+    @MockBean
+    private SpaceshipCounter counter;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM spaceships");
+    }
+
+    @Test
+    void testExportKeepsPersistenceContextBounded() {
+        export(5L * SpaceshipRepository.STREAM_FETCH_SIZE + 1);
+    }
+
+    @Test
+    @Tag("benchmark")
+    void testLargeExportKeepsPersistenceContextBounded() {
+        export(ROWS);
+    }
+
+    private void export(long rows) {
+        jdbcTemplate.update("DELETE FROM spaceships");
+        for (long from = 1; from <= rows; from += INSERT_CHUNK) {
+            jdbcTemplate.update("INSERT INTO spaceships (id, name, model) "
+                    + "SELECT X, 'Ship ' || X, 'Model ' || MOD(X, 10) FROM SYSTEM_RANGE(?, ?)",
+                    from, Math.min(from + INSERT_CHUNK - 1, rows));
+        }
+        long[] lastId = {0};
+        int[] maxManaged = {0};
+
+        long count = spaceshipService.exportSpaceships(spaceship -> {
+            assertEquals(lastId[0] + 1, spaceship.getId());
+            lastId[0] = spaceship.getId();
+            maxManaged[0] = Math.max(maxManaged[0], entityManager.unwrap(Session.class).getStatistics().getEntityCount());
+        });
+
+        Runtime runtime = Runtime.getRuntime();
+        System.out.printf("Exported %d spaceships, at most %d managed at once, heap used %d MB of max %d MB%n",
+                count, maxManaged[0], (runtime.totalMemory() - runtime.freeMemory()) >> 20, runtime.maxMemory() >> 20);
+        assertEquals(rows, count);
+        assertTrue(maxManaged[0] <= SpaceshipRepository.STREAM_FETCH_SIZE,
+                "persistence context grew to " + maxManaged[0] + " entities");
+    }
+}
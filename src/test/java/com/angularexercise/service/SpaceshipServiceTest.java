@@ -1,19 +1,40 @@
 package com.angularexercise.service;
 
+import com.angularexercise.cache.SingleFlight;
+import com.angularexercise.cache.SpaceshipCacheInvalidator;
+import com.angularexercise.kafka.SpaceshipEvent;
+import com.angularexercise.kafka.SpaceshipOutbox;
+import com.angularexercise.cache.SpaceshipChange;
+import com.angularexercise.cache.SpaceshipPageKey;
 import com.angularexercise.model.Spaceship;
+import com.angularexercise.model.SpaceshipCursor;
+import com.angularexercise.model.SpaceshipSlice;
+import com.angularexercise.readmodel.SpaceshipReadModel;
 import com.angularexercise.repository.SpaceshipRepository;
 import com.angularexercise.exception.ResourceNotFoundException;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.*;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -25,7 +46,22 @@ class SpaceshipServiceTest {
     private SpaceshipRepository spaceshipRepository;
 
     @Mock
-    private KafkaTemplate<String, Spaceship> kafkaTemplate;
+    private SpaceshipOutbox outbox;
+
+    @Captor
+    private ArgumentCaptor<Collection<SpaceshipEvent>> events;
+
+    @Mock
+    private SpaceshipCacheInvalidator cacheInvalidator;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private SpaceshipReadModel readModel;
+
+    @Mock
+    private SpaceshipCounter counter;
 
     @InjectMocks
     private SpaceshipService spaceshipService;
@@ -39,15 +75,73 @@ class SpaceshipServiceTest {
             new Spaceship(1L, "Enterprise", "NCC-1701"),
             new Spaceship(2L, "Voyager", "NCC-74656")
         );
-        Page<Spaceship> page = new PageImpl<>(spaceships, pageable, spaceships.size());
+        Slice<Spaceship> slice = new SliceImpl<>(spaceships, pageable, false);
 
-        when(spaceshipRepository.findAll(pageable)).thenReturn(page);
+        when(spaceshipRepository.findSliceBy(pageable)).thenReturn(slice);
 
         Page<Spaceship> result = spaceshipService.getAllSpaceships(null, "id", "asc", PageRequest.of(0, 10));
 
         assertEquals(2, result.getTotalElements());
         assertEquals(2, result.getContent().size());
-        verify(spaceshipRepository, times(1)).findAll(pageable);
+        verify(spaceshipRepository, times(1)).findSliceBy(pageable);
+        // The only page ends where the result does
+        verifyNoInteractions(counter);
+    }
+
+    @Test
+    void testGetAllSpaceshipsTakesTotalFromCounter() {
+        Pageable pageable = PageRequest.of(1, 2, Sort.by(Sort.Direction.ASC, "id"));
+        List<Spaceship> spaceships = List.of(new Spaceship(3L, "Defiant", "NX-74205"), new Spaceship(4L, "Voyager", "NCC-74656"));
+
+        when(spaceshipRepository.findSliceBy(pageable)).thenReturn(new SliceImpl<>(spaceships, pageable, true));
+        when(counter.total()).thenReturn(7L);
+
+        Page<Spaceship> result = spaceshipService.getAllSpaceships(null, "id", "asc", PageRequest.of(1, 2));
+
+        assertEquals(7, result.getTotalElements());
+        assertEquals(4, result.getTotalPages());
+        verify(spaceshipRepository, never()).count();
+    }
+
+    @Test
+    void testGetAllSpaceshipsTakesFilteredTotalFromCounter() {
+        Pageable pageable = PageRequest.of(0, 1, Sort.by(Sort.Direction.ASC, "id"));
+
+        when(spaceshipRepository.findSliceByNameContainingIgnoreCase("Voy", pageable))
+                .thenReturn(new SliceImpl<>(List.of(new Spaceship(2L, "Voyager", "NCC-74656")), pageable, true));
+        when(counter.countMatching("voy")).thenReturn(3L);
+
+        Page<Spaceship> result = spaceshipService.getAllSpaceships("Voy", "id", "asc", PageRequest.of(0, 1));
+
+        assertEquals(3, result.getTotalElements());
+        verify(counter, never()).total();
+    }
+
+    @Test
+    void testGetSpaceshipSliceSkipsTotal() {
+        Pageable pageable = PageRequest.of(0, 1, Sort.by(Sort.Direction.ASC, "id"));
+        Slice<Spaceship> slice = new SliceImpl<>(List.of(new Spaceship(1L, "Enterprise", "NCC-1701")), pageable, true);
+
+        when(spaceshipRepository.findSliceBy(pageable)).thenReturn(slice);
+
+        Slice<Spaceship> result = spaceshipService.getSpaceshipSlice(null, "id", "asc", PageRequest.of(0, 1));
+
+        assertFalse(result instanceof Page<?>);
+        assertTrue(result.hasNext());
+        verifyNoInteractions(counter);
+    }
+
+    @Test
+    void testGetAllSpaceshipsFromReadModel() {
+        Page<Spaceship> page = new PageImpl<>(List.of(new Spaceship(1L, "Enterprise", "NCC-1701")));
+
+        when(readModel.isServing()).thenReturn(true);
+        when(readModel.findAll("enter", "name", Sort.Direction.DESC, PageRequest.of(0, 10))).thenReturn(page);
+
+        Page<Spaceship> result = spaceshipService.getAllSpaceships("enter", "name", "desc", PageRequest.of(0, 10));
+
+        assertSame(page, result);
+        verifyNoInteractions(spaceshipRepository);
     }
 
     @Test
@@ -57,9 +151,7 @@ class SpaceshipServiceTest {
             new Spaceship(2L, "Voyager", "NCC-74656"),
             new Spaceship(1L, "Enterprise", "NCC-1701")
         );
-        Page<Spaceship> page = new PageImpl<>(spaceships, pageable, spaceships.size());
-
-        when(spaceshipRepository.findAll(pageable)).thenReturn(page);
+        when(spaceshipRepository.findSliceBy(pageable)).thenReturn(new SliceImpl<>(spaceships, pageable, false));
 
         Page<Spaceship> result = spaceshipService.getAllSpaceships(null, "name", "desc", PageRequest.of(0, 10));
 
@@ -67,7 +159,7 @@ class SpaceshipServiceTest {
         assertEquals(2, result.getContent().size());
         assertEquals("Voyager", result.getContent().get(0).getName());
         assertEquals("Enterprise", result.getContent().get(1).getName());
-        verify(spaceshipRepository, times(1)).findAll(pageable);
+        verify(spaceshipRepository, times(1)).findSliceBy(pageable);
     }
 
     @Test
@@ -76,16 +168,59 @@ class SpaceshipServiceTest {
         List<Spaceship> spaceships = Arrays.asList(
             new Spaceship(1L, "Enterprise", "NCC-1701")
         );
-        Page<Spaceship> page = new PageImpl<>(spaceships, pageable, spaceships.size());
-
-        when(spaceshipRepository.findByNameContainingIgnoreCase(eq("Enterprise"), any(Pageable.class))).thenReturn(page);
+        when(spaceshipRepository.findSliceByNameContainingIgnoreCase(eq("Enterprise"), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(spaceships, pageable, false));
 
         Page<Spaceship> result = spaceshipService.getAllSpaceships("Enterprise", "id", "asc", PageRequest.of(0, 10));
 
         assertEquals(1, result.getTotalElements());
         assertEquals(1, result.getContent().size());
         assertEquals("Enterprise", result.getContent().get(0).getName());
-        verify(spaceshipRepository, times(1)).findByNameContainingIgnoreCase(eq("Enterprise"), any(Pageable.class));
+        verify(spaceshipRepository, times(1)).findSliceByNameContainingIgnoreCase(eq("Enterprise"), any(Pageable.class));
+    }
+
+    @Test
+    void testScrollSpaceshipsReturnsCursorForNextWindow() {
+        List<Spaceship> rows = Arrays.asList(
+            new Spaceship(2L, "Defiant", "NX-74205"),
+            new Spaceship(1L, "Enterprise", "NCC-1701"),
+            new Spaceship(3L, "Voyager", "NCC-74656")
+        );
+
+        when(spaceshipRepository.findSliceAfter(null, "name", true, null, null, 3)).thenReturn(rows);
+
+        SpaceshipSlice result = spaceshipService.scrollSpaceships(null, "name", "asc", 2, null);
+
+        assertEquals(2, result.content().size());
+        assertTrue(result.hasNext());
+        assertEquals(new SpaceshipCursor("name", "asc", "Enterprise", 1L), SpaceshipCursor.decode(result.nextCursor()));
+    }
+
+    @Test
+    void testScrollSpaceshipsResumesAfterCursor() {
+        String cursor = new SpaceshipCursor("name", "asc", "Enterprise", 1L).encode();
+
+        when(spaceshipRepository.findSliceAfter("Voy", "name", true, "Enterprise", 1L, 3))
+            .thenReturn(List.of(new Spaceship(3L, "Voyager", "NCC-74656")));
+
+        SpaceshipSlice result = spaceshipService.scrollSpaceships("Voy", "name", "asc", 2, cursor);
+
+        assertEquals(1, result.content().size());
+        assertFalse(result.hasNext());
+        assertNull(result.nextCursor());
+    }
+
+    @Test
+    void testScrollSpaceshipsRejectsCursorFromDifferentSort() {
+        String cursor = new SpaceshipCursor("name", "asc", "Enterprise", 1L).encode();
+
+        assertThrows(IllegalArgumentException.class, () -> spaceshipService.scrollSpaceships(null, "model", "asc", 2, cursor));
+    }
+
+    @Test
+    void testScrollSpaceshipsRejectsUnsupportedSortField() {
+        assertThrows(IllegalArgumentException.class, () -> spaceshipService.scrollSpaceships(null, "version", "asc", 2, null));
+        verifyNoInteractions(spaceshipRepository);
     }
 
     @Test
@@ -125,17 +260,21 @@ class SpaceshipServiceTest {
         assertEquals(1L, result.getId());
         assertEquals("Enterprise", result.getName());
         assertEquals("NCC-1701", result.getModel());
-        verify(kafkaTemplate, times(1)).send(eq("spaceship-topic"), eq(savedSpaceship));
+        ArgumentCaptor<SpaceshipEvent> event = ArgumentCaptor.forClass(SpaceshipEvent.class);
+        verify(outbox, times(1)).append(event.capture());
+        assertEquals(SpaceshipEvent.Operation.CREATED, event.getValue().operation());
+        assertEquals(savedSpaceship.getId(), event.getValue().id());
+        verify(cacheInvalidator, times(1)).invalidate(SpaceshipChange.created(1L, "Enterprise"));
     }
 
     @Test
     void testUpdateSpaceship() {
         Long id = 1L;
-        Spaceship existingSpaceship = new Spaceship(id, "Enterprise", "NCC-1701");
+        Spaceship previous = new Spaceship(id, "Enterprise", "NCC-1701");
+        previous.setVersion(3L);
         Spaceship updatedSpaceship = new Spaceship(id, "Enterprise-A", "NCC-1701-A");
 
-        when(spaceshipRepository.findById(id)).thenReturn(Optional.of(existingSpaceship));
-        when(spaceshipRepository.save(any(Spaceship.class))).thenReturn(updatedSpaceship);
+        when(spaceshipRepository.updateReturningPrevious(id, "Enterprise-A", "NCC-1701-A", null)).thenReturn(Optional.of(previous));
 
         Spaceship result = spaceshipService.updateSpaceship(id, updatedSpaceship);
 
@@ -143,7 +282,14 @@ class SpaceshipServiceTest {
         assertEquals(id, result.getId());
         assertEquals("Enterprise-A", result.getName());
         assertEquals("NCC-1701-A", result.getModel());
-        verify(kafkaTemplate, times(1)).send(eq("spaceship-topic"), eq(updatedSpaceship));
+        assertEquals(4L, result.getVersion());
+        ArgumentCaptor<SpaceshipEvent> event = ArgumentCaptor.forClass(SpaceshipEvent.class);
+        verify(outbox, times(1)).append(event.capture());
+        assertEquals(SpaceshipEvent.Operation.UPDATED, event.getValue().operation());
+        assertEquals(List.of(SpaceshipEvent.Field.NAME, SpaceshipEvent.Field.MODEL), event.getValue().changedFields());
+        verify(cacheInvalidator, times(1)).invalidate(SpaceshipChange.updated(id, "Enterprise", "Enterprise-A"));
+        // One statement: nothing is loaded first
+        verify(spaceshipRepository, never()).findById(any());
     }
 
     @Test
@@ -151,9 +297,32 @@ class SpaceshipServiceTest {
         Long id = 1L;
         Spaceship updatedSpaceship = new Spaceship(id, "Enterprise-A", "NCC-1701-A");
 
-        when(spaceshipRepository.findById(id)).thenReturn(Optional.empty());
+        when(spaceshipRepository.updateReturningPrevious(id, "Enterprise-A", "NCC-1701-A", null)).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class, () -> spaceshipService.updateSpaceship(id, updatedSpaceship));
+        when(spaceshipRepository.updateReturningPrevious(id, "Enterprise-A", "NCC-1701-A", 2L)).thenReturn(Optional.empty());
+        when(spaceshipRepository.findById(id)).thenReturn(Optional.empty());
+        assertThrows(ResourceNotFoundException.class, () -> spaceshipService.updateSpaceship(id, updatedSpaceship, 2L));
+        verifyNoInteractions(outbox, cacheInvalidator);
+    }
+
+    @Test
+    void testUpdateSpaceshipRejectsStaleVersion() {
+        Long id = 1L;
+        Spaceship existingSpaceship = new Spaceship(id, "Enterprise", "NCC-1701");
+        existingSpaceship.setVersion(3L);
+        Spaceship updatedSpaceship = new Spaceship(id, "Enterprise-A", "NCC-1701-A");
+        updatedSpaceship.setVersion(2L);
+
+        when(spaceshipRepository.updateReturningPrevious(eq(id), eq("Enterprise-A"), eq("NCC-1701-A"), anyLong())).thenReturn(Optional.empty());
+        when(spaceshipRepository.findById(id)).thenReturn(Optional.of(existingSpaceship));
+
+        OptimisticLockingFailureException e = assertThrows(OptimisticLockingFailureException.class,
+                () -> spaceshipService.updateSpaceship(id, updatedSpaceship));
+        assertEquals("Spaceship 1 is at version 3, not 2", e.getMessage());
+        assertThrows(OptimisticLockingFailureException.class, () -> spaceshipService.updateSpaceship(id, updatedSpaceship, 4L));
+        verify(spaceshipRepository, never()).saveAndFlush(any(Spaceship.class));
+        verifyNoInteractions(outbox, cacheInvalidator);
     }
 
     @Test
@@ -161,20 +330,151 @@ class SpaceshipServiceTest {
         Long id = 1L;
         Spaceship spaceship = new Spaceship(id, "Enterprise", "NCC-1701");
 
-        when(spaceshipRepository.findById(id)).thenReturn(Optional.of(spaceship));
+        when(spaceshipRepository.deleteReturningPrevious(id)).thenReturn(Optional.of(spaceship));
 
         spaceshipService.deleteSpaceship(id);
 
-        verify(spaceshipRepository, times(1)).deleteById(id);
-        verify(kafkaTemplate, times(1)).send(eq("spaceship-topic"), eq(spaceship));
+        verify(spaceshipRepository, never()).findById(any());
+        verify(spaceshipRepository, never()).deleteById(any());
+        verify(outbox, times(1)).appendDeletion(spaceship);
+        verify(outbox, never()).append(any());
+        verify(cacheInvalidator, times(1)).invalidate(SpaceshipChange.deleted(id, "Enterprise"));
     }
 
     @Test
     void testDeleteSpaceshipNotFound() {
         Long id = 1L;
 
-        when(spaceshipRepository.findById(id)).thenReturn(Optional.empty());
+        when(spaceshipRepository.deleteReturningPrevious(id)).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class, () -> spaceshipService.deleteSpaceship(id));
+        verifyNoInteractions(outbox, cacheInvalidator);
+    }
+
+    @Test
+    void testCreateSpaceshipsInvalidatesOnceAndSendsEveryShip() {
+        List<Spaceship> spaceships = Arrays.asList(new Spaceship("Enterprise", "NCC-1701"), new Spaceship("Voyager", "NCC-74656"));
+        List<Spaceship> savedSpaceships = Arrays.asList(new Spaceship(1L, "Enterprise", "NCC-1701"), new Spaceship(2L, "Voyager", "NCC-74656"));
+
+        when(spaceshipRepository.saveAll(spaceships)).thenReturn(savedSpaceships);
+
+        List<Spaceship> result = spaceshipService.createSpaceships(spaceships);
+
+        assertEquals(savedSpaceships, result);
+        verify(cacheInvalidator, times(1)).invalidate(List.of(
+            SpaceshipChange.created(1L, "Enterprise"), SpaceshipChange.created(2L, "Voyager")));
+        verify(outbox, times(1)).appendAll(events.capture());
+        assertEquals(List.of(1L, 2L), events.getValue().stream().map(SpaceshipEvent::id).toList());
+    }
+
+    @Test
+    void testUpdateSpaceshipsAppliesDetailsById() {
+        Spaceship previous = new Spaceship(1L, "Enterprise", "NCC-1701");
+        previous.setVersion(3L);
+
+        when(spaceshipRepository.updateAllReturningPrevious(any())).thenReturn(Map.of(1L, previous));
+
+        List<Spaceship> result = spaceshipService.updateSpaceships(List.of(new Spaceship(1L, "Enterprise-A", "NCC-1701-A")));
+
+        assertEquals("Enterprise-A", result.get(0).getName());
+        assertEquals("NCC-1701-A", result.get(0).getModel());
+        assertEquals(4L, result.get(0).getVersion());
+        verify(spaceshipRepository, never()).findAllById(any());
+        verify(spaceshipRepository, never()).saveAll(any());
+        verify(spaceshipRepository, never()).updateReturningPrevious(anyLong(), any(), any(), any());
+        verify(cacheInvalidator, times(1)).invalidate(List.of(SpaceshipChange.updated(1L, "Enterprise", "Enterprise-A")));
+        verify(outbox, times(1)).appendAll(events.capture());
+        assertEquals(List.of(SpaceshipEvent.Field.NAME, SpaceshipEvent.Field.MODEL),
+            events.getValue().iterator().next().changedFields());
+    }
+
+    @Test
+    void testUpdateSpaceshipsNotFound() {
+        Spaceship previous = new Spaceship(1L, "Enterprise", "NCC-1701");
+        previous.setVersion(0L);
+
+        when(spaceshipRepository.updateAllReturningPrevious(any())).thenReturn(Map.of(1L, previous));
+
+        List<Spaceship> details = List.of(new Spaceship(1L, "Enterprise-A", "NCC-1701-A"), new Spaceship(2L, "Voyager", "NCC-74656"));
+        ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class, () -> spaceshipService.updateSpaceships(details));
+
+        assertTrue(exception.getMessage().contains("[2]"));
+        verify(cacheInvalidator, never()).invalidate(anyList());
+        verify(outbox, never()).appendAll(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testWritesForgetOnlyTheLoadsTheyChange() {
+        SingleFlight<Long, Spaceship> spaceshipLoads = mock(SingleFlight.class);
+        SingleFlight<SpaceshipPageKey, Page<Spaceship>> pageLoads = mock(SingleFlight.class);
+        ReflectionTestUtils.setField(spaceshipService, "spaceshipLoads", spaceshipLoads);
+        ReflectionTestUtils.setField(spaceshipService, "pageLoads", pageLoads);
+        ArgumentCaptor<Consumer<Collection<SpaceshipChange>>> listener = ArgumentCaptor.forClass(Consumer.class);
+        ArgumentCaptor<Predicate<Long>> forgottenIds = ArgumentCaptor.forClass(Predicate.class);
+        ArgumentCaptor<Predicate<SpaceshipPageKey>> forgottenPages = ArgumentCaptor.forClass(Predicate.class);
+        spaceshipService.forgetLoadsOnInvalidation();
+        verify(cacheInvalidator).addInvalidationListener(listener.capture());
+
+        listener.getValue().accept(List.of(SpaceshipChange.updated(1L, "Enterprise", "Enterprise-A")));
+
+        verify(spaceshipLoads).forgetIf(forgottenIds.capture());
+        assertTrue(forgottenIds.getValue().test(1L));
+        assertFalse(forgottenIds.getValue().test(2L));
+        verify(pageLoads).forgetIf(forgottenPages.capture());
+        assertTrue(forgottenPages.getValue().test(SpaceshipPageKey.of(null, "name", "asc", PageRequest.of(0, 10))));
+        assertFalse(forgottenPages.getValue().test(SpaceshipPageKey.of("voy", "name", "asc", PageRequest.of(0, 10))));
+        verify(spaceshipLoads, never()).forgetAll();
+
+        // Too many changes to list
+        listener.getValue().accept(null);
+
+        verify(spaceshipLoads).forgetAll();
+        verify(pageLoads).forgetAll();
+    }
+
+    @Test
+    void testUpdateSpaceshipsRequiresIds() {
+        assertThrows(IllegalArgumentException.class,
+            () -> spaceshipService.updateSpaceships(List.of(new Spaceship("Enterprise", "NCC-1701"))));
+    }
+
+    @Test
+    void testDeleteSpaceshipsUsesSingleBatchDelete() {
+        List<Spaceship> spaceships = List.of(new Spaceship(1L, "Enterprise", "NCC-1701"), new Spaceship(2L, "Voyager", "NCC-74656"));
+
+        when(spaceshipRepository.deleteAllReturningPrevious(Set.of(1L, 2L)))
+            .thenReturn(spaceships.stream().collect(Collectors.toMap(Spaceship::getId, spaceship -> spaceship)));
+
+        spaceshipService.deleteSpaceships(List.of(1L, 2L, 2L));
+
+        verify(spaceshipRepository, never()).findAllById(any());
+        verify(spaceshipRepository, never()).deleteById(any());
+        verify(cacheInvalidator, times(1)).invalidate(argThat((Collection<SpaceshipChange> changes) -> Set.copyOf(changes).equals(Set.of(
+            SpaceshipChange.deleted(1L, "Enterprise"), SpaceshipChange.deleted(2L, "Voyager")))));
+        verify(outbox, times(1)).appendDeletions(argThat((Collection<Spaceship> deleted) -> Set.copyOf(deleted).equals(Set.copyOf(spaceships))));
+    }
+
+    @Test
+    void testDeleteSpaceshipsNotFound() {
+        when(spaceshipRepository.deleteAllReturningPrevious(Set.of(1L))).thenReturn(Map.of());
+
+        assertThrows(ResourceNotFoundException.class, () -> spaceshipService.deleteSpaceships(List.of(1L)));
+        verify(cacheInvalidator, never()).invalidate(anyList());
+        verify(outbox, never()).appendDeletions(any());
+    }
+
+    @Test
+    void testExportSpaceshipsClearsPersistenceContextEveryFetch() {
+        ReflectionTestUtils.setField(spaceshipService, "entityManager", entityManager);
+        when(spaceshipRepository.streamAllByOrderById()).thenReturn(
+            LongStream.rangeClosed(1, 2500).mapToObj(id -> new Spaceship(id, "Ship " + id, null)));
+        List<Spaceship> exported = new ArrayList<>();
+
+        long count = spaceshipService.exportSpaceships(exported::add);
+
+        assertEquals(2500, count);
+        assertEquals(2500L, exported.get(exported.size() - 1).getId());
+        verify(entityManager, times(2)).clear();
     }
-}
\ No newline at end of file
+}